@@ -6,6 +6,7 @@ import com.github.kshashov.telegram.handler.processor.arguments.BotRequestMethod
 import com.github.kshashov.telegram.handler.processor.response.BotBaseRequestMethodProcessor;
 import com.github.kshashov.telegram.handler.processor.response.BotHandlerMethodReturnValueHandler;
 import com.github.kshashov.telegram.handler.processor.response.BotResponseBodyMethodProcessor;
+import com.github.kshashov.telegram.handler.processor.response.BotTelegramResponsesMethodProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ConversionServiceFactoryBean;
@@ -29,6 +30,11 @@ public class MethodProcessorsConfiguration {
         return new BotBaseRequestMethodProcessor();
     }
 
+    @Bean
+    public BotHandlerMethodReturnValueHandler botTelegramResponsesMethodProcessor() {
+        return new BotTelegramResponsesMethodProcessor();
+    }
+
     @Bean
     public BotHandlerMethodReturnValueHandler botResponseBodyMethodProcessor(ConversionService conversionService) {
         return new BotResponseBodyMethodProcessor(conversionService);
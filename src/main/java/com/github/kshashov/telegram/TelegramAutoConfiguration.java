@@ -19,13 +19,17 @@ import com.pengrad.telegrambot.request.BaseRequest;
 import com.pengrad.telegrambot.response.BaseResponse;
 import io.javalin.Javalin;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.ConnectionPool;
 import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.NoneNestedConditions;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationListener;
@@ -34,11 +38,17 @@ import org.springframework.context.annotation.*;
 import org.springframework.context.event.ContextClosedEvent;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.env.Environment;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
 
 import javax.validation.constraints.NotNull;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -52,21 +62,15 @@ import java.util.stream.Collectors;
 @Import({MethodProcessorsConfiguration.class, MetricsConfiguration.class})
 @EnableConfigurationProperties(TelegramConfigurationProperties.class)
 public class TelegramAutoConfiguration implements BeanFactoryPostProcessor, EnvironmentAware {
+    private static final String ROUTER_FUNCTION_CLASS = "org.springframework.web.reactive.function.server.RouterFunction";
     private Environment environment;
 
     @Bean
-    Javalin javalinServer(@Qualifier("telegramBotPropertiesList") List<TelegramBotProperties> botProperties, TelegramBotGlobalProperties globalProperties) {
-        boolean hasWebhook = botProperties.stream().anyMatch(p -> p.getWebhook() != null);
-        if (!hasWebhook) return null;
-
-        try {
-            Javalin server = Javalin.create().start(globalProperties.getWebserverPort());
-            log.info("Javalin server has been started on {} port", globalProperties.getWebserverPort());
-            return server;
-        } catch (Exception ex) {
-            log.error("An unexpected error occured while starting Javalin server", ex);
-            return null;
-        }
+    WebhookFrontController webhookFrontController(Optional<WebhookEndpointRegistrar> registrar, TelegramBotGlobalProperties globalProperties, MetricsService metricsService) {
+        WebhookFrontController frontController = new WebhookFrontController(globalProperties.getWebhookMaxBodySize(), metricsService);
+        // Single route serves the webhooks of all bots
+        registrar.ifPresent(r -> r.register(frontController));
+        return frontController;
     }
 
     @Bean
@@ -76,7 +80,7 @@ public class TelegramAutoConfiguration implements BeanFactoryPostProcessor, Envi
 
     @Bean
     @Qualifier("telegramServicesList")
-    List<TelegramService> telegramServices(@Qualifier("telegramBotPropertiesList") List<TelegramBotProperties> botProperties, TelegramUpdatesHandler updatesHandler, TelegramBotGlobalProperties globalProperties, Optional<Javalin> server) {
+    List<TelegramService> telegramServices(@Qualifier("telegramBotPropertiesList") List<TelegramBotProperties> botProperties, TelegramUpdatesHandler updatesHandler, TelegramBotGlobalProperties globalProperties, HandlerMethodContainer handlerMethodContainer, MetricsService metricsService, WebhookFrontController webhookFrontController) {
         List<TelegramService> services = botProperties.stream()
                 .map(p -> {
                     // Register TelegramBot bean
@@ -89,9 +93,9 @@ public class TelegramAutoConfiguration implements BeanFactoryPostProcessor, Envi
 
                     // Create bot service
                     if (p.getWebhook() != null) {
-                        return new TelegramWebhookService(p, bot, updatesHandler, server.get());
+                        return new TelegramWebhookService(p, bot, updatesHandler, webhookFrontController, metricsService);
                     } else {
-                        return new TelegramPollingService(p, bot, updatesHandler);
+                        return new TelegramPollingService(p, bot, updatesHandler, handlerMethodContainer.getMessageTypes(p.getToken()), metricsService);
                     }
                 }).collect(Collectors.toList());
 
@@ -104,14 +108,30 @@ public class TelegramAutoConfiguration implements BeanFactoryPostProcessor, Envi
         return services;
     }
 
+    @Bean
+    @Qualifier("telegramOkHttpClient")
+    OkHttpClient telegramOkHttpClient(TelegramConfigurationProperties properties, MetricsService metricsService) {
+        // Outbound calls have their own threads, so they never compete with the handlers for the task executor
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(properties.getOutboundMaxRequests());
+        dispatcher.setMaxRequestsPerHost(properties.getOutboundMaxRequestsPerHost());
+        ConnectionPool connectionPool = new ConnectionPool(properties.getConnectionPoolMaxIdle(), properties.getConnectionPoolKeepAlive(), TimeUnit.MILLISECONDS);
+        metricsService.registerOutboundHttp(dispatcher::runningCallsCount, dispatcher::queuedCallsCount,
+                connectionPool::connectionCount, connectionPool::idleConnectionCount);
+        return new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(connectionPool)
+                .build();
+    }
+
     @Bean
     @Qualifier("telegramBotPropertiesList")
-    List<TelegramBotProperties> telegramBotPropertiesList(List<TelegramMvcController> controllers, TelegramBotGlobalProperties globalProperties) {
+    List<TelegramBotProperties> telegramBotPropertiesList(List<TelegramMvcController> controllers, TelegramBotGlobalProperties globalProperties, TelegramConfigurationProperties properties, @Qualifier("telegramOkHttpClient") OkHttpClient okHttpClient) {
         return controllers.stream()
                 .map(TelegramMvcController::getToken)
                 .distinct()
                 .map(token -> {
-                    TelegramBotProperties.Builder defaultBuilder = createDefaultBotPropertiesBuilder(token, globalProperties);
+                    TelegramBotProperties.Builder defaultBuilder = createDefaultBotPropertiesBuilder(token, okHttpClient, properties);
 
                     if (globalProperties.getBotProperties().containsKey(token)) {
                         globalProperties.getBotProperties().get(token).accept(defaultBuilder);
@@ -129,7 +149,7 @@ public class TelegramAutoConfiguration implements BeanFactoryPostProcessor, Envi
         BotHandlerMethodArgumentResolverComposite argumentResolver = new BotHandlerMethodArgumentResolverComposite(botGlobalProperties.getArgumentResolvers());
         BotHandlerMethodReturnValueHandlerComposite returnValueHandler = new BotHandlerMethodReturnValueHandlerComposite(botGlobalProperties.getReturnValueHandlers());
 
-        return new RequestDispatcher(handlerMethodContainer, sessionResolver, argumentResolver, returnValueHandler, metricsService);
+        return new RequestDispatcher(handlerMethodContainer, sessionResolver, argumentResolver, returnValueHandler, metricsService, botGlobalProperties.getAsyncTimeout());
     }
 
     @Bean
@@ -179,16 +199,24 @@ public class TelegramAutoConfiguration implements BeanFactoryPostProcessor, Envi
     }
 
     @Bean
-    ApplicationListener<ContextRefreshedEvent> onContextRefreshed(@Qualifier("telegramServicesList") List<TelegramService> telegramServices, TelegramBotGlobalProperties globalProperties, HandlerMethodContainer handlerMethodContainer) {
+    ApplicationListener<ContextRefreshedEvent> onContextRefreshed(@Qualifier("telegramServicesList") List<TelegramService> telegramServices, TelegramBotGlobalProperties globalProperties, HandlerMethodContainer handlerMethodContainer, RequestDispatcher requestDispatcher, MetricsService metricsService) {
+        if (globalProperties.getLookupCacheSize() > 0) {
+            handlerMethodContainer.setLookupCache(new HandlerLookupCache(globalProperties.getLookupCacheSize(), globalProperties.getLookupCacheMaxVariablesLength(), globalProperties.getLookupCacheMaxTextLength(), metricsService));
+        }
         handlerMethodContainer.setMatcherStrategy(globalProperties.getMatcherStrategy());
+        // Fail fast if some handler arguments are not supported
+        requestDispatcher.registerHandlerMethods(handlerMethodContainer.getHandlerMethods());
         return event -> telegramServices.forEach((s) -> globalProperties.getTaskExecutor().execute(s::start));
     }
 
     @Bean
-    ApplicationListener<ContextClosedEvent> onContextClosed(TelegramBotGlobalProperties globalProperties, @Qualifier("telegramServicesList") List<TelegramService> telegramServices) {
+    ApplicationListener<ContextClosedEvent> onContextClosed(TelegramBotGlobalProperties globalProperties, @Qualifier("telegramServicesList") List<TelegramService> telegramServices, @Qualifier("telegramOkHttpClient") OkHttpClient okHttpClient) {
         return event -> {
             telegramServices.forEach(TelegramService::stop);
 
+            okHttpClient.dispatcher().executorService().shutdown();
+            okHttpClient.connectionPool().evictAll();
+
             if (globalProperties.getTaskExecutor() != null) {
                 log.info("Shutting down ThreadPoolExecutor");
                 globalProperties.getTaskExecutor().shutdown();
@@ -202,12 +230,27 @@ public class TelegramAutoConfiguration implements BeanFactoryPostProcessor, Envi
             @NotNull List<BotHandlerMethodArgumentResolver> argumentResolvers,
             @NotNull List<BotHandlerMethodReturnValueHandler> returnValueHandlers,
             @NotNull TelegramConfigurationProperties properties) {
-        return TelegramBotGlobalProperties.builder()
+        TelegramBotGlobalProperties.Builder builder = TelegramBotGlobalProperties.builder()
                 .matcherStrategy(matcherStrategy)
                 .argumentResolvers(argumentResolvers)
                 .returnValueHandlers(returnValueHandlers)
                 .setWebserverPort(properties.getServerPort())
-                .taskExecutor(new ThreadPoolExecutor(properties.getCorePoolSize(), properties.getMaxPoolSize(), 0L, TimeUnit.SECONDS, new SynchronousQueue<>()))
+                .lookupCacheSize(properties.getLookupCacheSize())
+                .lookupCacheMaxVariablesLength(properties.getLookupCacheMaxVariablesLength())
+                .lookupCacheMaxTextLength(properties.getLookupCacheMaxTextLength())
+                .chatLanes(properties.getChatLanes())
+                .chatLanesQueueCapacity(properties.getChatLanesQueueCapacity())
+                .updatesOverflowPolicy(properties.getOverflowPolicy())
+                .virtualThreads(properties.isVirtualThreads())
+                .asyncTimeout(properties.getAsyncTimeout())
+                .dedupWindow(properties.getDedupWindow())
+                .webhookMaxBodySize(properties.getWebhookMaxBodySize())
+                .outboundRateLimits(
+                        properties.isOutboundRateLimit() ? properties.getOutboundGlobalRate() : 0,
+                        properties.isOutboundRateLimit() ? properties.getOutboundPrivateChatRate() : 0,
+                        properties.isOutboundRateLimit() ? properties.getOutboundGroupChatRate() : 0)
+                .taskExecutor(new ThreadPoolExecutor(properties.getCorePoolSize(), properties.getMaxPoolSize(), 0L, TimeUnit.SECONDS,
+                        (properties.getQueueCapacity() > 0) ? new ArrayBlockingQueue<>(properties.getQueueCapacity()) : new SynchronousQueue<>()))
                 .responseCallback(new Callback() {
                     @Override
                     public void onResponse(BaseRequest request, BaseResponse response) {
@@ -217,16 +260,111 @@ public class TelegramAutoConfiguration implements BeanFactoryPostProcessor, Envi
                     public void onFailure(BaseRequest request, IOException e) {
                     }
                 });
+        if (properties.isOutboundRetry()) {
+            builder.outboundRetryPolicy(OutboundRetryPolicy.builder()
+                    .maxAttempts(properties.getOutboundRetryMaxAttempts())
+                    .backoff(Duration.ofMillis(properties.getOutboundRetryInitialBackoff()), Duration.ofMillis(properties.getOutboundRetryMaxBackoff()))
+                    .deadline((properties.getOutboundRetryDeadline() > 0) ? Duration.ofMillis(properties.getOutboundRetryDeadline()) : null)
+                    .build());
+        }
+        if (properties.getDeadLetterDir() != null) {
+            builder.deadLetterSink(new FileDeadLetterSink(Paths.get(properties.getDeadLetterDir())));
+        }
+        return builder;
     }
 
-    private TelegramBotProperties.Builder createDefaultBotPropertiesBuilder(@NotNull String token, @NotNull TelegramBotGlobalProperties globalProperties) {
-        return TelegramBotProperties.builder(token)
-                .configure(builder -> builder
+    private TelegramBotProperties.Builder createDefaultBotPropertiesBuilder(@NotNull String token, @NotNull OkHttpClient okHttpClient, @NotNull TelegramConfigurationProperties properties) {
+        long updateListenerSleep = environment.getProperty("telegram.bot.update-listener-sleep", Long.class, 300L);
+        TelegramBotProperties.Builder builder = TelegramBotProperties.builder(token)
+                .pollingTimeout(properties.getPollingTimeout())
+                .pollingLimit(properties.getPollingLimit())
+                .configure(botBuilder -> botBuilder
                         .apiUrl("https://api.telegram.org/bot")
-                        .updateListenerSleep(environment.getProperty("telegram.bot.update-listener-sleep", Long.class, 300L))
-                        .okHttpClient(new OkHttpClient.Builder()
-                                .dispatcher(new Dispatcher(globalProperties.getTaskExecutor()))
-                                .build()));
+                        .updateListenerSleep(updateListenerSleep)
+                        // Bots share the dispatcher and keep-alive connections, the read timeout of the long polling
+                        // request is extended by the bot according to its own polling timeout
+                        .okHttpClient(okHttpClient));
+        if (properties.isAdaptivePolling() || properties.isPipelinedPolling() || (properties.getOffsetJournalDir() != null)) {
+            builder.adaptivePolling(updateListenerSleep, properties.getPollingMaxDelay())
+                    .pipelinedPolling(properties.isPipelinedPolling());
+        }
+        if (properties.getOffsetJournalDir() != null) {
+            Path journal = Paths.get(properties.getOffsetJournalDir(), TelegramBotProperties.getBotId(token) + ".offsets");
+            builder.offsetStore(new MappedFileUpdateOffsetStore(journal, properties.getOffsetJournalFsync()));
+        }
+        if (properties.getWebhookQueueCapacity() > 0) {
+            builder.asyncWebhook(properties.getWebhookQueueCapacity(), properties.getWebhookBatchSize());
+        }
+        if (properties.getAllowedUpdates() != null) {
+            builder.allowedUpdates(properties.getAllowedUpdates().toArray(new String[0]));
+        }
+        return builder;
+    }
+
+    private static boolean hasWebhook(List<TelegramBotProperties> botProperties) {
+        return botProperties.stream().anyMatch(p -> p.getWebhook() != null);
+    }
+
+    /**
+     * Serves webhooks by the web server of the reactive web application.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = ROUTER_FUNCTION_CLASS)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    @ConditionalOnMissingBean(WebhookEndpointRegistrar.class)
+    static class WebFluxWebhookConfiguration {
+
+        @Bean
+        WebFluxWebhookEndpointRegistrar webFluxWebhookEndpointRegistrar() {
+            return new WebFluxWebhookEndpointRegistrar();
+        }
+
+        @Bean
+        RouterFunction<ServerResponse> telegramWebhookRouterFunction(WebFluxWebhookEndpointRegistrar registrar) {
+            return registrar.getRouterFunction();
+        }
+    }
+
+    /**
+     * Serves webhooks by the embedded Javalin server unless the application is a reactive web application.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.javalin.Javalin")
+    @Conditional(NotReactiveWebApplicationCondition.class)
+    @ConditionalOnMissingBean(WebhookEndpointRegistrar.class)
+    static class JavalinWebhookConfiguration {
+
+        @Bean
+        Javalin javalinServer(@Qualifier("telegramBotPropertiesList") List<TelegramBotProperties> botProperties, TelegramBotGlobalProperties globalProperties) {
+            if (!hasWebhook(botProperties)) return null;
+
+            try {
+                Javalin server = Javalin.create(config -> config.http.maxRequestSize = (long) globalProperties.getWebhookMaxBodySize())
+                        .start(globalProperties.getWebserverPort());
+                log.info("Javalin server has been started on {} port", globalProperties.getWebserverPort());
+                return server;
+            } catch (Exception ex) {
+                log.error("An unexpected error occured while starting Javalin server", ex);
+                return null;
+            }
+        }
+
+        @Bean
+        JavalinWebhookEndpointRegistrar javalinWebhookEndpointRegistrar(Optional<Javalin> server) {
+            return server.map(JavalinWebhookEndpointRegistrar::new).orElse(null);
+        }
+    }
+
+    static class NotReactiveWebApplicationCondition extends NoneNestedConditions {
+
+        NotReactiveWebApplicationCondition() {
+            super(ConfigurationPhase.REGISTER_BEAN);
+        }
+
+        @ConditionalOnClass(name = ROUTER_FUNCTION_CLASS)
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+        static class ReactiveWebApplication {
+        }
     }
 
     @Override
@@ -1,9 +1,14 @@
 package com.github.kshashov.telegram;
 
+import com.github.kshashov.telegram.config.TelegramBotGlobalProperties;
+import com.github.kshashov.telegram.handler.OffsetFsyncPolicy;
+import com.github.kshashov.telegram.handler.UpdatesOverflowPolicy;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.List;
+
 @Getter
 @Setter
 @ConfigurationProperties(prefix = "telegram.bot")
@@ -19,6 +24,26 @@ public class TelegramConfigurationProperties {
      */
     private int maxPoolSize = 50;
 
+    /**
+     * Queue capacity for default pool executor. Updates are handed off to the pool threads directly if value is 0.
+     */
+    private int queueCapacity = 0;
+
+    /**
+     * Policy applied to the updates that can not be accepted by the pool executor.
+     */
+    private UpdatesOverflowPolicy overflowPolicy = UpdatesOverflowPolicy.DROP;
+
+    /**
+     * Process each update on a new virtual thread instead of the pool executor. Requires JDK 21+ runtime.
+     */
+    private boolean virtualThreads = false;
+
+    /**
+     * Max time in milliseconds to wait for the asynchronous result of the handler method. The result that is not completed in time fails, so the chat lane waiting for it is released. Not limited if value is 0.
+     */
+    private long asyncTimeout = 0;
+
     /**
      * Cache expiration time for the all beans inside {@link TelegramScope}.
      */
@@ -29,9 +54,165 @@ public class TelegramConfigurationProperties {
      */
     private long updateListenerSleep = 300L;
 
+    /**
+     * Timeout in seconds for long polling. Short polling is used if value is 0.
+     */
+    private int pollingTimeout = 0;
+
+    /**
+     * Max number of updates received by a single request if long polling is enabled. Telegram API default is used if value is 0.
+     */
+    private int pollingLimit = 0;
+
+    /**
+     * Update types that Telegram should send to the bots. Resolved from the message types of the registered handlers if not specified.
+     */
+    private List<String> allowedUpdates;
+
+    /**
+     * Use adaptive polling with {@code updateListenerSleep} as the base delay between requests.
+     */
+    private boolean adaptivePolling = false;
+
+    /**
+     * Max delay between requests if adaptive polling is enabled.
+     */
+    private long pollingMaxDelay = 10000L;
+
+    /**
+     * Fetch the next batch of updates while the previous one is dispatched. Enables adaptive polling.
+     */
+    private boolean pipelinedPolling = false;
+
+    /**
+     * Directory of the update offset journals. Polling bots resume at the first not processed update after restart if specified. Enables adaptive polling.
+     */
+    private String offsetJournalDir;
+
+    /**
+     * When the update offset journals are forced to the storage device.
+     */
+    private OffsetFsyncPolicy offsetJournalFsync = OffsetFsyncPolicy.BATCH;
+
+    /**
+     * Max number of webhook updates queued before the dispatch. Webhook requests are acknowledged only after the update is dispatched if value is 0.
+     */
+    private int webhookQueueCapacity = 0;
+
+    /**
+     * Max number of queued webhook updates passed to the updates handler at once.
+     */
+    private int webhookBatchSize = 100;
+
+    /**
+     * Max size of the webhook request body in bytes. Larger requests are rejected before the body is read if the content length is known.
+     */
+    private int webhookMaxBodySize = 1048576;
+
+    /**
+     * Max number of concurrent asynchronous requests to Telegram API of all bots.
+     */
+    private int outboundMaxRequests = 64;
+
+    /**
+     * Max number of concurrent asynchronous requests to the same host. All bots use the same host, and each polling bot holds a single request.
+     */
+    private int outboundMaxRequestsPerHost = 64;
+
+    /**
+     * Max number of idle keep-alive connections to Telegram API shared by all bots.
+     */
+    private int connectionPoolMaxIdle = 16;
+
+    /**
+     * Time after which the idle connection is closed (ms).
+     */
+    private long connectionPoolKeepAlive = 300000;
+
     /**
      * HTTP port that will be used to start embedded web server if webhooks is enabled.
      */
     private int serverPort = 8443;
+
+    /**
+     * Max number of cached handler lookup results. Cache is disabled if value is 0.
+     */
+    private int lookupCacheSize = 0;
+
+    /**
+     * Max total length of template variable values for the handler lookup results that can be cached.
+     */
+    private int lookupCacheMaxVariablesLength = 32;
+
+    /**
+     * Max length of the event text for the handler lookup results that can be cached.
+     */
+    private int lookupCacheMaxTextLength = 64;
+
+    /**
+     * Number of serial lanes used to process updates from the same chat (or user) in the order they were received.
+     * Updates are processed without ordering if value is 0.
+     */
+    private int chatLanes = 0;
+
+    /**
+     * Max number of updates waiting in all chat lanes. The overflow policy is applied to the updates that do not fit.
+     */
+    private int chatLanesQueueCapacity = TelegramBotGlobalProperties.DEFAULT_CHAT_LANES_QUEUE_CAPACITY;
+
+    /**
+     * Number of recent update ids remembered for each bot to drop the re-delivered updates. Deduplication is disabled if value is 0.
+     */
+    private int dedupWindow = 0;
+
+    /**
+     * Queue the requests returned by the handler methods instead of exceeding the Telegram rate limits.
+     */
+    private boolean outboundRateLimit = false;
+
+    /**
+     * Max number of messages sent by each bot per second if outbound rate limit is enabled. Not limited if value is 0.
+     */
+    private int outboundGlobalRate = 30;
+
+    /**
+     * Max number of messages sent to the same private chat per second if outbound rate limit is enabled. Not limited if value is 0.
+     */
+    private int outboundPrivateChatRate = 1;
+
+    /**
+     * Max number of messages sent to the same group or channel per minute if outbound rate limit is enabled. Not limited if value is 0.
+     */
+    private int outboundGroupChatRate = 20;
+
+    /**
+     * Retry the failed requests returned by the handler methods: 429 responses of all methods, server and network errors of the methods that do not create new messages.
+     */
+    private boolean outboundRetry = false;
+
+    /**
+     * Max number of attempts to send the request including the first one if outbound retry is enabled.
+     */
+    private int outboundRetryMaxAttempts = 4;
+
+    /**
+     * Delay before the first retry (ms). Next delays are doubled.
+     */
+    private long outboundRetryInitialBackoff = 500;
+
+    /**
+     * Max delay before the retry (ms).
+     */
+    private long outboundRetryMaxBackoff = 10000;
+
+    /**
+     * Time since the request was returned by the handler after which it is not retried (ms). Not limited if value is 0.
+     */
+    private long outboundRetryDeadline = 60000;
+
+    /**
+     * Directory of the dead letter files. Requests that failed with the transient error and were not retried are stored there if specified.
+     */
+    private String deadLetterDir;
 }
 
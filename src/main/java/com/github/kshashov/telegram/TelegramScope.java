@@ -62,6 +62,10 @@ public class TelegramScope implements Scope {
         USER_THREAD_LOCAL.set(chatId);
     }
 
+    static Long getIdThreadLocal() {
+        return USER_THREAD_LOCAL.get();
+    }
+
     static void removeId() {
         USER_THREAD_LOCAL.remove();
     }
@@ -17,11 +17,20 @@ public class TelegramSessionResolver {
 
     @NotNull
     public TelegramSessionHolder resolveTelegramSession(@NotNull TelegramEvent telegramEvent) {
-        TelegramScope.setIdThreadLocal(getSessionIdForRequest(telegramEvent));
-        return new TelegramSessionHolder(context.getBean(TelegramSession.class));
+        Long sessionId = getSessionId(telegramEvent);
+        TelegramScope.setIdThreadLocal(sessionId);
+        return new TelegramSessionHolder(context.getBean(TelegramSession.class), sessionId);
     }
 
-    private Long getSessionIdForRequest(@NotNull TelegramEvent telegramEvent) {
+    /**
+     * Returns the session id of the telegram event: chat id if present, otherwise user id or update id.
+     *
+     * @param telegramEvent telegram event
+     * @return session id
+     * @since 0.31
+     */
+    @NotNull
+    public static Long getSessionId(@NotNull TelegramEvent telegramEvent) {
         if (telegramEvent.getChat() != null) {
             return telegramEvent.getChat().id();
         } else if (telegramEvent.getUser() != null) {
@@ -36,9 +45,31 @@ public class TelegramSessionResolver {
     @AllArgsConstructor
     public static class TelegramSessionHolder {
         private final @NotNull TelegramSession session;
+        private final @NotNull Long sessionId;
 
         public void releaseSessionId() {
             TelegramScope.removeId();
         }
+
+        /**
+         * Runs the task with the session id bound to the current thread, e.g. when the result of the asynchronous
+         * handler method is processed by another thread. The previous session id of the thread is restored after that.
+         *
+         * @param task task to run
+         * @since 0.31
+         */
+        public void runInSession(@NotNull Runnable task) {
+            Long previousId = TelegramScope.getIdThreadLocal();
+            TelegramScope.setIdThreadLocal(sessionId);
+            try {
+                task.run();
+            } finally {
+                if (previousId != null) {
+                    TelegramScope.setIdThreadLocal(previousId);
+                } else {
+                    TelegramScope.removeId();
+                }
+            }
+        }
     }
 }
@@ -1,101 +1,80 @@
 package com.github.kshashov.telegram.api;
 
 import com.github.kshashov.telegram.api.bind.annotation.BotRequest;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
 import com.pengrad.telegrambot.Callback;
 import com.pengrad.telegrambot.TelegramBot;
-import com.pengrad.telegrambot.model.Chat;
-import com.pengrad.telegrambot.model.Message;
 import com.pengrad.telegrambot.model.Update;
-import com.pengrad.telegrambot.model.User;
 import com.pengrad.telegrambot.request.BaseRequest;
 import lombok.Getter;
-import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 
 import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
 import java.util.Map;
 
 /**
- * Accumulates all available parameters from the initial request, the path pattern and path variables.
+ * Accumulates all available parameters from the initial request, the path pattern and path variables. The same
+ * instance is used as {@link TelegramEvent} to find the handler method, so the message type is resolved only once and
+ * other parameters of the initial request are resolved on demand.
  *
  * @see BaseRequest
  */
-@Getter
-@RequiredArgsConstructor
-public class TelegramRequest {
-    /**
-     * Bot instance that received the current telegram event.
-     */
-    private final TelegramBot telegramBot;
-
-    /**
-     * The initial user request which is currently being processed.
-     */
-    private final Update update;
-
-    /**
-     * Type of the current telegram request.
-     */
-    private final MessageType messageType;
-
-    /**
-     * A path pattern from {@link BotRequest} annotation that matches the current request.
-     */
-    private final String basePattern;
-
-    /**
-     * All path variables parsed from the {@link #basePattern} field.
-     */
-    private final Map<String, String> templateVariables;
+public class TelegramRequest extends TelegramEvent {
 
     /**
-     * The first non-empty object, if any, among:
-     * <ul>
-     *     <li>telegram message</li>
-     *     <li>telegram edited message</li>
-     *     <li>telegram channel post</li>
-     *     <li>telegram edited channel post</li>
-     * </ul>
+     * Callback
      */
-    private final Message message;
+    @Nullable
+    @Getter
+    @Setter
+    private Callback callback;
 
     /**
-     * The first non-empty object, if any, among:
-     * <ul>
-     *     <li>{@code message.text()}</li>
-     *     <li>{@code update.inlineQuery.query()}</li>
-     *     <li>{@code update.chosenInlineResult.query()}</li>
-     *     <li>{@code update.callbackQuery.data()}</li>
-     *     <li>{@code update.shippingQuery.invoicePayload()</li>
-     *     <li>{@code update.preCheckoutQuery.invoicePayload()</li>
-     * </ul>
+     * @param token       bot token
+     * @param update      the initial user request
+     * @param telegramBot bot instance that received the current telegram event
+     * @since 0.31
      */
-    private final String text;
+    public TelegramRequest(@NotNull String token, @NotNull Update update, @NotNull TelegramBot telegramBot) {
+        super(token, update, telegramBot);
+    }
 
     /**
-     * Сhat instance if it present in the current telegram request.
+     * Creates request that shares the resolved parameters with the given event.
+     *
+     * @param event telegram event
+     * @since 0.31
      */
-    private final Chat chat;
+    public TelegramRequest(@NotNull TelegramEvent event) {
+        super(event);
+    }
 
     /**
-     * User instance if it present in the current telegram request.
+     * A path pattern from {@link BotRequest} annotation that matches the current request.
+     *
+     * @return path pattern
      */
-    private final User user;
+    public String getBasePattern() {
+        return basePattern;
+    }
 
     /**
-     * Callback
+     * All path variables parsed from the {@link #getBasePattern()} path pattern.
+     *
+     * @return path variables
      */
-    @Nullable
-    @Setter
-    private Callback callback;
+    public Map<String, String> getTemplateVariables() {
+        return templateVariables;
+    }
 
     @Override
     public String toString() {
         final StringBuilder sb = new StringBuilder("TelegramRequest{");
-        sb.append("chat=").append(chat);
-        sb.append(", user=").append(user);
-        sb.append(", text='").append(text).append('\'');
-        sb.append(", messageType=").append(messageType);
+        sb.append("chat=").append(getChat());
+        sb.append(", user=").append(getUser());
+        sb.append(", text='").append(getText()).append('\'');
+        sb.append(", messageType=").append(getMessageType());
         sb.append('}');
         return sb.toString();
     }
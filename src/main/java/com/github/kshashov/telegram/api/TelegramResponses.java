@@ -0,0 +1,145 @@
+package com.github.kshashov.telegram.api;
+
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.request.BaseRequest;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ordered requests returned by the handler method. Requests are sent one after another: the next request is sent only
+ * when the previous one is processed by Telegram, so they are delivered to the chat in the same order. The handler
+ * thread is not blocked while the requests are sent.
+ * <p>Each request may have its own callback that receives the result of this request.</p>
+ *
+ * <pre>{@code
+ * return TelegramResponses.builder()
+ *         .add(new AnswerCallbackQuery(callbackQuery.id()))
+ *         .add(new EditMessageReplyMarkup(chat.id(), messageId), callback)
+ *         .add(new SendMessage(chat.id(), "Done"))
+ *         .build();
+ * }</pre>
+ *
+ * @since 0.31
+ */
+public final class TelegramResponses {
+    private static final TelegramResponses EMPTY = new TelegramResponses(Collections.emptyList());
+
+    private final List<Response> responses;
+
+    private TelegramResponses(List<Response> responses) {
+        this.responses = responses;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param requests requests in the sending order, {@code null} elements are skipped
+     * @return responses without callbacks
+     */
+    public static TelegramResponses of(BaseRequest... requests) {
+        return of(Arrays.asList(requests));
+    }
+
+    /**
+     * @param requests requests in the sending order, {@code null} elements are skipped
+     * @return responses without callbacks
+     */
+    public static TelegramResponses of(@NotNull Collection<? extends BaseRequest> requests) {
+        Builder builder = builder();
+        for (BaseRequest request : requests) {
+            if (request != null) {
+                builder.add(request);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return responses in the sending order
+     */
+    public List<Response> getResponses() {
+        return responses;
+    }
+
+    public boolean isEmpty() {
+        return responses.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "TelegramResponses" + responses;
+    }
+
+    /**
+     * Request with the optional callback.
+     */
+    public static final class Response {
+        private final BaseRequest request;
+        private final Callback callback;
+
+        Response(@NotNull BaseRequest request, @Nullable Callback callback) {
+            this.request = request;
+            this.callback = callback;
+        }
+
+        public BaseRequest getRequest() {
+            return request;
+        }
+
+        @Nullable
+        public Callback getCallback() {
+            return callback;
+        }
+
+        @Override
+        public String toString() {
+            return request.getMethod();
+        }
+    }
+
+    public static class Builder {
+        private final List<Response> responses = new ArrayList<>();
+
+        /**
+         * @param request request to send after the previously added ones
+         * @return current instance
+         */
+        public Builder add(@NotNull BaseRequest request) {
+            return add(request, null);
+        }
+
+        /**
+         * @param request  request to send after the previously added ones
+         * @param callback callback that receives the result of this request
+         * @return current instance
+         */
+        public Builder add(@NotNull BaseRequest request, @Nullable Callback callback) {
+            if (request == null) {
+                throw new IllegalArgumentException("Request should not be null");
+            }
+            responses.add(new Response(request, callback));
+            return this;
+        }
+
+        /**
+         * @param responses requests with callbacks to send after the previously added ones
+         * @return current instance
+         */
+        public Builder addAll(@NotNull TelegramResponses responses) {
+            this.responses.addAll(responses.getResponses());
+            return this;
+        }
+
+        public TelegramResponses build() {
+            return responses.isEmpty() ? EMPTY : new TelegramResponses(Collections.unmodifiableList(new ArrayList<>(responses)));
+        }
+    }
+}
@@ -1,6 +1,10 @@
 package com.github.kshashov.telegram.config;
 
+import com.github.kshashov.telegram.handler.DeadLetterSink;
+import com.github.kshashov.telegram.handler.OutboundRetryPolicy;
 import com.github.kshashov.telegram.handler.RequestMappingsMatcherStrategy;
+import com.github.kshashov.telegram.handler.UpdatesOverflowPolicy;
+import com.github.kshashov.telegram.handler.WebhookFrontController;
 import com.github.kshashov.telegram.handler.processor.arguments.BotHandlerMethodArgumentResolver;
 import com.github.kshashov.telegram.handler.processor.response.BotHandlerMethodReturnValueHandler;
 import com.pengrad.telegrambot.Callback;
@@ -8,6 +12,7 @@ import com.pengrad.telegrambot.TelegramBot;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 import java.util.HashMap;
 import java.util.List;
@@ -29,6 +34,44 @@ public class TelegramBotGlobalProperties {
     private final @NotNull List<BotHandlerMethodReturnValueHandler> returnValueHandlers;
     private final @NotNull Map<String, Consumer<TelegramBotProperties.Builder>> botProperties;
     private final @NotNull Map<String, Consumer<TelegramBot>> botProcessors;
+    private final int lookupCacheSize;
+    private final int lookupCacheMaxVariablesLength;
+    private final int lookupCacheMaxTextLength;
+    private final int chatLanes;
+    private final int chatLanesQueueCapacity;
+    private final @NotNull UpdatesOverflowPolicy updatesOverflowPolicy;
+    private final boolean virtualThreads;
+    private final int dedupWindow;
+    private final int webhookMaxBodySize;
+    private final int outboundGlobalRate;
+    private final int outboundPrivateChatRate;
+    private final int outboundGroupChatRate;
+    private final @Nullable OutboundRetryPolicy outboundRetryPolicy;
+    private final @Nullable DeadLetterSink deadLetterSink;
+    private final long asyncTimeout;
+
+    /**
+     * @return true if the requests returned by the handler methods are sent according to the outbound rate limits
+     * @since 0.31
+     */
+    public boolean isOutboundRateLimited() {
+        return (outboundGlobalRate > 0) || (outboundPrivateChatRate > 0) || (outboundGroupChatRate > 0);
+    }
+
+    /**
+     * @return true if the requests returned by the handler methods are sent by the outbound scheduler
+     * @since 0.31
+     */
+    public boolean isOutboundScheduled() {
+        return isOutboundRateLimited() || (outboundRetryPolicy != null) || (deadLetterSink != null);
+    }
+
+    /**
+     * Default max number of updates waiting in all chat lanes.
+     *
+     * @since 0.31
+     */
+    public static final int DEFAULT_CHAT_LANES_QUEUE_CAPACITY = 1000;
 
     public static Builder builder() {
         return new Builder();
@@ -43,6 +86,21 @@ public class TelegramBotGlobalProperties {
         private List<BotHandlerMethodArgumentResolver> argumentResolvers;
         private List<BotHandlerMethodReturnValueHandler> returnValueHandlers;
         private int webserverPort;
+        private int lookupCacheSize;
+        private int lookupCacheMaxVariablesLength = 32;
+        private int lookupCacheMaxTextLength = 64;
+        private int chatLanes;
+        private int chatLanesQueueCapacity = DEFAULT_CHAT_LANES_QUEUE_CAPACITY;
+        private UpdatesOverflowPolicy updatesOverflowPolicy = UpdatesOverflowPolicy.DROP;
+        private boolean virtualThreads;
+        private int dedupWindow;
+        private int webhookMaxBodySize = WebhookFrontController.DEFAULT_MAX_BODY_SIZE;
+        private int outboundGlobalRate;
+        private int outboundPrivateChatRate;
+        private int outboundGroupChatRate;
+        private OutboundRetryPolicy outboundRetryPolicy;
+        private DeadLetterSink deadLetterSink;
+        private long asyncTimeout;
 
         public Builder taskExecutor(@NotNull ThreadPoolExecutor taskExecutor) {
             this.taskExecutor = taskExecutor;
@@ -127,8 +185,157 @@ public class TelegramBotGlobalProperties {
             return this;
         }
 
+        /**
+         * @param lookupCacheSize max number of cached handler lookup results. Cache is disabled if value is 0. Default value is 0.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder lookupCacheSize(int lookupCacheSize) {
+            this.lookupCacheSize = lookupCacheSize;
+            return this;
+        }
+
+        /**
+         * @param lookupCacheMaxVariablesLength max total length of template variable values for the handler lookup results that can be cached. Default value is 32.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder lookupCacheMaxVariablesLength(int lookupCacheMaxVariablesLength) {
+            this.lookupCacheMaxVariablesLength = lookupCacheMaxVariablesLength;
+            return this;
+        }
+
+        /**
+         * @param lookupCacheMaxTextLength max length of the event text for the handler lookup results that can be cached. Default value is 64.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder lookupCacheMaxTextLength(int lookupCacheMaxTextLength) {
+            this.lookupCacheMaxTextLength = lookupCacheMaxTextLength;
+            return this;
+        }
+
+        /**
+         * @param chatLanes number of serial lanes used to process updates from the same chat (or user) in the order they were received. Lanes are drained by the task executor, so the value should not exceed its max pool size. Updates are processed without ordering if value is 0. Default value is 0.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder chatLanes(int chatLanes) {
+            this.chatLanes = chatLanes;
+            return this;
+        }
+
+        /**
+         * @param chatLanesQueueCapacity max number of updates waiting in all chat lanes. The overflow policy is applied to the updates that do not fit. Default value is {@value TelegramBotGlobalProperties#DEFAULT_CHAT_LANES_QUEUE_CAPACITY}.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder chatLanesQueueCapacity(int chatLanesQueueCapacity) {
+            this.chatLanesQueueCapacity = chatLanesQueueCapacity;
+            return this;
+        }
+
+        /**
+         * Specify what happens with the updates that can not be accepted by the task executor.
+         *
+         * @param updatesOverflowPolicy overflow policy. Default value is {@link UpdatesOverflowPolicy#DROP}.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder updatesOverflowPolicy(@NotNull UpdatesOverflowPolicy updatesOverflowPolicy) {
+            this.updatesOverflowPolicy = updatesOverflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param virtualThreads true if each update should be processed on a new virtual thread instead of the task executor. Requires JDK 21+ runtime, otherwise the task executor is used. Overflow policy is not applied in this mode. Default value is false.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder virtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * @param dedupWindow number of recent update ids remembered for each bot to drop the re-delivered updates. Updates older than the window are dropped as well. Deduplication is disabled if value is 0. Default value is 0.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder dedupWindow(int dedupWindow) {
+            this.dedupWindow = dedupWindow;
+            return this;
+        }
+
+        /**
+         * @param webhookMaxBodySize max size of the webhook request body in bytes. Larger requests are rejected before the body is read if the content length is known. Default value is 1 MiB.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder webhookMaxBodySize(int webhookMaxBodySize) {
+            this.webhookMaxBodySize = webhookMaxBodySize;
+            return this;
+        }
+
+        /**
+         * Queue the requests returned by the handler methods instead of exceeding the Telegram rate limits. Requests
+         * limited by Telegram anyway are retried after {@code retry_after} seconds. Limits are applied to each bot
+         * separately.
+         *
+         * @param globalPerSecond      max number of messages sent by the bot per second (Telegram allows about 30). Not limited if value is 0.
+         * @param privateChatPerSecond max number of messages sent to the same private chat per second (Telegram allows about 1). Not limited if value is 0.
+         * @param groupChatPerMinute   max number of messages sent to the same group or channel per minute (Telegram allows about 20). Not limited if value is 0.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder outboundRateLimits(int globalPerSecond, int privateChatPerSecond, int groupChatPerMinute) {
+            this.outboundGlobalRate = globalPerSecond;
+            this.outboundPrivateChatRate = privateChatPerSecond;
+            this.outboundGroupChatRate = groupChatPerMinute;
+            return this;
+        }
+
+        /**
+         * Retry the failed requests returned by the handler methods. If the outbound rate limits are enabled, only the
+         * 429 responses are retried by default.
+         *
+         * @param outboundRetryPolicy retry policy
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder outboundRetryPolicy(@NotNull OutboundRetryPolicy outboundRetryPolicy) {
+            this.outboundRetryPolicy = outboundRetryPolicy;
+            return this;
+        }
+
+        /**
+         * Keep the requests returned by the handler methods that failed with the transient error and were not retried,
+         * so they can be sent later.
+         *
+         * @param deadLetterSink dead letter sink, e.g. {@link com.github.kshashov.telegram.handler.FileDeadLetterSink}
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder deadLetterSink(@NotNull DeadLetterSink deadLetterSink) {
+            this.deadLetterSink = deadLetterSink;
+            return this;
+        }
+
+        /**
+         * @param asyncTimeout max time in milliseconds to wait for the asynchronous result of the handler method, e.g.
+         *                     {@code CompletionStage} or {@code Mono}. The result that is not completed in time fails
+         *                     with {@link java.util.concurrent.TimeoutException}, so the chat lane waiting for it is
+         *                     released. Not limited if value is 0. Default value is 0.
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder asyncTimeout(long asyncTimeout) {
+            this.asyncTimeout = asyncTimeout;
+            return this;
+        }
+
         public TelegramBotGlobalProperties build() {
-            return new TelegramBotGlobalProperties(webserverPort, taskExecutor, matcherStrategy, responseCallback, argumentResolvers, returnValueHandlers, botProperties, botProcessors);
+            return new TelegramBotGlobalProperties(webserverPort, taskExecutor, matcherStrategy, responseCallback, argumentResolvers, returnValueHandlers, botProperties, botProcessors, lookupCacheSize, lookupCacheMaxVariablesLength, lookupCacheMaxTextLength, chatLanes, chatLanesQueueCapacity, updatesOverflowPolicy, virtualThreads, dedupWindow, webhookMaxBodySize, outboundGlobalRate, outboundPrivateChatRate, outboundGroupChatRate, outboundRetryPolicy, deadLetterSink, asyncTimeout);
         }
     }
 }
@@ -1,5 +1,6 @@
 package com.github.kshashov.telegram.config;
 
+import com.github.kshashov.telegram.handler.UpdateOffsetStore;
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.request.SetWebhook;
 import lombok.AllArgsConstructor;
@@ -18,16 +19,48 @@ public class TelegramBotProperties {
     private final @NotNull TelegramBot.Builder botBuilder;
     private final SetWebhook webhook;
     private final boolean keepWebhookRegistration;
+    private final int pollingTimeout;
+    private final int pollingLimit;
+    private final String[] allowedUpdates;
+    private final boolean adaptivePolling;
+    private final long pollingMinDelay;
+    private final long pollingMaxDelay;
+    private final boolean pipelinedPolling;
+    private final UpdateOffsetStore offsetStore;
+    private final int webhookQueueCapacity;
+    private final int webhookBatchSize;
 
     public static Builder builder(String token) {
         return new Builder(token);
     }
 
+    /**
+     * Returns the bot id that can be exposed in file names or metrics instead of the secret token.
+     *
+     * @param token bot token
+     * @return numeric bot id (part of the token before colon) or hash of the token if it has unexpected format
+     * @since 0.31
+     */
+    public static String getBotId(@NotNull String token) {
+        int index = token.indexOf(':');
+        return (index > 0) ? token.substring(0, index) : Integer.toHexString(token.hashCode());
+    }
+
     public static class Builder {
         private final TelegramBot.Builder botBuilder;
         private final String token;
         private SetWebhook webhook;
         private boolean keepWebhookRegistration;
+        private int pollingTimeout;
+        private int pollingLimit;
+        private String[] allowedUpdates;
+        private boolean adaptivePolling;
+        private long pollingMinDelay;
+        private long pollingMaxDelay;
+        private boolean pipelinedPolling;
+        private UpdateOffsetStore offsetStore;
+        private int webhookQueueCapacity;
+        private int webhookBatchSize;
 
         Builder(@NotNull String token) {
             this.token = token;
@@ -71,8 +104,109 @@ public class TelegramBotProperties {
             return this;
         }
 
+        /**
+         * Specify timeout for long polling. Telegram API keeps the {@code getUpdates} request open until an update
+         * arrives or the timeout expires. Short polling is used if value is 0.
+         *
+         * @param pollingTimeout timeout in seconds
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder pollingTimeout(int pollingTimeout) {
+            this.pollingTimeout = pollingTimeout;
+            return this;
+        }
+
+        /**
+         * Specify max number of updates received by a single {@code getUpdates} request. Telegram API default (100) is
+         * used if value is 0.
+         *
+         * @param pollingLimit updates limit from 1 to 100
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder pollingLimit(int pollingLimit) {
+            this.pollingLimit = pollingLimit;
+            return this;
+        }
+
+        /**
+         * Specify update types that Telegram should send to the bot. By default, they are resolved from the
+         * message types of the registered handlers.
+         *
+         * @param allowedUpdates update types, e.g. {@code message} or {@code callback_query}
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder allowedUpdates(String... allowedUpdates) {
+            this.allowedUpdates = allowedUpdates;
+            return this;
+        }
+
+        /**
+         * Use adaptive polling instead of the fixed {@code updateListenerSleep} gap between the requests. The next
+         * request is sent immediately after a full batch, the delay grows exponentially after empty batches (short
+         * polling only) and errors, {@code retry_after} is respected and the polling is slowed down if the task
+         * executor is nearly saturated.
+         *
+         * @param minDelay base delay between requests in milliseconds
+         * @param maxDelay max delay between requests in milliseconds
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder adaptivePolling(long minDelay, long maxDelay) {
+            this.adaptivePolling = true;
+            this.pollingMinDelay = minDelay;
+            this.pollingMaxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * Keep the next {@code getUpdates} request in flight while the previous batch is dispatched. The offset
+         * advances only for the updates accepted by the updates handler, the in-flight updates received again are
+         * skipped. Has effect only with adaptive polling.
+         *
+         * @param pipelinedPolling true to enable pipelined polling
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder pipelinedPolling(boolean pipelinedPolling) {
+            this.pipelinedPolling = pipelinedPolling;
+            return this;
+        }
+
+        /**
+         * Specify store that keeps the offset of the processed updates between restarts. Updates are confirmed only
+         * after they are processed and the processed updates are not dispatched again if they are re-delivered. Has
+         * effect only with adaptive polling, pipelined polling is not used with the offset store.
+         *
+         * @param offsetStore offset store, e.g. {@link com.github.kshashov.telegram.handler.MappedFileUpdateOffsetStore}
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder offsetStore(UpdateOffsetStore offsetStore) {
+            this.offsetStore = offsetStore;
+            return this;
+        }
+
+        /**
+         * Acknowledge webhook requests as soon as the update is queued instead of waiting for the dispatch. Queued
+         * updates are passed to the updates handler in batches by the separate thread. Webhook responds with 429
+         * status if the queue is full, so Telegram retries the update later.
+         *
+         * @param queueCapacity max number of queued updates
+         * @param batchSize     max number of updates passed to the updates handler at once
+         * @return current instance
+         * @since 0.31
+         */
+        public Builder asyncWebhook(int queueCapacity, int batchSize) {
+            this.webhookQueueCapacity = queueCapacity;
+            this.webhookBatchSize = batchSize;
+            return this;
+        }
+
         public TelegramBotProperties build() {
-            return new TelegramBotProperties(token, botBuilder, webhook, keepWebhookRegistration);
+            return new TelegramBotProperties(token, botBuilder, webhook, keepWebhookRegistration, pollingTimeout, pollingLimit, allowedUpdates, adaptivePolling, pollingMinDelay, pollingMaxDelay, pipelinedPolling, offsetStore, webhookQueueCapacity, webhookBatchSize);
         }
     }
 }
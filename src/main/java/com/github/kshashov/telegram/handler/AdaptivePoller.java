@@ -0,0 +1,189 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
+import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.GetUpdates;
+import com.pengrad.telegrambot.response.GetUpdatesResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Polls Telegram API with its own {@code getUpdates} loop. The delay before the next poll depends on the previous
+ * result and the saturation of the updates handler, see {@link PollingBackoff}. Polls of all bots are scheduled by
+ * the single shared thread and executed asynchronously by the http client.
+ *
+ * @since 0.31
+ */
+@Slf4j
+class AdaptivePoller {
+    /**
+     * Delay returned by {@link #handleUpdates} if the next poll is scheduled later by the subclass.
+     */
+    static final long POSTPONED = -1;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int DEFAULT_LIMIT = 100;
+
+    protected final String token;
+    protected final TelegramBot bot;
+    protected final TelegramUpdatesHandler updatesHandler;
+    protected final PollingBackoff backoff;
+    protected final int limit;
+    private final Supplier<GetUpdates> requestFactory;
+    private final MetricsService metricsService;
+    protected final ScheduledExecutorService scheduler;
+    private volatile boolean running;
+    private volatile ScheduledFuture<?> nextPoll;
+    private int offset;
+
+    /**
+     * @param token          bot token
+     * @param bot            bot
+     * @param updatesHandler updates handler
+     * @param requestFactory creates request with all parameters except offset
+     * @param limit          max number of updates per request or 0 for Telegram API default
+     * @param backoff        backoff
+     * @param metricsService metrics service
+     */
+    AdaptivePoller(@NotNull String token, @NotNull TelegramBot bot, @NotNull TelegramUpdatesHandler updatesHandler, @NotNull Supplier<GetUpdates> requestFactory, int limit, @NotNull PollingBackoff backoff, @NotNull MetricsService metricsService) {
+        this(token, bot, updatesHandler, requestFactory, limit, backoff, metricsService, SchedulerHolder.SCHEDULER);
+    }
+
+    AdaptivePoller(String token, TelegramBot bot, TelegramUpdatesHandler updatesHandler, Supplier<GetUpdates> requestFactory, int limit, PollingBackoff backoff, MetricsService metricsService, ScheduledExecutorService scheduler) {
+        this.token = token;
+        this.bot = bot;
+        this.updatesHandler = updatesHandler;
+        this.requestFactory = requestFactory;
+        this.limit = (limit > 0) ? limit : DEFAULT_LIMIT;
+        this.backoff = backoff;
+        this.metricsService = metricsService;
+        this.scheduler = scheduler;
+    }
+
+    void start() {
+        metricsService.registerPolling(token);
+        running = true;
+        schedule(0);
+    }
+
+    void stop() {
+        running = false;
+        ScheduledFuture<?> future = nextPoll;
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    void schedule(long delay) {
+        if (running && (delay != POSTPONED)) {
+            nextPoll = scheduler.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    void poll() {
+        if (!running) {
+            return;
+        }
+
+        GetUpdates request = requestFactory.get().offset(getOffset());
+        long started = System.nanoTime();
+        try {
+            bot.execute(request, new Callback<GetUpdates, GetUpdatesResponse>() {
+                @Override
+                public void onResponse(GetUpdates request, GetUpdatesResponse response) {
+                    if (!running) {
+                        // Updates are not confirmed, so they are re-delivered after restart
+                        log.debug("Polling has been stopped, received updates are ignored");
+                        return;
+                    }
+                    long delay;
+                    try {
+                        delay = handleResponse(response, System.nanoTime() - started);
+                    } catch (Exception e) {
+                        log.error("An unhandled exception occurred while processing the Telegram updates", e);
+                        delay = backoff.onError();
+                    }
+                    schedule(delay);
+                }
+
+                @Override
+                public void onFailure(GetUpdates request, IOException e) {
+                    metricsService.onPollFailed(token);
+                    log.warn("Failed to get updates: {}", e.getMessage());
+                    schedule(backoff.onError());
+                }
+            });
+        } catch (Exception e) {
+            metricsService.onPollFailed(token);
+            log.error("Failed to send getUpdates request", e);
+            schedule(backoff.onError());
+        }
+    }
+
+    long handleResponse(GetUpdatesResponse response, long latencyNanos) {
+        if (!response.isOk()) {
+            metricsService.onPollFailed(token);
+            Integer retryAfter = (response.parameters() != null) ? response.parameters().retryAfter() : null;
+            if ((response.errorCode() == TOO_MANY_REQUESTS) && (retryAfter != null)) {
+                log.warn("Too many getUpdates requests, retry after {} seconds", retryAfter);
+                return backoff.onRetryAfter(retryAfter);
+            }
+            log.warn("Failed to get updates: {} {}", response.errorCode(), response.description());
+            return backoff.onError();
+        }
+
+        List<Update> updates = response.updates();
+        int size = (updates == null) ? 0 : updates.size();
+        metricsService.onPollCompleted(token, latencyNanos, size);
+        if (size == 0) {
+            return backoff.applySaturation(backoff.onEmpty(), updatesHandler.getSaturation());
+        }
+
+        return handleUpdates(updates);
+    }
+
+    /**
+     * Process the non-empty batch of updates.
+     *
+     * @param updates received updates
+     * @return delay before the next poll or {@link #POSTPONED}
+     */
+    long handleUpdates(List<Update> updates) {
+        int size = updates.size();
+        int confirmed = updatesHandler.processUpdatesAndConfirm(token, bot, updates);
+        if (confirmed == UpdatesListener.CONFIRMED_UPDATES_ALL) {
+            offset = updates.get(size - 1).updateId() + 1;
+        } else if (confirmed != UpdatesListener.CONFIRMED_UPDATES_NONE) {
+            offset = confirmed + 1;
+        }
+
+        long delay = backoff.onBatch((confirmed == UpdatesListener.CONFIRMED_UPDATES_ALL) ? size : 0, limit);
+        return backoff.applySaturation(delay, updatesHandler.getSaturation());
+    }
+
+    int getOffset() {
+        return offset;
+    }
+
+    private static class SchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telegram-polling-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maps {@link MessageType} values to the update types accepted by the {@code allowed_updates} parameter of Telegram
+ * API.
+ *
+ * @since 0.31
+ */
+public final class AllowedUpdates {
+    private static final Map<MessageType, String> UPDATE_TYPES = new EnumMap<>(MessageType.class);
+
+    static {
+        UPDATE_TYPES.put(MessageType.MESSAGE, "message");
+        UPDATE_TYPES.put(MessageType.EDITED_MESSAGE, "edited_message");
+        UPDATE_TYPES.put(MessageType.CHANNEL_POST, "channel_post");
+        UPDATE_TYPES.put(MessageType.EDITED_CHANNEL_POST, "edited_channel_post");
+        UPDATE_TYPES.put(MessageType.INLINE_QUERY, "inline_query");
+        UPDATE_TYPES.put(MessageType.CHOSEN_INLINE_RESULT, "chosen_inline_result");
+        UPDATE_TYPES.put(MessageType.CALLBACK_QUERY, "callback_query");
+        UPDATE_TYPES.put(MessageType.SHIPPING_QUERY, "shipping_query");
+        UPDATE_TYPES.put(MessageType.PRECHECKOUT_QUERY, "pre_checkout_query");
+        UPDATE_TYPES.put(MessageType.POLL, "poll");
+    }
+
+    private AllowedUpdates() {
+    }
+
+    /**
+     * Returns update types that should be received to process the given message types.
+     *
+     * @param messageTypes message types used by the bot handlers
+     * @return update types or {@code null} if updates should not be filtered, e.g. if some handler accepts
+     * {@link MessageType#ANY} or {@link MessageType#UNSUPPORTED} updates
+     */
+    @Nullable
+    public static String[] of(@NotNull Collection<MessageType> messageTypes) {
+        // Handlers of any type also receive the update types Telegram sends by default but the library does not map
+        if (messageTypes.isEmpty() || messageTypes.contains(MessageType.ANY) || messageTypes.contains(MessageType.UNSUPPORTED)) {
+            return null;
+        }
+
+        Set<String> result = new LinkedHashSet<>();
+        messageTypes.forEach(type -> result.add(UPDATE_TYPES.get(type)));
+        return result.toArray(new String[0]);
+    }
+}
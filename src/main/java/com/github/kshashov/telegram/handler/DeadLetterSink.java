@@ -0,0 +1,27 @@
+package com.github.kshashov.telegram.handler;
+
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.response.BaseResponse;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+
+/**
+ * Receives the requests returned by the handler methods that failed with the transient error (429 Too Many Requests,
+ * server error or network failure) and were not retried by the {@link OutboundRetryPolicy}, so they can be sent later.
+ * Requests rejected by Telegram for other reasons are not passed to the sink since they would be rejected again.
+ * <p>Is invoked by the OkHttp threads, all methods should be thread-safe and should not block for long.</p>
+ *
+ * @since 0.31
+ */
+public interface DeadLetterSink {
+
+    /**
+     * @param token    bot token
+     * @param request  failed request
+     * @param response Telegram response or {@code null} if the request failed with the network error
+     * @param error    network error or {@code null} if Telegram responded
+     */
+    void accept(@NotNull String token, @NotNull BaseRequest request, @Nullable BaseResponse response, @Nullable IOException error);
+}
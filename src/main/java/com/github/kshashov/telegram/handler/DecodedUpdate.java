@@ -0,0 +1,181 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.pengrad.telegrambot.model.*;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * {@link Update} created by {@link UpdateDecoder}. Only the fields required to route the update are decoded eagerly,
+ * the whole update is decoded from the raw body on the first access to any other field.
+ *
+ * @since 0.31
+ */
+public class DecodedUpdate extends Update {
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] body;
+    private final Integer updateId;
+
+    /**
+     * Type of the update.
+     */
+    @Getter
+    private final @NotNull MessageType messageType;
+
+    /**
+     * Same as {@link com.github.kshashov.telegram.handler.processor.TelegramEvent#getUser()}.
+     */
+    @Getter
+    @Nullable
+    private final User user;
+
+    /**
+     * Same as {@link com.github.kshashov.telegram.handler.processor.TelegramEvent#getChat()}.
+     */
+    @Getter
+    @Nullable
+    private final Chat chat;
+
+    /**
+     * Same as {@link com.github.kshashov.telegram.handler.processor.TelegramEvent#getText()}.
+     */
+    @Getter
+    @Nullable
+    private final String text;
+
+    private transient volatile Update update;
+
+    DecodedUpdate(byte[] body, Integer updateId, MessageType messageType, User user, Chat chat, String text) {
+        this.body = body;
+        this.updateId = updateId;
+        this.messageType = messageType;
+        this.user = user;
+        this.chat = chat;
+        this.text = text;
+    }
+
+    /**
+     * @return true if the whole update has been decoded
+     */
+    public boolean isDecoded() {
+        return update != null;
+    }
+
+    private Update update() {
+        Update result = update;
+        if (result == null) {
+            result = UpdateDecoder.GSON.fromJson(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8), Update.class);
+            update = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Integer updateId() {
+        return updateId;
+    }
+
+    @Override
+    public Message message() {
+        return update().message();
+    }
+
+    @Override
+    public Message editedMessage() {
+        return update().editedMessage();
+    }
+
+    @Override
+    public Message channelPost() {
+        return update().channelPost();
+    }
+
+    @Override
+    public Message editedChannelPost() {
+        return update().editedChannelPost();
+    }
+
+    @Override
+    public InlineQuery inlineQuery() {
+        return update().inlineQuery();
+    }
+
+    @Override
+    public ChosenInlineResult chosenInlineResult() {
+        return update().chosenInlineResult();
+    }
+
+    @Override
+    public CallbackQuery callbackQuery() {
+        return update().callbackQuery();
+    }
+
+    @Override
+    public ShippingQuery shippingQuery() {
+        return update().shippingQuery();
+    }
+
+    @Override
+    public PreCheckoutQuery preCheckoutQuery() {
+        return update().preCheckoutQuery();
+    }
+
+    @Override
+    public Poll poll() {
+        return update().poll();
+    }
+
+    @Override
+    public PollAnswer pollAnswer() {
+        return update().pollAnswer();
+    }
+
+    @Override
+    public ChatMemberUpdated myChatMember() {
+        return update().myChatMember();
+    }
+
+    @Override
+    public ChatMemberUpdated chatMember() {
+        return update().chatMember();
+    }
+
+    @Override
+    public ChatJoinRequest chatJoinRequest() {
+        return update().chatJoinRequest();
+    }
+
+    /**
+     * Compares the update ids and the raw bodies, so the update is not decoded. Decoded updates are never equal to the
+     * updates of other types.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof DecodedUpdate)) return false;
+        DecodedUpdate that = (DecodedUpdate) o;
+        return Objects.equals(updateId, that.updateId) && Arrays.equals(body, that.body);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(updateId);
+    }
+
+    @Override
+    public String toString() {
+        return "DecodedUpdate{" +
+                "update_id=" + updateId +
+                ", type=" + messageType +
+                ", size=" + body.length +
+                '}';
+    }
+}
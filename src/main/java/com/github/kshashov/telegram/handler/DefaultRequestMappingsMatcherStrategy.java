@@ -16,17 +16,27 @@ public class DefaultRequestMappingsMatcherStrategy implements RequestMappingsMat
     private final PathMatcher pathMatcher;
 
     public DefaultRequestMappingsMatcherStrategy() {
-        this(new AntPathMatcher());
+        this(new ExtractingAntPathMatcher());
     }
 
     public DefaultRequestMappingsMatcherStrategy(@NotNull PathMatcher pathMatcher) {
         this.pathMatcher = pathMatcher;
     }
 
+    /**
+     * Check if {@link RequestMappingsIndex} can be used instead of the linear scan. It is only possible if neither
+     * matcher behavior nor path matcher settings are overridden.
+     *
+     * @return true if matched mappings can be resolved with {@link RequestMappingsIndex}
+     */
+    boolean isRoutingIndexSupported() {
+        return (pathMatcher.getClass() == ExtractingAntPathMatcher.class) && (getClass() == DefaultRequestMappingsMatcherStrategy.class);
+    }
+
     @Override
     public boolean isMatched(@NotNull TelegramEvent telegramEvent, @NotNull RequestMappingInfo mappingInfo) {
         // Check message type
-        if (!mappingInfo.getMessageTypes().contains(telegramEvent.getMessageType()) && !mappingInfo.getMessageTypes().contains(MessageType.ANY)) {
+        if (!isTypeMatched(telegramEvent, mappingInfo)) {
             return false;
         }
 
@@ -38,6 +48,31 @@ public class DefaultRequestMappingsMatcherStrategy implements RequestMappingsMat
         return pathMatcher.match(mappingInfo.getPattern(), text);
     }
 
+    @Override
+    @NotNull
+    public RequestMappingMatch match(@NotNull TelegramEvent telegramEvent, @NotNull RequestMappingInfo mappingInfo) {
+        if (!(pathMatcher instanceof ExtractingAntPathMatcher)) {
+            return RequestMappingsMatcherStrategy.super.match(telegramEvent, mappingInfo);
+        }
+
+        // Check message type
+        if (!isTypeMatched(telegramEvent, mappingInfo)) {
+            return RequestMappingMatch.NO_MATCH;
+        }
+
+        String text = telegramEvent.getText();
+        if (text == null) {
+            text = "";
+        }
+
+        return ((ExtractingAntPathMatcher) pathMatcher).matchAndExtract(mappingInfo.getPattern(), text);
+    }
+
+    private boolean isTypeMatched(@NotNull TelegramEvent telegramEvent, @NotNull RequestMappingInfo mappingInfo) {
+        Set<MessageType> types = mappingInfo.getMessageTypes();
+        return types.contains(telegramEvent.getMessageType()) || types.contains(MessageType.ANY);
+    }
+
     @Override
     @NotNull
     public List<HandlerMethodContainer.RequestMapping> postProcess(@NotNull List<HandlerMethodContainer.RequestMapping> mappings) {
@@ -84,4 +119,20 @@ public class DefaultRequestMappingsMatcherStrategy implements RequestMappingsMat
 
         return 0;
     }
+
+    /**
+     * {@link AntPathMatcher} that is able to match the path and extract template variables at once.
+     */
+    private static class ExtractingAntPathMatcher extends AntPathMatcher {
+
+        RequestMappingMatch matchAndExtract(@NotNull String pattern, @NotNull String path) {
+            if (pattern.indexOf('{') < 0) {
+                // There are no variables to extract
+                return doMatch(pattern, path, true, null) ? RequestMappingMatch.EMPTY : RequestMappingMatch.NO_MATCH;
+            }
+
+            Map<String, String> variables = new LinkedHashMap<>();
+            return doMatch(pattern, path, true, variables) ? RequestMappingMatch.of(variables) : RequestMappingMatch.NO_MATCH;
+        }
+    }
 }
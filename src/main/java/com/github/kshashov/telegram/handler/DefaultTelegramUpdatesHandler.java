@@ -1,5 +1,7 @@
 package com.github.kshashov.telegram.handler;
 
+import com.github.kshashov.telegram.TelegramSessionResolver;
+import com.github.kshashov.telegram.api.TelegramRequest;
 import com.github.kshashov.telegram.config.TelegramBotGlobalProperties;
 import com.github.kshashov.telegram.handler.processor.RequestDispatcher;
 import com.github.kshashov.telegram.handler.processor.TelegramCallback;
@@ -7,32 +9,86 @@ import com.github.kshashov.telegram.handler.processor.TelegramEvent;
 import com.github.kshashov.telegram.metrics.MetricsService;
 import com.pengrad.telegrambot.Callback;
 import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
 import com.pengrad.telegrambot.model.Update;
 import com.pengrad.telegrambot.request.BaseRequest;
 import com.pengrad.telegrambot.response.BaseResponse;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Consumer;
 
 /**
  * Default implementation that processes {@link List} of {@link Update} updates with {@link RequestDispatcher}.
  */
 @Slf4j
 public class DefaultTelegramUpdatesHandler implements TelegramUpdatesHandler {
+    private static final Consumer<Update> NO_CALLBACK = update -> {
+    };
     private final RequestDispatcher botRequestDispatcher;
     private final TelegramBotGlobalProperties globalProperties;
     private final MetricsService metricsService;
+    private final OverflowPolicyExecutor dispatchExecutor;
+    @Nullable
+    private final ExecutorService virtualThreadExecutor;
+    @Nullable
+    private final SerialLanesExecutor lanesExecutor;
+    @Nullable
+    private final OutboundRequestScheduler outboundScheduler;
+    private final Map<String, UpdateDeduplicator> deduplicators = new ConcurrentHashMap<>();
 
     public DefaultTelegramUpdatesHandler(@NotNull RequestDispatcher botRequestDispatcher, @NotNull TelegramBotGlobalProperties globalProperties, @NotNull MetricsService metricsService) {
         this.botRequestDispatcher = botRequestDispatcher;
         this.globalProperties = globalProperties;
         this.metricsService = metricsService;
+        this.dispatchExecutor = new OverflowPolicyExecutor(globalProperties.getTaskExecutor(), globalProperties.getUpdatesOverflowPolicy(), metricsService);
+        this.virtualThreadExecutor = createVirtualThreadExecutor(globalProperties);
+        if ((globalProperties.getUpdatesOverflowPolicy() == UpdatesOverflowPolicy.SHED_OLDEST) && (globalProperties.getChatLanes() <= 0)
+                && (virtualThreadExecutor == null) && (globalProperties.getTaskExecutor().getQueue() instanceof SynchronousQueue)) {
+            // Nothing waits in the hand-off queue, so there is no update to shed
+            throw new IllegalArgumentException("SHED_OLDEST overflow policy requires the task executor queue or chat lanes");
+        }
+        this.lanesExecutor = (globalProperties.getChatLanes() > 0)
+                ? new SerialLanesExecutor(globalProperties.getChatLanes(), (virtualThreadExecutor != null) ? virtualThreadExecutor : dispatchExecutor,
+                globalProperties.getChatLanesQueueCapacity(), globalProperties.getUpdatesOverflowPolicy(), metricsService)
+                : null;
+        this.outboundScheduler = globalProperties.isOutboundScheduled()
+                ? new OutboundRequestScheduler(globalProperties.getOutboundGlobalRate(), globalProperties.getOutboundPrivateChatRate(), globalProperties.getOutboundGroupChatRate(),
+                globalProperties.getOutboundRetryPolicy(), globalProperties.getDeadLetterSink(), metricsService)
+                : null;
+    }
+
+    private static ExecutorService createVirtualThreadExecutor(TelegramBotGlobalProperties globalProperties) {
+        if (!globalProperties.isVirtualThreads()) {
+            return null;
+        }
+        if (!VirtualThreads.isSupported()) {
+            log.warn("Virtual threads are not supported by the current Java runtime, updates will be processed by the task executor");
+            return null;
+        }
+        log.info("Updates will be processed on virtual threads");
+        return VirtualThreads.newVirtualThreadPerTaskExecutor();
     }
 
     /**
      * Processes updates with {@link RequestDispatcher}. Sends the processing result to the Telegram.
+     * <p>If chat lanes are enabled, updates from the same chat (or user) are processed one after another in the order
+     * they were received. The next update of the chat waits until the result of the asynchronous handler method is
+     * completed.</p>
+     * <p>If virtual threads are enabled, each update (or chat lane) is processed on its own virtual thread, so the
+     * {@link com.github.kshashov.telegram.TelegramScope} session id is still bound to the processing thread.</p>
      *
      * @param token   token
      * @param bot     bot
@@ -40,47 +96,219 @@ public class DefaultTelegramUpdatesHandler implements TelegramUpdatesHandler {
      */
     @Override
     public void processUpdates(@NotNull String token, @NotNull TelegramBot bot, @NotNull List<Update> updates) {
+        processUpdatesAndConfirm(token, bot, updates);
+    }
+
+    /**
+     * Processes updates with {@link RequestDispatcher} according to the {@link UpdatesOverflowPolicy}. If the policy is
+     * {@link UpdatesOverflowPolicy#STOP_CONFIRMING}, only the updates accepted by the task executor are confirmed.
+     * <p>If the deduplication window is enabled, updates that were already received by the bot are dropped.</p>
+     *
+     * @param token   token
+     * @param bot     bot
+     * @param updates telegram updates
+     * @return {@link UpdatesListener#CONFIRMED_UPDATES_ALL}, {@link UpdatesListener#CONFIRMED_UPDATES_NONE} or id of the last confirmed update
+     */
+    @Override
+    public int processUpdatesAndConfirm(@NotNull String token, @NotNull TelegramBot bot, @NotNull List<Update> updates) {
+        return processUpdatesAndConfirm(token, bot, updates, NO_CALLBACK);
+    }
+
+    /**
+     * Processes updates the same way as {@link #processUpdatesAndConfirm(String, TelegramBot, List)} and notifies when
+     * each confirmed update is processed, dropped or shed.
+     *
+     * @param token             token
+     * @param bot               bot
+     * @param updates           telegram updates
+     * @param processedCallback invoked when the confirmed update is processed or dropped
+     * @return {@link UpdatesListener#CONFIRMED_UPDATES_ALL}, {@link UpdatesListener#CONFIRMED_UPDATES_NONE} or id of the last confirmed update
+     */
+    @Override
+    public int processUpdatesAndConfirm(@NotNull String token, @NotNull TelegramBot bot, @NotNull List<Update> updates, @NotNull Consumer<Update> processedCallback) {
         metricsService.onUpdatesReceived(updates.size());
+        UpdateDeduplicator deduplicator = getDeduplicator(token);
+        int i = 0;
         try {
-            for (Update update : updates) {
-                globalProperties.getTaskExecutor().execute(() -> {
-                    try {
-                        TelegramEvent event = new TelegramEvent(token, update, bot);
-
-                        TelegramCallback executionResult = botRequestDispatcher.execute(event);
-                        if ((executionResult != null) && (executionResult.getRequest() != null)) {
-                            // Execute telegram request from controller response
-                            log.debug("Controller returned Telegram request {}", executionResult);
-                            postExecute(executionResult, bot);
+            for (; i < updates.size(); i++) {
+                Update update = updates.get(i);
+                if ((deduplicator != null) && !deduplicator.markSeen(update.updateId())) {
+                    metricsService.onUpdateDuplicate();
+                    log.debug("Update {} has been already received", update.updateId());
+                    processedCallback.accept(update);
+                    continue;
+                }
+                try {
+                    dispatch(token, bot, update, processedCallback);
+                } catch (RejectedExecutionException e) {
+                    if (dispatchExecutor.getPolicy() == UpdatesOverflowPolicy.STOP_CONFIRMING) {
+                        if (deduplicator != null) {
+                            // Update will be re-delivered
+                            deduplicator.forget(update.updateId());
                         }
-                    } catch (IllegalStateException e) {
-                        metricsService.onUpdateError();
-                        log.error("Execution error", e);
+                        metricsService.onUpdatesRejected(updates.size() - i);
+                        log.warn("Task executor is full, {} updates will be re-delivered", updates.size() - i);
+                        return (i == 0) ? UpdatesListener.CONFIRMED_UPDATES_NONE : updates.get(i - 1).updateId();
                     }
-                });
+                    metricsService.onUpdatesRejected(1);
+                    log.warn("Task executor is full, update {} has been dropped", update.updateId());
+                    processedCallback.accept(update);
+                }
             }
         } catch (Exception e) {
             log.error("An unhandled exception occurred while processing the Telegram request", e);
+            // The rest updates are confirmed but will never be processed
+            for (; i < updates.size(); i++) {
+                processedCallback.accept(updates.get(i));
+            }
+        }
+        return UpdatesListener.CONFIRMED_UPDATES_ALL;
+    }
+
+    @Nullable
+    private UpdateDeduplicator getDeduplicator(String token) {
+        if (globalProperties.getDedupWindow() <= 0) {
+            return null;
+        }
+        return deduplicators.computeIfAbsent(token, t -> new UpdateDeduplicator(globalProperties.getDedupWindow()));
+    }
+
+    /**
+     * Returns the max of active threads and queued tasks ratios of the task executor. Virtual threads are never
+     * saturated.
+     *
+     * @return value from 0 (idle) to 1 (saturated)
+     */
+    @Override
+    public double getSaturation() {
+        if (virtualThreadExecutor != null) {
+            return 0;
+        }
+        ThreadPoolExecutor executor = globalProperties.getTaskExecutor();
+        double active = (double) executor.getActiveCount() / executor.getMaximumPoolSize();
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        int queued = queue.size();
+        int capacity = queued + queue.remainingCapacity();
+        return Math.min(1, Math.max(active, (capacity > 0) ? (double) queued / capacity : 0));
+    }
+
+    private void dispatch(@NotNull String token, @NotNull TelegramBot bot, @NotNull Update update, @NotNull Consumer<Update> processedCallback) throws RejectedExecutionException {
+        Runnable onProcessed = () -> processedCallback.accept(update);
+        if (lanesExecutor != null) {
+            TelegramEvent event = new TelegramRequest(token, update, bot);
+            // The lane waits until the update is processed, so the asynchronous handlers are ordered as well
+            lanesExecutor.executeAsync(TelegramSessionResolver.getSessionId(event), completion -> processEvent(event, bot, () -> {
+                try {
+                    onProcessed.run();
+                } finally {
+                    completion.run();
+                }
+            }), onProcessed);
+        } else if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.execute(() -> processEvent(new TelegramRequest(token, update, bot), bot, onProcessed));
+        } else {
+            dispatchExecutor.executeUpdate(() -> processEvent(new TelegramRequest(token, update, bot), bot, onProcessed), onProcessed);
+        }
+    }
+
+    /**
+     * Stops accepting new updates if they are processed on virtual threads and stops the outbound scheduler if the
+     * outbound rate limits or retries are enabled. Invoked by Spring on context shutdown.
+     */
+    public void shutdown() {
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+        if (outboundScheduler != null) {
+            outboundScheduler.shutdown();
+        }
+    }
+
+    /**
+     * Processes the event by the handler method. The result of the asynchronous handler method is sent when it is
+     * completed, the update is treated as processed only after that.
+     */
+    private void processEvent(@NotNull TelegramEvent event, @NotNull TelegramBot bot, @NotNull Runnable onProcessed) {
+        CompletionStage<TelegramCallback> executionResult = null;
+        try {
+            executionResult = botRequestDispatcher.executeAsync(event);
+        } catch (IllegalStateException e) {
+            onExecutionError(e);
+        } finally {
+            if (executionResult == null) {
+                onProcessed.run();
+            }
+        }
+        if (executionResult != null) {
+            executionResult.whenComplete((result, error) -> {
+                try {
+                    if (error != null) {
+                        onExecutionError(error);
+                    } else if ((result != null) && (result.getRequest() != null)) {
+                        // Execute telegram request from controller response
+                        log.debug("Controller returned Telegram request {}", result);
+                        postExecute(result, event.getToken(), bot);
+                    }
+                } catch (RuntimeException e) {
+                    log.error("An unhandled exception occurred while sending the Telegram request", e);
+                } finally {
+                    onProcessed.run();
+                }
+            });
         }
     }
 
+    private void onExecutionError(Throwable error) {
+        metricsService.onUpdateError();
+        log.error("Execution error", (error instanceof CompletionException) && (error.getCause() != null) ? error.getCause() : error);
+    }
+
+    /**
+     * Sends the request and then the following requests one after another, so they are delivered in the same order
+     * without blocking the current thread.
+     */
     @SuppressWarnings("unchecked")
-    private void postExecute(TelegramCallback baseRequest, @NotNull TelegramBot telegramBot) {
-        telegramBot.execute(baseRequest.getRequest(), new Callback() {
+    private void postExecute(TelegramCallback baseRequest, @NotNull String token, @NotNull TelegramBot telegramBot) {
+        Callback callback = new Callback() {
             @Override
             public void onResponse(BaseRequest request, BaseResponse response) {
-                baseRequest.onResponse(request, response);
-                globalProperties.getResponseCallback().onResponse(request, response);
-                log.debug("{} request was successfully executed", baseRequest);
+                try {
+                    baseRequest.onResponse(request, response);
+                    globalProperties.getResponseCallback().onResponse(request, response);
+                    if (response.isOk()) {
+                        log.debug("{} request was successfully executed", baseRequest);
+                    } else {
+                        metricsService.onUpdateError();
+                        log.warn("{} request was rejected by Telegram: {} {}", baseRequest, response.errorCode(), response.description());
+                    }
+                } finally {
+                    postExecuteNext(baseRequest, token, telegramBot);
+                }
             }
 
             @Override
             public void onFailure(BaseRequest request, IOException e) {
-                baseRequest.onFailure(request, e);
-                globalProperties.getResponseCallback().onFailure(request, e);
-                metricsService.onUpdateError();
-                log.error(baseRequest + " request was failed", e);
+                try {
+                    baseRequest.onFailure(request, e);
+                    globalProperties.getResponseCallback().onFailure(request, e);
+                    metricsService.onUpdateError();
+                    log.error(baseRequest + " request was failed", e);
+                } finally {
+                    postExecuteNext(baseRequest, token, telegramBot);
+                }
             }
-        });
+        };
+        if (outboundScheduler != null) {
+            outboundScheduler.execute(token, telegramBot, baseRequest.getRequest(), callback);
+        } else {
+            telegramBot.execute(baseRequest.getRequest(), callback);
+        }
+    }
+
+    private void postExecuteNext(TelegramCallback baseRequest, @NotNull String token, @NotNull TelegramBot telegramBot) {
+        // The following requests are sent even if the previous one failed, each of them reports its own result
+        if (baseRequest.getNext() != null) {
+            postExecute(baseRequest.getNext(), token, telegramBot);
+        }
     }
 }
@@ -0,0 +1,195 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.config.TelegramBotProperties;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.response.BaseResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link DeadLetterSink} that appends the failed requests to the local file of the bot, one JSON object per line. The
+ * parameters are stored in the same form they are sent to Telegram, so the requests can be sent again by
+ * {@link #replay(String, TelegramBot)}, e.g. when the application is started.
+ * <p>Requests with files are not stored.</p>
+ *
+ * @since 0.31
+ */
+@Slf4j
+public class FileDeadLetterSink implements DeadLetterSink {
+    private final Path directory;
+
+    /**
+     * @param directory directory of the dead letter files
+     */
+    public FileDeadLetterSink(@NotNull Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void accept(@NotNull String token, @NotNull BaseRequest request, @Nullable BaseResponse response, @Nullable IOException error) {
+        if (request.isMultipart()) {
+            log.warn("{} request with files can not be stored to the dead letter file", request.getMethod());
+            return;
+        }
+
+        JsonObject entry = new JsonObject();
+        entry.addProperty("time", System.currentTimeMillis());
+        entry.addProperty("method", request.getMethod());
+        JsonObject parameters = new JsonObject();
+        for (Map.Entry<String, Object> parameter : ((Map<String, Object>) request.getParameters()).entrySet()) {
+            if (parameter.getValue() != null) {
+                parameters.addProperty(parameter.getKey(), toParameterValue(parameter.getValue()));
+            }
+        }
+        entry.add("parameters", parameters);
+        if (response != null) {
+            entry.addProperty("error_code", response.errorCode());
+            entry.addProperty("description", response.description());
+        } else if (error != null) {
+            entry.addProperty("description", error.toString());
+        }
+
+        try {
+            append(getPath(token), entry);
+        } catch (IOException e) {
+            log.error("Failed to store " + request.getMethod() + " request to the dead letter file", e);
+        }
+    }
+
+    /**
+     * @param token bot token
+     * @return stored requests of the bot in the order they failed
+     * @throws IOException if the file can not be read
+     */
+    public List<BaseRequest> load(@NotNull String token) throws IOException {
+        Path path = getPath(token);
+        synchronized (this) {
+            return Files.exists(path) ? read(path) : new ArrayList<>();
+        }
+    }
+
+    /**
+     * Sends the stored requests of the bot again one after another and removes them from the file. Requests that fail
+     * again are stored back.
+     *
+     * @param token bot token
+     * @param bot   bot that sends the requests
+     * @return number of successfully sent requests
+     * @throws IOException if the file can not be read
+     */
+    @SuppressWarnings("unchecked")
+    public int replay(@NotNull String token, @NotNull TelegramBot bot) throws IOException {
+        Path path = getPath(token);
+        Path replayPath = path.resolveSibling(path.getFileName() + ".replay");
+        List<BaseRequest> requests;
+        synchronized (this) {
+            if (!Files.exists(path)) {
+                return 0;
+            }
+            // Requests that fail during the replay are appended to the new file
+            Files.move(path, replayPath, StandardCopyOption.REPLACE_EXISTING);
+            requests = read(replayPath);
+        }
+
+        int sent = 0;
+        for (BaseRequest request : requests) {
+            try {
+                BaseResponse response = bot.execute(request);
+                if (response.isOk()) {
+                    sent++;
+                } else {
+                    accept(token, request, response, null);
+                }
+            } catch (RuntimeException e) {
+                accept(token, request, null, new IOException(e));
+            }
+        }
+        Files.delete(replayPath);
+        log.info("{} of {} dead letter requests have been sent again", sent, requests.size());
+        return sent;
+    }
+
+    private Path getPath(String token) {
+        return directory.resolve(TelegramBotProperties.getBotId(token) + ".deadletters");
+    }
+
+    private synchronized void append(Path path, JsonObject entry) throws IOException {
+        Files.createDirectories(directory);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(UpdateDecoder.GSON.toJson(entry));
+            writer.newLine();
+        }
+    }
+
+    private static List<BaseRequest> read(Path path) throws IOException {
+        List<BaseRequest> requests = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                try {
+                    JsonObject entry = UpdateDecoder.GSON.fromJson(line, JsonObject.class);
+                    Map<String, String> parameters = new LinkedHashMap<>();
+                    for (Map.Entry<String, JsonElement> parameter : entry.getAsJsonObject("parameters").entrySet()) {
+                        parameters.put(parameter.getKey(), parameter.getValue().getAsString());
+                    }
+                    requests.add(new DeadLetterRequest(entry.get("method").getAsString(), parameters));
+                } catch (JsonParseException | IllegalStateException | NullPointerException e) {
+                    // The last line may be partially written during the crash
+                    log.warn("Malformed dead letter entry is skipped: {}", line);
+                }
+            }
+        }
+        return requests;
+    }
+
+    /**
+     * Converts the parameter the same way as the Telegram client does when the request is sent as a form.
+     */
+    private static String toParameterValue(Object value) {
+        Class<?> type = value.getClass();
+        if (type.isPrimitive() || type.isEnum() || type.getName().startsWith("java.lang")) {
+            return String.valueOf(value);
+        }
+        return UpdateDecoder.GSON.toJson(value);
+    }
+
+    /**
+     * Request restored from the dead letter file.
+     */
+    public static class DeadLetterRequest extends BaseRequest<DeadLetterRequest, BaseResponse> {
+        private final String method;
+
+        DeadLetterRequest(@NotNull String method, @NotNull Map<String, String> parameters) {
+            super(BaseResponse.class);
+            this.method = method;
+            parameters.forEach(this::add);
+        }
+
+        @Override
+        public String getMethod() {
+            return method;
+        }
+    }
+}
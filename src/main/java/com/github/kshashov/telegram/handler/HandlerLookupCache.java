@@ -0,0 +1,130 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.EqualsAndHashCode;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Bounded cache of {@link HandlerMethodContainer.HandlerLookupResult} results keyed by token, message type and text of
+ * the Telegram event. Lets the frequent commands skip the matching entirely.
+ * <p>Only the results of the events with short texts are cached. Results with template variables are cached only if
+ * the total length of variable values does not exceed the configured limit, and the results without handler or with
+ * the wildcard patterns are never cached, so the arbitrary texts can not flood the cache.</p>
+ *
+ * @since 0.31
+ */
+public class HandlerLookupCache {
+    private final Cache<LookupKey, HandlerMethodContainer.HandlerLookupResult> cache;
+    private final int maxVariablesLength;
+    private final int maxTextLength;
+    private final MetricsService metricsService;
+
+    /**
+     * @param maximumSize        max number of cached results
+     * @param maxVariablesLength max total length of template variable values for the cached results
+     * @param maxTextLength      max length of the event text for the cached results
+     * @param metricsService     metrics service
+     */
+    public HandlerLookupCache(int maximumSize, int maxVariablesLength, int maxTextLength, @NotNull MetricsService metricsService) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        this.maxVariablesLength = maxVariablesLength;
+        this.maxTextLength = maxTextLength;
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * Returns cached lookup result for the event if any.
+     *
+     * @param telegramEvent event received from Telegram API
+     * @return cached result or {@code null}
+     */
+    @Nullable
+    public HandlerMethodContainer.HandlerLookupResult get(@NotNull TelegramEvent telegramEvent) {
+        HandlerMethodContainer.HandlerLookupResult result = isCacheable(telegramEvent) ? cache.getIfPresent(toKey(telegramEvent)) : null;
+        if (result != null) {
+            metricsService.onLookupCacheHit();
+        } else {
+            metricsService.onLookupCacheMiss();
+        }
+        return result;
+    }
+
+    /**
+     * Stores lookup result for the event if it is allowed to be cached.
+     *
+     * @param telegramEvent event received from Telegram API
+     * @param result        lookup result
+     * @return result that should be used by the caller
+     */
+    @NotNull
+    public HandlerMethodContainer.HandlerLookupResult put(@NotNull TelegramEvent telegramEvent, @NotNull HandlerMethodContainer.HandlerLookupResult result) {
+        if (!isCacheable(telegramEvent) || (result.getHandlerMethod() == null) || isWildcard(result.getBasePattern())) {
+            return result;
+        }
+
+        Map<String, String> variables = result.getTemplateVariables();
+        if ((variables == null) || variables.isEmpty()) {
+            cache.put(toKey(telegramEvent), result);
+            return result;
+        }
+
+        int length = 0;
+        for (String value : variables.values()) {
+            length += (value == null) ? 0 : value.length();
+        }
+        if (length > maxVariablesLength) {
+            return result;
+        }
+
+        // Cached variables are shared between requests
+        HandlerMethodContainer.HandlerLookupResult cached = new HandlerMethodContainer.HandlerLookupResult(
+                result.getHandlerMethod(),
+                result.getBasePattern(),
+                Collections.unmodifiableMap(variables));
+        cache.put(toKey(telegramEvent), cached);
+        return cached;
+    }
+
+    /**
+     * Discards all cached results.
+     */
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private boolean isCacheable(TelegramEvent telegramEvent) {
+        String text = telegramEvent.getText();
+        return (text == null) || (text.length() <= maxTextLength);
+    }
+
+    private static boolean isWildcard(@Nullable String pattern) {
+        return (pattern != null) && ((pattern.indexOf('*') >= 0) || (pattern.indexOf('?') >= 0));
+    }
+
+    private LookupKey toKey(TelegramEvent telegramEvent) {
+        return new LookupKey(telegramEvent.getToken(), telegramEvent.getMessageType(), telegramEvent.getText());
+    }
+
+    @EqualsAndHashCode
+    private static class LookupKey {
+        private final String token;
+        private final MessageType messageType;
+        private final String text;
+
+        LookupKey(String token, MessageType messageType, String text) {
+            this.token = token;
+            this.messageType = messageType;
+            this.text = text;
+        }
+    }
+}
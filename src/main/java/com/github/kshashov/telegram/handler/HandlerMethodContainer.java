@@ -2,6 +2,7 @@ package com.github.kshashov.telegram.handler;
 
 
 import com.github.kshashov.telegram.TelegramControllerBeanPostProcessor;
+import com.github.kshashov.telegram.api.MessageType;
 import com.github.kshashov.telegram.handler.processor.HandlerMethod;
 import com.github.kshashov.telegram.handler.processor.TelegramEvent;
 import lombok.AllArgsConstructor;
@@ -12,23 +13,48 @@ import lombok.Setter;
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 /**
  * Thread-Unsafe helper entity which is used to accumulate handlers during the {@link TelegramControllerBeanPostProcessor} processing.
  */
 public class HandlerMethodContainer {
     private final Map<String, List<RequestMapping>> handlers = new HashMap<>();
+    private final Map<String, Map<MessageType, List<RequestMapping>>> typedHandlers = new HashMap<>();
+    private final Map<String, Map<MessageType, RequestMappingsIndex>> indexes = new HashMap<>();
     private RequestMappingsMatcherStrategy matcherStrategy;
+    private HandlerLookupCache lookupCache;
 
     @NotNull
     public HandlerLookupResult lookupHandlerMethod(@NotNull TelegramEvent telegramEvent) {
         if (matcherStrategy == null) throw new IllegalStateException("MatcherStrategy is not set");
 
-        List<RequestMapping> botMethods = handlers.get(telegramEvent.getToken());
+        if (lookupCache == null) {
+            return doLookupHandlerMethod(telegramEvent);
+        }
+
+        HandlerLookupResult result = lookupCache.get(telegramEvent);
+        if (result == null) {
+            result = lookupCache.put(telegramEvent, doLookupHandlerMethod(telegramEvent));
+        }
+        return result;
+    }
+
+    @NotNull
+    private HandlerLookupResult doLookupHandlerMethod(@NotNull TelegramEvent telegramEvent) {
+        Map<MessageType, RequestMappingsIndex> botIndexes = indexes.get(telegramEvent.getToken());
+        if (botIndexes != null) {
+            RequestMappingsIndex index = botIndexes.get(telegramEvent.getMessageType());
+            RequestMappingsIndex.IndexMatch indexMatch = (index == null) ? null : index.lookup(telegramEvent);
+            if (indexMatch == null) {
+                return new HandlerLookupResult();
+            }
+
+            RequestMapping botMappings = indexMatch.getMapping();
+            return new HandlerLookupResult(botMappings.getHandlerMethod(), botMappings.getMappingInfo().getPattern(), indexMatch.getMatch().getTemplateVariables());
+        }
+
+        List<RequestMapping> botMethods = getCandidates(telegramEvent);
         if (botMethods != null) {
             for (RequestMapping botMappings : botMethods) {
                 RequestMappingInfo info = botMappings.getMappingInfo();
@@ -38,9 +64,9 @@ public class HandlerMethodContainer {
                 }
 
                 // Is matched
-                if (matcherStrategy.isMatched(telegramEvent, info)) {
-                    Map<String, String> variables = matcherStrategy.extractPatternVariables(telegramEvent.getText(), info);
-                    return new HandlerLookupResult(botMappings.getHandlerMethod(), info.getPattern(), variables);
+                RequestMappingMatch match = matcherStrategy.match(telegramEvent, info);
+                if (match.isMatched()) {
+                    return new HandlerLookupResult(botMappings.getHandlerMethod(), info.getPattern(), match.getTemplateVariables());
                 }
             }
         }
@@ -50,14 +76,103 @@ public class HandlerMethodContainer {
     public HandlerMethod registerController(@NotNull Object bean, @NotNull Method method, @NotNull List<RequestMappingInfo> mappingInfo) {
         if (mappingInfo.isEmpty()) return null;
         HandlerMethod handlerMethod = new HandlerMethod(bean, method);
-        List<RequestMapping> botHandlers = handlers.computeIfAbsent(mappingInfo.get(0).getToken(), (k) -> new ArrayList<>());
+        String token = mappingInfo.get(0).getToken();
+        List<RequestMapping> botHandlers = handlers.computeIfAbsent(token, (k) -> new ArrayList<>());
         mappingInfo.forEach(info -> botHandlers.add(new RequestMapping(info, handlerMethod)));
+        // Buckets and index are outdated, use linear scan for this bot
+        typedHandlers.remove(token);
+        indexes.remove(token);
+        if (lookupCache != null) lookupCache.invalidateAll();
         return handlerMethod;
     }
 
     public void setMatcherStrategy(@NotNull RequestMappingsMatcherStrategy matcherStrategy) {
         this.matcherStrategy = matcherStrategy;
         handlers.replaceAll((key, value) -> matcherStrategy.postProcess(value));
+
+        // Split handlers by message types once all handlers are discovered
+        typedHandlers.clear();
+        handlers.forEach((token, mappings) -> typedHandlers.put(token, partitionByMessageType(mappings)));
+
+        // Build routing indexes for each bucket
+        indexes.clear();
+        if ((matcherStrategy instanceof DefaultRequestMappingsMatcherStrategy)
+                && ((DefaultRequestMappingsMatcherStrategy) matcherStrategy).isRoutingIndexSupported()) {
+            typedHandlers.forEach((token, buckets) -> {
+                Map<MessageType, RequestMappingsIndex> botIndexes = new EnumMap<>(MessageType.class);
+                buckets.forEach((type, mappings) -> botIndexes.put(type, new RequestMappingsIndex(mappings, matcherStrategy)));
+                indexes.put(token, botIndexes);
+            });
+        }
+
+        if (lookupCache != null) lookupCache.invalidateAll();
+    }
+
+    /**
+     * Returns message types of all handlers registered for the bot.
+     *
+     * @param token bot token
+     * @return message types
+     * @since 0.31
+     */
+    @NotNull
+    public Set<MessageType> getMessageTypes(@NotNull String token) {
+        Set<MessageType> result = EnumSet.noneOf(MessageType.class);
+        handlers.getOrDefault(token, Collections.emptyList())
+                .forEach(mapping -> result.addAll(mapping.getMappingInfo().getMessageTypes()));
+        return result;
+    }
+
+    /**
+     * Returns all registered handler methods.
+     *
+     * @return distinct handler methods
+     */
+    @NotNull
+    public Set<HandlerMethod> getHandlerMethods() {
+        Set<HandlerMethod> result = new LinkedHashSet<>();
+        handlers.values().forEach(mappings -> mappings.forEach(mapping -> result.add(mapping.getHandlerMethod())));
+        return result;
+    }
+
+    /**
+     * Specify cache for the lookup results. Cache is disabled by default.
+     *
+     * @param lookupCache lookup cache
+     * @since 0.31
+     */
+    public void setLookupCache(@Nullable HandlerLookupCache lookupCache) {
+        this.lookupCache = lookupCache;
+    }
+
+    @Nullable
+    private List<RequestMapping> getCandidates(@NotNull TelegramEvent telegramEvent) {
+        Map<MessageType, List<RequestMapping>> buckets = typedHandlers.get(telegramEvent.getToken());
+        if (buckets != null) {
+            return buckets.get(telegramEvent.getMessageType());
+        }
+        return handlers.get(telegramEvent.getToken());
+    }
+
+    /**
+     * Splits sorted mappings by message types. Mappings with {@link MessageType#ANY} type are added to the each bucket.
+     *
+     * @param mappings sorted mappings
+     * @return mappings for the each message type in the same order
+     */
+    private static Map<MessageType, List<RequestMapping>> partitionByMessageType(@NotNull List<RequestMapping> mappings) {
+        Map<MessageType, List<RequestMapping>> result = new EnumMap<>(MessageType.class);
+        for (MessageType type : MessageType.values()) {
+            List<RequestMapping> bucket = new ArrayList<>();
+            for (RequestMapping mapping : mappings) {
+                Set<MessageType> types = mapping.getMappingInfo().getMessageTypes();
+                if (types.contains(type) || types.contains(MessageType.ANY)) {
+                    bucket.add(mapping);
+                }
+            }
+            result.put(type, bucket);
+        }
+        return result;
     }
 
     @Getter
@@ -0,0 +1,39 @@
+package com.github.kshashov.telegram.handler;
+
+import io.javalin.Javalin;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Serves webhook endpoints by the embedded Javalin server.
+ *
+ * @since 0.31
+ */
+public class JavalinWebhookEndpointRegistrar implements WebhookEndpointRegistrar {
+    private final Javalin server;
+    private final String route;
+
+    /**
+     * @param server started Javalin server
+     */
+    public JavalinWebhookEndpointRegistrar(@NotNull Javalin server) {
+        this(server, "/{path}");
+    }
+
+    JavalinWebhookEndpointRegistrar(@NotNull Javalin server, @NotNull String route) {
+        this.server = server;
+        this.route = route;
+    }
+
+    @Override
+    public void register(@NotNull WebhookFrontController frontController) {
+        server.post(route, context -> {
+            String path = context.path();
+            int status = frontController.checkRequest(path, context.header(WebhookFrontController.SECRET_TOKEN_HEADER), context.contentLength());
+            if (status == WebhookFrontController.OK) {
+                status = frontController.handleBody(path, context.bodyAsBytes());
+            }
+            context.status(status);
+        });
+    }
+}
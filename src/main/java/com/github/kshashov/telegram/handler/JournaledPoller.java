@@ -0,0 +1,104 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
+import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.GetUpdates;
+import com.pengrad.telegrambot.response.GetUpdatesResponse;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * {@link AdaptivePoller} that takes the offset from {@link UpdateOffsetStore}, so the updates are confirmed only after
+ * they are processed rather than accepted by the task executor. Re-delivered updates that are still being processed
+ * or were already processed are skipped.
+ *
+ * @since 0.31
+ */
+class JournaledPoller extends AdaptivePoller {
+    private final UpdateOffsetStore offsetStore;
+
+    /**
+     * @param token          bot token
+     * @param bot            bot
+     * @param updatesHandler updates handler
+     * @param requestFactory creates request with all parameters except offset
+     * @param limit          max number of updates per request or 0 for Telegram API default
+     * @param backoff        backoff
+     * @param metricsService metrics service
+     * @param offsetStore    offset store
+     */
+    JournaledPoller(@NotNull String token, @NotNull TelegramBot bot, @NotNull TelegramUpdatesHandler updatesHandler, @NotNull Supplier<GetUpdates> requestFactory, int limit, @NotNull PollingBackoff backoff, @NotNull MetricsService metricsService, @NotNull UpdateOffsetStore offsetStore) {
+        super(token, bot, updatesHandler, requestFactory, limit, backoff, metricsService);
+        this.offsetStore = offsetStore;
+    }
+
+    JournaledPoller(String token, TelegramBot bot, TelegramUpdatesHandler updatesHandler, Supplier<GetUpdates> requestFactory, int limit, PollingBackoff backoff, MetricsService metricsService, ScheduledExecutorService scheduler, UpdateOffsetStore offsetStore) {
+        super(token, bot, updatesHandler, requestFactory, limit, backoff, metricsService, scheduler);
+        this.offsetStore = offsetStore;
+    }
+
+    @Override
+    void start() {
+        offsetStore.open();
+        super.start();
+    }
+
+    @Override
+    void stop() {
+        super.stop();
+        offsetStore.close();
+    }
+
+    @Override
+    long handleResponse(GetUpdatesResponse response, long latencyNanos) {
+        try {
+            return super.handleResponse(response, latencyNanos);
+        } finally {
+            offsetStore.flush();
+        }
+    }
+
+    @Override
+    long handleUpdates(List<Update> updates) {
+        List<Update> batch = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            if (!offsetStore.isTracked(update.updateId())) {
+                offsetStore.begin(update.updateId());
+                batch.add(update);
+            }
+        }
+        if (batch.isEmpty()) {
+            // Only the updates that are still being processed were re-delivered
+            return backoff.applySaturation(backoff.onBatch(0, limit), updatesHandler.getSaturation());
+        }
+
+        int confirmed;
+        try {
+            confirmed = updatesHandler.processUpdatesAndConfirm(token, bot, batch, update -> offsetStore.complete(update.updateId()));
+        } catch (RuntimeException e) {
+            batch.forEach(update -> offsetStore.cancel(update.updateId()));
+            throw e;
+        }
+        if (confirmed != UpdatesListener.CONFIRMED_UPDATES_ALL) {
+            for (Update update : batch) {
+                if ((confirmed == UpdatesListener.CONFIRMED_UPDATES_NONE) || (update.updateId() > confirmed)) {
+                    offsetStore.cancel(update.updateId());
+                }
+            }
+        }
+
+        long delay = backoff.onBatch((confirmed == UpdatesListener.CONFIRMED_UPDATES_ALL) ? batch.size() : 0, limit);
+        return backoff.applySaturation(delay, updatesHandler.getSaturation());
+    }
+
+    @Override
+    int getOffset() {
+        return offsetStore.getOffset();
+    }
+}
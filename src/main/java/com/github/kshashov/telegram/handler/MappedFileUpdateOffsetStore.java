@@ -0,0 +1,257 @@
+package com.github.kshashov.telegram.handler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link UpdateOffsetStore} backed by the append-only memory-mapped journal file. Each record takes 8 bytes and
+ * contains either the new offset or the id of the processed update above the offset. The journal is compacted to the
+ * current state when the file is full. The compacted journal is forced to the storage device and atomically replaces
+ * the old one.
+ * <p>Updates that were being processed during the crash are not journaled, so they are re-delivered by Telegram API
+ * after restart.</p>
+ *
+ * @since 0.31
+ */
+@Slf4j
+public class MappedFileUpdateOffsetStore implements UpdateOffsetStore {
+    static final int RECORD_SIZE = 8;
+    private static final int DEFAULT_CAPACITY = 1 << 20;
+    private static final int OFFSET_RECORD = 1;
+    private static final int PROCESSED_RECORD = 2;
+
+    private final Path path;
+    private final OffsetFsyncPolicy fsyncPolicy;
+    private final int capacity;
+    private final TreeMap<Integer, State> updates = new TreeMap<>();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int offset;
+    private boolean dirty;
+
+    /**
+     * @param path        journal file
+     * @param fsyncPolicy when the journal is forced to the storage device
+     */
+    public MappedFileUpdateOffsetStore(@NotNull Path path, @NotNull OffsetFsyncPolicy fsyncPolicy) {
+        this(path, fsyncPolicy, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param path        journal file
+     * @param fsyncPolicy when the journal is forced to the storage device
+     * @param capacity    journal size in bytes before compaction
+     */
+    public MappedFileUpdateOffsetStore(@NotNull Path path, @NotNull OffsetFsyncPolicy fsyncPolicy, int capacity) {
+        if (capacity < RECORD_SIZE * 2) {
+            throw new IllegalArgumentException("Journal capacity is too small");
+        }
+        this.path = path;
+        this.fsyncPolicy = fsyncPolicy;
+        this.capacity = capacity - (capacity % RECORD_SIZE);
+    }
+
+    @Override
+    public synchronized void open() {
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            map(path, Math.max(capacity, Files.exists(path) ? (int) Files.size(path) : 0));
+            replay();
+            log.info("Polling will be resumed from update {}", offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open update offset journal " + path, e);
+        }
+    }
+
+    private void replay() {
+        updates.clear();
+        offset = 0;
+        while (buffer.remaining() >= RECORD_SIZE) {
+            int position = buffer.position();
+            int type = buffer.getInt(position);
+            int value = buffer.getInt(position + 4);
+            if (type == OFFSET_RECORD) {
+                offset = value;
+                updates.headMap(value).clear();
+            } else if (type == PROCESSED_RECORD) {
+                if (value >= offset) {
+                    updates.put(value, State.PROCESSED);
+                }
+            } else {
+                break;
+            }
+            buffer.position(position + RECORD_SIZE);
+        }
+    }
+
+    @Override
+    public synchronized int getOffset() {
+        return offset;
+    }
+
+    @Override
+    public synchronized boolean isTracked(int updateId) {
+        if (updateId < offset) {
+            return true;
+        }
+        State state = updates.get(updateId);
+        return (state == State.IN_FLIGHT) || (state == State.PROCESSED);
+    }
+
+    @Override
+    public synchronized void begin(int updateId) {
+        if (updateId >= offset) {
+            updates.put(updateId, State.IN_FLIGHT);
+        }
+    }
+
+    @Override
+    public synchronized void complete(int updateId) {
+        if ((buffer == null) || (updateId < offset) || (updates.get(updateId) != State.IN_FLIGHT)) {
+            return;
+        }
+        updates.put(updateId, State.PROCESSED);
+
+        // Drop the processed updates below the first pending one
+        int newOffset = offset;
+        Iterator<Map.Entry<Integer, State>> iterator = updates.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Integer, State> entry = iterator.next();
+            if (entry.getValue() != State.PROCESSED) {
+                break;
+            }
+            newOffset = entry.getKey() + 1;
+            iterator.remove();
+        }
+
+        if (newOffset != offset) {
+            offset = newOffset;
+            append(OFFSET_RECORD, offset);
+        } else {
+            append(PROCESSED_RECORD, updateId);
+        }
+    }
+
+    @Override
+    public synchronized void cancel(int updateId) {
+        if (updates.get(updateId) == State.IN_FLIGHT) {
+            updates.put(updateId, State.CANCELLED);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (dirty && (buffer != null) && (fsyncPolicy == OffsetFsyncPolicy.BATCH)) {
+            buffer.force();
+        }
+        dirty = false;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (buffer == null) {
+            return;
+        }
+        if (fsyncPolicy != OffsetFsyncPolicy.NEVER) {
+            buffer.force();
+        }
+        buffer = null;
+        closeChannel();
+    }
+
+    private void append(int type, int value) {
+        if (buffer.remaining() < RECORD_SIZE) {
+            compact();
+        }
+        // Record type is written last, so the torn record is ignored on replay
+        int position = buffer.position();
+        buffer.putInt(position + 4, value);
+        buffer.putInt(position, type);
+        buffer.position(position + RECORD_SIZE);
+
+        if (fsyncPolicy == OffsetFsyncPolicy.ALWAYS) {
+            buffer.force();
+        } else {
+            dirty = true;
+        }
+    }
+
+    private void compact() {
+        int processed = 0;
+        for (State state : updates.values()) {
+            if (state == State.PROCESSED) {
+                processed++;
+            }
+        }
+        int size = Math.max(capacity, (processed + 1) * RECORD_SIZE * 2);
+
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(compacted);
+            // The old journal should be complete until it is replaced
+            if (fsyncPolicy != OffsetFsyncPolicy.NEVER) {
+                buffer.force();
+            }
+            closeChannel();
+            map(compacted, size);
+            buffer.putInt(4, offset).putInt(0, OFFSET_RECORD).position(RECORD_SIZE);
+            for (Map.Entry<Integer, State> entry : updates.entrySet()) {
+                if (entry.getValue() == State.PROCESSED) {
+                    int position = buffer.position();
+                    buffer.putInt(position + 4, entry.getKey()).putInt(position, PROCESSED_RECORD).position(position + RECORD_SIZE);
+                }
+            }
+            buffer.force();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // The rename is durable only when the directory entry is written
+            forceDirectory(path.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to compact update offset journal " + path, e);
+        }
+    }
+
+    private void forceDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // Some platforms do not allow to open the directory
+            log.debug("Failed to force the directory of update offset journal {}", path, e);
+        }
+    }
+
+    private void map(Path file, int size) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Failed to close update offset journal {}", path, e);
+        }
+    }
+
+    private enum State {
+        IN_FLIGHT,
+        CANCELLED,
+        PROCESSED
+    }
+}
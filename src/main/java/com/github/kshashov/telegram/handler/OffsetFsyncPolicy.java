@@ -0,0 +1,24 @@
+package com.github.kshashov.telegram.handler;
+
+/**
+ * Defines when {@link MappedFileUpdateOffsetStore} forces the journal changes to the storage device. Changes written
+ * to the memory-mapped file survive the process crash in any case, the policy only matters if the whole system fails.
+ *
+ * @since 0.31
+ */
+public enum OffsetFsyncPolicy {
+    /**
+     * Force the journal after each record.
+     */
+    ALWAYS,
+
+    /**
+     * Force the journal once per batch of updates.
+     */
+    BATCH,
+
+    /**
+     * Never force the journal, the operating system decides when to write it.
+     */
+    NEVER
+}
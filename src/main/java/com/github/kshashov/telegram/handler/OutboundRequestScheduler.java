@@ -0,0 +1,355 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.model.ResponseParameters;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.response.BaseResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Sends the requests returned by the handler methods without exceeding the Telegram rate limits. Each bot has the
+ * global token bucket and the bucket for each chat, so the request that exceeds the limits is queued until the buckets
+ * allow to send it instead of failing with 429 Too Many Requests. If Telegram responds with 429 anyway, the bucket is
+ * paused for {@code retry_after} seconds and the request is queued again.
+ * <p>Each bucket allows a burst of as many requests as its rate allows per its time unit, e.g. a single message to the
+ * private chat limited by one message per second or 20 messages to the group limited by 20 messages per minute.</p>
+ * <p>Only the methods that send or edit messages are limited, see {@link RateClass}.</p>
+ * <p>Failed requests are retried according to {@link OutboundRetryPolicy}, requests that are still failed with the
+ * transient error are passed to {@link DeadLetterSink}.</p>
+ *
+ * @since 0.31
+ */
+@Slf4j
+class OutboundRequestScheduler {
+    static final int MAX_RATE_LIMITED_RETRIES = 3;
+    static final long SWEEP_INTERVAL = TimeUnit.MINUTES.toNanos(1);
+    private static final long DEFAULT_RETRY_AFTER = TimeUnit.SECONDS.toNanos(1);
+
+    private final long globalInterval;
+    private final int globalBurst;
+    private final long privateChatInterval;
+    private final int privateChatBurst;
+    private final long groupChatInterval;
+    private final int groupChatBurst;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier clock;
+    private final OutboundRetryPolicy retryPolicy;
+    @Nullable
+    private final DeadLetterSink deadLetterSink;
+    private final MetricsService metricsService;
+    private final Map<String, BotBuckets> bots = new ConcurrentHashMap<>();
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final AtomicLong nextSweep;
+
+    /**
+     * @param globalPerSecond      max number of messages sent by the bot per second or 0 if not limited
+     * @param privateChatPerSecond max number of messages sent to the same private chat per second or 0 if not limited
+     * @param groupChatPerMinute   max number of messages sent to the same group or channel per minute or 0 if not limited
+     * @param retryPolicy          retry policy or {@code null} if only 429 responses should be retried
+     * @param deadLetterSink       receives the failed requests or {@code null} if they should be dropped
+     * @param metricsService       metrics service
+     */
+    OutboundRequestScheduler(int globalPerSecond, int privateChatPerSecond, int groupChatPerMinute, @Nullable OutboundRetryPolicy retryPolicy,
+                             @Nullable DeadLetterSink deadLetterSink, @NotNull MetricsService metricsService) {
+        this(globalPerSecond, privateChatPerSecond, groupChatPerMinute, retryPolicy, deadLetterSink, metricsService, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telegram-outbound-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        }), System::nanoTime);
+    }
+
+    OutboundRequestScheduler(int globalPerSecond, int privateChatPerSecond, int groupChatPerMinute, @Nullable OutboundRetryPolicy retryPolicy,
+                             @Nullable DeadLetterSink deadLetterSink, @NotNull MetricsService metricsService,
+                             @NotNull ScheduledExecutorService scheduler, @NotNull LongSupplier clock) {
+        if ((globalPerSecond < 0) || (privateChatPerSecond < 0) || (groupChatPerMinute < 0)) {
+            throw new IllegalArgumentException("Rate limits should not be negative");
+        }
+        this.globalInterval = interval(TimeUnit.SECONDS, globalPerSecond);
+        this.globalBurst = Math.max(1, globalPerSecond);
+        this.privateChatInterval = interval(TimeUnit.SECONDS, privateChatPerSecond);
+        this.privateChatBurst = Math.max(1, privateChatPerSecond);
+        this.groupChatInterval = interval(TimeUnit.MINUTES, groupChatPerMinute);
+        this.groupChatBurst = Math.max(1, groupChatPerMinute);
+        this.retryPolicy = (retryPolicy != null) ? retryPolicy : OutboundRetryPolicy.builder()
+                .maxAttempts(MAX_RATE_LIMITED_RETRIES + 1)
+                .backoff(Duration.ZERO, Duration.ZERO)
+                .deadline(null)
+                .idempotentRetries(false)
+                .build();
+        this.deadLetterSink = deadLetterSink;
+        this.metricsService = metricsService;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.nextSweep = new AtomicLong(clock.getAsLong() + SWEEP_INTERVAL);
+        metricsService.registerOutboundQueueDepth(queueDepth::get);
+    }
+
+    private static long interval(TimeUnit unit, int rate) {
+        return (rate > 0) ? unit.toNanos(1) / rate : 0;
+    }
+
+    /**
+     * Sends the request as soon as the rate limits of the bot allow it.
+     *
+     * @param token    bot token
+     * @param bot      bot that sends the request
+     * @param request  request to send
+     * @param callback receives the response of the request
+     */
+    void execute(@NotNull String token, @NotNull TelegramBot bot, @NotNull BaseRequest request, @NotNull Callback callback) {
+        long now = clock.getAsLong();
+        sweep(now);
+        schedule(new Outbound(token, bots.computeIfAbsent(token, t -> new BotBuckets(now)), bot, request, callback, now), now, 0);
+    }
+
+    /**
+     * @return number of requests that are waiting for the rate limits
+     */
+    int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Stops the scheduler. Queued requests are still sent, requests that should be delayed after that fail with {@link IOException}.
+     */
+    void shutdown() {
+        scheduler.shutdown();
+    }
+
+    private void schedule(Outbound outbound, long now, long notBefore) {
+        long sendAt = Math.max(now, notBefore);
+        if (!outbound.chatReserved) {
+            outbound.chatReserved = true;
+            RateBucket chat = (outbound.rateClass == RateClass.CHAT_MESSAGE) ? outbound.buckets.getChat(outbound.chatId, now) : null;
+            if (chat != null) {
+                sendAt = chat.reserve(sendAt);
+            }
+            if (sendAt - now > 0) {
+                // Global bucket is reserved only when the chat allows to send the request, otherwise the requests to
+                // the other chats would wait for it as well
+                delay(outbound, sendAt - now, () -> schedule(outbound, clock.getAsLong(), 0));
+                return;
+            }
+        }
+
+        if ((outbound.rateClass != RateClass.UNLIMITED) && (outbound.buckets.global != null)) {
+            sendAt = outbound.buckets.global.reserve(sendAt);
+        }
+        if (sendAt - now > 0) {
+            delay(outbound, sendAt - now, () -> send(outbound));
+        } else {
+            send(outbound);
+        }
+    }
+
+    private void delay(Outbound outbound, long delay, Runnable task) {
+        queueDepth.incrementAndGet();
+        try {
+            scheduler.schedule(() -> {
+                queueDepth.decrementAndGet();
+                task.run();
+            }, delay, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            queueDepth.decrementAndGet();
+            outbound.callback.onFailure(outbound.request, new IOException("Outbound scheduler is shut down"));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void send(Outbound outbound) {
+        metricsService.onOutboundRequestSent(clock.getAsLong() - outbound.submitted);
+        outbound.bot.execute(outbound.request, new Callback() {
+            @Override
+            public void onResponse(BaseRequest request, BaseResponse response) {
+                if (!response.isOk()) {
+                    int errorCode = response.errorCode();
+                    if (retryPolicy.isRetryable(request.getMethod(), errorCode) && retry(outbound, errorCode, response.parameters())) {
+                        return;
+                    }
+                    if (OutboundRetryPolicy.isTransient(errorCode)) {
+                        deadLetter(outbound, response, null);
+                    }
+                }
+                outbound.callback.onResponse(request, response);
+            }
+
+            @Override
+            public void onFailure(BaseRequest request, IOException e) {
+                if (retryPolicy.isRetryable(request.getMethod(), e) && retry(outbound, 0, null)) {
+                    return;
+                }
+                deadLetter(outbound, null, e);
+                outbound.callback.onFailure(request, e);
+            }
+        });
+    }
+
+    private boolean retry(Outbound outbound, int errorCode, @Nullable ResponseParameters parameters) {
+        int retry = outbound.attempts + 1;
+        if (retry >= retryPolicy.getMaxAttempts()) {
+            return false;
+        }
+        long now = clock.getAsLong();
+        long delay = retryPolicy.getBackoffNanos(retry);
+        if (errorCode == OutboundRetryPolicy.TOO_MANY_REQUESTS) {
+            metricsService.onOutboundRateLimited();
+            Integer retryAfter = (parameters != null) ? parameters.retryAfter() : null;
+            delay = Math.max(delay, (retryAfter != null) ? TimeUnit.SECONDS.toNanos(retryAfter) : DEFAULT_RETRY_AFTER);
+
+            // Requests to other chats are still allowed unless the bot exceeded the global limit
+            RateBucket chat = outbound.buckets.getChat(outbound.chatId, now);
+            RateBucket bucket = (chat != null) ? chat : outbound.buckets.global;
+            if (bucket != null) {
+                bucket.pause(now + delay);
+            }
+        }
+        if ((retryPolicy.getDeadlineNanos() > 0) && (now + delay - outbound.submitted > retryPolicy.getDeadlineNanos())) {
+            return false;
+        }
+
+        log.debug("{} request has failed, it will be retried in {} ms", outbound.request.getMethod(), TimeUnit.NANOSECONDS.toMillis(delay));
+        metricsService.onOutboundRetry();
+        outbound.attempts = retry;
+        outbound.chatReserved = false;
+        schedule(outbound, now, now + delay);
+        return true;
+    }
+
+    private void deadLetter(Outbound outbound, @Nullable BaseResponse response, @Nullable IOException error) {
+        if (deadLetterSink == null) {
+            return;
+        }
+        metricsService.onOutboundDeadLetter();
+        try {
+            deadLetterSink.accept(outbound.token, outbound.request, response, error);
+        } catch (Exception e) {
+            log.error("Dead letter sink failed to accept " + outbound.request.getMethod() + " request", e);
+        }
+    }
+
+    /**
+     * Removes the buckets of the chats that did not receive messages recently, they are equal to the new ones.
+     */
+    private void sweep(long now) {
+        long next = nextSweep.get();
+        if ((now - next < 0) || !nextSweep.compareAndSet(next, now + SWEEP_INTERVAL)) {
+            return;
+        }
+        for (BotBuckets buckets : bots.values()) {
+            buckets.chats.values().removeIf(bucket -> bucket.isFull(now));
+        }
+    }
+
+    /**
+     * Rate limits applied to the Telegram method.
+     */
+    enum RateClass {
+        /**
+         * Messages sent to the chat are limited by both the chat and the global limits.
+         */
+        CHAT_MESSAGE,
+        /**
+         * Edited messages are limited by the global limit only.
+         */
+        BOT_MESSAGE,
+        /**
+         * Other methods (e.g. answers to the callback queries) are sent immediately.
+         */
+        UNLIMITED;
+
+        static RateClass of(@NotNull String method) {
+            if ("sendChatAction".equals(method)) {
+                return UNLIMITED;
+            }
+            if (method.startsWith("send") || method.startsWith("forward") || method.startsWith("copy")) {
+                return CHAT_MESSAGE;
+            }
+            if (method.startsWith("edit") || method.startsWith("stop")) {
+                return BOT_MESSAGE;
+            }
+            return UNLIMITED;
+        }
+    }
+
+    private class BotBuckets {
+        private final RateBucket global;
+        private final Map<String, RateBucket> chats = new ConcurrentHashMap<>();
+
+        BotBuckets(long now) {
+            this.global = (globalInterval > 0) ? new RateBucket(globalInterval, globalBurst, now) : null;
+        }
+
+        @Nullable
+        RateBucket getChat(@Nullable Object chatId, long now) {
+            if (chatId == null) {
+                return null;
+            }
+            boolean privateChat = isPrivateChat(chatId);
+            long interval = privateChat ? privateChatInterval : groupChatInterval;
+            if (interval <= 0) {
+                return null;
+            }
+            int burst = privateChat ? privateChatBurst : groupChatBurst;
+            return chats.computeIfAbsent(chatId.toString(), id -> new RateBucket(interval, burst, now));
+        }
+    }
+
+    /**
+     * Positive ids belong to the users, ids may be passed as strings as well. Only groups and channels are referred by
+     * the username.
+     */
+    static boolean isPrivateChat(@NotNull Object chatId) {
+        if (chatId instanceof Number) {
+            return ((Number) chatId).longValue() > 0;
+        }
+        String id = chatId.toString();
+        if (id.startsWith("@")) {
+            return false;
+        }
+        try {
+            return Long.parseLong(id) > 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static class Outbound {
+        private final String token;
+        private final BotBuckets buckets;
+        private final TelegramBot bot;
+        private final BaseRequest request;
+        private final Callback callback;
+        private final Object chatId;
+        private final RateClass rateClass;
+        private final long submitted;
+        private int attempts;
+        private boolean chatReserved;
+
+        Outbound(String token, BotBuckets buckets, TelegramBot bot, BaseRequest request, Callback callback, long submitted) {
+            this.token = token;
+            this.buckets = buckets;
+            this.bot = bot;
+            this.request = request;
+            this.callback = callback;
+            this.chatId = request.getParameters().get("chat_id");
+            this.rateClass = RateClass.of(request.getMethod());
+            this.submitted = submitted;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.github.kshashov.telegram.handler;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides which requests returned by the handler methods are retried and when. Requests that were not processed by
+ * Telegram (429 Too Many Requests) are always retried. Server errors and network failures are ambiguous: the message
+ * may have been delivered, so they are retried only for the idempotent methods, i.e. the methods that do not create
+ * new messages or other objects.
+ * <p>Delays grow exponentially from the initial backoff up to the max backoff, each delay is randomly reduced by the
+ * jitter ratio to spread the retries of the simultaneous failures. Requests are not retried after the deadline since
+ * they were submitted.</p>
+ *
+ * @since 0.31
+ */
+public class OutboundRetryPolicy {
+    static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVER_ERROR = 500;
+    private static final Set<String> IDEMPOTENT_METHODS = new HashSet<>(Arrays.asList("sendChatAction", "stopPoll", "stopMessageLiveLocation", "leaveChat"));
+    private static final List<String> IDEMPOTENT_PREFIXES = Arrays.asList("get", "edit", "delete", "answer", "set", "pin", "unpin",
+            "ban", "unban", "restrict", "promote", "approve", "decline", "revoke", "close", "reopen", "hide", "unhide");
+
+    private final int maxAttempts;
+    private final long initialBackoff;
+    private final long maxBackoff;
+    private final double jitter;
+    private final long deadline;
+    private final boolean idempotentRetries;
+
+    private OutboundRetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff.toNanos();
+        this.maxBackoff = builder.maxBackoff.toNanos();
+        this.jitter = builder.jitter;
+        this.deadline = (builder.deadline != null) ? builder.deadline.toNanos() : 0;
+        this.idempotentRetries = builder.idempotentRetries;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return max number of attempts including the first one
+     */
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * @return time since the request was submitted after which it is not retried in nanoseconds or 0 if not limited
+     */
+    public long getDeadlineNanos() {
+        return deadline;
+    }
+
+    /**
+     * @param method    Telegram method
+     * @param errorCode error code of the not successful response
+     * @return true if the request should be retried
+     */
+    public boolean isRetryable(@NotNull String method, int errorCode) {
+        if (errorCode == TOO_MANY_REQUESTS) {
+            return true;
+        }
+        return idempotentRetries && (errorCode >= SERVER_ERROR) && isIdempotent(method);
+    }
+
+    /**
+     * @param method Telegram method
+     * @param error  network failure
+     * @return true if the request should be retried
+     */
+    public boolean isRetryable(@NotNull String method, @NotNull IOException error) {
+        return idempotentRetries && isIdempotent(method);
+    }
+
+    /**
+     * @param retry number of the retry starting from 1
+     * @return delay before the retry in nanoseconds
+     */
+    public long getBackoffNanos(int retry) {
+        long backoff = initialBackoff;
+        for (int i = 1; (i < retry) && (backoff < maxBackoff); i++) {
+            backoff <<= 1;
+        }
+        backoff = Math.min(backoff, maxBackoff);
+        if ((jitter > 0) && (backoff > 0)) {
+            backoff -= (long) (backoff * jitter * ThreadLocalRandom.current().nextDouble());
+        }
+        return backoff;
+    }
+
+    /**
+     * @param errorCode error code of the not successful response
+     * @return true if the same request may succeed later
+     */
+    public static boolean isTransient(int errorCode) {
+        return (errorCode == TOO_MANY_REQUESTS) || (errorCode >= SERVER_ERROR);
+    }
+
+    /**
+     * Only the methods that change or read the existing state are idempotent. Methods that create new messages, links,
+     * invoices or sticker sets (e.g. {@code sendMessage}, {@code createChatInviteLink}, {@code exportChatInviteLink})
+     * and unknown methods are not.
+     *
+     * @param method Telegram method
+     * @return true if the repeated request does not create a new object
+     */
+    public static boolean isIdempotent(@NotNull String method) {
+        if (IDEMPOTENT_METHODS.contains(method)) {
+            return true;
+        }
+        for (String prefix : IDEMPOTENT_PREFIXES) {
+            if (method.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static class Builder {
+        private int maxAttempts = 4;
+        private Duration initialBackoff = Duration.ofMillis(500);
+        private Duration maxBackoff = Duration.ofSeconds(10);
+        private double jitter = 0.5;
+        private Duration deadline = Duration.ofMinutes(1);
+        private boolean idempotentRetries = true;
+
+        /**
+         * @param maxAttempts max number of attempts including the first one. Default value is 4.
+         * @return current instance
+         */
+        public Builder maxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * @param initialBackoff delay before the first retry. Default value is 500 ms.
+         * @param maxBackoff     max delay before the retry. Default value is 10 s.
+         * @return current instance
+         */
+        public Builder backoff(@NotNull Duration initialBackoff, @NotNull Duration maxBackoff) {
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        /**
+         * @param jitter max part of the delay that is randomly skipped, from 0 to 1. Default value is 0.5.
+         * @return current instance
+         */
+        public Builder jitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * @param deadline time since the request was submitted after which it is not retried or {@code null} if not limited. Default value is 1 minute.
+         * @return current instance
+         */
+        public Builder deadline(Duration deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        /**
+         * @param idempotentRetries true if server errors and network failures of the idempotent methods are retried, otherwise only 429 responses are retried. Default value is true.
+         * @return current instance
+         */
+        public Builder idempotentRetries(boolean idempotentRetries) {
+            this.idempotentRetries = idempotentRetries;
+            return this;
+        }
+
+        public OutboundRetryPolicy build() {
+            if (maxAttempts <= 0) {
+                throw new IllegalArgumentException("Max attempts should be positive");
+            }
+            if (initialBackoff.isNegative() || (maxBackoff.compareTo(initialBackoff) < 0)) {
+                throw new IllegalArgumentException("Max backoff should not be less than initial backoff");
+            }
+            if ((jitter < 0) || (jitter > 1)) {
+                throw new IllegalArgumentException("Jitter should be from 0 to 1");
+            }
+            return new OutboundRetryPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import lombok.Getter;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Submits tasks to the {@link ThreadPoolExecutor} and applies {@link UpdatesOverflowPolicy} if the executor rejects
+ * them. Only tasks submitted with {@link #executeUpdate} can be shed.
+ *
+ * @since 0.31
+ */
+class OverflowPolicyExecutor implements Executor {
+    private final ThreadPoolExecutor executor;
+    @Getter
+    private final UpdatesOverflowPolicy policy;
+    private final MetricsService metricsService;
+
+    /**
+     * @param executor       task executor
+     * @param policy         policy applied when the executor rejects the task
+     * @param metricsService metrics service
+     */
+    OverflowPolicyExecutor(@NotNull ThreadPoolExecutor executor, @NotNull UpdatesOverflowPolicy policy, @NotNull MetricsService metricsService) {
+        this.executor = executor;
+        this.policy = policy;
+        this.metricsService = metricsService;
+    }
+
+    /**
+     * Submit task that processes the single update, so it can be shed later if {@link UpdatesOverflowPolicy#SHED_OLDEST}
+     * policy is used.
+     *
+     * @param task update processing task
+     * @throws RejectedExecutionException if the task can not be accepted according to the policy
+     */
+    void executeUpdate(@NotNull Runnable task) throws RejectedExecutionException {
+        executeUpdate(task, null);
+    }
+
+    /**
+     * Submit task that processes the single update, so it can be shed later if {@link UpdatesOverflowPolicy#SHED_OLDEST}
+     * policy is used.
+     *
+     * @param task   update processing task
+     * @param onShed invoked if the task is shed
+     * @throws RejectedExecutionException if the task can not be accepted according to the policy
+     */
+    void executeUpdate(@NotNull Runnable task, @Nullable Runnable onShed) throws RejectedExecutionException {
+        execute(new UpdateTask(task, onShed));
+    }
+
+    /**
+     * Submit task to the executor.
+     *
+     * @param task task
+     * @throws RejectedExecutionException if the task can not be accepted according to the policy
+     */
+    @Override
+    public void execute(@NotNull Runnable task) throws RejectedExecutionException {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            if (executor.isShutdown()) {
+                throw e;
+            }
+            switch (policy) {
+                case BLOCK:
+                    block(task, e);
+                    break;
+                case SHED_OLDEST:
+                    if (!shedOldest()) {
+                        throw e;
+                    }
+                    executor.execute(task);
+                    break;
+                default:
+                    throw e;
+            }
+        }
+    }
+
+    private void block(Runnable task, RejectedExecutionException cause) {
+        try {
+            executor.getQueue().put(task);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+
+    private boolean shedOldest() {
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        Iterator<Runnable> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            Runnable task = iterator.next();
+            // Other tasks like http calls or lane drainers should not be lost
+            if ((task instanceof UpdateTask) && queue.remove(task)) {
+                metricsService.onUpdateShed();
+                ((UpdateTask) task).onShed();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class UpdateTask implements Runnable {
+        private final Runnable task;
+        private final Runnable onShed;
+
+        UpdateTask(Runnable task, Runnable onShed) {
+            this.task = task;
+            this.onShed = onShed;
+        }
+
+        void onShed() {
+            if (onShed != null) {
+                onShed.run();
+            }
+        }
+
+        @Override
+        public void run() {
+            task.run();
+        }
+    }
+}
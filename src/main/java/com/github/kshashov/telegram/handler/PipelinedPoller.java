@@ -0,0 +1,186 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
+import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.GetUpdates;
+import com.pengrad.telegrambot.response.GetUpdatesResponse;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * {@link AdaptivePoller} that keeps the next {@code getUpdates} request in flight while the previous batch is handed
+ * to the {@link TelegramUpdatesHandler} by the separate dispatch thread.
+ * <p>Telegram API confirms all updates below the request offset, so the offset advances only for the updates accepted
+ * by the updates handler, the same way as for the adaptive poller. The in-flight updates that are received again by the
+ * overlapping request are skipped by the id of the last kept update, so each update is dispatched only once. The
+ * poller keeps at most one batch that is being dispatched and one batch that waits for the dispatcher, the next request
+ * is postponed until there is room for the next batch. If the updates handler does not accept the whole batch, the rest
+ * updates are dispatched again after the backoff delay, and polling is postponed until they are accepted.</p>
+ * <p>The kept updates are not confirmed until they are accepted, so they are re-delivered by Telegram API if the
+ * application is stopped before that.</p>
+ *
+ * @since 0.31
+ */
+@Slf4j
+class PipelinedPoller extends AdaptivePoller {
+    private final Executor dispatcher;
+    private int offset;
+    private int bufferedOffset;
+    private boolean dispatching;
+    private List<Update> pendingBatch;
+    private boolean pollPostponed;
+
+    /**
+     * @param token          bot token
+     * @param bot            bot
+     * @param updatesHandler updates handler
+     * @param requestFactory creates request with all parameters except offset
+     * @param limit          max number of updates per request or 0 for Telegram API default
+     * @param backoff        backoff
+     * @param metricsService metrics service
+     */
+    PipelinedPoller(@NotNull String token, @NotNull TelegramBot bot, @NotNull TelegramUpdatesHandler updatesHandler, @NotNull Supplier<GetUpdates> requestFactory, int limit, @NotNull PollingBackoff backoff, @NotNull MetricsService metricsService) {
+        super(token, bot, updatesHandler, requestFactory, limit, backoff, metricsService);
+        this.dispatcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telegram-polling-dispatch");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    PipelinedPoller(String token, TelegramBot bot, TelegramUpdatesHandler updatesHandler, Supplier<GetUpdates> requestFactory, int limit, PollingBackoff backoff, MetricsService metricsService, ScheduledExecutorService scheduler, Executor dispatcher) {
+        super(token, bot, updatesHandler, requestFactory, limit, backoff, metricsService, scheduler);
+        this.dispatcher = dispatcher;
+    }
+
+    @Override
+    void stop() {
+        super.stop();
+        if (dispatcher instanceof ExecutorService) {
+            ((ExecutorService) dispatcher).shutdown();
+        }
+    }
+
+    @Override
+    synchronized long handleResponse(GetUpdatesResponse response, long latencyNanos) {
+        return super.handleResponse(response, latencyNanos);
+    }
+
+    @Override
+    long handleUpdates(List<Update> updates) {
+        List<Update> batch = new ArrayList<>(updates.size());
+        for (Update update : updates) {
+            // The updates that are kept by the poller are received again until they are accepted
+            if (update.updateId() >= bufferedOffset) {
+                batch.add(update);
+            }
+        }
+        if (batch.isEmpty()) {
+            if (dispatching) {
+                // Only the in-flight updates are received, so wait for the dispatcher instead of fetching them again
+                pollPostponed = true;
+                return POSTPONED;
+            }
+            return backoff.onBatch(0, limit);
+        }
+
+        bufferedOffset = batch.get(batch.size() - 1).updateId() + 1;
+        if (dispatching) {
+            // Wait until the dispatcher takes the batch
+            pendingBatch = batch;
+            pollPostponed = true;
+            return POSTPONED;
+        }
+
+        dispatching = true;
+        dispatch(batch);
+        return backoff.applySaturation(backoff.onBatch(updates.size(), limit), updatesHandler.getSaturation());
+    }
+
+    private void dispatch(List<Update> batch) {
+        try {
+            dispatcher.execute(() -> onDispatched(batch, processBatch(batch)));
+        } catch (Exception e) {
+            log.error("Failed to dispatch the Telegram updates", e);
+            onDispatched(batch, UpdatesListener.CONFIRMED_UPDATES_NONE);
+        }
+    }
+
+    private int processBatch(List<Update> batch) {
+        try {
+            return updatesHandler.processUpdatesAndConfirm(token, bot, batch);
+        } catch (Exception e) {
+            log.error("An unhandled exception occurred while processing the Telegram updates", e);
+            return UpdatesListener.CONFIRMED_UPDATES_NONE;
+        }
+    }
+
+    private void onDispatched(List<Update> batch, int confirmed) {
+        List<Update> next;
+        long delay = POSTPONED;
+        synchronized (this) {
+            if (confirmed == UpdatesListener.CONFIRMED_UPDATES_ALL) {
+                offset = Math.max(offset, batch.get(batch.size() - 1).updateId() + 1);
+                next = pendingBatch;
+                pendingBatch = null;
+                dispatching = next != null;
+                if (pollPostponed) {
+                    pollPostponed = false;
+                    delay = backoff.applySaturation(0, updatesHandler.getSaturation());
+                }
+            } else {
+                if (confirmed != UpdatesListener.CONFIRMED_UPDATES_NONE) {
+                    offset = Math.max(offset, confirmed + 1);
+                }
+                // The rest updates are dispatched again together with the pending batch, polling waits for them
+                List<Update> rest = new ArrayList<>(batch.size());
+                for (Update update : batch) {
+                    if ((confirmed == UpdatesListener.CONFIRMED_UPDATES_NONE) || (update.updateId() > confirmed)) {
+                        rest.add(update);
+                    }
+                }
+                if (pendingBatch != null) {
+                    rest.addAll(pendingBatch);
+                    pendingBatch = null;
+                }
+                pollPostponed = true;
+                redispatch(rest, backoff.onBatch(0, limit));
+                return;
+            }
+        }
+
+        if (next != null) {
+            dispatch(next);
+        }
+        schedule(delay);
+    }
+
+    private void redispatch(List<Update> batch, long delay) {
+        if (!isRunning()) {
+            log.warn("{} Telegram updates have not been dispatched before the polling was stopped", batch.size());
+            return;
+        }
+        try {
+            scheduler.schedule(() -> dispatch(batch), delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            log.warn("{} Telegram updates have not been dispatched before the polling was stopped", batch.size());
+        }
+    }
+
+    @Override
+    synchronized int getOffset() {
+        return offset;
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.kshashov.telegram.handler;
+
+/**
+ * Computes the delay before the next {@code getUpdates} request based on the result of the previous one. Is not
+ * thread-safe, polls of the same bot are never executed concurrently.
+ *
+ * @since 0.31
+ */
+class PollingBackoff {
+    /**
+     * Executor saturation above which the polls are slowed down.
+     */
+    static final double SATURATION_THRESHOLD = 0.75;
+    private static final int MAX_SHIFT = 20;
+
+    private final long minDelay;
+    private final long maxDelay;
+    private final boolean longPolling;
+    private int emptyPolls;
+    private int failures;
+
+    /**
+     * @param minDelay    base delay in milliseconds
+     * @param maxDelay    max delay in milliseconds
+     * @param longPolling true if Telegram API holds the empty requests, so they do not need to be slowed down
+     */
+    PollingBackoff(long minDelay, long maxDelay, boolean longPolling) {
+        this.minDelay = minDelay;
+        this.maxDelay = Math.max(minDelay, maxDelay);
+        this.longPolling = longPolling;
+    }
+
+    /**
+     * @param size  number of received updates
+     * @param limit max number of updates per request
+     * @return 0 after a full batch, otherwise the base delay
+     */
+    long onBatch(int size, int limit) {
+        emptyPolls = 0;
+        failures = 0;
+        return (size >= limit) ? 0 : minDelay;
+    }
+
+    /**
+     * @return exponentially increased delay for short polling, 0 for long polling
+     */
+    long onEmpty() {
+        failures = 0;
+        if (longPolling) {
+            return 0;
+        }
+        return exponential(++emptyPolls);
+    }
+
+    /**
+     * @return exponentially increased delay
+     */
+    long onError() {
+        return exponential(++failures);
+    }
+
+    /**
+     * @param retryAfter seconds to wait according to Telegram API
+     * @return delay requested by Telegram API
+     */
+    long onRetryAfter(int retryAfter) {
+        failures++;
+        return Math.max(minDelay, retryAfter * 1000L);
+    }
+
+    /**
+     * Slows down the polls if the executor is nearly saturated.
+     *
+     * @param delay      computed delay
+     * @param saturation executor saturation from 0 to 1
+     * @return delay that is not less than the saturation based delay
+     */
+    long applySaturation(long delay, double saturation) {
+        if (saturation <= SATURATION_THRESHOLD) {
+            return delay;
+        }
+        double overload = Math.min(1, (saturation - SATURATION_THRESHOLD) / (1 - SATURATION_THRESHOLD));
+        return Math.max(delay, minDelay + (long) ((maxDelay - minDelay) * overload));
+    }
+
+    private long exponential(int attempt) {
+        long delay = Math.max(minDelay, 1) << Math.min(attempt - 1, MAX_SHIFT);
+        return Math.min(maxDelay, delay);
+    }
+}
@@ -0,0 +1,56 @@
+package com.github.kshashov.telegram.handler;
+
+/**
+ * Token bucket implemented as the generic cell rate algorithm: instead of counting tokens the bucket keeps the time
+ * when it becomes empty, so the send time can be reserved for the requests that are not sent yet.
+ *
+ * @since 0.31
+ */
+final class RateBucket {
+    private final long interval;
+    private final long tolerance;
+    private long emptyAt;
+
+    /**
+     * @param interval time to restore a single token in nanoseconds
+     * @param capacity max number of tokens spent at once
+     * @param now      current time in nanoseconds
+     */
+    RateBucket(long interval, int capacity, long now) {
+        if ((interval <= 0) || (capacity <= 0)) {
+            throw new IllegalArgumentException("Rate limit should be positive");
+        }
+        this.interval = interval;
+        this.tolerance = interval * (capacity - 1);
+        this.emptyAt = now;
+    }
+
+    /**
+     * Spends a single token.
+     *
+     * @param at the earliest time when the request can be sent
+     * @return the time when the request can be sent without exceeding the rate
+     */
+    synchronized long reserve(long at) {
+        long allowedAt = Math.max(at, emptyAt - tolerance);
+        emptyAt = Math.max(emptyAt, allowedAt) + interval;
+        return allowedAt;
+    }
+
+    /**
+     * Spends all tokens until the given time.
+     *
+     * @param until time when the requests can be sent again
+     */
+    synchronized void pause(long until) {
+        emptyAt = Math.max(emptyAt, until + tolerance);
+    }
+
+    /**
+     * @param now current time
+     * @return true if the bucket is full, so it does not differ from the new one
+     */
+    synchronized boolean isFull(long now) {
+        return emptyAt <= now;
+    }
+}
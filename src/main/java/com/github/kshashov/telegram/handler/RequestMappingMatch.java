@@ -0,0 +1,46 @@
+package com.github.kshashov.telegram.handler;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import javax.validation.constraints.NotNull;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Result of the {@link RequestMappingsMatcherStrategy#match} call. Holds the template variables that were extracted
+ * while matching, so the pattern should not be parsed twice.
+ *
+ * @see RequestMappingsMatcherStrategy
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class RequestMappingMatch {
+    /**
+     * Shared result for the mappings that are not matched.
+     */
+    public static final RequestMappingMatch NO_MATCH = new RequestMappingMatch(false, Collections.emptyMap());
+
+    /**
+     * Shared result for the matched mappings without template variables.
+     */
+    public static final RequestMappingMatch EMPTY = new RequestMappingMatch(true, Collections.emptyMap());
+
+    private final boolean matched;
+    private final @NotNull Map<String, String> templateVariables;
+
+    /**
+     * Creates result for the matched mapping.
+     *
+     * @param templateVariables extracted variables
+     * @return match result
+     */
+    @NotNull
+    public static RequestMappingMatch of(@NotNull Map<String, String> templateVariables) {
+        if (templateVariables.isEmpty()) {
+            return EMPTY;
+        }
+        return new RequestMappingMatch(true, templateVariables);
+    }
+}
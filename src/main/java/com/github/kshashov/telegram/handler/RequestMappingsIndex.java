@@ -0,0 +1,227 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.*;
+
+/**
+ * Routing index which is built over the post-processed mappings of the single bot. Is used by {@link
+ * HandlerMethodContainer} instead of the linear scan if the matcher strategy is the default {@link AntPathMatcher}
+ * based one.
+ * <p>Literal patterns are resolved with a hash lookup, patterns with {@code {var}} templates are resolved with a
+ * segment trie and the rest wildcard patterns are checked one by one. The mapping with the lowest position in the
+ * sorted list wins, so the result is always the same as for the linear scan.</p>
+ */
+class RequestMappingsIndex {
+    private static final String SEPARATOR = "/";
+    private static final String MULTI_WILDCARD = "**";
+    private static final String SINGLE_WILDCARD = "*";
+
+    private final List<HandlerMethodContainer.RequestMapping> mappings;
+    private final RequestMappingsMatcherStrategy matcherStrategy;
+    private final Map<String, int[]> literals;
+    private final TrieNode templates = new TrieNode();
+    private final int[] wildcards;
+
+    RequestMappingsIndex(@NotNull List<HandlerMethodContainer.RequestMapping> mappings, @NotNull RequestMappingsMatcherStrategy matcherStrategy) {
+        this.mappings = new ArrayList<>(mappings);
+        this.matcherStrategy = matcherStrategy;
+
+        Map<String, List<Integer>> literalPositions = new HashMap<>();
+        List<Integer> wildcardPositions = new ArrayList<>();
+        for (int i = 0; i < this.mappings.size(); i++) {
+            String pattern = this.mappings.get(i).getMappingInfo().getPattern();
+            if (pattern == null) {
+                wildcardPositions.add(i);
+                continue;
+            }
+
+            String[] segments = tokenize(pattern);
+            if (isLiteral(pattern)) {
+                literalPositions.computeIfAbsent(toKey(pattern, segments), k -> new ArrayList<>()).add(i);
+            } else if (isTemplate(segments)) {
+                templates.insert(segments, 0, i);
+            } else {
+                wildcardPositions.add(i);
+            }
+        }
+
+        this.literals = new HashMap<>(literalPositions.size() * 2);
+        literalPositions.forEach((key, positions) -> literals.put(key, toArray(positions)));
+        this.wildcards = toArray(wildcardPositions);
+        templates.complete();
+    }
+
+    /**
+     * Finds the first mapping in the sorted list that is matched with the given event.
+     *
+     * @param telegramEvent event received from Telegram API
+     * @return matched mapping with extracted variables or {@code null} if there is no such mapping
+     */
+    @Nullable
+    IndexMatch lookup(@NotNull TelegramEvent telegramEvent) {
+        String text = telegramEvent.getText();
+        if (text == null) {
+            text = "";
+        }
+        String[] segments = tokenize(text);
+        IndexMatch best = null;
+
+        int[] literal = literals.get(toKey(text, segments));
+        if (literal != null) {
+            for (int position : literal) {
+                if (isTypeMatched(telegramEvent.getMessageType(), position)) {
+                    // Literal patterns have no variables
+                    best = new IndexMatch(position, mappings.get(position), RequestMappingMatch.EMPTY);
+                    break;
+                }
+            }
+        }
+
+        best = templates.lookup(telegramEvent, segments, 0, best);
+
+        for (int position : wildcards) {
+            if ((best != null) && (position >= best.position)) break;
+            IndexMatch match = tryMatch(telegramEvent, position);
+            if (match != null) {
+                best = match;
+                break;
+            }
+        }
+
+        return best;
+    }
+
+    @Nullable
+    private IndexMatch tryMatch(TelegramEvent telegramEvent, int position) {
+        HandlerMethodContainer.RequestMapping mapping = mappings.get(position);
+        RequestMappingMatch match = matcherStrategy.match(telegramEvent, mapping.getMappingInfo());
+        return match.isMatched() ? new IndexMatch(position, mapping, match) : null;
+    }
+
+    private boolean isTypeMatched(MessageType messageType, int position) {
+        Set<MessageType> types = mappings.get(position).getMappingInfo().getMessageTypes();
+        return types.contains(messageType) || types.contains(MessageType.ANY);
+    }
+
+    /**
+     * Uses the same tokenization rules as {@link AntPathMatcher} does by default.
+     */
+    private static String[] tokenize(String path) {
+        return StringUtils.tokenizeToStringArray(path, SEPARATOR, false, true);
+    }
+
+    /**
+     * Two paths without wildcards are matched by {@link AntPathMatcher} if both of them have the same leading and
+     * trailing separators and the same non-empty segments.
+     */
+    private static String toKey(String path, String[] segments) {
+        StringBuilder sb = new StringBuilder(path.length() + 2);
+        if (path.startsWith(SEPARATOR)) sb.append(SEPARATOR);
+        for (int i = 0; i < segments.length; i++) {
+            if (i > 0) sb.append(SEPARATOR);
+            sb.append(segments[i]);
+        }
+        if (path.endsWith(SEPARATOR)) sb.append(SEPARATOR);
+        return sb.toString();
+    }
+
+    private static boolean isLiteral(String segment) {
+        return segment.indexOf('*') < 0 && segment.indexOf('?') < 0 && segment.indexOf('{') < 0;
+    }
+
+    /**
+     * Patterns without {@code **} segments consume exactly one path segment per pattern segment. The only exception is
+     * the trailing {@code *} segment that also matches the path with trailing separator.
+     */
+    private static boolean isTemplate(String[] segments) {
+        for (String segment : segments) {
+            if (MULTI_WILDCARD.equals(segment)) return false;
+        }
+        return segments.length == 0 || !SINGLE_WILDCARD.equals(segments[segments.length - 1]);
+    }
+
+    private static int[] toArray(List<Integer> positions) {
+        int[] result = new int[positions.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = positions.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Segment trie node. Literal segments are stored in a hash map, all other segments share the single child node,
+     * so the candidates found in the trie should be confirmed by the matcher strategy.
+     */
+    private class TrieNode {
+        private final Map<String, TrieNode> literalChildren = new HashMap<>();
+        private TrieNode patternChild;
+        private List<Integer> positionsList = new ArrayList<>();
+        private int[] positions;
+
+        void insert(String[] segments, int index, int position) {
+            if (index == segments.length) {
+                positionsList.add(position);
+                return;
+            }
+
+            String segment = segments[index];
+            TrieNode child;
+            if (isLiteral(segment)) {
+                child = literalChildren.computeIfAbsent(segment, k -> new TrieNode());
+            } else {
+                if (patternChild == null) patternChild = new TrieNode();
+                child = patternChild;
+            }
+            child.insert(segments, index + 1, position);
+        }
+
+        void complete() {
+            positions = toArray(positionsList);
+            positionsList = null;
+            literalChildren.values().forEach(TrieNode::complete);
+            if (patternChild != null) patternChild.complete();
+        }
+
+        IndexMatch lookup(TelegramEvent telegramEvent, String[] segments, int index, IndexMatch best) {
+            if (index == segments.length) {
+                for (int position : positions) {
+                    if ((best != null) && (position >= best.position)) break;
+                    IndexMatch match = tryMatch(telegramEvent, position);
+                    if (match != null) {
+                        return match;
+                    }
+                }
+                return best;
+            }
+
+            TrieNode literalChild = literalChildren.get(segments[index]);
+            if (literalChild != null) {
+                best = literalChild.lookup(telegramEvent, segments, index + 1, best);
+            }
+            if (patternChild != null) {
+                best = patternChild.lookup(telegramEvent, segments, index + 1, best);
+            }
+            return best;
+        }
+    }
+
+    /**
+     * Matched mapping with its position in the sorted list.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    static class IndexMatch {
+        private final int position;
+        private final HandlerMethodContainer.RequestMapping mapping;
+        private final RequestMappingMatch match;
+    }
+}
@@ -38,4 +38,21 @@ public interface RequestMappingsMatcherStrategy {
      */
     @NotNull
     Map<String, String> extractPatternVariables(@NotNull String text, @NotNull RequestMappingInfo mappingInfo);
+
+    /**
+     * Check if mapping info is matched with Telegram event and extract variables from event text in a single pass.
+     * Default implementation delegates to {@link #isMatched} and {@link #extractPatternVariables}.
+     *
+     * @param telegramEvent event received from Telegram API
+     * @param mappingInfo   mapping info
+     * @return match result with extracted variables or {@link RequestMappingMatch#NO_MATCH} if mapping is not matched
+     * @since 0.31
+     */
+    @NotNull
+    default RequestMappingMatch match(@NotNull TelegramEvent telegramEvent, @NotNull RequestMappingInfo mappingInfo) {
+        if (!isMatched(telegramEvent, mappingInfo)) {
+            return RequestMappingMatch.NO_MATCH;
+        }
+        return RequestMappingMatch.of(extractPatternVariables(telegramEvent.getText(), mappingInfo));
+    }
 }
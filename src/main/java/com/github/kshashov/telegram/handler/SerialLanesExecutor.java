@@ -0,0 +1,326 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Executes tasks with the same key one after another in the order they were submitted. Keys are hashed onto the fixed
+ * number of serial lanes, each lane is drained by at most one thread of the underlying executor at a time, so the
+ * tasks with different keys are still executed in parallel.
+ * <p>The total number of tasks waiting in all lanes is limited by the capacity. {@link UpdatesOverflowPolicy} is
+ * applied to the tasks that do not fit: {@link UpdatesOverflowPolicy#BLOCK} waits for the free space,
+ * {@link UpdatesOverflowPolicy#SHED_OLDEST} drops the oldest waiting task, other policies reject the task.</p>
+ * <p>Asynchronous tasks keep the lane busy until they are completed, the next task of the lane is executed by the
+ * underlying executor after that.</p>
+ *
+ * @since 0.31
+ */
+@Slf4j
+class SerialLanesExecutor {
+    private final Lane[] lanes;
+    private final Executor executor;
+    private final int capacity;
+    private final UpdatesOverflowPolicy policy;
+    private final MetricsService metricsService;
+    private final AtomicInteger queueDepth = new AtomicInteger();
+    private final Object capacityMonitor = new Object();
+
+    /**
+     * @param lanesCount     number of serial lanes
+     * @param executor       executor that drains the lanes
+     * @param capacity       max number of tasks waiting in all lanes
+     * @param policy         policy applied when the lanes are full
+     * @param metricsService metrics service
+     */
+    SerialLanesExecutor(int lanesCount, @NotNull Executor executor, int capacity, @NotNull UpdatesOverflowPolicy policy, @NotNull MetricsService metricsService) {
+        if (lanesCount <= 0) {
+            throw new IllegalArgumentException("Lanes count should be positive");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Lanes capacity should be positive");
+        }
+        this.executor = executor;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.metricsService = metricsService;
+        this.lanes = new Lane[lanesCount];
+        for (int i = 0; i < lanesCount; i++) {
+            lanes[i] = new Lane();
+        }
+        metricsService.registerLanesQueueDepth(queueDepth::get);
+    }
+
+    /**
+     * Submit task to the lane of the given key.
+     *
+     * @param key  ordering key
+     * @param task task to execute
+     * @throws RejectedExecutionException if the lanes are full or the underlying executor rejects to drain the lane
+     */
+    void execute(long key, @NotNull Runnable task) throws RejectedExecutionException {
+        execute(key, task, null);
+    }
+
+    /**
+     * Submit task to the lane of the given key.
+     *
+     * @param key       ordering key
+     * @param task      task to execute
+     * @param onDropped invoked if the task is dropped without execution, e.g. shed by
+     *                  {@link UpdatesOverflowPolicy#SHED_OLDEST} policy
+     * @throws RejectedExecutionException if the lanes are full or the underlying executor rejects to drain the lane
+     */
+    void execute(long key, @NotNull Runnable task, @Nullable Runnable onDropped) throws RejectedExecutionException {
+        executeAsync(key, completion -> {
+            try {
+                task.run();
+            } finally {
+                completion.run();
+            }
+        }, onDropped);
+    }
+
+    /**
+     * Submit asynchronous task to the lane of the given key. The next task of the lane is not executed until the
+     * completion callback passed to the task is invoked.
+     *
+     * @param key       ordering key
+     * @param task      task that receives the completion callback
+     * @param onDropped invoked if the task is dropped without execution, e.g. shed by
+     *                  {@link UpdatesOverflowPolicy#SHED_OLDEST} policy
+     * @throws RejectedExecutionException if the lanes are full or the underlying executor rejects to drain the lane
+     */
+    void executeAsync(long key, @NotNull Consumer<Runnable> task, @Nullable Runnable onDropped) throws RejectedExecutionException {
+        acquire();
+        try {
+            lanes[laneIndex(key)].execute(new LaneTask(task, onDropped));
+        } catch (RejectedExecutionException e) {
+            release();
+            throw e;
+        }
+    }
+
+    /**
+     * @return number of tasks that are waiting in all lanes
+     */
+    int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    int laneIndex(long key) {
+        int hash = Long.hashCode(key);
+        hash ^= (hash >>> 16);
+        return Math.floorMod(hash, lanes.length);
+    }
+
+    private void acquire() throws RejectedExecutionException {
+        while (true) {
+            int depth = queueDepth.get();
+            if (depth < capacity) {
+                if (queueDepth.compareAndSet(depth, depth + 1)) {
+                    return;
+                }
+                continue;
+            }
+
+            switch (policy) {
+                case BLOCK:
+                    awaitCapacity();
+                    break;
+                case SHED_OLDEST:
+                    if (!shedOldest()) {
+                        throw new RejectedExecutionException("Chat lanes are full");
+                    }
+                    break;
+                default:
+                    throw new RejectedExecutionException("Chat lanes are full");
+            }
+        }
+    }
+
+    private void release() {
+        int depth = queueDepth.decrementAndGet();
+        if ((policy == UpdatesOverflowPolicy.BLOCK) && (depth == capacity - 1)) {
+            synchronized (capacityMonitor) {
+                capacityMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void awaitCapacity() throws RejectedExecutionException {
+        synchronized (capacityMonitor) {
+            try {
+                while (queueDepth.get() >= capacity) {
+                    capacityMonitor.wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for the chat lanes", e);
+            }
+        }
+    }
+
+    private boolean shedOldest() {
+        Lane oldestLane = null;
+        LaneTask oldest = null;
+        for (Lane lane : lanes) {
+            LaneTask head = lane.peek();
+            if ((head != null) && ((oldest == null) || (head.submitted - oldest.submitted < 0))) {
+                oldestLane = lane;
+                oldest = head;
+            }
+        }
+        if ((oldest == null) || !oldestLane.remove(oldest)) {
+            // Lanes were drained concurrently, so the depth should be checked again
+            return oldest != null;
+        }
+
+        release();
+        metricsService.onUpdateShed();
+        oldest.onDropped();
+        return true;
+    }
+
+    private class Lane implements Runnable {
+        private final Queue<LaneTask> queue = new ArrayDeque<>();
+        private boolean draining;
+
+        synchronized void execute(LaneTask task) throws RejectedExecutionException {
+            queue.add(task);
+            if (draining) {
+                return;
+            }
+
+            // The lane lock is held while the drain is scheduled, so no other task can wait in the idle lane
+            draining = true;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                queue.remove(task);
+                draining = false;
+                throw e;
+            }
+        }
+
+        synchronized LaneTask peek() {
+            return queue.peek();
+        }
+
+        synchronized boolean remove(LaneTask task) {
+            return queue.remove(task);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                LaneTask task;
+                synchronized (this) {
+                    task = queue.poll();
+                    if (task == null) {
+                        draining = false;
+                        return;
+                    }
+                }
+                release();
+                metricsService.onLaneTaskStarted(System.nanoTime() - task.submitted);
+
+                Completion completion = new Completion(this);
+                try {
+                    task.task.accept(completion);
+                } catch (Exception e) {
+                    log.error("An unhandled exception occurred while executing the lane task", e);
+                    completion.run();
+                }
+                if (completion.detach()) {
+                    // The lane is drained again when the task is completed
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Continue draining on the underlying executor after the asynchronous task is completed.
+         */
+        void resume() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                List<LaneTask> dropped;
+                synchronized (this) {
+                    dropped = new ArrayList<>(queue);
+                    queue.clear();
+                    draining = false;
+                }
+                if (!dropped.isEmpty()) {
+                    metricsService.onUpdatesRejected(dropped.size());
+                    log.warn("Task executor is full, {} updates waiting in the chat lane have been dropped", dropped.size());
+                }
+                for (LaneTask task : dropped) {
+                    release();
+                    task.onDropped();
+                }
+            }
+        }
+    }
+
+    /**
+     * Completion callback of the lane task. If the task is completed before it returns, the lane is drained by the
+     * same thread.
+     */
+    private static class Completion implements Runnable {
+        private static final int RUNNING = 0;
+        private static final int COMPLETED = 1;
+        private static final int DETACHED = 2;
+        private static final int RESUMED = 3;
+
+        private final Lane lane;
+        private final AtomicInteger state = new AtomicInteger(RUNNING);
+
+        Completion(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(RUNNING, COMPLETED) && state.compareAndSet(DETACHED, RESUMED)) {
+                lane.resume();
+            }
+        }
+
+        /**
+         * @return true if the task is still running and will resume the lane itself
+         */
+        boolean detach() {
+            return state.compareAndSet(RUNNING, DETACHED);
+        }
+    }
+
+    private static class LaneTask {
+        private final Consumer<Runnable> task;
+        private final Runnable onDropped;
+        private final long submitted;
+
+        LaneTask(Consumer<Runnable> task, Runnable onDropped) {
+            this.task = task;
+            this.onDropped = onDropped;
+            this.submitted = System.nanoTime();
+        }
+
+        void onDropped() {
+            if (onDropped != null) {
+                onDropped.run();
+            }
+        }
+    }
+}
@@ -1,28 +1,64 @@
 package com.github.kshashov.telegram.handler;
 
 
+import com.github.kshashov.telegram.api.MessageType;
 import com.github.kshashov.telegram.config.TelegramBotProperties;
+import com.github.kshashov.telegram.metrics.MetricsService;
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.UpdatesListener;
 import com.pengrad.telegrambot.request.DeleteWebhook;
 import com.pengrad.telegrambot.request.GetUpdates;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
+import java.util.Set;
 
 /**
  * Service used to listen for telegram events via polling and process them with {@link TelegramUpdatesHandler} instance.
  */
 @Slf4j
 public class TelegramPollingService implements TelegramService {
+    private static final long NOT_CONFIRMED_UPDATES_SLEEP = 300L;
     private final TelegramBot telegramBot;
     private final TelegramBotProperties botProperties;
     private final TelegramUpdatesHandler updatesHandler;
+    private final Set<MessageType> messageTypes;
+    private final AdaptivePoller adaptivePoller;
 
     public TelegramPollingService(@NotNull TelegramBotProperties botProperties, TelegramBot bot, @NotNull TelegramUpdatesHandler updatesHandler) {
+        this(botProperties, bot, updatesHandler, null, null);
+    }
+
+    /**
+     * @param botProperties  bot properties
+     * @param bot            bot
+     * @param updatesHandler updates handler
+     * @param messageTypes   message types of the bot handlers used to resolve allowed updates if they are not specified explicitly
+     * @param metricsService metrics service, required for adaptive polling
+     * @since 0.31
+     */
+    public TelegramPollingService(@NotNull TelegramBotProperties botProperties, TelegramBot bot, @NotNull TelegramUpdatesHandler updatesHandler, @Nullable Set<MessageType> messageTypes, @Nullable MetricsService metricsService) {
         this.botProperties = botProperties;
         this.updatesHandler = updatesHandler;
         this.telegramBot = bot;
+        this.messageTypes = messageTypes;
+        if (botProperties.isAdaptivePolling()) {
+            if (metricsService == null) throw new IllegalArgumentException("MetricsService is required for adaptive polling");
+            PollingBackoff backoff = new PollingBackoff(botProperties.getPollingMinDelay(), botProperties.getPollingMaxDelay(), botProperties.getPollingTimeout() > 0);
+            if (botProperties.getOffsetStore() != null) {
+                if (botProperties.isPipelinedPolling()) {
+                    log.warn("Pipelined polling is not used with the offset store");
+                }
+                this.adaptivePoller = new JournaledPoller(botProperties.getToken(), bot, updatesHandler, this::createGetUpdates, botProperties.getPollingLimit(), backoff, metricsService, botProperties.getOffsetStore());
+            } else if (botProperties.isPipelinedPolling()) {
+                this.adaptivePoller = new PipelinedPoller(botProperties.getToken(), bot, updatesHandler, this::createGetUpdates, botProperties.getPollingLimit(), backoff, metricsService);
+            } else {
+                this.adaptivePoller = new AdaptivePoller(botProperties.getToken(), bot, updatesHandler, this::createGetUpdates, botProperties.getPollingLimit(), backoff, metricsService);
+            }
+        } else {
+            this.adaptivePoller = null;
+        }
     }
 
     /**
@@ -33,10 +69,47 @@ public class TelegramPollingService implements TelegramService {
         // Make sure that webhook is disabled
         telegramBot.execute(new DeleteWebhook());
 
+        if (adaptivePoller != null) {
+            adaptivePoller.start();
+            return;
+        }
+
         telegramBot.setUpdatesListener(updates -> {
-            updatesHandler.processUpdates(botProperties.getToken(), telegramBot, updates);
-            return UpdatesListener.CONFIRMED_UPDATES_ALL;
-        }, new GetUpdates());
+            int confirmed = updatesHandler.processUpdatesAndConfirm(botProperties.getToken(), telegramBot, updates);
+            if (confirmed != UpdatesListener.CONFIRMED_UPDATES_ALL) {
+                // Give the executor some time before the rest updates are re-delivered
+                sleep();
+            }
+            return confirmed;
+        }, createGetUpdates());
+    }
+
+    GetUpdates createGetUpdates() {
+        GetUpdates getUpdates = new GetUpdates();
+        if (botProperties.getPollingTimeout() > 0) {
+            // TelegramBot extends the read timeout of the http client for the requests with timeout
+            getUpdates.timeout(botProperties.getPollingTimeout());
+        }
+        if (botProperties.getPollingLimit() > 0) {
+            getUpdates.limit(botProperties.getPollingLimit());
+        }
+
+        String[] allowedUpdates = botProperties.getAllowedUpdates();
+        if ((allowedUpdates == null) && (messageTypes != null)) {
+            allowedUpdates = AllowedUpdates.of(messageTypes);
+        }
+        if (allowedUpdates != null) {
+            getUpdates.allowedUpdates(allowedUpdates);
+        }
+        return getUpdates;
+    }
+
+    private void sleep() {
+        try {
+            Thread.sleep(NOT_CONFIRMED_UPDATES_SLEEP);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
@@ -44,6 +117,10 @@ public class TelegramPollingService implements TelegramService {
      */
     @Override
     public void stop() {
+        if (adaptivePoller != null) {
+            adaptivePoller.stop();
+            return;
+        }
         telegramBot.removeGetUpdatesListener();
     }
 }
@@ -1,10 +1,12 @@
 package com.github.kshashov.telegram.handler;
 
 import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
 import com.pengrad.telegrambot.model.Update;
 
 import javax.validation.constraints.NotNull;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Helper service that processes {@link List} of {@link Update} updates.
@@ -19,4 +21,53 @@ public interface TelegramUpdatesHandler {
      * @param updates telegram updates
      */
     void processUpdates(@NotNull String token, @NotNull TelegramBot bot, @NotNull List<Update> updates);
+
+    /**
+     * Processes updates received via long polling and returns updates that can be confirmed.
+     *
+     * @param token   token
+     * @param bot     bot
+     * @param updates telegram updates
+     * @return {@link UpdatesListener#CONFIRMED_UPDATES_ALL}, {@link UpdatesListener#CONFIRMED_UPDATES_NONE} or id of the last confirmed update
+     * @since 0.31
+     */
+    default int processUpdatesAndConfirm(@NotNull String token, @NotNull TelegramBot bot, @NotNull List<Update> updates) {
+        processUpdates(token, bot, updates);
+        return UpdatesListener.CONFIRMED_UPDATES_ALL;
+    }
+
+    /**
+     * Processes updates received via long polling and notifies when each accepted update is processed. By default,
+     * the processing can not be tracked, so the accepted updates are considered processed right away.
+     *
+     * @param token             token
+     * @param bot               bot
+     * @param updates           telegram updates
+     * @param processedCallback invoked when the accepted update is processed or dropped
+     * @return {@link UpdatesListener#CONFIRMED_UPDATES_ALL}, {@link UpdatesListener#CONFIRMED_UPDATES_NONE} or id of the last confirmed update
+     * @since 0.31
+     */
+    default int processUpdatesAndConfirm(@NotNull String token, @NotNull TelegramBot bot, @NotNull List<Update> updates, @NotNull Consumer<Update> processedCallback) {
+        int confirmed = processUpdatesAndConfirm(token, bot, updates);
+        if (confirmed == UpdatesListener.CONFIRMED_UPDATES_NONE) {
+            return confirmed;
+        }
+        for (Update update : updates) {
+            if ((confirmed != UpdatesListener.CONFIRMED_UPDATES_ALL) && (update.updateId() > confirmed)) {
+                break;
+            }
+            processedCallback.accept(update);
+        }
+        return confirmed;
+    }
+
+    /**
+     * Returns how busy the executor that processes updates is. Used to slow down the polling.
+     *
+     * @return value from 0 (idle) to 1 (saturated)
+     * @since 0.31
+     */
+    default double getSaturation() {
+        return 0;
+    }
 }
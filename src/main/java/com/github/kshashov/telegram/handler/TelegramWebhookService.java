@@ -2,8 +2,9 @@ package com.github.kshashov.telegram.handler;
 
 
 import com.github.kshashov.telegram.config.TelegramBotProperties;
-import com.pengrad.telegrambot.BotUtils;
+import com.github.kshashov.telegram.metrics.MetricsService;
 import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
 import com.pengrad.telegrambot.model.Update;
 import com.pengrad.telegrambot.request.DeleteWebhook;
 import com.pengrad.telegrambot.request.SetWebhook;
@@ -11,10 +12,12 @@ import com.pengrad.telegrambot.response.BaseResponse;
 import io.javalin.Javalin;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 import java.net.URL;
+import java.security.SecureRandom;
+import java.util.Base64;
 import java.util.Collections;
-import java.util.List;
 import java.util.UUID;
 
 /**
@@ -22,16 +25,51 @@ import java.util.UUID;
  */
 @Slf4j
 public class TelegramWebhookService implements TelegramService {
+    private static final int OK = 200;
+    private static final int TOO_MANY_REQUESTS = 429;
+    private static final int SERVICE_UNAVAILABLE = 503;
+    private static final int BAD_REQUEST = 400;
+    private static final String SECRET_TOKEN = "secret_token";
+    private static final SecureRandom RANDOM = new SecureRandom();
     private final TelegramBot telegramBot;
     private final TelegramBotProperties botProperties;
     private final TelegramUpdatesHandler updatesHandler;
-    private final Javalin server;
+    private final WebhookFrontController frontController;
+    private final MetricsService metricsService;
+    private final WebhookIngestQueue ingestQueue;
+    private String endpoint;
+    private ServerBinding serverBinding;
 
+    /**
+     * @deprecated use {@link #TelegramWebhookService(TelegramBotProperties, TelegramBot, TelegramUpdatesHandler, WebhookFrontController, MetricsService)}
+     */
+    @Deprecated
     public TelegramWebhookService(@NotNull TelegramBotProperties botProperties, TelegramBot bot, @NotNull TelegramUpdatesHandler updatesHandler, @NotNull Javalin server) {
+        this(botProperties, bot, updatesHandler, new ServerBinding(server), null);
+    }
+
+    /**
+     * @param botProperties   bot properties
+     * @param bot             bot
+     * @param updatesHandler  updates handler
+     * @param frontController front controller of the web server that receives webhook requests
+     * @param metricsService  metrics service used to count the updates rejected by the full ingest queue
+     * @since 0.31
+     */
+    public TelegramWebhookService(@NotNull TelegramBotProperties botProperties, TelegramBot bot, @NotNull TelegramUpdatesHandler updatesHandler, @NotNull WebhookFrontController frontController, @Nullable MetricsService metricsService) {
         this.botProperties = botProperties;
         this.updatesHandler = updatesHandler;
-        this.server = server;
+        this.frontController = frontController;
         this.telegramBot = bot;
+        this.metricsService = metricsService;
+        this.ingestQueue = (botProperties.getWebhookQueueCapacity() > 0)
+                ? new WebhookIngestQueue(botProperties.getToken(), bot, updatesHandler, botProperties.getWebhookQueueCapacity(), botProperties.getWebhookBatchSize())
+                : null;
+    }
+
+    private TelegramWebhookService(TelegramBotProperties botProperties, TelegramBot bot, TelegramUpdatesHandler updatesHandler, ServerBinding binding, MetricsService metricsService) {
+        this(botProperties, bot, updatesHandler, binding.frontController, metricsService);
+        this.serverBinding = binding;
     }
 
     /**
@@ -39,40 +77,94 @@ public class TelegramWebhookService implements TelegramService {
      */
     @Override
     public void start() {
-        String endpoint = getEndpoint(botProperties.getWebhook());
-        String url = (String) botProperties.getWebhook().getParameters().get("url");
+        SetWebhook setWebhook = botProperties.getWebhook();
+        endpoint = getEndpoint(setWebhook);
+        String url = (String) setWebhook.getParameters().get("url");
+        String secretToken = getSecretToken(setWebhook);
+
+        if (ingestQueue != null) {
+            ingestQueue.start("telegram-webhook-ingest-" + TelegramBotProperties.getBotId(botProperties.getToken()));
+        }
+
+        // Endpoint is ready before Telegram starts sending updates
+        try {
+            frontController.register(endpoint, new WebhookFrontController.WebhookEndpoint(botProperties.getToken(), secretToken, this::accept));
+            if (serverBinding != null) {
+                serverBinding.bind(endpoint);
+            }
+            log.info("Endpoint '{}' has been created", endpoint);
+        } catch (Exception ex) {
+            log.error("An unexpected error occured while adding webhook endpoint", ex);
+            throw ex;
+        }
 
         try {
-            BaseResponse response = telegramBot.execute(botProperties.getWebhook());
+            BaseResponse response = telegramBot.execute(setWebhook);
             if (!response.isOk()) throw new IllegalStateException();
             log.info("Webhook '{}' has been enabled", url);
         } catch (Exception ex) {
+            frontController.unregister(endpoint);
+            if (ingestQueue != null) {
+                ingestQueue.stop();
+            }
             log.error("Webhook '{}' couldn't be enabled", url);
             throw ex;
         }
+    }
+
+    /**
+     * Process the body of the authorized webhook request. The update that is not accepted by the updates handler, e.g.
+     * by {@link UpdatesOverflowPolicy#STOP_CONFIRMING} policy, is answered with 429 status, so Telegram retries it.
+     *
+     * @param body webhook request body
+     * @return http status of the webhook response
+     */
+    int accept(byte[] body) {
+        if (ingestQueue != null) {
+            return enqueue(body);
+        }
 
+        Update update;
         try {
-            registerEndpoint(endpoint);
-            log.info("Endpoint '{}' has been created", endpoint);
+            update = UpdateDecoder.decode(body);
         } catch (Exception ex) {
-            log.error("An unexpected error occured while adding webhook endpoint", ex);
-            throw ex;
+            log.error("Telegram updates can't be parsed for '{}' webhook", endpoint);
+            return BAD_REQUEST;
+        }
+        int confirmed = updatesHandler.processUpdatesAndConfirm(botProperties.getToken(), telegramBot, Collections.singletonList(update));
+        if (confirmed != UpdatesListener.CONFIRMED_UPDATES_ALL) {
+            // Telegram retries the update later
+            return TOO_MANY_REQUESTS;
         }
+        return OK;
     }
 
-    private void registerEndpoint(String endpoint) {
-        server.post(endpoint, context -> {
-            List<Update> updates = null;
-            try {
-                Update update = BotUtils.parseUpdate(context.body());
-                updates = Collections.singletonList(update);
-            } catch (Exception ex) {
-                log.error("Telegram updates can't be parsed for '{}' webhook", endpoint);
-            }
-            if (updates != null) {
-                updatesHandler.processUpdates(botProperties.getToken(), telegramBot, updates);
+    /**
+     * Decode and queue the update without waiting for the dispatch, so only the valid updates are acknowledged.
+     *
+     * @param body webhook request body
+     * @return http status of the webhook response
+     */
+    int enqueue(byte[] body) {
+        if (!ingestQueue.isRunning()) {
+            return SERVICE_UNAVAILABLE;
+        }
+        Update update;
+        try {
+            update = UpdateDecoder.decode(body);
+        } catch (Exception ex) {
+            log.error("Telegram updates can't be parsed for '{}' webhook", endpoint);
+            return BAD_REQUEST;
+        }
+        if (!ingestQueue.offer(update)) {
+            // Telegram retries the update later
+            if (metricsService != null) {
+                metricsService.onUpdatesRejected(1);
             }
-        });
+            log.warn("Webhook ingest queue is full, update is rejected");
+            return TOO_MANY_REQUESTS;
+        }
+        return OK;
     }
 
     /**
@@ -94,14 +186,56 @@ public class TelegramWebhookService implements TelegramService {
         return "/" + uuid;
     }
 
+    /**
+     * Use the secret token from the webhook configuration or generate a new one, so the requests that were not sent by
+     * Telegram are rejected before the body is read.
+     *
+     * @param setWebhook webhook configuration
+     * @return secret token
+     */
+    private String getSecretToken(SetWebhook setWebhook) {
+        Object secretToken = setWebhook.getParameters().get(SECRET_TOKEN);
+        if (secretToken != null) {
+            return secretToken.toString();
+        }
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        // Telegram allows only A-Z, a-z, 0-9, _ and - characters
+        String generated = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        setWebhook.secretToken(generated);
+        return generated;
+    }
+
     /**
      * Unsubscribe from {@link TelegramBot} events.
      */
     @Override
     public void stop() {
+        if (endpoint != null) {
+            frontController.unregister(endpoint);
+        }
+        if (ingestQueue != null) {
+            ingestQueue.stop();
+        }
         if (!botProperties.isKeepWebhookRegistration()) {
             log.info("Webhook has been deleted");
             telegramBot.execute(new DeleteWebhook());
         }
     }
+
+    /**
+     * Front controller that serves the endpoints of the services created with the deprecated constructor.
+     */
+    private static class ServerBinding {
+        private final Javalin server;
+        private final WebhookFrontController frontController = new WebhookFrontController(WebhookFrontController.DEFAULT_MAX_BODY_SIZE, null);
+
+        ServerBinding(Javalin server) {
+            this.server = server;
+        }
+
+        void bind(String endpoint) {
+            new JavalinWebhookEndpointRegistrar(server, endpoint).register(frontController);
+        }
+    }
 }
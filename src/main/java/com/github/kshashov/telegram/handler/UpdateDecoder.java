@@ -0,0 +1,219 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.pengrad.telegrambot.model.Chat;
+import com.pengrad.telegrambot.model.User;
+
+import javax.validation.constraints.NotNull;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Decodes {@link DecodedUpdate} from the raw webhook body with the streaming parser. Only the update type, user, chat
+ * and text are decoded eagerly, the rest fields are skipped without creating objects for them.
+ *
+ * @since 0.31
+ */
+public final class UpdateDecoder {
+    static final Gson GSON = new Gson();
+    private static final int BUFFER_SIZE = 4096;
+
+    private UpdateDecoder() {
+    }
+
+    /**
+     * Read the whole stream into memory and decode update from it. The body is buffered rather than parsed from the
+     * stream, since {@link DecodedUpdate} keeps the raw body to decode the rest fields on the first access.
+     *
+     * @param body request body
+     * @return decoded update
+     * @throws IOException if the stream can not be read or the body is not valid update
+     */
+    @NotNull
+    public static DecodedUpdate decodeBuffered(@NotNull InputStream body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(BUFFER_SIZE);
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int read;
+        while ((read = body.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return decode(out.toByteArray());
+    }
+
+    /**
+     * Decode update from the UTF-8 encoded json.
+     *
+     * @param body request body, should not be modified after the call
+     * @return decoded update
+     * @throws IOException if the body is not valid update
+     */
+    @NotNull
+    public static DecodedUpdate decode(@NotNull byte[] body) throws IOException {
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            Fields fields = new Fields();
+            Integer updateId = null;
+            MessageType messageType = MessageType.UNSUPPORTED;
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String name = reader.nextName();
+                MessageType type = (messageType == MessageType.UNSUPPORTED) ? getMessageType(name) : null;
+                if ("update_id".equals(name)) {
+                    updateId = reader.nextInt();
+                } else if ((type != null) && (reader.peek() == JsonToken.BEGIN_OBJECT)) {
+                    messageType = type;
+                    readPayload(reader, type, fields);
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            if (updateId == null) {
+                throw new IOException("update_id is missing");
+            }
+            return new DecodedUpdate(body, updateId, messageType, fields.getUser(), fields.getChat(), fields.text);
+        } catch (IllegalStateException | NumberFormatException | JsonParseException e) {
+            throw new IOException("Telegram update can't be decoded", e);
+        }
+    }
+
+    private static MessageType getMessageType(String name) {
+        switch (name) {
+            case "message":
+                return MessageType.MESSAGE;
+            case "edited_message":
+                return MessageType.EDITED_MESSAGE;
+            case "channel_post":
+                return MessageType.CHANNEL_POST;
+            case "edited_channel_post":
+                return MessageType.EDITED_CHANNEL_POST;
+            case "inline_query":
+                return MessageType.INLINE_QUERY;
+            case "chosen_inline_result":
+                return MessageType.CHOSEN_INLINE_RESULT;
+            case "callback_query":
+                return MessageType.CALLBACK_QUERY;
+            case "shipping_query":
+                return MessageType.SHIPPING_QUERY;
+            case "pre_checkout_query":
+                return MessageType.PRECHECKOUT_QUERY;
+            case "poll":
+                return MessageType.POLL;
+            default:
+                return null;
+        }
+    }
+
+    private static void readPayload(JsonReader reader, MessageType type, Fields fields) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
+            }
+            switch (type) {
+                case MESSAGE:
+                case EDITED_MESSAGE:
+                case CHANNEL_POST:
+                case EDITED_CHANNEL_POST:
+                    readMessageField(reader, name, fields);
+                    break;
+                case INLINE_QUERY:
+                case CHOSEN_INLINE_RESULT:
+                    readQueryField(reader, name, "query", fields);
+                    break;
+                case CALLBACK_QUERY:
+                    if ("message".equals(name)) {
+                        readCallbackMessage(reader, fields);
+                    } else {
+                        readQueryField(reader, name, "data", fields);
+                    }
+                    break;
+                case SHIPPING_QUERY:
+                case PRECHECKOUT_QUERY:
+                    readQueryField(reader, name, "invoice_payload", fields);
+                    break;
+                case POLL:
+                    if ("question".equals(name)) {
+                        fields.text = reader.nextString();
+                    } else {
+                        reader.skipValue();
+                    }
+                    break;
+                default:
+                    reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static void readMessageField(JsonReader reader, String name, Fields fields) throws IOException {
+        switch (name) {
+            case "from":
+                fields.from = GSON.fromJson(reader, User.class);
+                break;
+            case "left_chat_member":
+                fields.leftChatMember = GSON.fromJson(reader, User.class);
+                break;
+            case "forward_from":
+                fields.forwardFrom = GSON.fromJson(reader, User.class);
+                break;
+            case "chat":
+                fields.chat = GSON.fromJson(reader, Chat.class);
+                break;
+            case "forward_from_chat":
+                fields.forwardFromChat = GSON.fromJson(reader, Chat.class);
+                break;
+            case "text":
+                fields.text = reader.nextString();
+                break;
+            default:
+                reader.skipValue();
+        }
+    }
+
+    private static void readQueryField(JsonReader reader, String name, String textField, Fields fields) throws IOException {
+        if ("from".equals(name)) {
+            fields.from = GSON.fromJson(reader, User.class);
+        } else if (textField.equals(name)) {
+            fields.text = reader.nextString();
+        } else {
+            reader.skipValue();
+        }
+    }
+
+    private static void readCallbackMessage(JsonReader reader, Fields fields) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            if ("chat".equals(reader.nextName()) && (reader.peek() != JsonToken.NULL)) {
+                fields.chat = GSON.fromJson(reader, Chat.class);
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static class Fields {
+        private User from;
+        private User leftChatMember;
+        private User forwardFrom;
+        private Chat chat;
+        private Chat forwardFromChat;
+        private String text;
+
+        User getUser() {
+            return (from != null) ? from : ((leftChatMember != null) ? leftChatMember : forwardFrom);
+        }
+
+        Chat getChat() {
+            return (chat != null) ? chat : forwardFromChat;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.kshashov.telegram.handler;
+
+import java.util.Arrays;
+
+/**
+ * Remembers the recent update ids of a single bot. Update ids are monotonic, so the window is a ring bitset indexed by
+ * the update id. Updates below the window are considered duplicates.
+ *
+ * @since 0.31
+ */
+class UpdateDeduplicator {
+    private final long[] bits;
+    private final int window;
+    private boolean initialized;
+    private int highest;
+
+    /**
+     * @param window number of recent update ids to remember, rounded up to the multiple of 64
+     */
+    UpdateDeduplicator(int window) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("Deduplication window should be positive");
+        }
+        this.bits = new long[(window + 63) >>> 6];
+        this.window = bits.length << 6;
+    }
+
+    /**
+     * Remember the update id.
+     *
+     * @param updateId update id
+     * @return false if update was already seen or is too old
+     */
+    synchronized boolean markSeen(int updateId) {
+        if (!initialized) {
+            initialized = true;
+            highest = updateId;
+            set(updateId);
+            return true;
+        }
+
+        if (updateId > highest) {
+            if ((long) updateId - highest >= window) {
+                Arrays.fill(bits, 0L);
+            } else {
+                // Forget the ids that left the window
+                for (int id = highest + 1; id < updateId; id++) {
+                    clear(id);
+                }
+            }
+            highest = updateId;
+            set(updateId);
+            return true;
+        }
+
+        if (((long) highest - updateId >= window) || isSet(updateId)) {
+            return false;
+        }
+        set(updateId);
+        return true;
+    }
+
+    /**
+     * Forget the update id, so it is not considered a duplicate when it is re-delivered.
+     *
+     * @param updateId update id
+     */
+    synchronized void forget(int updateId) {
+        if (initialized && ((long) highest - updateId < window) && (updateId <= highest)) {
+            clear(updateId);
+        }
+    }
+
+    private boolean isSet(int updateId) {
+        int index = Math.floorMod(updateId, window);
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    private void set(int updateId) {
+        int index = Math.floorMod(updateId, window);
+        bits[index >>> 6] |= 1L << index;
+    }
+
+    private void clear(int updateId) {
+        int index = Math.floorMod(updateId, window);
+        bits[index >>> 6] &= ~(1L << index);
+    }
+}
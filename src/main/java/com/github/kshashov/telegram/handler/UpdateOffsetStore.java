@@ -0,0 +1,60 @@
+package com.github.kshashov.telegram.handler;
+
+/**
+ * Tracks the updates received via polling so that the bot resumes at the first update that was not processed yet
+ * after restart. Telegram API confirms all updates below the request offset, so the offset returned by the store never
+ * passes the updates that are still processed, and the processed updates above the offset are skipped when they are
+ * re-delivered.
+ * <p>Is used by a single polling service, all methods should be thread-safe.</p>
+ *
+ * @since 0.31
+ */
+public interface UpdateOffsetStore {
+
+    /**
+     * Load the stored state. Is invoked when the polling is started.
+     */
+    void open();
+
+    /**
+     * @return the first update id that is not processed yet
+     */
+    int getOffset();
+
+    /**
+     * @param updateId update id
+     * @return true if update is being processed or was already processed, so it should not be dispatched again
+     */
+    boolean isTracked(int updateId);
+
+    /**
+     * Invoked before the update is dispatched.
+     *
+     * @param updateId update id
+     */
+    void begin(int updateId);
+
+    /**
+     * Invoked when the update was processed or dropped.
+     *
+     * @param updateId update id
+     */
+    void complete(int updateId);
+
+    /**
+     * Invoked if the update was not accepted for processing and will be re-delivered.
+     *
+     * @param updateId update id
+     */
+    void cancel(int updateId);
+
+    /**
+     * Invoked after each batch of updates, so the store can persist the changes according to its durability policy.
+     */
+    void flush();
+
+    /**
+     * Release the resources. Is invoked when the polling is stopped.
+     */
+    void close();
+}
@@ -0,0 +1,38 @@
+package com.github.kshashov.telegram.handler;
+
+import com.pengrad.telegrambot.UpdatesListener;
+
+/**
+ * Defines what happens with the update when the task executor can not accept it for processing.
+ *
+ * @since 0.31
+ */
+public enum UpdatesOverflowPolicy {
+    /**
+     * Drop the rejected update and continue with the next ones.
+     */
+    DROP,
+
+    /**
+     * Block the thread that receives updates until the executor queue (or the chat lanes if they are enabled) has free
+     * space.
+     */
+    BLOCK,
+
+    /**
+     * Drop the oldest update that is waiting in the executor queue (or in the chat lanes if they are enabled) to make
+     * space for the new one. Requires the executor queue or the chat lanes: the executor with the hand-off
+     * {@link java.util.concurrent.SynchronousQueue} (e.g. the default pool with zero queue capacity) is rejected at
+     * startup since there is no waiting update to drop.
+     */
+    SHED_OLDEST,
+
+    /**
+     * Stop processing the current batch and confirm only the accepted updates, so the rest are re-delivered by the
+     * next {@link com.pengrad.telegrambot.request.GetUpdates} request. Webhook requests of the rejected updates are
+     * answered with 429 status, so Telegram re-delivers them later.
+     *
+     * @see UpdatesListener
+     */
+    STOP_CONFIRMING
+}
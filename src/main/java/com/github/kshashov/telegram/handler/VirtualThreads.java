@@ -0,0 +1,56 @@
+package com.github.kshashov.telegram.handler;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Provides access to the virtual threads on JDK 21+ runtimes without breaking compatibility with Java 8.
+ *
+ * @since 0.31
+ */
+public final class VirtualThreads {
+    @Nullable
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = findFactoryMethod();
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * @return {@code true} if the current runtime supports virtual threads
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Creates an executor that starts a new virtual thread for each task.
+     *
+     * @return executor service
+     * @throws IllegalStateException if virtual threads are not supported by the current runtime
+     */
+    @NotNull
+    public static ExecutorService newVirtualThreadPerTaskExecutor() throws IllegalStateException {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new IllegalStateException("Virtual threads are not supported by the current Java runtime " + System.getProperty("java.version"));
+        }
+        try {
+            return (ExecutorService) NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread executor", e);
+        }
+    }
+
+    private static Method findFactoryMethod() {
+        try {
+            Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            // Preview API of JDK 19-20 throws UnsupportedOperationException unless preview features are enabled
+            ((ExecutorService) method.invoke(null)).shutdown();
+            return method;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
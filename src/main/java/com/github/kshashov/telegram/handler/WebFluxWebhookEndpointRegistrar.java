@@ -0,0 +1,85 @@
+package com.github.kshashov.telegram.handler;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.reactive.function.BodyExtractors;
+import org.springframework.web.reactive.function.server.*;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Serves webhook endpoints by the web server of the Spring WebFlux application, so no additional server is started.
+ * The body is aggregated without blocking and passed to the front controller on the {@link Schedulers#boundedElastic()}
+ * scheduler, so the event loop is never blocked by the update decoding or dispatching, e.g. when the task executor is
+ * full and {@link UpdatesOverflowPolicy#BLOCK} policy is used.
+ * <p>Only the paths of the registered endpoints are routed, other requests are passed to the application handlers.</p>
+ *
+ * @since 0.31
+ */
+public class WebFluxWebhookEndpointRegistrar implements WebhookEndpointRegistrar {
+    private final Scheduler dispatchScheduler;
+    private volatile WebhookFrontController frontController;
+
+    public WebFluxWebhookEndpointRegistrar() {
+        this(Schedulers.boundedElastic());
+    }
+
+    /**
+     * @param dispatchScheduler scheduler that passes the request bodies to the front controller
+     */
+    WebFluxWebhookEndpointRegistrar(@NotNull Scheduler dispatchScheduler) {
+        this.dispatchScheduler = dispatchScheduler;
+    }
+
+    @Override
+    public void register(@NotNull WebhookFrontController frontController) {
+        this.frontController = frontController;
+    }
+
+    /**
+     * @return router function that should be registered as a bean
+     */
+    public RouterFunction<ServerResponse> getRouterFunction() {
+        return RouterFunctions.route(RequestPredicates.method(HttpMethod.POST).and(this::isEndpoint), this::handle);
+    }
+
+    private boolean isEndpoint(ServerRequest request) {
+        WebhookFrontController frontController = this.frontController;
+        return (frontController != null) && frontController.hasEndpoint(request.path());
+    }
+
+    Mono<ServerResponse> handle(ServerRequest request) {
+        WebhookFrontController frontController = this.frontController;
+        String path = request.path();
+        ServerRequest.Headers headers = request.headers();
+        int status = frontController.checkRequest(path, headers.firstHeader(WebhookFrontController.SECRET_TOKEN_HEADER), headers.contentLength().orElse(-1));
+        if (status != WebhookFrontController.OK) {
+            return ServerResponse.status(status).build();
+        }
+
+        return DataBufferUtils.join(request.body(BodyExtractors.toDataBuffers()), frontController.getMaxBodySize())
+                .map(WebFluxWebhookEndpointRegistrar::toBytes)
+                .defaultIfEmpty(new byte[0])
+                // Dispatching may block until the task executor accepts the updates
+                .publishOn(dispatchScheduler)
+                .map(body -> frontController.handleBody(path, body))
+                // Content length is unknown for chunked requests
+                .onErrorResume(DataBufferLimitException.class, e -> Mono.just(frontController.onBodyTooLarge(path)))
+                .flatMap(code -> ServerResponse.status(code).build());
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.github.kshashov.telegram.handler;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Exposes the webhook endpoints via the web server. Implementation is chosen by the auto-configuration depending on
+ * the classpath: {@link WebFluxWebhookEndpointRegistrar} in the reactive web application and
+ * {@link JavalinWebhookEndpointRegistrar} otherwise.
+ *
+ * @since 0.31
+ */
+public interface WebhookEndpointRegistrar {
+
+    /**
+     * Routes the webhook requests of all bots to the front controller.
+     *
+     * @param frontController front controller
+     */
+    void register(@NotNull WebhookFrontController frontController);
+}
@@ -0,0 +1,202 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToIntFunction;
+
+/**
+ * Single entry point for the webhook requests of all bots served by the same web server. Finds the bot endpoint by the
+ * request path and rejects the request by the secret token and the content length before its body is read. The
+ * requests are routed to the front controller by {@link WebhookEndpointRegistrar}.
+ *
+ * @since 0.31
+ */
+@Slf4j
+public class WebhookFrontController {
+    /**
+     * Header that contains the secret token specified in {@link com.pengrad.telegrambot.request.SetWebhook}.
+     */
+    public static final String SECRET_TOKEN_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+    public static final int DEFAULT_MAX_BODY_SIZE = 1 << 20;
+    static final int OK = 200;
+    static final int BAD_REQUEST = 400;
+    static final int FORBIDDEN = 403;
+    static final int NOT_FOUND = 404;
+    static final int PAYLOAD_TOO_LARGE = 413;
+
+    private final Map<String, WebhookEndpoint> endpoints = new ConcurrentHashMap<>();
+    private final int maxBodySize;
+    private final MetricsService metricsService;
+
+    /**
+     * @param maxBodySize    max size of the request body in bytes
+     * @param metricsService metrics service or {@code null} if ingress metrics are not needed
+     */
+    public WebhookFrontController(int maxBodySize, @Nullable MetricsService metricsService) {
+        if (maxBodySize <= 0) {
+            throw new IllegalArgumentException("Max body size should be positive");
+        }
+        this.maxBodySize = maxBodySize;
+        this.metricsService = metricsService;
+    }
+
+    void register(@NotNull String path, @NotNull WebhookEndpoint endpoint) {
+        if (endpoints.putIfAbsent(path, endpoint) != null) {
+            throw new IllegalStateException("Webhook endpoint '" + path + "' is already registered");
+        }
+        if (metricsService != null) {
+            metricsService.registerWebhook(endpoint.getToken());
+        }
+    }
+
+    void unregister(@NotNull String path) {
+        endpoints.remove(path);
+    }
+
+    /**
+     * @param path request path
+     * @return true if the path belongs to the registered bot endpoint
+     */
+    public boolean hasEndpoint(@NotNull String path) {
+        return endpoints.containsKey(path);
+    }
+
+    /**
+     * @return max size of the request body in bytes
+     */
+    public int getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    /**
+     * Checks the request before its body is read.
+     *
+     * @param path          request path
+     * @param secretToken   value of the {@link #SECRET_TOKEN_HEADER} header
+     * @param contentLength value of the Content-Length header or -1 if it is unknown
+     * @return 200 if the body should be read and passed to {@link #handleBody}, otherwise http status of the response
+     */
+    public int checkRequest(@NotNull String path, @Nullable String secretToken, long contentLength) {
+        WebhookEndpoint endpoint = endpoints.get(path);
+        if (endpoint == null) {
+            if (metricsService != null) {
+                metricsService.onWebhookNotFound();
+            }
+            return NOT_FOUND;
+        }
+        if (!endpoint.isAuthorized(secretToken)) {
+            if (metricsService != null) {
+                metricsService.onWebhookUnauthorized(endpoint.getToken());
+            }
+            log.debug("Webhook request with invalid secret token is rejected");
+            return FORBIDDEN;
+        }
+        if (contentLength > maxBodySize) {
+            if (metricsService != null) {
+                metricsService.onWebhookOversized(endpoint.getToken());
+            }
+            return PAYLOAD_TOO_LARGE;
+        }
+        return OK;
+    }
+
+    /**
+     * Passes the body of the request accepted by {@link #checkRequest} to the bot.
+     *
+     * @param path request path
+     * @param body request body
+     * @return http status of the response
+     */
+    public int handleBody(@NotNull String path, @Nullable byte[] body) {
+        WebhookEndpoint endpoint = endpoints.get(path);
+        if (endpoint == null) {
+            // Endpoint has been removed while the body was read
+            return NOT_FOUND;
+        }
+        if ((body != null) && (body.length > maxBodySize)) {
+            // Content length is unknown for chunked requests
+            return onBodyTooLarge(path);
+        }
+        if (!isJsonObject(body)) {
+            if (metricsService != null) {
+                metricsService.onWebhookInvalid(endpoint.getToken());
+            }
+            return BAD_REQUEST;
+        }
+
+        if (metricsService != null) {
+            metricsService.onWebhookAccepted(endpoint.getToken(), body.length);
+        }
+        return endpoint.accept(body);
+    }
+
+    /**
+     * Rejects the request accepted by {@link #checkRequest} if its body turned out to exceed the max size while it was
+     * read.
+     *
+     * @param path request path
+     * @return http status of the response
+     */
+    public int onBodyTooLarge(@NotNull String path) {
+        WebhookEndpoint endpoint = endpoints.get(path);
+        if ((endpoint != null) && (metricsService != null)) {
+            metricsService.onWebhookOversized(endpoint.getToken());
+        }
+        return PAYLOAD_TOO_LARGE;
+    }
+
+    private static boolean isJsonObject(byte[] body) {
+        if (body == null) {
+            return false;
+        }
+        for (byte b : body) {
+            if ((b != ' ') && (b != '\t') && (b != '\r') && (b != '\n')) {
+                return b == '{';
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Webhook endpoint of the single bot.
+     */
+    static final class WebhookEndpoint {
+        private final String token;
+        private final byte[] secretToken;
+        private final ToIntFunction<byte[]> consumer;
+
+        /**
+         * @param token       bot token
+         * @param secretToken expected value of the {@link #SECRET_TOKEN_HEADER} header or {@code null} if it is not checked
+         * @param consumer    accepts the request body and returns http status of the response
+         */
+        WebhookEndpoint(@NotNull String token, @Nullable String secretToken, @NotNull ToIntFunction<byte[]> consumer) {
+            this.token = token;
+            this.secretToken = (secretToken != null) ? secretToken.getBytes(StandardCharsets.UTF_8) : null;
+            this.consumer = consumer;
+        }
+
+        String getToken() {
+            return token;
+        }
+
+        boolean isAuthorized(@Nullable String secretToken) {
+            if (this.secretToken == null) {
+                return true;
+            }
+            // Constant time comparison does not reveal the matched prefix
+            return (secretToken != null) && MessageDigest.isEqual(this.secretToken, secretToken.getBytes(StandardCharsets.UTF_8));
+        }
+
+        int accept(byte[] body) {
+            return consumer.applyAsInt(body);
+        }
+    }
+}
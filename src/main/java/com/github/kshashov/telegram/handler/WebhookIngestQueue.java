@@ -0,0 +1,114 @@
+package com.github.kshashov.telegram.handler;
+
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.model.Update;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded queue of decoded webhook updates that lets the webhook endpoint acknowledge the update without waiting for
+ * the dispatch. The dedicated consumer thread passes the queued updates to the {@link TelegramUpdatesHandler} in
+ * micro-batches.
+ *
+ * @since 0.31
+ */
+@Slf4j
+class WebhookIngestQueue implements Runnable {
+    private static final long POLL_TIMEOUT_MILLIS = 100L;
+
+    private final String token;
+    private final TelegramBot bot;
+    private final TelegramUpdatesHandler updatesHandler;
+    private final BlockingQueue<Update> queue;
+    private final int batchSize;
+    private volatile boolean running;
+
+    /**
+     * @param token          bot token
+     * @param bot            bot
+     * @param updatesHandler updates handler
+     * @param capacity       max number of queued updates
+     * @param batchSize      max number of updates passed to the updates handler at once
+     */
+    WebhookIngestQueue(@NotNull String token, @NotNull TelegramBot bot, @NotNull TelegramUpdatesHandler updatesHandler, int capacity, int batchSize) {
+        if ((capacity <= 0) || (batchSize <= 0)) {
+            throw new IllegalArgumentException("Ingest queue capacity and batch size should be positive");
+        }
+        this.token = token;
+        this.bot = bot;
+        this.updatesHandler = updatesHandler;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Starts the consumer thread.
+     *
+     * @param threadName consumer thread name
+     */
+    void start(@NotNull String threadName) {
+        running = true;
+        Thread consumer = new Thread(this, threadName);
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    /**
+     * Stops accepting new updates. Already queued updates are still processed.
+     */
+    void stop() {
+        running = false;
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * @param update decoded webhook update
+     * @return false if queue is full or stopped
+     */
+    boolean offer(@NotNull Update update) {
+        return running && queue.offer(update);
+    }
+
+    int size() {
+        return queue.size();
+    }
+
+    @Override
+    public void run() {
+        while (running || !queue.isEmpty()) {
+            // Handler can keep the list, so it is not reused
+            List<Update> updates = new ArrayList<>(batchSize);
+            try {
+                Update update = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (update == null) {
+                    continue;
+                }
+                updates.add(update);
+                queue.drainTo(updates, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Webhook ingest queue has been interrupted, {} updates are not processed", queue.size());
+                return;
+            }
+
+            processBatch(updates);
+        }
+    }
+
+    void processBatch(List<Update> updates) {
+        try {
+            updatesHandler.processUpdates(token, bot, updates);
+        } catch (Exception e) {
+            log.error("An unhandled exception occurred while processing the Telegram updates", e);
+        }
+    }
+}
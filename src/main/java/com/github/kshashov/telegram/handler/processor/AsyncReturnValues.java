@@ -0,0 +1,72 @@
+package com.github.kshashov.telegram.handler.processor;
+
+import org.springframework.util.ClassUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.validation.constraints.NotNull;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Adapts asynchronous results of the handler methods to {@link CompletionStage}. {@code CompletionStage} is always
+ * supported, Reactor {@code Mono} and {@code Flux} are supported if Reactor is present on the classpath. All elements of
+ * {@code Flux} are collected to the list.
+ */
+final class AsyncReturnValues {
+    private static final boolean REACTOR_PRESENT = ClassUtils.isPresent("reactor.core.publisher.Mono", AsyncReturnValues.class.getClassLoader());
+
+    private AsyncReturnValues() {
+    }
+
+    /**
+     * @param type declared return type of the handler method
+     * @return true if the handler method returns the asynchronous result
+     */
+    static boolean isAsyncType(@NotNull Class<?> type) {
+        return CompletionStage.class.isAssignableFrom(type) || (REACTOR_PRESENT && ReactorAdapter.isReactorType(type));
+    }
+
+    /**
+     * @param returnValue asynchronous result
+     * @return true if the result is completed with the list of values
+     */
+    static boolean isMultiValue(@NotNull Object returnValue) {
+        return REACTOR_PRESENT && ReactorAdapter.isMultiValue(returnValue);
+    }
+
+    /**
+     * @param returnValue asynchronous result
+     * @return stage that is completed with the result value
+     * @throws IllegalStateException if the result type is not supported
+     */
+    static CompletionStage<?> toCompletionStage(@NotNull Object returnValue) throws IllegalStateException {
+        if (returnValue instanceof CompletionStage) {
+            return (CompletionStage<?>) returnValue;
+        }
+        if (REACTOR_PRESENT && ReactorAdapter.isReactorType(returnValue.getClass())) {
+            return ReactorAdapter.toCompletionStage(returnValue);
+        }
+        throw new IllegalStateException("Unsupported asynchronous return value: " + returnValue.getClass().getName());
+    }
+
+    /**
+     * Loaded only if Reactor is present.
+     */
+    private static class ReactorAdapter {
+
+        static boolean isReactorType(Class<?> type) {
+            return Mono.class.isAssignableFrom(type) || Flux.class.isAssignableFrom(type);
+        }
+
+        static boolean isMultiValue(Object returnValue) {
+            return returnValue instanceof Flux;
+        }
+
+        static CompletionStage<?> toCompletionStage(Object returnValue) {
+            if (returnValue instanceof Flux) {
+                return ((Flux<?>) returnValue).collectList().toFuture();
+            }
+            return ((Mono<?>) returnValue).toFuture();
+        }
+    }
+}
@@ -19,6 +19,7 @@ public class HandlerMethod {
     private final Method method;
     private final Method bridgedMethod;
     private final MethodParameter[] methodParameters;
+    private final HandlerMethodInvoker invoker;
 
     public HandlerMethod(@NotNull Object bean, @NotNull Method method) {
         this.bean = bean;
@@ -26,6 +27,7 @@ public class HandlerMethod {
         this.method = method;
         this.bridgedMethod = BridgeMethodResolver.findBridgedMethod(method);
         this.methodParameters = initMethodParameters();
+        this.invoker = HandlerMethodInvoker.of(this.bridgedMethod);
     }
 
     HandlerMethod(HandlerMethod handlerMethod) {
@@ -34,6 +36,7 @@ public class HandlerMethod {
         this.method = handlerMethod.method;
         this.bridgedMethod = handlerMethod.bridgedMethod;
         this.methodParameters = handlerMethod.methodParameters;
+        this.invoker = handlerMethod.invoker;
     }
 
     private MethodParameter[] initMethodParameters() {
@@ -48,7 +51,18 @@ public class HandlerMethod {
     }
 
     public MethodParameter getReturnValue(@Nullable Object returnValue) {
-        return new ReturnValueMethodParameter(returnValue);
+        return new ReturnValueMethodParameter(returnValue != null ? returnValue.getClass() : null);
+    }
+
+    /**
+     * Creates return type parameter that can be shared between all return values of the given type.
+     *
+     * @param returnValueType actual type of the return value or {@code null} to use the declared return type
+     * @return return type parameter
+     * @since 0.31
+     */
+    public MethodParameter getReturnValueType(@Nullable Class<?> returnValueType) {
+        return new ReturnValueMethodParameter(returnValueType);
     }
 
     @Override
@@ -57,27 +71,27 @@ public class HandlerMethod {
     }
 
     /**
-     * A MethodParameter for a HandlerMethod return type based on an actual return value.
+     * A MethodParameter for a HandlerMethod return type based on an actual return value type.
      */
     private class ReturnValueMethodParameter extends MethodParameter {
 
         @Nullable
-        private final Object returnValue;
+        private final Class<?> returnValueType;
 
-        ReturnValueMethodParameter(@Nullable Object returnValue) {
+        ReturnValueMethodParameter(@Nullable Class<?> returnValueType) {
             super(bridgedMethod, -1);
-            this.returnValue = returnValue;
+            this.returnValueType = returnValueType;
         }
 
         ReturnValueMethodParameter(ReturnValueMethodParameter original) {
             super(original);
-            this.returnValue = original.returnValue;
+            this.returnValueType = original.returnValueType;
         }
 
         @NonNull
         @Override
         public Class<?> getParameterType() {
-            return (this.returnValue != null ? this.returnValue.getClass() : super.getParameterType());
+            return (this.returnValueType != null ? this.returnValueType : super.getParameterType());
         }
 
         @NonNull
@@ -0,0 +1,61 @@
+package com.github.kshashov.telegram.handler.processor;
+
+import org.springframework.util.ReflectionUtils;
+
+import javax.validation.constraints.NotNull;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Invokes the handler method with already resolved arguments. Is created only once for each {@link HandlerMethod}, so
+ * the reflective lookups and access checks are not repeated for each telegram request.
+ *
+ * @since 0.31
+ */
+@FunctionalInterface
+public interface HandlerMethodInvoker {
+
+    /**
+     * Invoke handler method.
+     *
+     * @param bean handler bean
+     * @param args resolved arguments
+     * @return invocation result or {@code null} for void methods
+     * @throws Throwable exception thrown by the handler method as is
+     */
+    Object invoke(Object bean, Object[] args) throws Throwable;
+
+    /**
+     * Create invoker based on the {@link MethodHandle} that accepts the bean and arguments array. Falls back to
+     * {@link Method#invoke} if the method handle can not be created.
+     *
+     * @param method handler method
+     * @return invoker
+     */
+    @NotNull
+    static HandlerMethodInvoker of(@NotNull Method method) {
+        ReflectionUtils.makeAccessible(method);
+        try {
+            MethodHandle handle = MethodHandles.lookup().unreflect(method);
+            if (Modifier.isStatic(method.getModifiers())) {
+                handle = MethodHandles.dropArguments(handle, 0, Object.class);
+            }
+            MethodHandle invoker = handle
+                    .asType(MethodType.genericMethodType(method.getParameterCount() + 1))
+                    .asSpreader(Object[].class, method.getParameterCount());
+            return (bean, args) -> (Object) invoker.invokeExact(bean, args);
+        } catch (IllegalAccessException ex) {
+            return (bean, args) -> {
+                try {
+                    return method.invoke(bean, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+            };
+        }
+    }
+}
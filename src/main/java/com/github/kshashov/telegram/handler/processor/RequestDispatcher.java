@@ -3,15 +3,31 @@ package com.github.kshashov.telegram.handler.processor;
 import com.codahale.metrics.Timer;
 import com.github.kshashov.telegram.TelegramSessionResolver;
 import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramResponses;
 import com.github.kshashov.telegram.api.TelegramSession;
 import com.github.kshashov.telegram.handler.HandlerMethodContainer;
 import com.github.kshashov.telegram.handler.processor.arguments.BotHandlerMethodArgumentResolver;
 import com.github.kshashov.telegram.handler.processor.response.BotHandlerMethodReturnValueHandler;
 import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.Callback;
 import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.response.BaseResponse;
 import lombok.extern.slf4j.Slf4j;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Dispatcher which is used to finds the handler for the current telegram request and invokes it.
@@ -23,26 +39,122 @@ public class RequestDispatcher {
     private final BotHandlerMethodArgumentResolver argumentResolver;
     private final BotHandlerMethodReturnValueHandler returnValueHandler;
     private final MetricsService metricsService;
+    private final long asyncTimeout;
+    private final Map<HandlerMethod, TelegramInvocableHandlerMethod> invocableMethods = new ConcurrentHashMap<>();
 
     public RequestDispatcher(@NotNull HandlerMethodContainer handlerMethodContainer, @NotNull TelegramSessionResolver sessionResolver, @NotNull BotHandlerMethodArgumentResolver argumentResolver, @NotNull BotHandlerMethodReturnValueHandler returnValueHandler, @NotNull MetricsService metricsService) {
+        this(handlerMethodContainer, sessionResolver, argumentResolver, returnValueHandler, metricsService, 0);
+    }
+
+    /**
+     * @param handlerMethodContainer handler methods container
+     * @param sessionResolver        session resolver
+     * @param argumentResolver       argument resolver
+     * @param returnValueHandler     return value handler
+     * @param metricsService         metrics service
+     * @param asyncTimeout           max time in milliseconds to wait for the asynchronous result of the handler method
+     *                               or 0 if not limited
+     * @since 0.31
+     */
+    public RequestDispatcher(@NotNull HandlerMethodContainer handlerMethodContainer, @NotNull TelegramSessionResolver sessionResolver, @NotNull BotHandlerMethodArgumentResolver argumentResolver, @NotNull BotHandlerMethodReturnValueHandler returnValueHandler, @NotNull MetricsService metricsService, long asyncTimeout) {
+        if (asyncTimeout < 0) {
+            throw new IllegalArgumentException("Async timeout should not be negative");
+        }
         this.handlerMethodContainer = handlerMethodContainer;
         this.sessionResolver = sessionResolver;
         this.argumentResolver = argumentResolver;
         this.returnValueHandler = returnValueHandler;
         this.metricsService = metricsService;
+        this.asyncTimeout = asyncTimeout;
     }
 
     /**
      * Finds the {@code HandlerMethod} request handler and invokes it.
      *
      * @param event Telegram event
-     * @return invocation result
-     * @throws IllegalStateException when it failed to execute the handler method correctly
+     * @return invocation result, the following requests are linked by {@link TelegramCallback#getNext()}
+     * @throws IllegalStateException when it failed to execute the handler method correctly or the handler method is
+     *                               asynchronous
+     * @see #executeAsync(TelegramEvent)
      */
     public TelegramCallback execute(@NotNull TelegramEvent event) throws IllegalStateException {
-        TelegramSessionResolver.TelegramSessionHolder sessionHolder = null;
+        return execute(event, handlerMethodContainer.lookupHandlerMethod(event));
+    }
 
+    /**
+     * Finds the {@code HandlerMethod} request handler and invokes it. If the handler method is asynchronous, the
+     * current thread is released as soon as the method returns. The result is handled, the metrics are updated and the
+     * returned stage is completed when the asynchronous result is completed. The session id is bound to the thread
+     * that completes it during that time.
+     * <p>If the async timeout is configured and the result is not completed in time, the returned stage is completed
+     * with {@link TimeoutException} and the late result is ignored.</p>
+     *
+     * @param event Telegram event
+     * @return stage that is completed with the invocation result, the following requests are linked by {@link
+     * TelegramCallback#getNext()}
+     * @throws IllegalStateException when it failed to invoke the handler method correctly
+     * @since 0.31
+     */
+    public CompletionStage<TelegramCallback> executeAsync(@NotNull TelegramEvent event) throws IllegalStateException {
         HandlerMethodContainer.HandlerLookupResult lookupResult = handlerMethodContainer.lookupHandlerMethod(event);
+        HandlerMethod method = lookupResult.getHandlerMethod();
+        if ((method == null) || !getInvocableHandlerMethod(method).isAsync()) {
+            return CompletableFuture.completedFuture(execute(event, lookupResult));
+        }
+
+        TelegramSessionResolver.TelegramSessionHolder sessionHolder = sessionResolver.resolveTelegramSession(event);
+        try {
+            Timer.Context timerContext = metricsService.onMethodHandlerStarted(method);
+            TelegramRequest request = toTelegramRequest(event, lookupResult);
+
+            CompletableFuture<TelegramCallback> result = new CompletableFuture<>();
+            getInvocableHandlerMethod(method)
+                    .invokeAndHandleAsync(request, sessionHolder.getSession(), sessionHolder::runInSession)
+                    .whenCompleteAsync((responses, error) -> {
+                        if (error != null) {
+                            if (result.completeExceptionally(error)) {
+                                metricsService.onUpdateError(method);
+                            }
+                            return;
+                        }
+                        if (result.complete((responses == null) ? null : toCallback(responses, request.getCallback()))) {
+                            metricsService.onUpdateSuccess(method, timerContext);
+                            log.info("{} request has been completed by '{}' asynchronous handler method with {} result",
+                                    request.getMessageType(),
+                                    method.toString(),
+                                    responses);
+                        }
+                    }, sessionHolder::runInSession);
+            if (!result.isDone() && (asyncTimeout > 0)) {
+                scheduleTimeout(result, method, request);
+            }
+            return result;
+        } catch (Exception ex) {
+            metricsService.onUpdateError(method);
+            throw ex;
+        } finally {
+            // Clear session id from current scope, the continuation binds it again
+            sessionHolder.releaseSessionId();
+        }
+    }
+
+    private void scheduleTimeout(CompletableFuture<TelegramCallback> result, HandlerMethod method, TelegramRequest request) {
+        ScheduledFuture<?> timeout = TimeoutSchedulerHolder.SCHEDULER.schedule(() -> {
+            // The chat lane waiting for the result is released as well
+            if (result.completeExceptionally(new TimeoutException("Asynchronous handler method has not completed in " + asyncTimeout + " ms"))) {
+                metricsService.onUpdateError(method);
+                log.warn("{} request has not been completed by '{}' asynchronous handler method in {} ms",
+                        request.getMessageType(),
+                        method.toString(),
+                        asyncTimeout);
+            }
+        }, asyncTimeout, TimeUnit.MILLISECONDS);
+        result.whenComplete((callback, error) -> timeout.cancel(false));
+    }
+
+    private TelegramCallback execute(@NotNull TelegramEvent event, @NotNull HandlerMethodContainer.HandlerLookupResult lookupResult) throws IllegalStateException {
+        TelegramSessionResolver.TelegramSessionHolder sessionHolder = null;
+
         HandlerMethod method = lookupResult.getHandlerMethod();
         try {
             // Start telegram session
@@ -57,21 +169,11 @@ public class RequestDispatcher {
             // Save execution time to metrics
             Timer.Context timerContext = metricsService.onMethodHandlerStarted(method);
 
-            TelegramRequest request = new TelegramRequest(
-                    event.getTelegramBot(),
-                    event.getUpdate(),
-                    event.getMessageType(),
-                    lookupResult.getBasePattern(),
-                    lookupResult.getTemplateVariables(),
-                    event.getMessage(),
-                    event.getText(),
-                    event.getChat(),
-                    event.getUser());
-
-            BaseRequest result = doExecute(request, lookupResult, sessionHolder.getSession());
+            TelegramRequest request = toTelegramRequest(event, lookupResult);
+            TelegramResponses result = doExecute(request, lookupResult, sessionHolder.getSession());
             metricsService.onUpdateSuccess(method, timerContext);
 
-            return result == null ? null : new TelegramCallback(result, request.getCallback());
+            return (result == null) ? null : toCallback(result, request.getCallback());
         } catch (Exception ex) {
             if (method != null) {
                 metricsService.onUpdateError(method);
@@ -83,17 +185,82 @@ public class RequestDispatcher {
         }
     }
 
-    private BaseRequest doExecute(TelegramRequest request, @NotNull HandlerMethodContainer.HandlerLookupResult lookupResult, @NotNull TelegramSession session) throws IllegalStateException {
-        BaseRequest result = new TelegramInvocableHandlerMethod(lookupResult.getHandlerMethod(), argumentResolver, returnValueHandler)
-                .invokeAndHandle(request, session);
+    private static TelegramRequest toTelegramRequest(@NotNull TelegramEvent event, @NotNull HandlerMethodContainer.HandlerLookupResult lookupResult) {
+        // Updates handler creates the request in advance, so the same instance is reused
+        TelegramRequest request = (event instanceof TelegramRequest) ? (TelegramRequest) event : new TelegramRequest(event);
+        request.bindHandlerMapping(lookupResult.getBasePattern(), lookupResult.getTemplateVariables());
+        return request;
+    }
+
+    private TelegramResponses doExecute(TelegramRequest request, @NotNull HandlerMethodContainer.HandlerLookupResult lookupResult, @NotNull TelegramSession session) throws IllegalStateException {
+        TelegramResponses result = getInvocableHandlerMethod(lookupResult.getHandlerMethod())
+                .invokeAndHandleAll(request, session);
 
         log.info("{} request has been executed by '{}' handler method with {} result",
                 request.getMessageType(),
                 lookupResult.getHandlerMethod().toString(),
-                result == null ? "null" : result.getClass().getSimpleName());
+                result);
 
         return result;
     }
 
+    /**
+     * Links the results of the requests in the sending order. The callback of the Telegram request receives the results
+     * of all requests after the callbacks of the specific requests.
+     */
+    @Nullable
+    private static TelegramCallback toCallback(@NotNull TelegramResponses responses, @Nullable Callback requestCallback) {
+        TelegramCallback next = null;
+        List<TelegramResponses.Response> list = responses.getResponses();
+        for (int i = list.size() - 1; i >= 0; i--) {
+            TelegramResponses.Response response = list.get(i);
+            next = new TelegramCallback(response.getRequest(), compose(response.getCallback(), requestCallback), next);
+        }
+        return next;
+    }
 
+    @Nullable
+    @SuppressWarnings("unchecked")
+    private static Callback compose(@Nullable Callback first, @Nullable Callback second) {
+        if ((first == null) || (second == null)) {
+            return (first == null) ? second : first;
+        }
+        return new Callback() {
+            @Override
+            public void onResponse(BaseRequest request, BaseResponse response) {
+                first.onResponse(request, response);
+                second.onResponse(request, response);
+            }
+
+            @Override
+            public void onFailure(BaseRequest request, IOException e) {
+                first.onFailure(request, e);
+                second.onFailure(request, e);
+            }
+        };
+    }
+
+    /**
+     * Prepares invocation of the given handler methods in advance.
+     *
+     * @param handlerMethods all discovered handler methods
+     * @throws IllegalStateException if some handler method argument can not be resolved
+     */
+    public void registerHandlerMethods(@NotNull Collection<HandlerMethod> handlerMethods) throws IllegalStateException {
+        handlerMethods.forEach(this::getInvocableHandlerMethod);
+    }
+
+    private TelegramInvocableHandlerMethod getInvocableHandlerMethod(@NotNull HandlerMethod handlerMethod) {
+        // Invocable methods are stateless, so they are created only once for each handler method
+        return invocableMethods.computeIfAbsent(handlerMethod,
+                (method) -> new TelegramInvocableHandlerMethod(method, argumentResolver, returnValueHandler));
+    }
+
+    private static class TimeoutSchedulerHolder {
+        private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "telegram-async-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
 }
@@ -9,21 +9,43 @@ import javax.validation.constraints.NotNull;
 import java.io.IOException;
 
 /**
- * Result of the Telegram request processing. Includes callback methods to handle Telegram response.
+ * Result of the Telegram request processing. Includes callback methods to handle Telegram response. If the handler
+ * method returned several requests, each of them has its own instance linked to the instance of the next request.
  */
 public class TelegramCallback implements Callback {
     private final BaseRequest request;
     private final Callback nestedCallback;
+    private final TelegramCallback next;
 
     public TelegramCallback(@NotNull BaseRequest request, @Nullable Callback nestedCallback) {
+        this(request, nestedCallback, null);
+    }
+
+    /**
+     * @param request        request to send
+     * @param nestedCallback callback of the request
+     * @param next           result of the request that should be sent after this one
+     * @since 0.31
+     */
+    public TelegramCallback(@NotNull BaseRequest request, @Nullable Callback nestedCallback, @Nullable TelegramCallback next) {
         this.request = request;
         this.nestedCallback = nestedCallback;
+        this.next = next;
     }
 
     public BaseRequest getRequest() {
         return request;
     }
 
+    /**
+     * @return result of the request that should be sent when this one is processed
+     * @since 0.31
+     */
+    @Nullable
+    public TelegramCallback getNext() {
+        return next;
+    }
+
     @Override
     public void onResponse(BaseRequest request, BaseResponse response) {
         if (nestedCallback == null) return;
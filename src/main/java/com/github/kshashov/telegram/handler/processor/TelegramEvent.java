@@ -1,18 +1,24 @@
 package com.github.kshashov.telegram.handler.processor;
 
 import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.handler.DecodedUpdate;
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.model.*;
 import com.pengrad.telegrambot.request.BaseRequest;
+import lombok.AccessLevel;
 import lombok.Getter;
 
 import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
+import java.util.Map;
 
 /**
- * Accumulates all available parameters from the initial telegram request.
+ * Accumulates all available parameters from the initial telegram request. Only the message type is resolved on
+ * creation, other parameters are resolved from the update on demand.
  *
  * @see BaseRequest
+ * @see TelegramRequest
  */
 @Getter
 public class TelegramEvent {
@@ -21,6 +27,103 @@ public class TelegramEvent {
      */
     private final @NotNull Update update;
 
+    /**
+     * Bot instance that received the current telegram event.
+     */
+    private final @NotNull TelegramBot telegramBot;
+
+    /**
+     * Type of the current telegram request.
+     */
+    private final @NotNull MessageType messageType;
+
+    private final String token;
+
+    /**
+     * Update field that corresponds to the {@link #messageType}.
+     */
+    @Getter(AccessLevel.NONE)
+    private final Object payload;
+
+    /**
+     * Set by {@link RequestDispatcher} when the handler method is found.
+     */
+    @Getter(AccessLevel.NONE)
+    protected String basePattern;
+
+    /**
+     * Set by {@link RequestDispatcher} when the handler method is found.
+     */
+    @Getter(AccessLevel.NONE)
+    protected Map<String, String> templateVariables;
+
+    public TelegramEvent(@NotNull String token, @NotNull Update update, @NotNull TelegramBot telegramBot) {
+        this.token = token;
+        this.telegramBot = telegramBot;
+        this.update = update;
+
+        if (update instanceof DecodedUpdate) {
+            // Routing fields are already decoded, the update is decoded only if other fields are requested
+            this.messageType = ((DecodedUpdate) update).getMessageType();
+            this.payload = null;
+            return;
+        }
+
+        Object payload = update.message();
+        MessageType messageType = MessageType.MESSAGE;
+        if (payload == null) {
+            payload = update.editedMessage();
+            messageType = MessageType.EDITED_MESSAGE;
+        }
+        if (payload == null) {
+            payload = update.channelPost();
+            messageType = MessageType.CHANNEL_POST;
+        }
+        if (payload == null) {
+            payload = update.editedChannelPost();
+            messageType = MessageType.EDITED_CHANNEL_POST;
+        }
+        if (payload == null) {
+            payload = update.inlineQuery();
+            messageType = MessageType.INLINE_QUERY;
+        }
+        if (payload == null) {
+            payload = update.chosenInlineResult();
+            messageType = MessageType.CHOSEN_INLINE_RESULT;
+        }
+        if (payload == null) {
+            payload = update.callbackQuery();
+            messageType = MessageType.CALLBACK_QUERY;
+        }
+        if (payload == null) {
+            payload = update.shippingQuery();
+            messageType = MessageType.SHIPPING_QUERY;
+        }
+        if (payload == null) {
+            payload = update.preCheckoutQuery();
+            messageType = MessageType.PRECHECKOUT_QUERY;
+        }
+        if (payload == null) {
+            payload = update.poll();
+            messageType = MessageType.POLL;
+        }
+        this.payload = payload;
+        this.messageType = (payload != null) ? messageType : MessageType.UNSUPPORTED;
+    }
+
+    /**
+     * Creates event that shares the resolved parameters with the given one.
+     *
+     * @param event source event
+     */
+    protected TelegramEvent(@NotNull TelegramEvent event) {
+        this.token = event.token;
+        this.telegramBot = event.telegramBot;
+        this.update = event.update;
+        this.messageType = event.messageType;
+        this.payload = event.payload;
+    }
+
     /**
      * The first non-empty object, if any, among:
      * <ul>
@@ -29,21 +132,80 @@ public class TelegramEvent {
      *     <li>telegram channel post</li>
      *     <li>telegram edited channel post</li>
      * </ul>
+     *
+     * @return message or {@code null}
      */
     @Nullable
-    private final Message message;
+    public Message getMessage() {
+        if (!isMessage()) {
+            return null;
+        }
+        if (payload != null) {
+            return (Message) payload;
+        }
+        Update update = this.update;
+        Message message = update.message();
+        if (message == null) message = update.editedMessage();
+        if (message == null) message = update.channelPost();
+        if (message == null) message = update.editedChannelPost();
+        return message;
+    }
 
     /**
      * Сhat instance if it present in the current telegram request.
+     *
+     * @return chat or {@code null}
      */
     @Nullable
-    private final Chat chat;
+    public Chat getChat() {
+        if (update instanceof DecodedUpdate) {
+            return ((DecodedUpdate) update).getChat();
+        }
+        if (isMessage()) {
+            Message message = (Message) payload;
+            return (message.chat() != null) ? message.chat() : message.forwardFromChat();
+        }
+        if (messageType == MessageType.CALLBACK_QUERY) {
+            Message message = ((CallbackQuery) payload).message();
+            return (message != null) ? message.chat() : null;
+        }
+        return null;
+    }
 
     /**
      * User instance if it present in the current telegram request.
+     *
+     * @return user or {@code null}
      */
     @Nullable
-    private final User user;
+    public User getUser() {
+        if (update instanceof DecodedUpdate) {
+            return ((DecodedUpdate) update).getUser();
+        }
+        switch (messageType) {
+            case MESSAGE:
+            case EDITED_MESSAGE:
+            case CHANNEL_POST:
+            case EDITED_CHANNEL_POST:
+                Message message = (Message) payload;
+                if (message.from() != null) {
+                    return message.from();
+                }
+                return (message.leftChatMember() != null) ? message.leftChatMember() : message.forwardFrom();
+            case INLINE_QUERY:
+                return ((InlineQuery) payload).from();
+            case CHOSEN_INLINE_RESULT:
+                return ((ChosenInlineResult) payload).from();
+            case CALLBACK_QUERY:
+                return ((CallbackQuery) payload).from();
+            case SHIPPING_QUERY:
+                return ((ShippingQuery) payload).from();
+            case PRECHECKOUT_QUERY:
+                return ((PreCheckoutQuery) payload).from();
+            default:
+                return null;
+        }
+    }
 
     /**
      * The first non-empty object, if any, among:
@@ -54,96 +216,48 @@ public class TelegramEvent {
      *     <li>{@code update.callbackQuery.data()}</li>
      *     <li>{@code update.shippingQuery.invoicePayload()</li>
      *     <li>{@code update.preCheckoutQuery.invoicePayload()</li>
+     *     <li>{@code update.poll.question()</li>
      * </ul>
+     *
+     * @return text or {@code null}
      */
     @Nullable
-    private final String text;
-
-    /**
-     * Bot instance that received the current telegram event.
-     */
-
-    private final @NotNull TelegramBot telegramBot;
-
-    /**
-     * Type of the current telegram request.
-     */
-    private final @NotNull MessageType messageType;
-
-    private final String token;
-
-    public TelegramEvent(@NotNull String token, @NotNull Update update, @NotNull TelegramBot telegramBot) {
-        this.token = token;
-        this.telegramBot = telegramBot;
-        this.update = update;
-        this.message = firstNonNull(update.message(),
-                update.editedMessage(),
-                update.channelPost(),
-                update.editedChannelPost());
-
-        if (message != null) {
-            this.user = firstNonNull(message.from(), message.leftChatMember(), message.forwardFrom());
-            this.chat = firstNonNull(message.chat(), message.forwardFromChat());
-            this.text = message.text();
-            if (update.editedMessage() != null) {
-                this.messageType = MessageType.EDITED_MESSAGE;
-            } else if (update.channelPost() != null) {
-                this.messageType = MessageType.CHANNEL_POST;
-            } else if (update.editedChannelPost() != null) {
-                this.messageType = MessageType.EDITED_CHANNEL_POST;
-            } else {
-                this.messageType = MessageType.MESSAGE;
-            }
-        } else if (update.inlineQuery() != null) {
-            InlineQuery inlineQuery = update.inlineQuery();
-            this.user = inlineQuery.from();
-            this.text = inlineQuery.query();
-            this.chat = null;
-            this.messageType = MessageType.INLINE_QUERY;
-        } else if (update.chosenInlineResult() != null) {
-            ChosenInlineResult chosenInlineResult = update.chosenInlineResult();
-            this.user = chosenInlineResult.from();
-            this.text = chosenInlineResult.query();
-            this.chat = null;
-            this.messageType = MessageType.CHOSEN_INLINE_RESULT;
-        } else if (update.callbackQuery() != null) {
-            CallbackQuery callbackQuery = update.callbackQuery();
-            this.user = callbackQuery.from();
-            this.text = callbackQuery.data();
-            this.chat = callbackQuery.message().chat();
-            this.messageType = MessageType.CALLBACK_QUERY;
-        } else if (update.shippingQuery() != null) {
-            ShippingQuery shippingQuery = update.shippingQuery();
-            this.user = shippingQuery.from();
-            this.text = shippingQuery.invoicePayload();
-            this.chat = null;
-            this.messageType = MessageType.SHIPPING_QUERY;
-        } else if (update.preCheckoutQuery() != null) {
-            PreCheckoutQuery preCheckoutQuery = update.preCheckoutQuery();
-            this.user = preCheckoutQuery.from();
-            this.text = preCheckoutQuery.invoicePayload();
-            this.chat = null;
-            this.messageType = MessageType.PRECHECKOUT_QUERY;
-        } else if (update.poll() != null) {
-            this.user = null;
-            this.text = update.poll().question();
-            this.chat = null;
-            this.messageType = MessageType.POLL;
-        } else {
-            this.user = null;
-            this.text = null;
-            this.chat = null;
-            this.messageType = MessageType.UNSUPPORTED;
+    public String getText() {
+        if (update instanceof DecodedUpdate) {
+            return ((DecodedUpdate) update).getText();
+        }
+        switch (messageType) {
+            case MESSAGE:
+            case EDITED_MESSAGE:
+            case CHANNEL_POST:
+            case EDITED_CHANNEL_POST:
+                return ((Message) payload).text();
+            case INLINE_QUERY:
+                return ((InlineQuery) payload).query();
+            case CHOSEN_INLINE_RESULT:
+                return ((ChosenInlineResult) payload).query();
+            case CALLBACK_QUERY:
+                return ((CallbackQuery) payload).data();
+            case SHIPPING_QUERY:
+                return ((ShippingQuery) payload).invoicePayload();
+            case PRECHECKOUT_QUERY:
+                return ((PreCheckoutQuery) payload).invoicePayload();
+            case POLL:
+                return ((Poll) payload).question();
+            default:
+                return null;
         }
     }
 
-    @SafeVarargs
-    private static <T> T firstNonNull(T... messages) {
-        for (T message : messages) {
-            if (message != null) {
-                return message;
-            }
-        }
-        return null;
+    void bindHandlerMapping(String basePattern, Map<String, String> templateVariables) {
+        this.basePattern = basePattern;
+        this.templateVariables = templateVariables;
+    }
+
+    private boolean isMessage() {
+        return (messageType == MessageType.MESSAGE)
+                || (messageType == MessageType.EDITED_MESSAGE)
+                || (messageType == MessageType.CHANNEL_POST)
+                || (messageType == MessageType.EDITED_CHANNEL_POST);
     }
 }
@@ -1,20 +1,29 @@
 package com.github.kshashov.telegram.handler.processor;
 
 import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramResponses;
 import com.github.kshashov.telegram.api.TelegramSession;
+import com.github.kshashov.telegram.handler.processor.arguments.BotHandlerMethodArgumentExtractor;
 import com.github.kshashov.telegram.handler.processor.arguments.BotHandlerMethodArgumentResolver;
 import com.github.kshashov.telegram.handler.processor.response.BotHandlerMethodReturnValueHandler;
+import com.github.kshashov.telegram.handler.processor.response.BotHandlerMethodReturnValueHandlerComposite;
 import com.pengrad.telegrambot.request.BaseRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.DefaultParameterNameDiscoverer;
 import org.springframework.core.MethodParameter;
 import org.springframework.core.ParameterNameDiscoverer;
 import org.springframework.util.ClassUtils;
-import org.springframework.util.ReflectionUtils;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
-import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
  * Extension of {@link HandlerMethod} that invokes the underlying method with argument values resolved from the current
@@ -24,21 +33,56 @@ import java.util.Arrays;
 @Slf4j
 public class TelegramInvocableHandlerMethod extends HandlerMethod {
 
-    private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
-    private final BotHandlerMethodArgumentResolver argumentResolver;
+    private static final ParameterNameDiscoverer PARAMETER_NAME_DISCOVERER = new DefaultParameterNameDiscoverer();
+    private final BotHandlerMethodArgumentExtractor[] argumentExtractors;
     private final BotHandlerMethodReturnValueHandler returnValueHandler;
+    private final Map<Class<?>, ReturnValueBinding> returnValueBindings = new ConcurrentHashMap<>(4);
+    private final Map<Class<?>, ReturnValueBinding> asyncReturnValueBindings = new ConcurrentHashMap<>(4);
+    private final ReturnValueBinding declaredReturnValueBinding;
+    private final boolean declaredReturnTypeExact;
+    private final boolean async;
 
     /**
-     * Create an instance from a bean instance and a method.
+     * Create an instance from a bean instance and a method. Argument extractors are created for all method parameters
+     * in advance. The return value handler is also selected in advance if the declared return type is final (e.g.
+     * {@code String}) or {@code void}, otherwise it is selected once for each concrete return value class.
+     * <p>If the declared return type is asynchronous ({@code CompletionStage} or Reactor {@code Mono} and {@code
+     * Flux}), the return value handler is selected for each concrete class of the completion value.</p>
      *
      * @param handlerMethod      method to invoke
      * @param argumentResolver   resolvers list to resolve arguments
      * @param returnValueHandler handlers list to handle return value
+     * @throws IllegalStateException if some method parameter is not supported by the argument resolver
      */
-    public TelegramInvocableHandlerMethod(@NotNull HandlerMethod handlerMethod, @NotNull BotHandlerMethodArgumentResolver argumentResolver, @NotNull BotHandlerMethodReturnValueHandler returnValueHandler) {
+    public TelegramInvocableHandlerMethod(@NotNull HandlerMethod handlerMethod, @NotNull BotHandlerMethodArgumentResolver argumentResolver, @NotNull BotHandlerMethodReturnValueHandler returnValueHandler) throws IllegalStateException {
         super(handlerMethod);
-        this.argumentResolver = argumentResolver;
+        this.argumentExtractors = initArgumentExtractors(argumentResolver);
         this.returnValueHandler = returnValueHandler;
+        this.declaredReturnValueBinding = bindReturnValueHandler(null);
+        Class<?> declaredReturnType = getBridgedMethod().getReturnType();
+        this.declaredReturnTypeExact = (declaredReturnType == void.class)
+                || (!declaredReturnType.isPrimitive() && Modifier.isFinal(declaredReturnType.getModifiers()));
+        this.async = AsyncReturnValues.isAsyncType(declaredReturnType);
+    }
+
+    private BotHandlerMethodArgumentExtractor[] initArgumentExtractors(BotHandlerMethodArgumentResolver argumentResolver) {
+        MethodParameter[] parameters = getMethodParameters();
+        BotHandlerMethodArgumentExtractor[] result = new BotHandlerMethodArgumentExtractor[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            MethodParameter parameter = parameters[i];
+            parameter.initParameterNameDiscovery(PARAMETER_NAME_DISCOVERER);
+            result[i] = argumentResolver.createExtractor(parameter);
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the method returns the asynchronous result, so it should be invoked by {@link
+     * #invokeAndHandleAsync}
+     * @since 0.31
+     */
+    public boolean isAsync() {
+        return async;
     }
 
     /**
@@ -46,10 +90,65 @@ public class TelegramInvocableHandlerMethod extends HandlerMethod {
      *
      * @param telegramRequest request
      * @param telegramSession current session
-     * @return result of invocation
-     * @throws IllegalStateException when it failed to execute the handler method correctly
+     * @return the first request to send
+     * @throws IllegalStateException when it failed to execute the handler method correctly or the method is
+     *                               asynchronous
+     * @deprecated the rest requests are not returned, use {@link #invokeAndHandleAll(TelegramRequest, TelegramSession)}
      */
+    @Deprecated
+    @Nullable
     public BaseRequest invokeAndHandle(@NotNull TelegramRequest telegramRequest, @NotNull TelegramSession telegramSession) throws IllegalStateException {
+        TelegramResponses responses = invokeAndHandleAll(telegramRequest, telegramSession);
+        return ((responses == null) || responses.isEmpty()) ? null : responses.getResponses().get(0).getRequest();
+    }
+
+    /**
+     * Invoke {@code TelegramInvocableHandlerMethod} with given arguments and return result.
+     *
+     * @param telegramRequest request
+     * @param telegramSession current session
+     * @return requests to send in the given order
+     * @throws IllegalStateException when it failed to execute the handler method correctly or the method is
+     *                               asynchronous
+     * @since 0.31
+     */
+    @Nullable
+    public TelegramResponses invokeAndHandleAll(@NotNull TelegramRequest telegramRequest, @NotNull TelegramSession telegramSession) throws IllegalStateException {
+        if (async) {
+            throw new IllegalStateException("Asynchronous handler method should be invoked by invokeAndHandleAsync: " + this);
+        }
+        Object returnValue = invoke(telegramRequest, telegramSession);
+        return getReturnValueBinding(returnValue).handle(returnValue, telegramRequest);
+    }
+
+    /**
+     * Invoke {@code TelegramInvocableHandlerMethod} with given arguments. If the method is asynchronous, the current
+     * thread is released as soon as the method returns and the completion value is handled by the given executor.
+     *
+     * @param telegramRequest      request
+     * @param telegramSession      current session
+     * @param continuationExecutor executor that handles the completion value, e.g. binds the session id
+     * @return stage that is completed with the requests to send in the given order
+     * @throws IllegalStateException when it failed to invoke the handler method correctly
+     * @since 0.31
+     */
+    public CompletionStage<TelegramResponses> invokeAndHandleAsync(@NotNull TelegramRequest telegramRequest, @NotNull TelegramSession telegramSession, @NotNull Executor continuationExecutor) throws IllegalStateException {
+        Object returnValue = invoke(telegramRequest, telegramSession);
+        if (!async) {
+            return CompletableFuture.completedFuture(getReturnValueBinding(returnValue).handle(returnValue, telegramRequest));
+        }
+        if (returnValue == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        boolean multiValue = AsyncReturnValues.isMultiValue(returnValue);
+        return AsyncReturnValues.toCompletionStage(returnValue).thenApplyAsync((value) -> multiValue
+                        ? handleAsyncValues((List<?>) value, telegramRequest)
+                        : handleAsyncValue(value, telegramRequest),
+                continuationExecutor);
+    }
+
+    private Object invoke(TelegramRequest telegramRequest, TelegramSession telegramSession) throws IllegalStateException {
         Object[] args = getMethodArgumentValues(telegramRequest, telegramSession);
         if (log.isTraceEnabled()) {
             log.trace("Invoking '" + ClassUtils.getQualifiedMethodName(getMethod(), getBeanType()) + "' with arguments " + Arrays.toString(args));
@@ -58,31 +157,73 @@ public class TelegramInvocableHandlerMethod extends HandlerMethod {
         if (log.isTraceEnabled()) {
             log.trace("Method [" + ClassUtils.getQualifiedMethodName(getMethod(), getBeanType()) + "] returned [" + returnValue + "]");
         }
-        return returnValueHandler.handleReturnValue(returnValue, getReturnValue(returnValue), telegramRequest);
+        return returnValue;
+    }
+
+    private TelegramResponses handleAsyncValues(List<?> values, TelegramRequest telegramRequest) {
+        TelegramResponses.Builder builder = TelegramResponses.builder();
+        for (Object value : values) {
+            TelegramResponses responses = handleAsyncValue(value, telegramRequest);
+            if (responses != null) {
+                builder.addAll(responses);
+            }
+        }
+        return builder.build();
+    }
+
+    @Nullable
+    private TelegramResponses handleAsyncValue(@Nullable Object value, TelegramRequest telegramRequest) {
+        if (value == null) {
+            return null;
+        }
+        ReturnValueBinding binding = asyncReturnValueBindings.get(value.getClass());
+        if (binding == null) {
+            binding = asyncReturnValueBindings.computeIfAbsent(value.getClass(), this::bindAsyncReturnValueHandler);
+        }
+        return binding.handle(value, telegramRequest);
+    }
+
+    private ReturnValueBinding getReturnValueBinding(@Nullable Object returnValue) {
+        if ((returnValue == null) || declaredReturnTypeExact) {
+            return declaredReturnValueBinding;
+        }
+        Class<?> returnValueType = returnValue.getClass();
+        ReturnValueBinding binding = returnValueBindings.get(returnValueType);
+        if (binding == null) {
+            binding = returnValueBindings.computeIfAbsent(returnValueType, this::bindReturnValueHandler);
+        }
+        return binding;
+    }
+
+    private ReturnValueBinding bindReturnValueHandler(@Nullable Class<?> returnValueType) {
+        return bindReturnValueType(getReturnValueType(returnValueType));
+    }
+
+    private ReturnValueBinding bindAsyncReturnValueHandler(Class<?> valueType) {
+        // Generic type of the value is declared as the type argument, e.g. List<BaseRequest> of Mono<List<BaseRequest>>
+        return bindReturnValueType(getReturnValueType(valueType).nested());
+    }
+
+    private ReturnValueBinding bindReturnValueType(MethodParameter returnType) {
+        BotHandlerMethodReturnValueHandler handler = (returnValueHandler instanceof BotHandlerMethodReturnValueHandlerComposite)
+                ? ((BotHandlerMethodReturnValueHandlerComposite) returnValueHandler).getReturnValueHandler(returnType)
+                : returnValueHandler;
+        return new ReturnValueBinding(returnType, handler);
     }
 
     private Object doSafeInvoke(Object[] args) throws IllegalStateException {
-        ReflectionUtils.makeAccessible(getBridgedMethod());
         try {
-            return getBridgedMethod().invoke(getBean(), args);
-        } catch (InvocationTargetException ex) {
-            // Unwrap for HandlerExceptionResolvers ...
-            Throwable targetException = ex.getTargetException();
+            return getInvoker().invoke(getBean(), args);
+        } catch (Throwable ex) {
             String text = getInvocationErrorMessage("Failed to invoke handler method", args);
-            throw new IllegalStateException(text, targetException);
-        } catch (Exception ex) {
-            String text = ex.getMessage() != null ? ex.getMessage() : "";
-            throw new IllegalStateException(getInvocationErrorMessage(text, args), ex);
+            throw new IllegalStateException(text, ex);
         }
     }
 
     private Object[] getMethodArgumentValues(@NotNull TelegramRequest telegramRequest, @NotNull TelegramSession telegramSession) {
-        MethodParameter[] parameters = getMethodParameters();
-        Object[] args = new Object[parameters.length];
-        for (int i = 0; i < parameters.length; i++) {
-            MethodParameter parameter = parameters[i];
-            parameter.initParameterNameDiscovery(this.parameterNameDiscoverer);
-            args[i] = this.argumentResolver.resolveArgument(parameter, telegramRequest, telegramSession);
+        Object[] args = new Object[argumentExtractors.length];
+        for (int i = 0; i < argumentExtractors.length; i++) {
+            args[i] = argumentExtractors[i].extract(telegramRequest, telegramSession);
         }
         return args;
     }
@@ -111,4 +252,25 @@ public class TelegramInvocableHandlerMethod extends HandlerMethod {
         }
         return sb.toString();
     }
+
+    /**
+     * Return value handler selected for the specific return type.
+     */
+    private static class ReturnValueBinding {
+        private final MethodParameter returnType;
+        private final BotHandlerMethodReturnValueHandler handler;
+
+        ReturnValueBinding(MethodParameter returnType, @Nullable BotHandlerMethodReturnValueHandler handler) {
+            this.returnType = returnType;
+            this.handler = handler;
+        }
+
+        TelegramResponses handle(@Nullable Object returnValue, TelegramRequest telegramRequest) {
+            if (handler == null) {
+                log.error("Unknown return value type: " + returnType.getParameterType().getName());
+                return null;
+            }
+            return handler.handleReturnValues(returnValue, returnType, telegramRequest);
+        }
+    }
 }
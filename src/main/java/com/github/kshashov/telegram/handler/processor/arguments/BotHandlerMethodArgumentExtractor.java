@@ -0,0 +1,27 @@
+package com.github.kshashov.telegram.handler.processor.arguments;
+
+import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramSession;
+
+import javax.annotation.Nullable;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Extracts the value of the single handler method argument from the current telegram request. Is created once for each
+ * method parameter by {@link BotHandlerMethodArgumentResolver#createExtractor}, so all type checks are already done.
+ *
+ * @since 0.31
+ */
+@FunctionalInterface
+public interface BotHandlerMethodArgumentExtractor {
+
+    /**
+     * Extract argument value.
+     *
+     * @param telegramRequest the current telegram request
+     * @param telegramSession the current session
+     * @return the resolved argument value, or {@code null} if not resolvable
+     */
+    @Nullable
+    Object extract(@NotNull TelegramRequest telegramRequest, @NotNull TelegramSession telegramSession);
+}
@@ -33,4 +33,18 @@ public interface BotHandlerMethodArgumentResolver {
      */
     @Nullable
     Object resolveArgument(@NotNull MethodParameter parameter, @NotNull TelegramRequest telegramRequest, @NotNull TelegramSession telegramSession);
+
+    /**
+     * Create extractor that resolves the given method parameter for each telegram request. Is invoked only once for
+     * each handler method parameter, so implementations are supposed to perform all type checks here.
+     *
+     * @param parameter the method parameter to resolve. This parameter must have previously been passed to {@link
+     *                  #supportsParameter} which must have returned {@code true}.
+     * @return argument extractor
+     * @since 0.31
+     */
+    @NotNull
+    default BotHandlerMethodArgumentExtractor createExtractor(@NotNull MethodParameter parameter) {
+        return (telegramRequest, telegramSession) -> resolveArgument(parameter, telegramRequest, telegramSession);
+    }
 }
@@ -46,6 +46,25 @@ public class BotHandlerMethodArgumentResolverComposite implements BotHandlerMeth
         return resolver.resolveArgument(parameter, telegramRequest, telegramSession);
     }
 
+    /**
+     * Create extractor with the registered {@link BotHandlerMethodArgumentResolver} that supports the given method parameter.
+     *
+     * @throws IllegalStateException if there is no resolver for the given method parameter
+     */
+    @Override
+    public BotHandlerMethodArgumentExtractor createExtractor(MethodParameter parameter) throws IllegalStateException {
+        BotHandlerMethodArgumentResolver resolver = getArgumentResolver(parameter);
+        if (resolver == null) {
+            throw new IllegalStateException("Unknown parameter type [" + parameter.getParameterType().getName() + "] in method " + parameter.getExecutable().toGenericString());
+        }
+
+        BotHandlerMethodArgumentExtractor extractor = resolver.createExtractor(parameter);
+        if (extractor == null) {
+            return (telegramRequest, telegramSession) -> resolver.resolveArgument(parameter, telegramRequest, telegramSession);
+        }
+        return extractor;
+    }
+
     /**
      * Find a registered {@link BotHandlerMethodArgumentResolver} that supports the given method parameter.
      *
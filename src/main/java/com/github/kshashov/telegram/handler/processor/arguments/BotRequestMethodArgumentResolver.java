@@ -8,6 +8,8 @@ import com.pengrad.telegrambot.model.*;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.MethodParameter;
 
+import java.util.function.Function;
+
 @Slf4j
 public class BotRequestMethodArgumentResolver implements BotHandlerMethodArgumentResolver {
     @Override
@@ -35,45 +37,53 @@ public class BotRequestMethodArgumentResolver implements BotHandlerMethodArgumen
 
     @Override
     public Object resolveArgument(MethodParameter parameter, TelegramRequest telegramRequest, TelegramSession telegramSession) {
+        return createExtractor(parameter).extract(telegramRequest, telegramSession);
+    }
 
+    @Override
+    public BotHandlerMethodArgumentExtractor createExtractor(MethodParameter parameter) {
         Class<?> paramType = parameter.getParameterType();
 
         if (TelegramRequest.class.isAssignableFrom(paramType)) {
-            return validateValue(paramType, telegramRequest);
+            return (request, session) -> validateValue(paramType, request);
         } else if (TelegramSession.class.isAssignableFrom(paramType)) {
-            return validateValue(paramType, telegramSession);
+            return (request, session) -> validateValue(paramType, session);
         } else if (TelegramBot.class.isAssignableFrom(paramType)) {
-            return validateValue(paramType, telegramRequest.getTelegramBot());
-        }else if (Update.class.isAssignableFrom(paramType)) {
-            return validateValue(paramType, telegramRequest.getUpdate());
+            return (request, session) -> validateValue(paramType, request.getTelegramBot());
+        } else if (Update.class.isAssignableFrom(paramType)) {
+            return (request, session) -> validateValue(paramType, request.getUpdate());
         } else if (Message.class.isAssignableFrom(paramType)) {
-            return validateValue(paramType, telegramRequest.getMessage());
+            return (request, session) -> validateValue(paramType, request.getMessage());
         } else if (User.class.isAssignableFrom(paramType)) {
-            return validateValue(paramType, telegramRequest.getUser());
+            return (request, session) -> validateValue(paramType, request.getUser());
         } else if (Chat.class.isAssignableFrom(paramType)) {
-            return validateValue(paramType, telegramRequest.getChat());
+            return (request, session) -> validateValue(paramType, request.getChat());
         } else if (String.class.isAssignableFrom(paramType)) {
-            return validateValue(paramType, telegramRequest.getText());
-        } else {
-            Update update = telegramRequest.getUpdate();
+            return (request, session) -> validateValue(paramType, request.getText());
+        } else if (CallbackQuery.class.isAssignableFrom(paramType)) {
+            return fromUpdate(paramType, Update::callbackQuery);
+        } else if (InlineQuery.class.isAssignableFrom(paramType)) {
+            return fromUpdate(paramType, Update::inlineQuery);
+        } else if (ChosenInlineResult.class.isAssignableFrom(paramType)) {
+            return fromUpdate(paramType, Update::chosenInlineResult);
+        } else if (ShippingQuery.class.isAssignableFrom(paramType)) {
+            return fromUpdate(paramType, Update::shippingQuery);
+        } else if (PreCheckoutQuery.class.isAssignableFrom(paramType)) {
+            return fromUpdate(paramType, Update::preCheckoutQuery);
+        } else if (Poll.class.isAssignableFrom(paramType)) {
+            return fromUpdate(paramType, Update::poll);
+        }
+        return (request, session) -> null;
+    }
+
+    private BotHandlerMethodArgumentExtractor fromUpdate(Class<?> paramType, Function<Update, Object> getter) {
+        return (request, session) -> {
+            Update update = request.getUpdate();
             if (update == null) {
                 return null;
             }
-            if (CallbackQuery.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, update.callbackQuery());
-            } else if (InlineQuery.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, update.inlineQuery());
-            } else if (ChosenInlineResult.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, update.chosenInlineResult());
-            } else if (ShippingQuery.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, update.shippingQuery());
-            } else if (PreCheckoutQuery.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, update.preCheckoutQuery());
-            } else if (Poll.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, update.poll());
-            }
-        }
-        return null;
+            return validateValue(paramType, getter.apply(update));
+        };
     }
 
     private Object validateValue(Class<?> paramType, Object value) {
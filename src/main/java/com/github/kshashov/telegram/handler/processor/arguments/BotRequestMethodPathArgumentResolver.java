@@ -8,6 +8,8 @@ import org.springframework.core.MethodParameter;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Map;
+import java.util.function.Function;
 
 /**
  * Add support for {@link String} arguments marked by {@link BotPathVariable} annotation.
@@ -30,44 +32,55 @@ public class BotRequestMethodPathArgumentResolver implements BotHandlerMethodArg
 
     @Override
     public Object resolveArgument(MethodParameter parameter, TelegramRequest telegramRequest, TelegramSession telegramSession) {
+        return createExtractor(parameter).extract(telegramRequest, telegramSession);
+    }
+
+    @Override
+    public BotHandlerMethodArgumentExtractor createExtractor(MethodParameter parameter) {
         Class<?> paramType = parameter.getParameterType();
         BotPathVariable annotation = parameter.getParameterAnnotation(BotPathVariable.class);
-        if ((telegramRequest.getTemplateVariables() == null) || (annotation == null)) {
+        Function<String, Object> converter = getConverter(paramType);
+        if ((annotation == null) || (converter == null)) {
             // nothing to extract
-            return null;
+            return (request, session) -> null;
         }
 
-        String value;
-        if (annotation.value().isEmpty()) {
-            value = telegramRequest.getTemplateVariables().get(parameter.getParameterName());
-        } else {
-            value = telegramRequest.getTemplateVariables().get(annotation.value());
-        }
+        String name = annotation.value().isEmpty() ? parameter.getParameterName() : annotation.value();
+        return (request, session) -> {
+            Map<String, String> variables = request.getTemplateVariables();
+            if (variables == null) {
+                return null;
+            }
 
-        if (value == null) {
-            return null;
-        }
+            String value = variables.get(name);
+            if (value == null) {
+                return null;
+            }
 
-        try {
-            if (String.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, value);
-            } else if (Integer.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, new Integer(value));
-            } else if (Long.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, new Long(value));
-            } else if (Double.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, new Double(value));
-            } else if (Float.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, new Float(value));
-            } else if (BigInteger.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, new BigInteger(value));
-            } else if (BigDecimal.class.isAssignableFrom(paramType)) {
-                return validateValue(paramType, new BigDecimal(value));
+            try {
+                return validateValue(paramType, converter.apply(value));
+            } catch (NumberFormatException ex) {
+                return null;
             }
-        } catch (NumberFormatException ex) {
+        };
+    }
 
+    private Function<String, Object> getConverter(Class<?> paramType) {
+        if (String.class.isAssignableFrom(paramType)) {
+            return value -> value;
+        } else if (Integer.class.isAssignableFrom(paramType)) {
+            return Integer::valueOf;
+        } else if (Long.class.isAssignableFrom(paramType)) {
+            return Long::valueOf;
+        } else if (Double.class.isAssignableFrom(paramType)) {
+            return Double::valueOf;
+        } else if (Float.class.isAssignableFrom(paramType)) {
+            return Float::valueOf;
+        } else if (BigInteger.class.isAssignableFrom(paramType)) {
+            return BigInteger::new;
+        } else if (BigDecimal.class.isAssignableFrom(paramType)) {
+            return BigDecimal::new;
         }
-
         return null;
     }
 
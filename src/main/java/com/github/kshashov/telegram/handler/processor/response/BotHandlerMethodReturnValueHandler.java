@@ -1,6 +1,7 @@
 package com.github.kshashov.telegram.handler.processor.response;
 
 import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramResponses;
 import com.pengrad.telegrambot.request.BaseRequest;
 import org.springframework.core.MethodParameter;
 
@@ -30,4 +31,21 @@ public interface BotHandlerMethodReturnValueHandler {
      */
     @Nullable
     BaseRequest handleReturnValue(@Nullable Object returnValue, @NotNull MethodParameter returnType, @NotNull TelegramRequest telegramRequest);
+
+    /**
+     * Resolves a method result into the requests that are sent one after another. By default, the single request
+     * from {@link #handleReturnValue} is used, handlers that produce several requests should override this method.
+     *
+     * @param returnValue     method result to handle
+     * @param returnType      the method parameter to resolve. This parameter must have previously been passed to {@link
+     *                        #supportsReturnType} which must have returned {@code true}.
+     * @param telegramRequest the current telegram request
+     * @return the requests to send, or {@code null} if not resolvable
+     * @since 0.31
+     */
+    @Nullable
+    default TelegramResponses handleReturnValues(@Nullable Object returnValue, @NotNull MethodParameter returnType, @NotNull TelegramRequest telegramRequest) {
+        BaseRequest request = handleReturnValue(returnValue, returnType, telegramRequest);
+        return (request == null) ? null : TelegramResponses.of(request);
+    }
 }
@@ -1,10 +1,12 @@
 package com.github.kshashov.telegram.handler.processor.response;
 
 import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramResponses;
 import com.pengrad.telegrambot.request.BaseRequest;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.MethodParameter;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.NotNull;
 import java.util.ArrayList;
 import java.util.List;
@@ -32,7 +34,14 @@ public class BotHandlerMethodReturnValueHandlerComposite implements BotHandlerMe
         return getReturnValueHandler(returnType) != null;
     }
 
-    private BotHandlerMethodReturnValueHandler getReturnValueHandler(MethodParameter returnType) {
+    /**
+     * Find a registered {@link BotHandlerMethodReturnValueHandler} that supports the given return type.
+     *
+     * @param returnType the method return type
+     * @return supported handler or {@code null}
+     */
+    @Nullable
+    public BotHandlerMethodReturnValueHandler getReturnValueHandler(@NotNull MethodParameter returnType) {
         for (BotHandlerMethodReturnValueHandler handler : this.returnValueHandlers) {
             if (log.isTraceEnabled()) {
                 log.trace("Testing if response resolver [" + handler + "] supports [" + returnType.getGenericParameterType() + "]");
@@ -56,4 +65,17 @@ public class BotHandlerMethodReturnValueHandlerComposite implements BotHandlerMe
         }
         return handler.handleReturnValue(returnValue, returnType, telegramRequest);
     }
+
+    /**
+     * Iterate over registered {@link BotHandlerMethodReturnValueHandler}s and invoke the one that supports it.
+     */
+    @Override
+    public TelegramResponses handleReturnValues(Object returnValue, MethodParameter returnType, TelegramRequest telegramRequest) {
+        BotHandlerMethodReturnValueHandler handler = getReturnValueHandler(returnType);
+        if (handler == null) {
+            log.error("Unknown return value type: " + returnType.getParameterType().getName());
+            return null;
+        }
+        return handler.handleReturnValues(returnValue, returnType, telegramRequest);
+    }
 }
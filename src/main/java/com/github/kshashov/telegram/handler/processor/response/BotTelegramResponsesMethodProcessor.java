@@ -0,0 +1,68 @@
+package com.github.kshashov.telegram.handler.processor.response;
+
+import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramResponses;
+import com.pengrad.telegrambot.request.BaseRequest;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ResolvableType;
+
+import java.util.Collection;
+
+/**
+ * Add support for {@link TelegramResponses}, {@code BaseRequest[]} and collections of {@link BaseRequest} (e.g. {@code
+ * List<BaseRequest>}) return types. The requests are sent in the iteration order.
+ *
+ * @since 0.31
+ */
+@Slf4j
+public class BotTelegramResponsesMethodProcessor implements BotHandlerMethodReturnValueHandler {
+
+    @Override
+    public boolean supportsReturnType(MethodParameter returnType) {
+        Class<?> paramType = returnType.getParameterType();
+        if (TelegramResponses.class.isAssignableFrom(paramType)) {
+            return true;
+        }
+        if (paramType.isArray()) {
+            return BaseRequest.class.isAssignableFrom(paramType.getComponentType());
+        }
+        if (Collection.class.isAssignableFrom(paramType)) {
+            // The element type is known only from the declared return type
+            Class<?> elementType = ResolvableType.forMethodParameter(returnType).asCollection().resolveGeneric(0);
+            return (elementType != null) && BaseRequest.class.isAssignableFrom(elementType);
+        }
+        return false;
+    }
+
+    /**
+     * Returns only the first request, {@link #handleReturnValues} should be used to get all of them.
+     */
+    @Override
+    public BaseRequest handleReturnValue(Object returnValue, MethodParameter returnType, TelegramRequest telegramRequest) {
+        TelegramResponses responses = handleReturnValues(returnValue, returnType, telegramRequest);
+        return ((responses == null) || responses.isEmpty()) ? null : responses.getResponses().get(0).getRequest();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public TelegramResponses handleReturnValues(Object returnValue, MethodParameter returnType, TelegramRequest telegramRequest) {
+        if (returnValue instanceof TelegramResponses) {
+            return (TelegramResponses) returnValue;
+        } else if (returnValue instanceof BaseRequest[]) {
+            return TelegramResponses.of((BaseRequest[]) returnValue);
+        } else if (returnValue instanceof Collection) {
+            for (Object request : (Collection<?>) returnValue) {
+                if ((request != null) && !(request instanceof BaseRequest)) {
+                    log.error("Collection element is not of type [" + BaseRequest.class.getName() + "]: " + request.getClass().getName());
+                    return null;
+                }
+            }
+            return TelegramResponses.of((Collection<? extends BaseRequest>) returnValue);
+        } else if (returnValue != null) {
+            log.error("Current request is not of type [" + returnType.getParameterType().getName() + "]: " + telegramRequest);
+        }
+
+        return null;
+    }
+}
@@ -1,11 +1,17 @@
 package com.github.kshashov.telegram.metrics;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
 import com.codahale.metrics.SlidingWindowReservoir;
 import com.codahale.metrics.Timer;
+import com.github.kshashov.telegram.config.TelegramBotProperties;
 import com.github.kshashov.telegram.handler.processor.HandlerMethod;
 
+import java.util.concurrent.TimeUnit;
+
 import static java.lang.String.format;
 
 /**
@@ -16,17 +22,56 @@ import static java.lang.String.format;
 public class MetricsService {
     public static final String UPDATES_RECEIVED = "updates";
     public static final String UPDATE_ERRORS = "processing.errors";
+    public static final String UPDATES_REJECTED = "updates.rejected";
+    public static final String UPDATES_SHED = "updates.shed";
+    public static final String UPDATES_DUPLICATES = "updates.duplicates";
     public static final String NO_HANDLERS_ERRORS = "no.handlers.errors";
     public static final String HANDLER_ERRORS = "handler.%s.errors";
     public static final String HANDLER_SUCCESSES = "handler.%s.successes";
     public static final String HANDLER_EXECUTION_TIME = "handler.%s.execution.time";
+    public static final String LOOKUP_CACHE_HITS = "lookup.cache.hits";
+    public static final String LOOKUP_CACHE_MISSES = "lookup.cache.misses";
+    public static final String LANES_QUEUE_DEPTH = "lanes.queue.depth";
+    public static final String LANES_WAIT_TIME = "lanes.wait.time";
+    public static final String POLLING_LATENCY = "polling.%s.latency";
+    public static final String POLLING_BATCH_SIZE = "polling.%s.batch.size";
+    public static final String POLLING_POLLS = "polling.%s.polls";
+    public static final String POLLING_EMPTY_POLLS = "polling.%s.empty.polls";
+    public static final String POLLING_EMPTY_RATIO = "polling.%s.empty.ratio";
+    public static final String POLLING_ERRORS = "polling.%s.errors";
+    public static final String WEBHOOK_NOT_FOUND = "webhook.not.found";
+    public static final String WEBHOOK_ACCEPTED = "webhook.%s.accepted";
+    public static final String WEBHOOK_BODY_SIZE = "webhook.%s.body.size";
+    public static final String WEBHOOK_UNAUTHORIZED = "webhook.%s.unauthorized";
+    public static final String WEBHOOK_OVERSIZED = "webhook.%s.oversized";
+    public static final String WEBHOOK_INVALID = "webhook.%s.invalid";
+    public static final String OUTBOUND_QUEUE_DEPTH = "outbound.queue.depth";
+    public static final String OUTBOUND_DELAY = "outbound.delay";
+    public static final String OUTBOUND_RATE_LIMITED = "outbound.rate.limited";
+    public static final String OUTBOUND_RETRIES = "outbound.retries";
+    public static final String OUTBOUND_DEAD_LETTERS = "outbound.dead.letters";
+    public static final String OUTBOUND_HTTP_RUNNING = "outbound.http.running";
+    public static final String OUTBOUND_HTTP_QUEUED = "outbound.http.queued";
+    public static final String OUTBOUND_HTTP_CONNECTIONS = "outbound.http.connections";
+    public static final String OUTBOUND_HTTP_IDLE_CONNECTIONS = "outbound.http.idle.connections";
     private final MetricRegistry metricRegistry;
 
     public MetricsService(MetricRegistry metricRegistry) {
         this.metricRegistry = metricRegistry;
         metricRegistry.register(UPDATES_RECEIVED, new Meter());
         metricRegistry.register(UPDATE_ERRORS, new Meter());
+        metricRegistry.register(UPDATES_REJECTED, new Meter());
+        metricRegistry.register(UPDATES_SHED, new Meter());
+        metricRegistry.register(UPDATES_DUPLICATES, new Meter());
         metricRegistry.register(NO_HANDLERS_ERRORS, new Meter());
+        metricRegistry.register(LOOKUP_CACHE_HITS, new Meter());
+        metricRegistry.register(LOOKUP_CACHE_MISSES, new Meter());
+        metricRegistry.register(WEBHOOK_NOT_FOUND, new Meter());
+        metricRegistry.register(LANES_WAIT_TIME, new Timer(new SlidingWindowReservoir(64)));
+        metricRegistry.register(OUTBOUND_DELAY, new Timer(new SlidingWindowReservoir(64)));
+        metricRegistry.register(OUTBOUND_RATE_LIMITED, new Meter());
+        metricRegistry.register(OUTBOUND_RETRIES, new Meter());
+        metricRegistry.register(OUTBOUND_DEAD_LETTERS, new Meter());
     }
 
     /**
@@ -38,6 +83,29 @@ public class MetricsService {
         metricRegistry.getMeters().get(UPDATES_RECEIVED).mark(messages);
     }
 
+    /**
+     * Stores rejected updates count into {@link #UPDATES_REJECTED} metric.
+     *
+     * @param updates number of updates that were not accepted by the task executor
+     */
+    public void onUpdatesRejected(int updates) {
+        metricRegistry.getMeters().get(UPDATES_REJECTED).mark(updates);
+    }
+
+    /**
+     * Updates {@link #UPDATES_SHED} metric.
+     */
+    public void onUpdateShed() {
+        metricRegistry.getMeters().get(UPDATES_SHED).mark();
+    }
+
+    /**
+     * Updates {@link #UPDATES_DUPLICATES} metric.
+     */
+    public void onUpdateDuplicate() {
+        metricRegistry.getMeters().get(UPDATES_DUPLICATES).mark();
+    }
+
     /**
      * Updates {@link #NO_HANDLERS_ERRORS} metric.
      */
@@ -52,6 +120,205 @@ public class MetricsService {
         metricRegistry.getMeters().get(UPDATE_ERRORS).mark();
     }
 
+    /**
+     * Updates {@link #LOOKUP_CACHE_HITS} metric.
+     */
+    public void onLookupCacheHit() {
+        metricRegistry.getMeters().get(LOOKUP_CACHE_HITS).mark();
+    }
+
+    /**
+     * Updates {@link #LOOKUP_CACHE_MISSES} metric.
+     */
+    public void onLookupCacheMiss() {
+        metricRegistry.getMeters().get(LOOKUP_CACHE_MISSES).mark();
+    }
+
+    /**
+     * Registers {@link #LANES_QUEUE_DEPTH} metric.
+     *
+     * @param queueDepth number of updates that are waiting in serial lanes
+     */
+    public void registerLanesQueueDepth(Gauge<Integer> queueDepth) {
+        metricRegistry.remove(LANES_QUEUE_DEPTH);
+        metricRegistry.register(LANES_QUEUE_DEPTH, queueDepth);
+    }
+
+    /**
+     * Updates {@link #LANES_WAIT_TIME} metric.
+     *
+     * @param waitNanos time the update spent in the serial lane before its processing started
+     */
+    public void onLaneTaskStarted(long waitNanos) {
+        metricRegistry.getTimers().get(LANES_WAIT_TIME).update(waitNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Registers {@link #OUTBOUND_QUEUE_DEPTH} metric.
+     *
+     * @param queueDepth number of outbound requests that are waiting for the rate limits
+     */
+    public void registerOutboundQueueDepth(Gauge<Integer> queueDepth) {
+        metricRegistry.remove(OUTBOUND_QUEUE_DEPTH);
+        metricRegistry.register(OUTBOUND_QUEUE_DEPTH, queueDepth);
+    }
+
+    /**
+     * Updates {@link #OUTBOUND_DELAY} metric.
+     *
+     * @param delayNanos time the outbound request waited for the rate limits before it was sent
+     */
+    public void onOutboundRequestSent(long delayNanos) {
+        metricRegistry.getTimers().get(OUTBOUND_DELAY).update(delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Updates {@link #OUTBOUND_RATE_LIMITED} metric.
+     */
+    public void onOutboundRateLimited() {
+        metricRegistry.getMeters().get(OUTBOUND_RATE_LIMITED).mark();
+    }
+
+    /**
+     * Registers {@link #OUTBOUND_HTTP_RUNNING}, {@link #OUTBOUND_HTTP_QUEUED}, {@link #OUTBOUND_HTTP_CONNECTIONS} and
+     * {@link #OUTBOUND_HTTP_IDLE_CONNECTIONS} metrics.
+     *
+     * @param running         number of requests executed by the http client dispatcher
+     * @param queued          number of requests waiting for the http client dispatcher
+     * @param connections     number of connections in the http client pool
+     * @param idleConnections number of idle connections in the http client pool
+     */
+    public void registerOutboundHttp(Gauge<Integer> running, Gauge<Integer> queued, Gauge<Integer> connections, Gauge<Integer> idleConnections) {
+        metricRegistry.remove(OUTBOUND_HTTP_RUNNING);
+        metricRegistry.register(OUTBOUND_HTTP_RUNNING, running);
+        metricRegistry.remove(OUTBOUND_HTTP_QUEUED);
+        metricRegistry.register(OUTBOUND_HTTP_QUEUED, queued);
+        metricRegistry.remove(OUTBOUND_HTTP_CONNECTIONS);
+        metricRegistry.register(OUTBOUND_HTTP_CONNECTIONS, connections);
+        metricRegistry.remove(OUTBOUND_HTTP_IDLE_CONNECTIONS);
+        metricRegistry.register(OUTBOUND_HTTP_IDLE_CONNECTIONS, idleConnections);
+    }
+
+    /**
+     * Updates {@link #OUTBOUND_RETRIES} metric.
+     */
+    public void onOutboundRetry() {
+        metricRegistry.getMeters().get(OUTBOUND_RETRIES).mark();
+    }
+
+    /**
+     * Updates {@link #OUTBOUND_DEAD_LETTERS} metric.
+     */
+    public void onOutboundDeadLetter() {
+        metricRegistry.getMeters().get(OUTBOUND_DEAD_LETTERS).mark();
+    }
+
+    /**
+     * Creates polling related metrics for the bot.
+     *
+     * @param token bot token
+     */
+    public void registerPolling(String token) {
+        String botId = TelegramBotProperties.getBotId(token);
+        metricRegistry.timer(format(POLLING_LATENCY, botId), () -> new Timer(new SlidingWindowReservoir(64)));
+        metricRegistry.histogram(format(POLLING_BATCH_SIZE, botId), () -> new Histogram(new SlidingWindowReservoir(64)));
+        metricRegistry.meter(format(POLLING_ERRORS, botId));
+        Meter polls = metricRegistry.meter(format(POLLING_POLLS, botId));
+        Meter emptyPolls = metricRegistry.meter(format(POLLING_EMPTY_POLLS, botId));
+        metricRegistry.gauge(format(POLLING_EMPTY_RATIO, botId), () -> new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(emptyPolls.getOneMinuteRate(), polls.getOneMinuteRate());
+            }
+        });
+    }
+
+    /**
+     * Updates {@link #POLLING_LATENCY}, {@link #POLLING_BATCH_SIZE} and {@link #POLLING_EMPTY_RATIO} metrics.
+     *
+     * @param token        bot token
+     * @param latencyNanos request latency
+     * @param batchSize    number of received updates
+     */
+    public void onPollCompleted(String token, long latencyNanos, int batchSize) {
+        String botId = TelegramBotProperties.getBotId(token);
+        metricRegistry.getTimers().get(format(POLLING_LATENCY, botId)).update(latencyNanos, TimeUnit.NANOSECONDS);
+        metricRegistry.getHistograms().get(format(POLLING_BATCH_SIZE, botId)).update(batchSize);
+        metricRegistry.getMeters().get(format(POLLING_POLLS, botId)).mark();
+        if (batchSize == 0) {
+            metricRegistry.getMeters().get(format(POLLING_EMPTY_POLLS, botId)).mark();
+        }
+    }
+
+    /**
+     * Updates {@link #POLLING_ERRORS} metric.
+     *
+     * @param token bot token
+     */
+    public void onPollFailed(String token) {
+        metricRegistry.getMeters().get(format(POLLING_ERRORS, TelegramBotProperties.getBotId(token))).mark();
+    }
+
+    /**
+     * Creates webhook ingress metrics for the bot.
+     *
+     * @param token bot token
+     */
+    public void registerWebhook(String token) {
+        String botId = TelegramBotProperties.getBotId(token);
+        metricRegistry.meter(format(WEBHOOK_ACCEPTED, botId));
+        metricRegistry.histogram(format(WEBHOOK_BODY_SIZE, botId), () -> new Histogram(new SlidingWindowReservoir(64)));
+        metricRegistry.meter(format(WEBHOOK_UNAUTHORIZED, botId));
+        metricRegistry.meter(format(WEBHOOK_OVERSIZED, botId));
+        metricRegistry.meter(format(WEBHOOK_INVALID, botId));
+    }
+
+    /**
+     * Updates {@link #WEBHOOK_NOT_FOUND} metric.
+     */
+    public void onWebhookNotFound() {
+        metricRegistry.getMeters().get(WEBHOOK_NOT_FOUND).mark();
+    }
+
+    /**
+     * Updates {@link #WEBHOOK_ACCEPTED} and {@link #WEBHOOK_BODY_SIZE} metrics.
+     *
+     * @param token    bot token
+     * @param bodySize request body size in bytes
+     */
+    public void onWebhookAccepted(String token, int bodySize) {
+        String botId = TelegramBotProperties.getBotId(token);
+        metricRegistry.getMeters().get(format(WEBHOOK_ACCEPTED, botId)).mark();
+        metricRegistry.getHistograms().get(format(WEBHOOK_BODY_SIZE, botId)).update(bodySize);
+    }
+
+    /**
+     * Updates {@link #WEBHOOK_UNAUTHORIZED} metric.
+     *
+     * @param token bot token
+     */
+    public void onWebhookUnauthorized(String token) {
+        metricRegistry.getMeters().get(format(WEBHOOK_UNAUTHORIZED, TelegramBotProperties.getBotId(token))).mark();
+    }
+
+    /**
+     * Updates {@link #WEBHOOK_OVERSIZED} metric.
+     *
+     * @param token bot token
+     */
+    public void onWebhookOversized(String token) {
+        metricRegistry.getMeters().get(format(WEBHOOK_OVERSIZED, TelegramBotProperties.getBotId(token))).mark();
+    }
+
+    /**
+     * Updates {@link #WEBHOOK_INVALID} metric.
+     *
+     * @param token bot token
+     */
+    public void onWebhookInvalid(String token) {
+        metricRegistry.getMeters().get(format(WEBHOOK_INVALID, TelegramBotProperties.getBotId(token))).mark();
+    }
+
     /**
      * Creates handler related metrics.
      *
@@ -0,0 +1,46 @@
+package com.github.kshashov.telegram;
+
+import com.codahale.metrics.MetricRegistry;
+import com.github.kshashov.telegram.metrics.MetricsService;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TelegramAutoConfigurationTest {
+    private TelegramAutoConfiguration configuration;
+    private TelegramConfigurationProperties properties;
+    private MetricRegistry metricRegistry;
+    private MetricsService metricsService;
+
+    @BeforeEach
+    void init() {
+        configuration = new TelegramAutoConfiguration();
+        properties = new TelegramConfigurationProperties();
+        metricRegistry = new MetricRegistry();
+        metricsService = new MetricsService(metricRegistry);
+    }
+
+    @Test
+    void telegramOkHttpClient_ApplyProperties() {
+        properties.setOutboundMaxRequests(8);
+        properties.setOutboundMaxRequestsPerHost(4);
+
+        OkHttpClient client = configuration.telegramOkHttpClient(properties, metricsService);
+
+        assertEquals(8, client.dispatcher().getMaxRequests());
+        assertEquals(4, client.dispatcher().getMaxRequestsPerHost());
+        assertEquals(0, client.connectionPool().connectionCount());
+    }
+
+    @Test
+    void telegramOkHttpClient_RegisterGauges() {
+        configuration.telegramOkHttpClient(properties, metricsService);
+
+        assertEquals(0, metricRegistry.getGauges().get(MetricsService.OUTBOUND_HTTP_RUNNING).getValue());
+        assertEquals(0, metricRegistry.getGauges().get(MetricsService.OUTBOUND_HTTP_QUEUED).getValue());
+        assertEquals(0, metricRegistry.getGauges().get(MetricsService.OUTBOUND_HTTP_CONNECTIONS).getValue());
+        assertEquals(0, metricRegistry.getGauges().get(MetricsService.OUTBOUND_HTTP_IDLE_CONNECTIONS).getValue());
+    }
+}
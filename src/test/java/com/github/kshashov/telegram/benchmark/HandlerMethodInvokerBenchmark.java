@@ -0,0 +1,79 @@
+package com.github.kshashov.telegram.benchmark;
+
+import com.github.kshashov.telegram.handler.processor.HandlerMethodInvoker;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reflective {@link Method#invoke} calls with {@link HandlerMethodInvoker} for handlers with 0, 3 and 6
+ * arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HandlerMethodInvokerBenchmark {
+    private final Object[] noArgs = new Object[0];
+    private final Object[] threeArgs = new Object[]{"text", 1L, 2};
+    private final Object[] sixArgs = new Object[]{"text", 1L, 2, "text", 3L, 4};
+
+    @Param({"0", "3", "6"})
+    private int arguments;
+
+    private Object[] args;
+    private Method method;
+    private HandlerMethodInvoker invoker;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        switch (arguments) {
+            case 0:
+                args = noArgs;
+                method = getClass().getDeclaredMethod("handler0");
+                break;
+            case 3:
+                args = threeArgs;
+                method = getClass().getDeclaredMethod("handler3", String.class, Long.class, Integer.class);
+                break;
+            default:
+                args = sixArgs;
+                method = getClass().getDeclaredMethod("handler6", String.class, Long.class, Integer.class, String.class, Long.class, Integer.class);
+        }
+        invoker = HandlerMethodInvoker.of(method);
+    }
+
+    @Benchmark
+    public Object reflection() throws Exception {
+        return method.invoke(this, args);
+    }
+
+    @Benchmark
+    public Object methodHandle() throws Throwable {
+        return invoker.invoke(this, args);
+    }
+
+    String handler0() {
+        return "result";
+    }
+
+    String handler3(String text, Long chatId, Integer page) {
+        return text;
+    }
+
+    String handler6(String text, Long chatId, Integer page, String text2, Long userId, Integer offset) {
+        return text2;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HandlerMethodInvokerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
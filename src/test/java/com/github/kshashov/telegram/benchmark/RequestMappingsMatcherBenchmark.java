@@ -0,0 +1,61 @@
+package com.github.kshashov.telegram.benchmark;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.handler.DefaultRequestMappingsMatcherStrategy;
+import com.github.kshashov.telegram.handler.RequestMappingInfo;
+import com.github.kshashov.telegram.handler.RequestMappingMatch;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
+import com.google.common.collect.Sets;
+import com.pengrad.telegrambot.BotUtils;
+import com.pengrad.telegrambot.TelegramBot;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the separate {@code isMatched} and {@code extractPatternVariables} calls with the single-pass {@code match}
+ * call of {@link DefaultRequestMappingsMatcherStrategy}. Run {@link #main} to see the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestMappingsMatcherBenchmark {
+    private final DefaultRequestMappingsMatcherStrategy strategy = new DefaultRequestMappingsMatcherStrategy();
+    private final RequestMappingInfo mapping = new RequestMappingInfo("token", "/user/{id:[0-9]+}/{action}", 1, Sets.newHashSet(MessageType.MESSAGE));
+    private TelegramEvent event;
+
+    @Setup
+    public void setup() {
+        String json = "{\"update_id\":1,\"message\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":1,\"type\":\"private\"},\"text\":\"/user/42/edit\"}}";
+        event = new TelegramEvent("token", BotUtils.parseUpdate(json), new TelegramBot("token"));
+    }
+
+    @Benchmark
+    public Map<String, String> matchAndExtractSeparately() {
+        if (!strategy.isMatched(event, mapping)) {
+            return null;
+        }
+        return strategy.extractPatternVariables(event.getText(), mapping);
+    }
+
+    @Benchmark
+    public Map<String, String> matchInSinglePass() {
+        RequestMappingMatch match = strategy.match(event, mapping);
+        return match.isMatched() ? match.getTemplateVariables() : null;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RequestMappingsMatcherBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+package com.github.kshashov.telegram.benchmark;
+
+import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
+import com.pengrad.telegrambot.BotUtils;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.model.Update;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of creating the {@link TelegramEvent} for the incoming update and reading the fields that are
+ * required for routing. Each operation handles a single update, so run {@link #main} and check
+ * {@code gc.alloc.rate.norm} to see the allocated bytes per update.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TelegramEventAllocationBenchmark {
+    private static final String MESSAGE = "{\"update_id\":1,\"message\":{\"message_id\":1,\"date\":0,"
+            + "\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"chat\":{\"id\":2,\"type\":\"private\"},\"text\":\"/start\"}}";
+    private static final String CALLBACK_QUERY = "{\"update_id\":2,\"callback_query\":{\"id\":\"q\","
+            + "\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},"
+            + "\"message\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":2,\"type\":\"private\"}},\"chat_instance\":\"c\",\"data\":\"/option/1\"}}";
+
+    @Param({"message", "callback_query"})
+    private String type;
+
+    private final TelegramBot bot = new TelegramBot("token");
+    private Update update;
+
+    @Setup
+    public void setup() {
+        update = BotUtils.parseUpdate("message".equals(type) ? MESSAGE : CALLBACK_QUERY);
+    }
+
+    /**
+     * Separate event for routing and request for the handler method, as it is done for custom events.
+     */
+    @Benchmark
+    public void eventAndRequest(Blackhole blackhole) {
+        TelegramEvent event = new TelegramEvent("token", update, bot);
+        route(event, blackhole);
+        blackhole.consume(new TelegramRequest(event));
+    }
+
+    /**
+     * Single request instance for routing and for the handler method, as it is done by the updates handler.
+     */
+    @Benchmark
+    public void singleRequest(Blackhole blackhole) {
+        TelegramRequest request = new TelegramRequest("token", update, bot);
+        route(request, blackhole);
+        blackhole.consume(request);
+    }
+
+    private static void route(TelegramEvent event, Blackhole blackhole) {
+        blackhole.consume(event.getMessageType());
+        blackhole.consume(event.getText());
+        blackhole.consume(event.getChat());
+        blackhole.consume(event.getUser());
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(TelegramEventAllocationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
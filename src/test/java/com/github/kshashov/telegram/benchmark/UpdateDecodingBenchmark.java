@@ -0,0 +1,85 @@
+package com.github.kshashov.telegram.benchmark;
+
+import com.github.kshashov.telegram.handler.UpdateDecoder;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
+import com.pengrad.telegrambot.BotUtils;
+import com.pengrad.telegrambot.TelegramBot;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding of the webhook body into the whole {@link com.pengrad.telegrambot.model.Update} with the streaming
+ * {@link UpdateDecoder} that decodes only the routing fields. Run {@link #main} to see the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateDecodingBenchmark {
+    private static final String MESSAGE = "{\"update_id\":100,\"message\":{\"message_id\":42,\"date\":1700000000,"
+            + "\"from\":{\"id\":123,\"is_bot\":false,\"first_name\":\"John\",\"last_name\":\"Doe\",\"username\":\"john\",\"language_code\":\"en\"},"
+            + "\"chat\":{\"id\":123,\"type\":\"private\",\"first_name\":\"John\",\"last_name\":\"Doe\",\"username\":\"john\"},"
+            + "\"caption\":\"/photo look at https://example.com #tag @john\","
+            + "\"caption_entities\":[{\"type\":\"bot_command\",\"offset\":0,\"length\":6},{\"type\":\"url\",\"offset\":15,\"length\":19},"
+            + "{\"type\":\"hashtag\",\"offset\":35,\"length\":4},{\"type\":\"mention\",\"offset\":40,\"length\":5}],"
+            + "\"photo\":[{\"file_id\":\"AgACAgIAAxkBAAIBZ2VfAAE\",\"file_unique_id\":\"AQADq\",\"file_size\":1234,\"width\":90,\"height\":67},"
+            + "{\"file_id\":\"AgACAgIAAxkBAAIBZ2VfAAF\",\"file_unique_id\":\"AQADr\",\"file_size\":23456,\"width\":320,\"height\":240},"
+            + "{\"file_id\":\"AgACAgIAAxkBAAIBZ2VfAAG\",\"file_unique_id\":\"AQADs\",\"file_size\":98765,\"width\":1280,\"height\":960}],"
+            + "\"reply_to_message\":{\"message_id\":41,\"date\":1699999999,\"chat\":{\"id\":123,\"type\":\"private\"},\"text\":\"previous\"},"
+            + "\"text\":\"/start deep-link\",\"entities\":[{\"type\":\"bot_command\",\"offset\":0,\"length\":6}]}}";
+    private static final String CALLBACK_QUERY = "{\"update_id\":101,\"callback_query\":{\"id\":\"4382bfdwdsb323b2d9\","
+            + "\"from\":{\"id\":123,\"is_bot\":false,\"first_name\":\"John\",\"username\":\"john\",\"language_code\":\"en\"},"
+            + "\"message\":{\"message_id\":42,\"date\":1700000000,\"from\":{\"id\":999,\"is_bot\":true,\"first_name\":\"Bot\"},"
+            + "\"chat\":{\"id\":123,\"type\":\"private\",\"first_name\":\"John\"},\"text\":\"Choose an option\","
+            + "\"reply_markup\":{\"inline_keyboard\":[[{\"text\":\"One\",\"callback_data\":\"/option/1\"},{\"text\":\"Two\",\"callback_data\":\"/option/2\"}]]}},"
+            + "\"chat_instance\":\"-8812345678901234567\",\"data\":\"/option/1\"}}";
+    private static final String INLINE_QUERY = "{\"update_id\":102,\"inline_query\":{\"id\":\"1234567890\","
+            + "\"from\":{\"id\":123,\"is_bot\":false,\"first_name\":\"John\",\"username\":\"john\",\"language_code\":\"en\"},"
+            + "\"chat_type\":\"sender\",\"query\":\"funny cats\",\"offset\":\"\"}}";
+
+    @Param({"message", "callback_query", "inline_query"})
+    private String type;
+
+    private final TelegramBot bot = new TelegramBot("token");
+    private byte[] body;
+
+    @Setup
+    public void setup() {
+        switch (type) {
+            case "message":
+                body = MESSAGE.getBytes(StandardCharsets.UTF_8);
+                break;
+            case "callback_query":
+                body = CALLBACK_QUERY.getBytes(StandardCharsets.UTF_8);
+                break;
+            default:
+                body = INLINE_QUERY.getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public TelegramEvent parseWholeUpdate() {
+        return new TelegramEvent("token", BotUtils.parseUpdate(new String(body, StandardCharsets.UTF_8)), bot);
+    }
+
+    @Benchmark
+    public TelegramEvent decodeRoutingFields() throws IOException {
+        return new TelegramEvent("token", UpdateDecoder.decode(body), bot);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UpdateDecodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.kshashov.telegram.benchmark;
+
+import com.github.kshashov.telegram.handler.MappedFileUpdateOffsetStore;
+import com.github.kshashov.telegram.handler.OffsetFsyncPolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead that {@link MappedFileUpdateOffsetStore} adds to each polled batch: every update is tracked
+ * before the dispatch, completed in the reverse order to keep the processed updates above the offset, and the batch is
+ * flushed according to the fsync policy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateOffsetJournalBenchmark {
+
+    @Param({"ALWAYS", "BATCH", "NEVER"})
+    private OffsetFsyncPolicy fsyncPolicy;
+
+    @Param({"100"})
+    private int batchSize;
+
+    private Path dir;
+    private MappedFileUpdateOffsetStore store;
+    private int nextUpdateId;
+
+    @Setup
+    public void setup() throws IOException {
+        dir = Files.createTempDirectory("offsets");
+        store = new MappedFileUpdateOffsetStore(dir.resolve("bot.offsets"), fsyncPolicy);
+        store.open();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        store.close();
+        Files.deleteIfExists(dir.resolve("bot.offsets"));
+        Files.deleteIfExists(dir);
+    }
+
+    @Benchmark
+    public int trackBatch() {
+        int first = nextUpdateId;
+        nextUpdateId += batchSize;
+        for (int id = first; id < nextUpdateId; id++) {
+            store.begin(id);
+        }
+        for (int id = nextUpdateId - 1; id >= first; id--) {
+            store.complete(id);
+        }
+        store.flush();
+        return store.getOffset();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UpdateOffsetJournalBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.kshashov.telegram.benchmark;
+
+import com.github.kshashov.telegram.handler.VirtualThreads;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.*;
+
+/**
+ * Compares the throughput of the platform thread pool with the default limits and virtual threads when the handlers
+ * are blocked on I/O. Each operation dispatches a batch of updates and waits until all of them are processed. The
+ * virtual threads mode requires JDK 21+ runtime.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VirtualThreadDispatchBenchmark {
+    private static final int BATCH_SIZE = 500;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"10"})
+    private long handlerBlockingMillis;
+
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        if ("virtual".equals(mode)) {
+            executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        } else {
+            // Same limits as the default task executor, but queued to not reject the batch
+            executor = new ThreadPoolExecutor(15, 50, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(BATCH_SIZE));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void dispatchBlockingHandlers() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            executor.execute(() -> {
+                try {
+                    // Simulates database or synchronous Telegram API call
+                    Thread.sleep(handlerBlockingMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                latch.countDown();
+            });
+        }
+        latch.await();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VirtualThreadDispatchBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,143 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
+import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.GetUpdates;
+import com.pengrad.telegrambot.response.GetUpdatesResponse;
+import com.pengrad.telegrambot.response.ResponseParameters;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class AdaptivePollerTest {
+    private TelegramBot bot;
+    private TelegramUpdatesHandler updatesHandler;
+    private MetricsService metricsService;
+    private AdaptivePoller poller;
+
+    @BeforeEach
+    void init() {
+        bot = mock(TelegramBot.class);
+        updatesHandler = mock(TelegramUpdatesHandler.class);
+        metricsService = mock(MetricsService.class);
+        poller = new AdaptivePoller("1:token", bot, updatesHandler, GetUpdates::new, 2, new PollingBackoff(300, 10000, false), metricsService, mock(ScheduledExecutorService.class));
+    }
+
+    @Test
+    void handleResponse_FullBatch_PollImmediately() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+
+        assertEquals(0, poller.handleResponse(response(update(10), update(11)), 5));
+        assertEquals(12, poller.getOffset());
+        verify(metricsService).onPollCompleted("1:token", 5, 2);
+    }
+
+    @Test
+    void handleResponse_PartiallyConfirmed_AdvanceOffsetToConfirmed() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(10);
+
+        assertEquals(300, poller.handleResponse(response(update(10), update(11)), 5));
+        assertEquals(11, poller.getOffset());
+    }
+
+    @Test
+    void handleResponse_NoneConfirmed_KeepOffset() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_NONE);
+
+        poller.handleResponse(response(update(10)), 5);
+        assertEquals(0, poller.getOffset());
+    }
+
+    @Test
+    void handleResponse_Empty_BackOff() {
+        assertEquals(300, poller.handleResponse(response(), 5));
+        assertEquals(600, poller.handleResponse(response(), 5));
+        verify(updatesHandler, never()).processUpdatesAndConfirm(any(), any(), any());
+    }
+
+    @Test
+    void handleResponse_SaturatedExecutor_SlowDown() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+        when(updatesHandler.getSaturation()).thenReturn(1.0);
+
+        assertEquals(10000, poller.handleResponse(response(update(10), update(11)), 5));
+    }
+
+    @Test
+    void handleResponse_TooManyRequests_RetryAfter() {
+        GetUpdatesResponse response = mock(GetUpdatesResponse.class);
+        ResponseParameters parameters = mock(ResponseParameters.class);
+        when(response.isOk()).thenReturn(false);
+        when(response.errorCode()).thenReturn(429);
+        when(response.parameters()).thenReturn(parameters);
+        when(parameters.retryAfter()).thenReturn(7);
+
+        assertEquals(7000, poller.handleResponse(response, 5));
+        verify(metricsService).onPollFailed("1:token");
+    }
+
+    @Test
+    void handleResponse_Error_BackOff() {
+        GetUpdatesResponse response = mock(GetUpdatesResponse.class);
+        when(response.isOk()).thenReturn(false);
+        when(response.errorCode()).thenReturn(502);
+
+        assertEquals(300, poller.handleResponse(response, 5));
+        assertEquals(600, poller.handleResponse(response, 5));
+    }
+
+    @Test
+    void poll_SendRequestWithOffset() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+        poller.handleResponse(response(update(10)), 5);
+        poller.start();
+        poller.poll();
+
+        verify(bot).execute(argThat((GetUpdates request) -> Integer.valueOf(11).equals(request.getParameters().get("offset"))), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void poll_StoppedBeforeResponse_IgnoreUpdates() {
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        poller = new AdaptivePoller("1:token", bot, updatesHandler, GetUpdates::new, 2, new PollingBackoff(300, 10000, false), metricsService, scheduler);
+        poller.start();
+        poller.poll();
+        ArgumentCaptor<Callback<GetUpdates, GetUpdatesResponse>> callback = ArgumentCaptor.forClass(Callback.class);
+        verify(bot).execute(any(GetUpdates.class), callback.capture());
+        clearInvocations(scheduler);
+
+        poller.stop();
+        callback.getValue().onResponse(new GetUpdates(), response(update(10)));
+
+        verifyNoInteractions(updatesHandler);
+        verifyNoInteractions(scheduler);
+        assertEquals(0, poller.getOffset());
+    }
+
+    private GetUpdatesResponse response(Update... updates) {
+        List<Update> list = (updates.length == 0) ? Collections.emptyList() : Arrays.asList(updates);
+        GetUpdatesResponse response = mock(GetUpdatesResponse.class);
+        when(response.isOk()).thenReturn(true);
+        when(response.updates()).thenReturn(list);
+        return response;
+    }
+
+    private Update update(int id) {
+        Update update = mock(Update.class);
+        when(update.updateId()).thenReturn(id);
+        return update;
+    }
+}
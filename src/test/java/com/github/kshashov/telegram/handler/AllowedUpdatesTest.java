@@ -0,0 +1,29 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AllowedUpdatesTest {
+
+    @Test
+    void of() {
+        String[] result = AllowedUpdates.of(EnumSet.of(MessageType.MESSAGE, MessageType.PRECHECKOUT_QUERY));
+
+        assertArrayEquals(new String[]{"message", "pre_checkout_query"}, result);
+    }
+
+    @Test
+    void of_AnyMessageType_ReturnNull() {
+        assertNull(AllowedUpdates.of(EnumSet.of(MessageType.ANY, MessageType.MESSAGE)));
+    }
+
+    @Test
+    void of_UnsupportedMessageType_ReturnNull() {
+        assertNull(AllowedUpdates.of(EnumSet.of(MessageType.MESSAGE, MessageType.UNSUPPORTED)));
+        assertNull(AllowedUpdates.of(EnumSet.noneOf(MessageType.class)));
+    }
+}
@@ -5,6 +5,7 @@ import com.github.kshashov.telegram.handler.processor.TelegramEvent;
 import com.google.common.collect.Sets;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
+import org.springframework.util.AntPathMatcher;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -99,6 +100,43 @@ public class DefaultRequestMappingsMatcherStrategyTest {
         assertEquals(0, result.size());
     }
 
+    @Test
+    void match() {
+        RequestMappingInfo mapping = new RequestMappingInfo("token", "test {var:[0-9]} {var2:[ab]}", 1, Sets.newHashSet(MessageType.MESSAGE));
+        RequestMappingMatch result = strategy.match(request("test 1 b", MessageType.MESSAGE), mapping);
+
+        assertTrue(result.isMatched());
+        assertEquals(2, result.getTemplateVariables().size());
+        assertEquals("1", result.getTemplateVariables().get("var"));
+        assertEquals("b", result.getTemplateVariables().get("var2"));
+    }
+
+    @Test
+    void match_NotMatched_ReturnNoMatch() {
+        RequestMappingInfo mapping = new RequestMappingInfo("token", "test {var:[0-9]}", 1, Sets.newHashSet(MessageType.MESSAGE));
+
+        assertSame(RequestMappingMatch.NO_MATCH, strategy.match(request("ads 1", MessageType.MESSAGE), mapping));
+        assertSame(RequestMappingMatch.NO_MATCH, strategy.match(request("test 1", MessageType.CALLBACK_QUERY), mapping));
+    }
+
+    @Test
+    void match_PatternWithoutVariables_ReturnEmpty() {
+        RequestMappingInfo mapping = new RequestMappingInfo("token", "/**", 1, Sets.newHashSet(MessageType.ANY));
+
+        assertSame(RequestMappingMatch.EMPTY, strategy.match(request("/test", MessageType.MESSAGE), mapping));
+    }
+
+    @Test
+    void match_CustomPathMatcher_SameAsIsMatched() {
+        DefaultRequestMappingsMatcherStrategy customStrategy = new DefaultRequestMappingsMatcherStrategy(new AntPathMatcher());
+        RequestMappingInfo mapping = new RequestMappingInfo("token", "test {var:[0-9]}", 1, Sets.newHashSet(MessageType.MESSAGE));
+        RequestMappingMatch result = customStrategy.match(request("test 1", MessageType.MESSAGE), mapping);
+
+        assertTrue(result.isMatched());
+        assertEquals("1", result.getTemplateVariables().get("var"));
+        assertFalse(customStrategy.match(request("test a", MessageType.MESSAGE), mapping).isMatched());
+    }
+
     @Test
     void postProcess_NullPatterns_ReplaceWithWildCard() {
         // null -> **
@@ -0,0 +1,275 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.config.TelegramBotGlobalProperties;
+import com.github.kshashov.telegram.handler.processor.RequestDispatcher;
+import com.github.kshashov.telegram.handler.processor.TelegramCallback;
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.BotUtils;
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
+import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.SendMessage;
+import com.pengrad.telegrambot.response.BaseResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class DefaultTelegramUpdatesHandlerTest {
+    private RequestDispatcher requestDispatcher;
+    private MetricsService metricsService;
+    private ThreadPoolExecutor taskExecutor;
+    private TelegramBot bot;
+    private List<Update> updates;
+
+    @BeforeEach
+    void init() {
+        requestDispatcher = mock(RequestDispatcher.class);
+        metricsService = mock(MetricsService.class);
+        taskExecutor = mock(ThreadPoolExecutor.class);
+        bot = mock(TelegramBot.class);
+        updates = Arrays.asList(update(10), update(11), update(12));
+    }
+
+    @Test
+    void processUpdatesAndConfirm_AllAccepted_ConfirmAll() {
+        DefaultTelegramUpdatesHandler handler = handler(UpdatesOverflowPolicy.STOP_CONFIRMING);
+
+        assertEquals(UpdatesListener.CONFIRMED_UPDATES_ALL, handler.processUpdatesAndConfirm("token", bot, updates));
+        verify(taskExecutor, times(3)).execute(any());
+    }
+
+    @Test
+    void processUpdatesAndConfirm_StopConfirming_ConfirmAccepted() {
+        doNothing().doThrow(RejectedExecutionException.class).when(taskExecutor).execute(any());
+        DefaultTelegramUpdatesHandler handler = handler(UpdatesOverflowPolicy.STOP_CONFIRMING);
+
+        assertEquals(10, handler.processUpdatesAndConfirm("token", bot, updates));
+        verify(taskExecutor, times(2)).execute(any());
+        verify(metricsService).onUpdatesRejected(2);
+    }
+
+    @Test
+    void processUpdatesAndConfirm_StopConfirmingFirstUpdate_ConfirmNone() {
+        doThrow(RejectedExecutionException.class).when(taskExecutor).execute(any());
+        DefaultTelegramUpdatesHandler handler = handler(UpdatesOverflowPolicy.STOP_CONFIRMING);
+
+        assertEquals(UpdatesListener.CONFIRMED_UPDATES_NONE, handler.processUpdatesAndConfirm("token", bot, updates));
+    }
+
+    @Test
+    void processUpdatesAndConfirm_Drop_ContinueWithNextUpdates() {
+        doNothing().doThrow(RejectedExecutionException.class).doNothing().when(taskExecutor).execute(any());
+        DefaultTelegramUpdatesHandler handler = handler(UpdatesOverflowPolicy.DROP);
+
+        assertEquals(UpdatesListener.CONFIRMED_UPDATES_ALL, handler.processUpdatesAndConfirm("token", bot, updates));
+        verify(taskExecutor, times(3)).execute(any());
+        verify(metricsService).onUpdatesRejected(1);
+    }
+
+    @Test
+    void processUpdatesAndConfirm_ProcessedCallback_NotifyProcessedAndDropped() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).doThrow(RejectedExecutionException.class).doNothing().when(taskExecutor).execute(any());
+        DefaultTelegramUpdatesHandler handler = handler(UpdatesOverflowPolicy.DROP);
+        List<Integer> processed = new ArrayList<>();
+
+        assertEquals(UpdatesListener.CONFIRMED_UPDATES_ALL, handler.processUpdatesAndConfirm("token", bot, updates, u -> processed.add(u.updateId())));
+        assertEquals(Arrays.asList(10, 11), processed);
+    }
+
+    @Test
+    void init_ShedOldestWithoutQueue_Reject() {
+        TelegramBotGlobalProperties globalProperties = TelegramBotGlobalProperties.builder()
+                .taskExecutor(new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new SynchronousQueue<>()))
+                .updatesOverflowPolicy(UpdatesOverflowPolicy.SHED_OLDEST)
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> new DefaultTelegramUpdatesHandler(requestDispatcher, globalProperties, metricsService));
+    }
+
+    @Test
+    void processUpdatesAndConfirm_DedupWindow_DropDuplicates() {
+        TelegramBotGlobalProperties globalProperties = TelegramBotGlobalProperties.builder()
+                .taskExecutor(taskExecutor)
+                .dedupWindow(64)
+                .build();
+        DefaultTelegramUpdatesHandler handler = new DefaultTelegramUpdatesHandler(requestDispatcher, globalProperties, metricsService);
+
+        handler.processUpdatesAndConfirm("token", bot, updates);
+        handler.processUpdatesAndConfirm("token", bot, Arrays.asList(update(11), update(13)));
+        handler.processUpdatesAndConfirm("token2", bot, Arrays.asList(update(11)));
+
+        verify(taskExecutor, times(5)).execute(any());
+        verify(metricsService).onUpdateDuplicate();
+    }
+
+    @Test
+    void processUpdatesAndConfirm_DedupWindowStopConfirming_AcceptRedelivered() {
+        doThrow(RejectedExecutionException.class).doNothing().when(taskExecutor).execute(any());
+        TelegramBotGlobalProperties globalProperties = TelegramBotGlobalProperties.builder()
+                .taskExecutor(taskExecutor)
+                .updatesOverflowPolicy(UpdatesOverflowPolicy.STOP_CONFIRMING)
+                .dedupWindow(64)
+                .build();
+        DefaultTelegramUpdatesHandler handler = new DefaultTelegramUpdatesHandler(requestDispatcher, globalProperties, metricsService);
+
+        assertEquals(UpdatesListener.CONFIRMED_UPDATES_NONE, handler.processUpdatesAndConfirm("token", bot, updates));
+        assertEquals(UpdatesListener.CONFIRMED_UPDATES_ALL, handler.processUpdatesAndConfirm("token", bot, updates));
+        verify(metricsService, never()).onUpdateDuplicate();
+    }
+
+    @Test
+    void processUpdates_VirtualThreads_UseTaskExecutorIfNotSupported() {
+        TelegramBotGlobalProperties globalProperties = TelegramBotGlobalProperties.builder()
+                .taskExecutor(taskExecutor)
+                .virtualThreads(true)
+                .build();
+        DefaultTelegramUpdatesHandler handler = new DefaultTelegramUpdatesHandler(requestDispatcher, globalProperties, metricsService);
+
+        handler.processUpdates("token", bot, updates);
+        handler.shutdown();
+
+        verify(taskExecutor, times(VirtualThreads.isSupported() ? 0 : 3)).execute(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void processUpdates_MultipleRequests_SendInOrder() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(taskExecutor).execute(any());
+        List<BaseRequest> sent = new ArrayList<>();
+        List<Callback> sentCallbacks = new ArrayList<>();
+        doAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            sentCallbacks.add(invocation.getArgument(1));
+            return null;
+        }).when(bot).execute(any(BaseRequest.class), any(Callback.class));
+        SendMessage first = new SendMessage(1L, "first");
+        SendMessage second = new SendMessage(1L, "second");
+        SendMessage third = new SendMessage(1L, "third");
+        Callback callback = mock(Callback.class);
+        TelegramCallback result = new TelegramCallback(first, null, new TelegramCallback(second, callback, new TelegramCallback(third, null)));
+        when(requestDispatcher.executeAsync(any())).thenReturn(CompletableFuture.completedFuture(result));
+        TelegramBotGlobalProperties globalProperties = TelegramBotGlobalProperties.builder()
+                .taskExecutor(taskExecutor)
+                .responseCallback(mock(Callback.class))
+                .build();
+        DefaultTelegramUpdatesHandler handler = new DefaultTelegramUpdatesHandler(requestDispatcher, globalProperties, metricsService);
+
+        handler.processUpdates("token", bot, Arrays.asList(update(10)));
+        assertEquals(Arrays.asList(first), sent);
+
+        BaseResponse response = mock(BaseResponse.class);
+        when(response.isOk()).thenReturn(true);
+        sentCallbacks.get(0).onResponse(first, response);
+        assertEquals(Arrays.asList(first, second), sent);
+
+        // Failed request does not stop the following ones
+        IOException error = new IOException();
+        sentCallbacks.get(1).onFailure(second, error);
+        verify(callback).onFailure(second, error);
+        assertEquals(3, sent.size());
+        assertSame(third, sent.get(2));
+    }
+
+    @Test
+    void processUpdatesAndConfirm_AsyncResult_SendWhenCompleted() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(taskExecutor).execute(any());
+        CompletableFuture<TelegramCallback> result = new CompletableFuture<>();
+        when(requestDispatcher.executeAsync(any())).thenReturn(result);
+        TelegramBotGlobalProperties globalProperties = TelegramBotGlobalProperties.builder()
+                .taskExecutor(taskExecutor)
+                .responseCallback(mock(Callback.class))
+                .build();
+        DefaultTelegramUpdatesHandler handler = new DefaultTelegramUpdatesHandler(requestDispatcher, globalProperties, metricsService);
+        List<Integer> processed = new ArrayList<>();
+
+        handler.processUpdatesAndConfirm("token", bot, Arrays.asList(update(10)), u -> processed.add(u.updateId()));
+        assertEquals(0, processed.size());
+        verify(bot, never()).execute(any(BaseRequest.class), any(Callback.class));
+
+        SendMessage request = new SendMessage(1L, "text");
+        result.complete(new TelegramCallback(request, null));
+        verify(bot).execute(eq(request), any(Callback.class));
+        assertEquals(Arrays.asList(10), processed);
+    }
+
+    @Test
+    void processUpdatesAndConfirm_AsyncError_NotifyProcessed() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(taskExecutor).execute(any());
+        CompletableFuture<TelegramCallback> result = new CompletableFuture<>();
+        when(requestDispatcher.executeAsync(any())).thenReturn(result);
+        DefaultTelegramUpdatesHandler handler = handler(UpdatesOverflowPolicy.DROP);
+        List<Integer> processed = new ArrayList<>();
+
+        handler.processUpdatesAndConfirm("token", bot, Arrays.asList(update(10)), u -> processed.add(u.updateId()));
+        result.completeExceptionally(new IllegalStateException());
+
+        verify(metricsService).onUpdateError();
+        assertEquals(Arrays.asList(10), processed);
+    }
+
+    @Test
+    void processUpdatesAndConfirm_ChatLanesAsyncResult_NextUpdateWaits() {
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(taskExecutor).execute(any());
+        CompletableFuture<TelegramCallback> first = new CompletableFuture<>();
+        when(requestDispatcher.executeAsync(any())).thenReturn(first, CompletableFuture.completedFuture(null));
+        TelegramBotGlobalProperties globalProperties = TelegramBotGlobalProperties.builder()
+                .taskExecutor(taskExecutor)
+                .chatLanes(4)
+                .build();
+        DefaultTelegramUpdatesHandler handler = new DefaultTelegramUpdatesHandler(requestDispatcher, globalProperties, metricsService);
+        List<Integer> processed = new ArrayList<>();
+
+        handler.processUpdatesAndConfirm("token", bot, Arrays.asList(update(10), update(11)), u -> processed.add(u.updateId()));
+        verify(requestDispatcher, times(1)).executeAsync(any());
+        assertEquals(0, processed.size());
+
+        first.complete(null);
+        verify(requestDispatcher, times(2)).executeAsync(any());
+        assertEquals(Arrays.asList(10, 11), processed);
+    }
+
+    private DefaultTelegramUpdatesHandler handler(UpdatesOverflowPolicy policy) {
+        TelegramBotGlobalProperties globalProperties = TelegramBotGlobalProperties.builder()
+                .taskExecutor(taskExecutor)
+                .updatesOverflowPolicy(policy)
+                .build();
+        return new DefaultTelegramUpdatesHandler(requestDispatcher, globalProperties, metricsService);
+    }
+
+    private Update update(int id) {
+        return BotUtils.parseUpdate("{\"update_id\":" + id + ",\"message\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":1,\"type\":\"private\"},\"text\":\"/start\"}}");
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.kshashov.telegram.handler;
+
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.model.request.InlineKeyboardButton;
+import com.pengrad.telegrambot.model.request.InlineKeyboardMarkup;
+import com.pengrad.telegrambot.model.request.ParseMode;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.SendMessage;
+import com.pengrad.telegrambot.response.BaseResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class FileDeadLetterSinkTest {
+    private static final String TOKEN = "123:token";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void accept_Load_RestoreParameters() throws IOException {
+        FileDeadLetterSink sink = new FileDeadLetterSink(dir);
+        SendMessage request = new SendMessage(1L, "text")
+                .parseMode(ParseMode.HTML)
+                .replyMarkup(new InlineKeyboardMarkup(new InlineKeyboardButton("button").callbackData("data")));
+
+        sink.accept(TOKEN, request, null, new IOException("timeout"));
+        List<BaseRequest> requests = sink.load(TOKEN);
+
+        assertTrue(Files.exists(dir.resolve("123.deadletters")));
+        assertEquals(1, requests.size());
+        BaseRequest restored = requests.get(0);
+        assertEquals("sendMessage", restored.getMethod());
+        assertEquals("1", restored.getParameters().get("chat_id"));
+        assertEquals("text", restored.getParameters().get("text"));
+        assertEquals("HTML", restored.getParameters().get("parse_mode"));
+        assertEquals(UpdateDecoder.GSON.toJson(request.getParameters().get("reply_markup")), restored.getParameters().get("reply_markup"));
+        assertTrue(sink.load("456:token").isEmpty());
+    }
+
+    @Test
+    void load_SkipMalformedEntries() throws IOException {
+        FileDeadLetterSink sink = new FileDeadLetterSink(dir);
+        sink.accept(TOKEN, new SendMessage(1L, "text"), null, null);
+        Files.write(dir.resolve("123.deadletters"), Collections.singletonList("{\"method\":"), StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(1, sink.load(TOKEN).size());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_KeepFailedRequests() throws IOException {
+        FileDeadLetterSink sink = new FileDeadLetterSink(dir);
+        sink.accept(TOKEN, new SendMessage(1L, "first"), null, null);
+        sink.accept(TOKEN, new SendMessage(2L, "second"), null, null);
+        BaseResponse ok = mock(BaseResponse.class);
+        when(ok.isOk()).thenReturn(true);
+        BaseResponse failed = mock(BaseResponse.class);
+        when(failed.errorCode()).thenReturn(502);
+        TelegramBot bot = mock(TelegramBot.class);
+        when(bot.execute(any(BaseRequest.class))).thenReturn(ok, failed);
+
+        assertEquals(1, sink.replay(TOKEN, bot));
+
+        List<BaseRequest> requests = sink.load(TOKEN);
+        assertEquals(1, requests.size());
+        assertEquals("second", requests.get(0).getParameters().get("text"));
+        assertFalse(Files.exists(dir.resolve("123.deadletters.replay")));
+        assertEquals(0, new FileDeadLetterSink(dir).replay("456:token", bot));
+    }
+}
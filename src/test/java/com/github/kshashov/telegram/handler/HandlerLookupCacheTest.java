@@ -0,0 +1,101 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.handler.processor.HandlerMethod;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
+import com.github.kshashov.telegram.metrics.MetricsService;
+import org.assertj.core.util.Maps;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class HandlerLookupCacheTest {
+    private MetricsService metricsService;
+    private HandlerLookupCache cache;
+    private HandlerMethod handlerMethod;
+
+    @BeforeEach
+    void init() {
+        metricsService = mock(MetricsService.class);
+        cache = new HandlerLookupCache(2, 3, 10, metricsService);
+        handlerMethod = mock(HandlerMethod.class);
+    }
+
+    @Test
+    void get() {
+        HandlerMethodContainer.HandlerLookupResult result = new HandlerMethodContainer.HandlerLookupResult(handlerMethod, "/start", null);
+        assertNull(cache.get(request("/start", MessageType.MESSAGE)));
+        verify(metricsService).onLookupCacheMiss();
+
+        cache.put(request("/start", MessageType.MESSAGE), result);
+        assertSame(result, cache.get(request("/start", MessageType.MESSAGE)));
+        verify(metricsService).onLookupCacheHit();
+
+        assertNull(cache.get(request("/start", MessageType.CALLBACK_QUERY)));
+        assertNull(cache.get(request("/menu", MessageType.MESSAGE)));
+    }
+
+    @Test
+    void put_LongVariables_NotCached() {
+        HandlerMethodContainer.HandlerLookupResult result = new HandlerMethodContainer.HandlerLookupResult(handlerMethod, "page:{page}", Maps.newHashMap("page", "1234"));
+
+        assertSame(result, cache.put(request("page:1234", MessageType.CALLBACK_QUERY), result));
+        assertNull(cache.get(request("page:1234", MessageType.CALLBACK_QUERY)));
+    }
+
+    @Test
+    void put_ShortVariables_Cached() {
+        HandlerMethodContainer.HandlerLookupResult result = new HandlerMethodContainer.HandlerLookupResult(handlerMethod, "page:{page}", Maps.newHashMap("page", "123"));
+        cache.put(request("page:123", MessageType.CALLBACK_QUERY), result);
+
+        HandlerMethodContainer.HandlerLookupResult cached = cache.get(request("page:123", MessageType.CALLBACK_QUERY));
+        assertNotNull(cached);
+        assertEquals("123", cached.getTemplateVariables().get("page"));
+        assertThrows(UnsupportedOperationException.class, () -> cached.getTemplateVariables().put("page", "1"));
+    }
+
+    @Test
+    void put_NoHandler_NotCached() {
+        HandlerMethodContainer.HandlerLookupResult result = new HandlerMethodContainer.HandlerLookupResult();
+
+        assertSame(result, cache.put(request("hello", MessageType.MESSAGE), result));
+        assertNull(cache.get(request("hello", MessageType.MESSAGE)));
+    }
+
+    @Test
+    void put_WildcardPattern_NotCached() {
+        cache.put(request("hello", MessageType.MESSAGE), new HandlerMethodContainer.HandlerLookupResult(handlerMethod, "**", null));
+        cache.put(request("/start", MessageType.MESSAGE), new HandlerMethodContainer.HandlerLookupResult(handlerMethod, "/start*", null));
+
+        assertNull(cache.get(request("hello", MessageType.MESSAGE)));
+        assertNull(cache.get(request("/start", MessageType.MESSAGE)));
+    }
+
+    @Test
+    void put_LongText_NotCached() {
+        HandlerMethodContainer.HandlerLookupResult result = new HandlerMethodContainer.HandlerLookupResult(handlerMethod, "/start {text}", null);
+
+        assertSame(result, cache.put(request("/start 1234567", MessageType.MESSAGE), result));
+        assertNull(cache.get(request("/start 1234567", MessageType.MESSAGE)));
+        verify(metricsService).onLookupCacheMiss();
+    }
+
+    @Test
+    void invalidateAll() {
+        cache.put(request("/start", MessageType.MESSAGE), new HandlerMethodContainer.HandlerLookupResult(handlerMethod, "/start", null));
+        cache.invalidateAll();
+
+        assertNull(cache.get(request("/start", MessageType.MESSAGE)));
+    }
+
+    private TelegramEvent request(String text, MessageType type) {
+        TelegramEvent request = Mockito.mock(TelegramEvent.class);
+        when(request.getToken()).thenReturn("token");
+        when(request.getText()).thenReturn(text);
+        when(request.getMessageType()).thenReturn(type);
+        return request;
+    }
+}
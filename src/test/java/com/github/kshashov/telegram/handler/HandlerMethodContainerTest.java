@@ -17,7 +17,7 @@ import java.util.ArrayList;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class HandlerMethodContainerTest {
     private Method method;
@@ -27,7 +27,7 @@ public class HandlerMethodContainerTest {
 
     @BeforeEach
     void init() {
-        matcherStrategy = Mockito.mock(RequestMappingsMatcherStrategy.class);
+        matcherStrategy = Mockito.mock(RequestMappingsMatcherStrategy.class, Mockito.CALLS_REAL_METHODS);
         when(matcherStrategy.postProcess(any())).thenAnswer((Answer) invocation -> invocation.getArguments()[0]);
         method = TestUtils.findMethodByTitle(this, "method");
     }
@@ -48,6 +48,17 @@ public class HandlerMethodContainerTest {
         assertEquals(result.getMethod(), method);
     }
 
+    @Test
+    void getMessageTypes() {
+        container.registerController(1, method, Lists.newArrayList(
+                new RequestMappingInfo(token, "/", 1, Sets.newHashSet(MessageType.MESSAGE)),
+                new RequestMappingInfo(token, "test", 1, Sets.newHashSet(MessageType.CALLBACK_QUERY, MessageType.MESSAGE)),
+                new RequestMappingInfo("incorrect", "/", 1, Sets.newHashSet(MessageType.POLL))));
+
+        assertEquals(Sets.newHashSet(MessageType.MESSAGE, MessageType.CALLBACK_QUERY), container.getMessageTypes(token));
+        assertTrue(container.getMessageTypes("unknown").isEmpty());
+    }
+
     @Test
     void lookupHandlerMethod_MatcherStrategyIsMissing_ThrowIllegalStateException() {
         RequestMappingInfo mapping = new RequestMappingInfo(token, "/", 1, Sets.newHashSet(MessageType.MESSAGE));
@@ -108,6 +119,53 @@ public class HandlerMethodContainerTest {
         assertEquals("1", result.getTemplateVariables().get("var"));
     }
 
+    @Test
+    void lookupHandlerMethod_OtherMessageType_SkipMatching() {
+        RequestMappingInfo mapping = new RequestMappingInfo(token, "test", 1, Sets.newHashSet(MessageType.MESSAGE));
+        container.registerController(1, method, Lists.newArrayList(mapping));
+        container.setMatcherStrategy(matcherStrategy);
+        when(matcherStrategy.isMatched(any(), any())).thenReturn(true);
+
+        HandlerMethodContainer.HandlerLookupResult result = container.lookupHandlerMethod(request("test", MessageType.CALLBACK_QUERY));
+
+        assertNotNull(result);
+        assertNull(result.getHandlerMethod());
+        verify(matcherStrategy, never()).isMatched(any(), any());
+    }
+
+    @Test
+    void lookupHandlerMethod_AnyMessageType_MergedIntoEachType() {
+        RequestMappingInfo mapping = new RequestMappingInfo(token, "test", 1, Sets.newHashSet(MessageType.ANY));
+        container.registerController(1, method, Lists.newArrayList(mapping));
+        container.setMatcherStrategy(matcherStrategy);
+        when(matcherStrategy.isMatched(any(), any())).thenReturn(true);
+
+        HandlerMethodContainer.HandlerLookupResult result = container.lookupHandlerMethod(request("test", MessageType.CALLBACK_QUERY));
+
+        assertNotNull(result);
+        assertNotNull(result.getHandlerMethod());
+    }
+
+    @Test
+    void lookupHandlerMethod_DefaultMatcherStrategy() {
+        container.registerController(1, method, Lists.newArrayList(
+                new RequestMappingInfo(token, "test {var:[0-9]}", 1, Sets.newHashSet(MessageType.MESSAGE)),
+                new RequestMappingInfo(token, "test", 1, Sets.newHashSet(MessageType.CALLBACK_QUERY))));
+        container.setMatcherStrategy(new DefaultRequestMappingsMatcherStrategy());
+
+        HandlerMethodContainer.HandlerLookupResult result = container.lookupHandlerMethod(request("test 1", MessageType.MESSAGE));
+        assertNotNull(result.getHandlerMethod());
+        assertEquals("test {var:[0-9]}", result.getBasePattern());
+        assertEquals("1", result.getTemplateVariables().get("var"));
+
+        result = container.lookupHandlerMethod(request("test", MessageType.CALLBACK_QUERY));
+        assertNotNull(result.getHandlerMethod());
+        assertEquals("test", result.getBasePattern());
+
+        result = container.lookupHandlerMethod(request("test", MessageType.MESSAGE));
+        assertNull(result.getHandlerMethod());
+    }
+
     public void method() {
     }
 
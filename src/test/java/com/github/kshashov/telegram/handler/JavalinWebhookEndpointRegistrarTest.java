@@ -0,0 +1,44 @@
+package com.github.kshashov.telegram.handler;
+
+import io.javalin.Javalin;
+import io.javalin.http.Context;
+import io.javalin.http.Handler;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class JavalinWebhookEndpointRegistrarTest {
+
+    @Test
+    void register() throws Exception {
+        Javalin server = mock(Javalin.class);
+        WebhookFrontController frontController = mock(WebhookFrontController.class);
+        new JavalinWebhookEndpointRegistrar(server).register(frontController);
+
+        ArgumentCaptor<Handler> handler = ArgumentCaptor.forClass(Handler.class);
+        verify(server).post(eq("/{path}"), handler.capture());
+
+        byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+        Context context = mock(Context.class);
+        when(context.path()).thenReturn("/bot");
+        when(context.header(WebhookFrontController.SECRET_TOKEN_HEADER)).thenReturn("secret");
+        when(context.contentLength()).thenReturn(body.length);
+        when(context.bodyAsBytes()).thenReturn(body);
+
+        when(frontController.checkRequest("/bot", "secret", body.length)).thenReturn(403);
+        handler.getValue().handle(context);
+        verify(context).status(403);
+        verify(context, never()).bodyAsBytes();
+
+        when(frontController.checkRequest("/bot", "secret", body.length)).thenReturn(200);
+        when(frontController.handleBody("/bot", body)).thenReturn(429);
+        handler.getValue().handle(context);
+        verify(context).status(429);
+        verify(frontController).handleBody(any(), any());
+    }
+}
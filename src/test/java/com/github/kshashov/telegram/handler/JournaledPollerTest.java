@@ -0,0 +1,95 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
+import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.GetUpdates;
+import com.pengrad.telegrambot.response.GetUpdatesResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class JournaledPollerTest {
+    private TelegramUpdatesHandler updatesHandler;
+    private UpdateOffsetStore offsetStore;
+    private JournaledPoller poller;
+
+    @BeforeEach
+    void init() {
+        updatesHandler = mock(TelegramUpdatesHandler.class);
+        offsetStore = mock(UpdateOffsetStore.class);
+        poller = new JournaledPoller("1:token", mock(TelegramBot.class), updatesHandler, GetUpdates::new, 2, new PollingBackoff(300, 10000, false), mock(MetricsService.class), mock(ScheduledExecutorService.class), offsetStore);
+    }
+
+    @Test
+    void handleResponse_CompleteProcessedUpdates() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any(), any())).thenAnswer(invocation -> {
+            List<Update> updates = invocation.getArgument(2);
+            Consumer<Update> callback = invocation.getArgument(3);
+            updates.forEach(callback);
+            return UpdatesListener.CONFIRMED_UPDATES_ALL;
+        });
+
+        assertEquals(0, poller.handleResponse(response(update(10), update(11)), 5));
+        verify(offsetStore).begin(10);
+        verify(offsetStore).complete(10);
+        verify(offsetStore).complete(11);
+        verify(offsetStore).flush();
+    }
+
+    @Test
+    void handleResponse_TrackedUpdates_Skip() {
+        when(offsetStore.isTracked(10)).thenReturn(true);
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+
+        assertEquals(300, poller.handleResponse(response(update(10), update(11)), 5));
+        verify(offsetStore, never()).begin(10);
+        verify(updatesHandler).processUpdatesAndConfirm(any(), any(), argThat(updates -> updates.size() == 1), any());
+    }
+
+    @Test
+    void handleResponse_OnlyTrackedUpdates_WaitBaseDelay() {
+        when(offsetStore.isTracked(anyInt())).thenReturn(true);
+
+        assertEquals(300, poller.handleResponse(response(update(10), update(11)), 5));
+        verify(updatesHandler, never()).processUpdatesAndConfirm(any(), any(), any(), any());
+    }
+
+    @Test
+    void handleResponse_PartiallyConfirmed_CancelRest() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any(), any())).thenReturn(10);
+
+        poller.handleResponse(response(update(10), update(11)), 5);
+        verify(offsetStore, never()).cancel(10);
+        verify(offsetStore).cancel(11);
+    }
+
+    @Test
+    void getOffset_UseStore() {
+        when(offsetStore.getOffset()).thenReturn(42);
+
+        assertEquals(42, poller.getOffset());
+    }
+
+    private GetUpdatesResponse response(Update... updates) {
+        GetUpdatesResponse response = mock(GetUpdatesResponse.class);
+        when(response.isOk()).thenReturn(true);
+        when(response.updates()).thenReturn(Arrays.asList(updates));
+        return response;
+    }
+
+    private Update update(int id) {
+        Update update = mock(Update.class);
+        when(update.updateId()).thenReturn(id);
+        return update;
+    }
+}
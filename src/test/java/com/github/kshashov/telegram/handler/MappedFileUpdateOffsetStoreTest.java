@@ -0,0 +1,140 @@
+package com.github.kshashov.telegram.handler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MappedFileUpdateOffsetStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void open_NewJournal_StartFromZero() {
+        MappedFileUpdateOffsetStore store = store(1024);
+        store.open();
+
+        assertEquals(0, store.getOffset());
+        assertFalse(store.isTracked(10));
+        store.close();
+    }
+
+    @Test
+    void complete_AdvanceOffsetToFirstPendingUpdate() {
+        MappedFileUpdateOffsetStore store = store(1024);
+        store.open();
+        store.begin(10);
+        store.begin(11);
+        store.begin(12);
+
+        store.complete(11);
+        assertEquals(0, store.getOffset());
+        assertTrue(store.isTracked(11));
+
+        store.complete(10);
+        assertEquals(12, store.getOffset());
+        assertTrue(store.isTracked(12));
+        store.close();
+    }
+
+    @Test
+    void cancel_KeepOffsetAndRedeliver() {
+        MappedFileUpdateOffsetStore store = store(1024);
+        store.open();
+        store.begin(10);
+        store.begin(11);
+        store.cancel(10);
+        store.complete(11);
+
+        assertEquals(0, store.getOffset());
+        assertFalse(store.isTracked(10));
+        assertTrue(store.isTracked(11));
+        store.close();
+    }
+
+    @Test
+    void open_Restart_ResumeAtFirstNotProcessedUpdate() {
+        MappedFileUpdateOffsetStore store = store(1024);
+        store.open();
+        store.begin(10);
+        store.begin(11);
+        store.begin(12);
+        store.begin(13);
+        store.complete(10);
+        store.complete(12);
+        store.flush();
+        // Simulate crash without close
+        store = store(1024);
+        store.open();
+
+        assertEquals(11, store.getOffset());
+        assertFalse(store.isTracked(11));
+        assertTrue(store.isTracked(12));
+        assertFalse(store.isTracked(13));
+
+        store.begin(11);
+        store.complete(11);
+        assertEquals(13, store.getOffset());
+        store.close();
+    }
+
+    @Test
+    void complete_JournalIsFull_Compact() {
+        MappedFileUpdateOffsetStore store = store(MappedFileUpdateOffsetStore.RECORD_SIZE * 4);
+        store.open();
+        store.begin(1);
+        for (int i = 2; i < 100; i++) {
+            store.begin(i);
+            store.complete(i);
+        }
+        store.complete(1);
+        store.close();
+
+        assertTrue(Files.exists(dir.resolve("bot.offsets")));
+        assertFalse(Files.exists(dir.resolve("bot.offsets.compact")));
+
+        store = store(MappedFileUpdateOffsetStore.RECORD_SIZE * 4);
+        store.open();
+        assertEquals(100, store.getOffset());
+        store.close();
+    }
+
+    @Test
+    void complete_CompactWithPendingUpdates_KeepProcessed() {
+        MappedFileUpdateOffsetStore store = store(MappedFileUpdateOffsetStore.RECORD_SIZE * 2);
+        store.open();
+        store.begin(1);
+        for (int i = 2; i < 10; i++) {
+            store.begin(i);
+            store.complete(i);
+        }
+        store.close();
+
+        store = store(MappedFileUpdateOffsetStore.RECORD_SIZE * 2);
+        store.open();
+        assertEquals(0, store.getOffset());
+        assertFalse(store.isTracked(1));
+        for (int i = 2; i < 10; i++) {
+            assertTrue(store.isTracked(i));
+        }
+        store.close();
+    }
+
+    @Test
+    void complete_AfterClose_Ignore() {
+        MappedFileUpdateOffsetStore store = store(1024);
+        store.open();
+        store.begin(10);
+        store.close();
+
+        store.complete(10);
+        store.flush();
+    }
+
+    private MappedFileUpdateOffsetStore store(int capacity) {
+        return new MappedFileUpdateOffsetStore(dir.resolve("bot.offsets"), OffsetFsyncPolicy.BATCH, capacity);
+    }
+}
@@ -0,0 +1,324 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.model.ResponseParameters;
+import com.pengrad.telegrambot.request.AnswerCallbackQuery;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.EditMessageText;
+import com.pengrad.telegrambot.request.SendMessage;
+import com.pengrad.telegrambot.response.BaseResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class OutboundRequestSchedulerTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private MetricsService metricsService;
+    private ScheduledExecutorService executor;
+    private AtomicLong clock;
+    private TelegramBot bot;
+    private Callback callback;
+    private DeadLetterSink deadLetterSink;
+    private List<BaseRequest> sent;
+    private List<Callback> sentCallbacks;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() {
+        metricsService = mock(MetricsService.class);
+        executor = mock(ScheduledExecutorService.class);
+        clock = new AtomicLong(SECOND);
+        bot = mock(TelegramBot.class);
+        callback = mock(Callback.class);
+        deadLetterSink = mock(DeadLetterSink.class);
+        sent = new ArrayList<>();
+        sentCallbacks = new ArrayList<>();
+        doAnswer(invocation -> {
+            sent.add(invocation.getArgument(0));
+            sentCallbacks.add(invocation.getArgument(1));
+            return null;
+        }).when(bot).execute(any(BaseRequest.class), any(Callback.class));
+    }
+
+    @Test
+    void execute_GlobalLimit_QueueExceeded() {
+        OutboundRequestScheduler scheduler = scheduler(2, 0, 0);
+
+        scheduler.execute("token", bot, new SendMessage(1L, "1"), callback);
+        scheduler.execute("token", bot, new SendMessage(2L, "2"), callback);
+        assertEquals(2, sent.size());
+        verifyNoInteractions(executor);
+
+        scheduler.execute("token", bot, new SendMessage(3L, "3"), callback);
+        assertEquals(2, sent.size());
+        assertEquals(1, scheduler.getQueueDepth());
+        runScheduled(SECOND / 2);
+        assertEquals(3, sent.size());
+        assertEquals(0, scheduler.getQueueDepth());
+
+        // Other bots have their own limits
+        scheduler.execute("token2", bot, new SendMessage(1L, "1"), callback);
+        assertEquals(4, sent.size());
+        verify(metricsService).registerOutboundQueueDepth(any());
+        verify(metricsService, times(4)).onOutboundRequestSent(anyLong());
+    }
+
+    @Test
+    void execute_ChatLimits_QueueExceeded() {
+        OutboundRequestScheduler scheduler = scheduler(0, 1, 60);
+
+        scheduler.execute("token", bot, new SendMessage(1L, "private"), callback);
+        for (int i = 0; i < 60; i++) {
+            scheduler.execute("token", bot, new SendMessage("@channel", "channel"), callback);
+        }
+        assertEquals(61, sent.size());
+
+        // Burst of the private chat is a single message
+        scheduler.execute("token", bot, new SendMessage(1L, "private"), callback);
+        assertEquals(1, scheduler.getQueueDepth());
+        runScheduled(SECOND);
+        scheduler.execute("token", bot, new SendMessage(-100L, "group"), callback);
+        assertEquals(63, sent.size());
+    }
+
+    @Test
+    void execute_PrivateChatRate_BurstOfRate() {
+        OutboundRequestScheduler scheduler = scheduler(0, 2, 0);
+
+        scheduler.execute("token", bot, new SendMessage(1L, "1"), callback);
+        scheduler.execute("token", bot, new SendMessage(1L, "2"), callback);
+        assertEquals(2, sent.size());
+
+        scheduler.execute("token", bot, new SendMessage(1L, "3"), callback);
+        assertEquals(1, scheduler.getQueueDepth());
+        runScheduled(SECOND / 2);
+        assertEquals(3, sent.size());
+    }
+
+    @Test
+    void execute_NumericStringChatId_PrivateChatLimit() {
+        OutboundRequestScheduler scheduler = scheduler(0, 1, 0);
+
+        scheduler.execute("token", bot, new SendMessage("1", "private"), callback);
+        scheduler.execute("token", bot, new SendMessage("-100", "group"), callback);
+        scheduler.execute("token", bot, new SendMessage("@channel", "channel"), callback);
+        assertEquals(3, sent.size());
+
+        // String and numeric ids of the same chat share the limit
+        scheduler.execute("token", bot, new SendMessage(1L, "private"), callback);
+        assertEquals(1, scheduler.getQueueDepth());
+        runScheduled(SECOND);
+        assertEquals(4, sent.size());
+    }
+
+    @Test
+    void isPrivateChat() {
+        assertTrue(OutboundRequestScheduler.isPrivateChat(1L));
+        assertTrue(OutboundRequestScheduler.isPrivateChat(1));
+        assertTrue(OutboundRequestScheduler.isPrivateChat("123456789"));
+        assertFalse(OutboundRequestScheduler.isPrivateChat(-100L));
+        assertFalse(OutboundRequestScheduler.isPrivateChat("-1001234567890"));
+        assertFalse(OutboundRequestScheduler.isPrivateChat("@channel"));
+        assertFalse(OutboundRequestScheduler.isPrivateChat("channel"));
+    }
+
+    @Test
+    void execute_MethodClasses() {
+        OutboundRequestScheduler scheduler = scheduler(1, 1, 1);
+
+        assertEquals(OutboundRequestScheduler.RateClass.CHAT_MESSAGE, OutboundRequestScheduler.RateClass.of("sendMessage"));
+        assertEquals(OutboundRequestScheduler.RateClass.CHAT_MESSAGE, OutboundRequestScheduler.RateClass.of("forwardMessage"));
+        assertEquals(OutboundRequestScheduler.RateClass.BOT_MESSAGE, OutboundRequestScheduler.RateClass.of("editMessageText"));
+        assertEquals(OutboundRequestScheduler.RateClass.UNLIMITED, OutboundRequestScheduler.RateClass.of("sendChatAction"));
+        assertEquals(OutboundRequestScheduler.RateClass.UNLIMITED, OutboundRequestScheduler.RateClass.of("answerCallbackQuery"));
+
+        for (int i = 0; i < 5; i++) {
+            scheduler.execute("token", bot, new AnswerCallbackQuery("id"), callback);
+        }
+        scheduler.execute("token", bot, new EditMessageText(1L, 1, "text"), callback);
+        assertEquals(6, sent.size());
+
+        scheduler.execute("token", bot, new EditMessageText(2L, 1, "text"), callback);
+        assertEquals(6, sent.size());
+        runScheduled(SECOND);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_TooManyRequests_RetryAfter() {
+        OutboundRequestScheduler scheduler = scheduler(30, 1, 20);
+        SendMessage request = new SendMessage(1L, "text");
+
+        scheduler.execute("token", bot, request, callback);
+        sentCallbacks.get(0).onResponse(request, tooManyRequests(5));
+        verify(metricsService).onOutboundRateLimited();
+        verifyNoInteractions(callback);
+
+        // The chat is paused, but other chats are not
+        scheduler.execute("token", bot, new SendMessage(2L, "text"), callback);
+        assertEquals(2, sent.size());
+        runScheduled(5 * SECOND);
+        assertSame(request, sent.get(2));
+
+        BaseResponse response = mock(BaseResponse.class);
+        when(response.isOk()).thenReturn(true);
+        sentCallbacks.get(2).onResponse(request, response);
+        verify(callback).onResponse(request, response);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_TooManyRequests_GiveUpAfterRetries() {
+        OutboundRequestScheduler scheduler = scheduler(30, 0, 0);
+        SendMessage request = new SendMessage(1L, "text");
+
+        scheduler.execute("token", bot, request, callback);
+        for (int i = 0; i < OutboundRequestScheduler.MAX_RATE_LIMITED_RETRIES; i++) {
+            sentCallbacks.get(i).onResponse(request, tooManyRequests(null));
+            runScheduled(SECOND);
+        }
+        BaseResponse response = tooManyRequests(1);
+        sentCallbacks.get(OutboundRequestScheduler.MAX_RATE_LIMITED_RETRIES).onResponse(request, response);
+
+        verify(callback).onResponse(request, response);
+        verify(metricsService, times(OutboundRequestScheduler.MAX_RATE_LIMITED_RETRIES)).onOutboundRateLimited();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_Shutdown_FailQueued() {
+        when(executor.schedule(any(Runnable.class), anyLong(), any())).thenThrow(RejectedExecutionException.class);
+        OutboundRequestScheduler scheduler = scheduler(1, 0, 0);
+        SendMessage request = new SendMessage(1L, "text");
+
+        scheduler.execute("token", bot, new SendMessage(1L, "text"), callback);
+        scheduler.execute("token", bot, request, callback);
+        scheduler.shutdown();
+
+        verify(executor).shutdown();
+        verify(callback).onFailure(eq(request), any(IOException.class));
+        assertEquals(0, scheduler.getQueueDepth());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_ServerError_RetryIdempotentWithBackoff() {
+        OutboundRequestScheduler scheduler = scheduler(OutboundRetryPolicy.builder()
+                .maxAttempts(3)
+                .backoff(Duration.ofSeconds(1), Duration.ofSeconds(10))
+                .jitter(0)
+                .build());
+        EditMessageText request = new EditMessageText(1L, 1, "text");
+        BaseResponse response = error(502);
+
+        scheduler.execute("token", bot, request, callback);
+        sentCallbacks.get(0).onResponse(request, response);
+        runScheduled(SECOND);
+        sentCallbacks.get(1).onFailure(request, new IOException());
+        runScheduled(2 * SECOND);
+        sentCallbacks.get(2).onResponse(request, response);
+
+        assertEquals(3, sent.size());
+        verify(metricsService, times(2)).onOutboundRetry();
+        verify(deadLetterSink).accept("token", request, response, null);
+        verify(metricsService).onOutboundDeadLetter();
+        verify(callback).onResponse(request, response);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_ServerError_DeadLetterNotIdempotent() {
+        OutboundRequestScheduler scheduler = scheduler(OutboundRetryPolicy.builder().build());
+        SendMessage request = new SendMessage(1L, "text");
+        IOException error = new IOException();
+
+        scheduler.execute("token", bot, request, callback);
+        sentCallbacks.get(0).onFailure(request, error);
+
+        verify(deadLetterSink).accept("token", request, null, error);
+        verify(callback).onFailure(request, error);
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_ClientError_NoRetryNoDeadLetter() {
+        OutboundRequestScheduler scheduler = scheduler(OutboundRetryPolicy.builder().build());
+        EditMessageText request = new EditMessageText(1L, 1, "text");
+        BaseResponse response = error(400);
+
+        scheduler.execute("token", bot, request, callback);
+        sentCallbacks.get(0).onResponse(request, response);
+
+        verify(callback).onResponse(request, response);
+        verifyNoInteractions(deadLetterSink, executor);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_Deadline_StopRetries() {
+        OutboundRequestScheduler scheduler = scheduler(OutboundRetryPolicy.builder()
+                .backoff(Duration.ofSeconds(1), Duration.ofSeconds(1))
+                .jitter(0)
+                .deadline(Duration.ofMillis(1400))
+                .build());
+        EditMessageText request = new EditMessageText(1L, 1, "text");
+        BaseResponse response = error(500);
+
+        scheduler.execute("token", bot, request, callback);
+        clock.addAndGet(SECOND / 2);
+        sentCallbacks.get(0).onResponse(request, response);
+
+        verify(callback).onResponse(request, response);
+        verify(deadLetterSink).accept("token", request, response, null);
+        verifyNoInteractions(executor);
+    }
+
+    private OutboundRequestScheduler scheduler(int globalPerSecond, int privateChatPerSecond, int groupChatPerMinute) {
+        return new OutboundRequestScheduler(globalPerSecond, privateChatPerSecond, groupChatPerMinute, null, null, metricsService, executor, clock::get);
+    }
+
+    private OutboundRequestScheduler scheduler(OutboundRetryPolicy retryPolicy) {
+        return new OutboundRequestScheduler(0, 0, 0, retryPolicy, deadLetterSink, metricsService, executor, clock::get);
+    }
+
+    private void runScheduled(long expectedDelay) {
+        ArgumentCaptor<Runnable> task = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).schedule(task.capture(), eq(expectedDelay), eq(TimeUnit.NANOSECONDS));
+        clearInvocations(executor);
+        clock.addAndGet(expectedDelay);
+        task.getValue().run();
+    }
+
+    private static BaseResponse error(int errorCode) {
+        BaseResponse response = mock(BaseResponse.class);
+        when(response.errorCode()).thenReturn(errorCode);
+        return response;
+    }
+
+    private static BaseResponse tooManyRequests(Integer retryAfter) {
+        ResponseParameters parameters = mock(ResponseParameters.class);
+        when(parameters.retryAfter()).thenReturn(retryAfter);
+        BaseResponse response = mock(BaseResponse.class);
+        when(response.errorCode()).thenReturn(OutboundRetryPolicy.TOO_MANY_REQUESTS);
+        when(response.parameters()).thenReturn(parameters);
+        return response;
+    }
+}
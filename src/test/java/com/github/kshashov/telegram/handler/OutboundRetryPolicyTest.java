@@ -0,0 +1,101 @@
+package com.github.kshashov.telegram.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboundRetryPolicyTest {
+
+    @Test
+    void isRetryable() {
+        OutboundRetryPolicy policy = OutboundRetryPolicy.builder().build();
+
+        assertTrue(policy.isRetryable("sendMessage", 429));
+        assertTrue(policy.isRetryable("editMessageText", 502));
+        assertTrue(policy.isRetryable("sendChatAction", 500));
+        assertTrue(policy.isRetryable("answerCallbackQuery", new IOException()));
+        assertFalse(policy.isRetryable("sendMessage", 502));
+        assertFalse(policy.isRetryable("copyMessage", new IOException()));
+        assertFalse(policy.isRetryable("editMessageText", 400));
+        assertFalse(policy.isRetryable("editMessageText", 403));
+    }
+
+    @Test
+    void isIdempotent() {
+        assertTrue(OutboundRetryPolicy.isIdempotent("editMessageText"));
+        assertTrue(OutboundRetryPolicy.isIdempotent("deleteMessage"));
+        assertTrue(OutboundRetryPolicy.isIdempotent("answerCallbackQuery"));
+        assertTrue(OutboundRetryPolicy.isIdempotent("setMyCommands"));
+        assertTrue(OutboundRetryPolicy.isIdempotent("sendChatAction"));
+        assertTrue(OutboundRetryPolicy.isIdempotent("getChat"));
+
+        assertFalse(OutboundRetryPolicy.isIdempotent("sendMessage"));
+        assertFalse(OutboundRetryPolicy.isIdempotent("forwardMessage"));
+        assertFalse(OutboundRetryPolicy.isIdempotent("copyMessage"));
+        assertFalse(OutboundRetryPolicy.isIdempotent("createChatInviteLink"));
+        assertFalse(OutboundRetryPolicy.isIdempotent("createInvoiceLink"));
+        assertFalse(OutboundRetryPolicy.isIdempotent("createNewStickerSet"));
+        assertFalse(OutboundRetryPolicy.isIdempotent("exportChatInviteLink"));
+        assertFalse(OutboundRetryPolicy.isIdempotent("unknownMethod"));
+    }
+
+    @Test
+    void isRetryable_NotIdempotent_NotRetried() {
+        OutboundRetryPolicy policy = OutboundRetryPolicy.builder().build();
+
+        assertFalse(policy.isRetryable("createChatInviteLink", 502));
+        assertFalse(policy.isRetryable("createInvoiceLink", new IOException()));
+        assertFalse(policy.isRetryable("createNewStickerSet", 500));
+        assertFalse(policy.isRetryable("exportChatInviteLink", new IOException()));
+        assertTrue(policy.isRetryable("exportChatInviteLink", 429));
+    }
+
+    @Test
+    void isRetryable_WithoutIdempotentRetries_OnlyTooManyRequests() {
+        OutboundRetryPolicy policy = OutboundRetryPolicy.builder().idempotentRetries(false).build();
+
+        assertTrue(policy.isRetryable("sendMessage", 429));
+        assertFalse(policy.isRetryable("editMessageText", 502));
+        assertFalse(policy.isRetryable("editMessageText", new IOException()));
+    }
+
+    @Test
+    void getBackoffNanos_Exponential() {
+        OutboundRetryPolicy policy = OutboundRetryPolicy.builder()
+                .backoff(Duration.ofMillis(100), Duration.ofMillis(500))
+                .jitter(0)
+                .build();
+
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), policy.getBackoffNanos(1));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), policy.getBackoffNanos(2));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(400), policy.getBackoffNanos(3));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), policy.getBackoffNanos(4));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(500), policy.getBackoffNanos(100));
+    }
+
+    @Test
+    void getBackoffNanos_Jitter() {
+        OutboundRetryPolicy policy = OutboundRetryPolicy.builder()
+                .backoff(Duration.ofMillis(100), Duration.ofMillis(100))
+                .jitter(0.5)
+                .build();
+
+        for (int i = 0; i < 100; i++) {
+            long backoff = policy.getBackoffNanos(1);
+            assertTrue(backoff <= TimeUnit.MILLISECONDS.toNanos(100));
+            assertTrue(backoff >= TimeUnit.MILLISECONDS.toNanos(50));
+        }
+    }
+
+    @Test
+    void build_Invalid_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> OutboundRetryPolicy.builder().maxAttempts(0).build());
+        assertThrows(IllegalArgumentException.class, () -> OutboundRetryPolicy.builder().jitter(2).build());
+        assertThrows(IllegalArgumentException.class,
+                () -> OutboundRetryPolicy.builder().backoff(Duration.ofSeconds(2), Duration.ofSeconds(1)).build());
+    }
+}
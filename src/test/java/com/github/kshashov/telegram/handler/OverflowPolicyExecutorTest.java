@@ -0,0 +1,111 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OverflowPolicyExecutorTest {
+    private MetricsService metricsService;
+    private ThreadPoolExecutor pool;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void init() throws Exception {
+        metricsService = mock(MetricsService.class);
+        pool = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(1));
+        release = new CountDownLatch(1);
+
+        // Occupy the only worker
+        CountDownLatch started = new CountDownLatch(1);
+        pool.execute(() -> {
+            started.countDown();
+            awaitQuietly(release);
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    void destroy() {
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    void execute_Drop_ThrowException() {
+        OverflowPolicyExecutor executor = new OverflowPolicyExecutor(pool, UpdatesOverflowPolicy.DROP, metricsService);
+        executor.executeUpdate(() -> {
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> executor.executeUpdate(() -> {
+        }));
+    }
+
+    @Test
+    void execute_StopConfirming_ThrowException() {
+        OverflowPolicyExecutor executor = new OverflowPolicyExecutor(pool, UpdatesOverflowPolicy.STOP_CONFIRMING, metricsService);
+        executor.executeUpdate(() -> {
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> executor.executeUpdate(() -> {
+        }));
+    }
+
+    @Test
+    void execute_ShedOldest_ReplaceQueuedUpdate() throws Exception {
+        OverflowPolicyExecutor executor = new OverflowPolicyExecutor(pool, UpdatesOverflowPolicy.SHED_OLDEST, metricsService);
+        AtomicBoolean oldestExecuted = new AtomicBoolean();
+        CountDownLatch newestExecuted = new CountDownLatch(1);
+
+        executor.executeUpdate(() -> oldestExecuted.set(true));
+        executor.executeUpdate(newestExecuted::countDown);
+        release.countDown();
+
+        assertTrue(newestExecuted.await(10, TimeUnit.SECONDS));
+        assertFalse(oldestExecuted.get());
+        verify(metricsService).onUpdateShed();
+    }
+
+    @Test
+    void execute_ShedOldest_KeepOtherTasks() {
+        OverflowPolicyExecutor executor = new OverflowPolicyExecutor(pool, UpdatesOverflowPolicy.SHED_OLDEST, metricsService);
+        executor.execute(() -> {
+        });
+
+        assertThrows(RejectedExecutionException.class, () -> executor.executeUpdate(() -> {
+        }));
+        assertEquals(1, pool.getQueue().size());
+        verify(metricsService, never()).onUpdateShed();
+    }
+
+    @Test
+    void execute_Block_WaitForQueue() throws Exception {
+        OverflowPolicyExecutor executor = new OverflowPolicyExecutor(pool, UpdatesOverflowPolicy.BLOCK, metricsService);
+        CountDownLatch executed = new CountDownLatch(2);
+        executor.executeUpdate(executed::countDown);
+
+        Thread producer = new Thread(() -> executor.executeUpdate(executed::countDown));
+        producer.start();
+        producer.join(200);
+        assertTrue(producer.isAlive());
+
+        release.countDown();
+        producer.join(10000);
+        assertFalse(producer.isAlive());
+        assertTrue(executed.await(10, TimeUnit.SECONDS));
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
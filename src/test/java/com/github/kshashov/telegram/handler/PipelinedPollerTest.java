@@ -0,0 +1,258 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
+import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.GetUpdates;
+import com.pengrad.telegrambot.response.GetUpdatesResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class PipelinedPollerTest {
+    private TelegramUpdatesHandler updatesHandler;
+    private ScheduledExecutorService scheduler;
+    private List<Runnable> dispatched;
+    private PipelinedPoller poller;
+
+    @BeforeEach
+    void init() {
+        updatesHandler = mock(TelegramUpdatesHandler.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        dispatched = new ArrayList<>();
+        poller = new PipelinedPoller("1:token", mock(TelegramBot.class), updatesHandler, GetUpdates::new, 2, new PollingBackoff(300, 10000, false), mock(MetricsService.class), scheduler, dispatched::add);
+        poller.start();
+        reset(scheduler);
+    }
+
+    @Test
+    void handleResponse_BatchIsDispatched_PollBeforeOffsetAdvances() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+
+        assertEquals(0, poller.handleResponse(response(update(10), update(11)), 5));
+        assertEquals(0, poller.getOffset());
+        assertEquals(1, dispatched.size());
+        verifyNoInteractions(updatesHandler);
+
+        dispatched.remove(0).run();
+        assertEquals(12, poller.getOffset());
+        verify(updatesHandler).processUpdatesAndConfirm(any(), any(), any());
+    }
+
+    @Test
+    void handleResponse_DispatcherIsBusy_KeepBatchAndPostponePoll() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+        poller.handleResponse(response(update(10), update(11)), 5);
+
+        assertEquals(AdaptivePoller.POSTPONED, poller.handleResponse(response(update(12)), 5));
+        assertEquals(0, poller.getOffset());
+        assertEquals(1, dispatched.size());
+        verifyNoInteractions(scheduler);
+
+        dispatched.remove(0).run();
+        assertEquals(12, poller.getOffset());
+        assertEquals(1, dispatched.size());
+        verify(scheduler).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+
+        dispatched.remove(0).run();
+        assertEquals(13, poller.getOffset());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Update>> captor = ArgumentCaptor.forClass(List.class);
+        verify(updatesHandler, times(2)).processUpdatesAndConfirm(any(), any(), captor.capture());
+        assertEquals(1, captor.getAllValues().get(1).size());
+        assertEquals(12, captor.getAllValues().get(1).get(0).updateId());
+    }
+
+    @Test
+    void handleResponse_InFlightUpdatesReceivedAgain_Skip() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+        poller.handleResponse(response(update(10), update(11)), 5);
+
+        assertEquals(AdaptivePoller.POSTPONED, poller.handleResponse(response(update(11), update(12)), 5));
+        dispatched.remove(0).run();
+        dispatched.remove(0).run();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Update>> captor = ArgumentCaptor.forClass(List.class);
+        verify(updatesHandler, times(2)).processUpdatesAndConfirm(any(), any(), captor.capture());
+        assertEquals(1, captor.getAllValues().get(1).size());
+        assertEquals(12, captor.getAllValues().get(1).get(0).updateId());
+        assertEquals(13, poller.getOffset());
+    }
+
+    @Test
+    void handleResponse_OnlyInFlightUpdatesReceived_WaitForDispatcher() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+        poller.handleResponse(response(update(10), update(11)), 5);
+
+        assertEquals(AdaptivePoller.POSTPONED, poller.handleResponse(response(update(10), update(11)), 5));
+        verifyNoInteractions(scheduler);
+
+        dispatched.remove(0).run();
+        assertEquals(0, dispatched.size());
+        verify(scheduler).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+        verify(updatesHandler, times(1)).processUpdatesAndConfirm(any(), any(), any());
+    }
+
+    @Test
+    void stop_BatchIsBuffered_NotConfirmed() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+        poller.handleResponse(response(update(10), update(11)), 5);
+        poller.handleResponse(response(update(12)), 5);
+
+        poller.stop();
+        assertEquals(0, poller.getOffset());
+        verifyNoInteractions(updatesHandler);
+    }
+
+    @Test
+    void handleResponse_RedeliveredUpdates_Skip() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+        poller.handleResponse(response(update(10), update(11)), 5);
+        dispatched.remove(0).run();
+
+        poller.handleResponse(response(update(11)), 5);
+        assertEquals(0, dispatched.size());
+        assertEquals(12, poller.getOffset());
+    }
+
+    @Test
+    void handleResponse_PartiallyAccepted_DispatchRestAgain() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(10, UpdatesListener.CONFIRMED_UPDATES_ALL);
+        poller.handleResponse(response(update(10), update(11)), 5);
+        assertEquals(AdaptivePoller.POSTPONED, poller.handleResponse(response(update(12)), 5));
+
+        dispatched.remove(0).run();
+        assertEquals(11, poller.getOffset());
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(retry.capture(), eq(300L), eq(TimeUnit.MILLISECONDS));
+
+        retry.getValue().run();
+        dispatched.remove(0).run();
+        verify(scheduler).schedule(any(Runnable.class), eq(0L), eq(TimeUnit.MILLISECONDS));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Update>> captor = ArgumentCaptor.forClass(List.class);
+        verify(updatesHandler, times(2)).processUpdatesAndConfirm(any(), any(), captor.capture());
+        List<Update> rest = captor.getAllValues().get(1);
+        assertEquals(2, rest.size());
+        assertEquals(11, rest.get(0).updateId());
+        assertEquals(12, rest.get(1).updateId());
+        assertEquals(13, poller.getOffset());
+    }
+
+    @Test
+    void handleResponse_DispatcherRejected_RetryLater() {
+        List<Runnable> accepted = new ArrayList<>();
+        AtomicBoolean reject = new AtomicBoolean(true);
+        poller = new PipelinedPoller("1:token", mock(TelegramBot.class), updatesHandler, GetUpdates::new, 2, new PollingBackoff(300, 10000, false), mock(MetricsService.class), scheduler, task -> {
+            if (reject.get()) {
+                throw new RejectedExecutionException();
+            }
+            accepted.add(task);
+        });
+        poller.start();
+        reset(scheduler);
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+
+        poller.handleResponse(response(update(10), update(11)), 5);
+        assertEquals(0, poller.getOffset());
+        ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(retry.capture(), eq(300L), eq(TimeUnit.MILLISECONDS));
+
+        reject.set(false);
+        retry.getValue().run();
+        accepted.remove(0).run();
+        verify(updatesHandler).processUpdatesAndConfirm(any(), any(), any());
+        assertEquals(12, poller.getOffset());
+    }
+
+    @Test
+    void handleResponse_Stopped_DoNotRetryRest() {
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_NONE);
+        poller.handleResponse(response(update(10), update(11)), 5);
+        poller.stop();
+
+        dispatched.remove(0).run();
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any());
+    }
+
+    @Test
+    void poll_BusyHandler_EachUpdateDispatchedOnce() {
+        // Telegram API mock that returns up to two updates starting from the request offset
+        int total = 20;
+        List<Integer> fetched = new ArrayList<>();
+        TelegramBot bot = mock(TelegramBot.class);
+        doAnswer(invocation -> {
+            GetUpdates request = invocation.getArgument(0);
+            int offset = Math.max((Integer) request.getParameters().get("offset"), 1);
+            List<Update> updates = new ArrayList<>();
+            for (int id = offset; (id <= total) && (updates.size() < 2); id++) {
+                updates.add(update(id));
+                fetched.add(id);
+            }
+            invocation.<Callback<GetUpdates, GetUpdatesResponse>>getArgument(1).onResponse(request, response(updates.toArray(new Update[0])));
+            return null;
+        }).when(bot).execute(any(GetUpdates.class), any(Callback.class));
+
+        // Handler accepts only the first update of each batch
+        List<Integer> processed = new ArrayList<>();
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenAnswer(invocation -> {
+            List<Update> updates = invocation.getArgument(2);
+            processed.add(updates.get(0).updateId());
+            return (updates.size() == 1) ? UpdatesListener.CONFIRMED_UPDATES_ALL : updates.get(0).updateId();
+        });
+
+        // Run scheduled and dispatched tasks one by one
+        Deque<Runnable> tasks = new ArrayDeque<>();
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        when(scheduler.schedule(any(Runnable.class), anyLong(), any())).thenAnswer(invocation -> {
+            tasks.add(invocation.getArgument(0));
+            return null;
+        });
+        poller = new PipelinedPoller("1:token", bot, updatesHandler, GetUpdates::new, 2, new PollingBackoff(300, 10000, false), mock(MetricsService.class), scheduler, tasks::add);
+        poller.start();
+        for (int i = 0; (i < 1000) && !tasks.isEmpty() && (processed.size() < total); i++) {
+            tasks.poll().run();
+        }
+
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 1; id <= total; id++) {
+            expected.add(id);
+        }
+        // Re-fetched in-flight updates are skipped
+        assertEquals(expected, processed);
+        assertTrue(fetched.size() > new HashSet<>(fetched).size());
+    }
+
+    private GetUpdatesResponse response(Update... updates) {
+        GetUpdatesResponse response = mock(GetUpdatesResponse.class);
+        when(response.isOk()).thenReturn(true);
+        when(response.updates()).thenReturn(Arrays.asList(updates));
+        return response;
+    }
+
+    private Update update(int id) {
+        Update update = mock(Update.class);
+        when(update.updateId()).thenReturn(id);
+        return update;
+    }
+}
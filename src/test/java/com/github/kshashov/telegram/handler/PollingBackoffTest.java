@@ -0,0 +1,69 @@
+package com.github.kshashov.telegram.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PollingBackoffTest {
+
+    @Test
+    void onBatch_FullBatch_PollImmediately() {
+        PollingBackoff backoff = new PollingBackoff(300, 10000, false);
+
+        assertEquals(0, backoff.onBatch(100, 100));
+        assertEquals(300, backoff.onBatch(99, 100));
+    }
+
+    @Test
+    void onEmpty_ShortPolling_BackOffExponentially() {
+        PollingBackoff backoff = new PollingBackoff(300, 2000, false);
+
+        assertEquals(300, backoff.onEmpty());
+        assertEquals(600, backoff.onEmpty());
+        assertEquals(1200, backoff.onEmpty());
+        assertEquals(2000, backoff.onEmpty());
+        assertEquals(2000, backoff.onEmpty());
+
+        backoff.onBatch(1, 100);
+        assertEquals(300, backoff.onEmpty());
+    }
+
+    @Test
+    void onEmpty_LongPolling_PollImmediately() {
+        PollingBackoff backoff = new PollingBackoff(300, 2000, true);
+
+        assertEquals(0, backoff.onEmpty());
+        assertEquals(0, backoff.onEmpty());
+    }
+
+    @Test
+    void onError_BackOffExponentially() {
+        PollingBackoff backoff = new PollingBackoff(0, 10000, true);
+
+        assertEquals(1, backoff.onError());
+        assertEquals(2, backoff.onError());
+        for (int i = 0; i < 100; i++) {
+            backoff.onError();
+        }
+        assertEquals(10000, backoff.onError());
+    }
+
+    @Test
+    void onRetryAfter() {
+        PollingBackoff backoff = new PollingBackoff(300, 2000, false);
+
+        assertEquals(5000, backoff.onRetryAfter(5));
+        assertEquals(300, backoff.onRetryAfter(0));
+    }
+
+    @Test
+    void applySaturation() {
+        PollingBackoff backoff = new PollingBackoff(1000, 5000, false);
+
+        assertEquals(0, backoff.applySaturation(0, 0.5));
+        assertEquals(0, backoff.applySaturation(0, PollingBackoff.SATURATION_THRESHOLD));
+        assertEquals(3000, backoff.applySaturation(0, 0.875));
+        assertEquals(5000, backoff.applySaturation(0, 1));
+        assertEquals(4000, backoff.applySaturation(4000, 0.8));
+    }
+}
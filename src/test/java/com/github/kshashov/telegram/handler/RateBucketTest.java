@@ -0,0 +1,50 @@
+package com.github.kshashov.telegram.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateBucketTest {
+
+    @Test
+    void reserve_WithinCapacity_AllowImmediately() {
+        RateBucket bucket = new RateBucket(10, 3, 0);
+
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(0, bucket.reserve(0));
+        assertEquals(10, bucket.reserve(0));
+        assertEquals(20, bucket.reserve(0));
+    }
+
+    @Test
+    void reserve_AfterIdle_RestoreTokens() {
+        RateBucket bucket = new RateBucket(10, 2, 0);
+        bucket.reserve(0);
+        bucket.reserve(0);
+        assertFalse(bucket.isFull(15));
+
+        assertEquals(15, bucket.reserve(15));
+        assertEquals(20, bucket.reserve(15));
+
+        assertTrue(bucket.isFull(100));
+        assertEquals(100, bucket.reserve(100));
+        assertEquals(100, bucket.reserve(100));
+        assertEquals(110, bucket.reserve(100));
+    }
+
+    @Test
+    void pause_DelayReservations() {
+        RateBucket bucket = new RateBucket(10, 3, 0);
+        bucket.pause(50);
+
+        assertEquals(50, bucket.reserve(0));
+        assertEquals(60, bucket.reserve(0));
+    }
+
+    @Test
+    void create_InvalidRate_Throws() {
+        assertThrows(IllegalArgumentException.class, () -> new RateBucket(0, 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new RateBucket(10, 0, 0));
+    }
+}
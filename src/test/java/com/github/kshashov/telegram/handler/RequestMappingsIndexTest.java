@@ -0,0 +1,104 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
+import com.google.common.collect.Sets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.when;
+
+public class RequestMappingsIndexTest {
+    private final DefaultRequestMappingsMatcherStrategy strategy = new DefaultRequestMappingsMatcherStrategy();
+    private List<HandlerMethodContainer.RequestMapping> mappings;
+    private RequestMappingsIndex index;
+
+    @BeforeEach
+    void init() {
+        List<HandlerMethodContainer.RequestMapping> discovered = new ArrayList<>();
+        discovered.add(mapping(null, MessageType.ANY));
+        discovered.add(mapping("/start", MessageType.MESSAGE));
+        discovered.add(mapping("/start", MessageType.CALLBACK_QUERY));
+        discovered.add(mapping("/menu/", MessageType.MESSAGE));
+        discovered.add(mapping("/", MessageType.MESSAGE));
+        discovered.add(mapping("", MessageType.MESSAGE));
+        discovered.add(mapping("page:{page}", MessageType.CALLBACK_QUERY));
+        discovered.add(mapping("page:next", MessageType.CALLBACK_QUERY));
+        discovered.add(mapping("/user/{id:[0-9]+}", MessageType.MESSAGE));
+        discovered.add(mapping("/user/{name}", MessageType.MESSAGE));
+        discovered.add(mapping("/user/{id}/edit", MessageType.ANY));
+        discovered.add(mapping("/user/*", MessageType.MESSAGE));
+        discovered.add(mapping("/files/**", MessageType.MESSAGE));
+        discovered.add(mapping("/a?c", MessageType.MESSAGE));
+        discovered.add(mapping("test {var:[0-9]}", MessageType.MESSAGE));
+
+        mappings = strategy.postProcess(discovered);
+        index = new RequestMappingsIndex(mappings, strategy);
+    }
+
+    @Test
+    void lookup_SameAsLinearScan() {
+        String[] texts = {null, "", "/", "//", "/start", "//start", "/start/", "start", "/menu", "/menu/", "/menu//",
+                "page:next", "page:1", "page:", "/user/1", "/user/john", "/user/", "/user/1/edit", "/user//1/edit",
+                "/files", "/files/a/b", "/abc", "/ac", "test 1", "test 12", "unknown"};
+
+        for (MessageType type : MessageType.values()) {
+            for (String text : texts) {
+                TelegramEvent event = request(text, type);
+                RequestMappingsIndex.IndexMatch match = index.lookup(event);
+                assertSame(scan(event), match == null ? null : match.getMapping(), "Text: " + text + ", type: " + type);
+            }
+        }
+    }
+
+    @Test
+    void lookup_LiteralPatternHasPriority() {
+        RequestMappingsIndex.IndexMatch result = index.lookup(request("page:next", MessageType.CALLBACK_QUERY));
+
+        assertNotNull(result);
+        assertEquals("page:next", result.getMapping().getMappingInfo().getPattern());
+        assertTrue(result.getMatch().getTemplateVariables().isEmpty());
+    }
+
+    @Test
+    void lookup_TemplatePattern_ExtractVariables() {
+        RequestMappingsIndex.IndexMatch result = index.lookup(request("/user/1/edit", MessageType.MESSAGE));
+
+        assertNotNull(result);
+        assertEquals("/user/{id}/edit", result.getMapping().getMappingInfo().getPattern());
+        assertEquals("1", result.getMatch().getTemplateVariables().get("id"));
+    }
+
+    @Test
+    void lookup_NoMappings_ReturnNull() {
+        RequestMappingsIndex emptyIndex = new RequestMappingsIndex(new ArrayList<>(), strategy);
+
+        assertNull(emptyIndex.lookup(request("/start", MessageType.MESSAGE)));
+    }
+
+    private HandlerMethodContainer.RequestMapping scan(TelegramEvent event) {
+        for (HandlerMethodContainer.RequestMapping mapping : mappings) {
+            if (strategy.isMatched(event, mapping.getMappingInfo())) {
+                return mapping;
+            }
+        }
+        return null;
+    }
+
+    private HandlerMethodContainer.RequestMapping mapping(String pattern, MessageType type) {
+        return new HandlerMethodContainer.RequestMapping(new RequestMappingInfo("token", pattern, 1, Sets.newHashSet(type)), null);
+    }
+
+    private TelegramEvent request(String text, MessageType type) {
+        TelegramEvent request = Mockito.mock(TelegramEvent.class);
+        when(request.getToken()).thenReturn("token");
+        when(request.getText()).thenReturn(text);
+        when(request.getMessageType()).thenReturn(type);
+        return request;
+    }
+}
@@ -0,0 +1,250 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class SerialLanesExecutorTest {
+    private MetricsService metricsService;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void init() {
+        metricsService = mock(MetricsService.class);
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void destroy() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void execute_SameKey_ExecuteInOrder() throws Exception {
+        SerialLanesExecutor executor = new SerialLanesExecutor(4, pool, 1000, UpdatesOverflowPolicy.DROP, metricsService);
+        List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+        List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch latch = new CountDownLatch(200);
+
+        for (int i = 0; i < 100; i++) {
+            int value = i;
+            executor.execute(1L, () -> {
+                first.add(value);
+                latch.countDown();
+            });
+            executor.execute(-2L, () -> {
+                second.add(value);
+                latch.countDown();
+            });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, first.get(i));
+            assertEquals(i, second.get(i));
+        }
+        assertEquals(0, executor.getQueueDepth());
+        verify(metricsService).registerLanesQueueDepth(any());
+        verify(metricsService, times(200)).onLaneTaskStarted(anyLong());
+    }
+
+    @Test
+    void execute_BusyLane_WaitInQueue() throws Exception {
+        SerialLanesExecutor executor = new SerialLanesExecutor(1, pool, 1000, UpdatesOverflowPolicy.DROP, metricsService);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(2);
+
+        executor.execute(1L, () -> {
+            started.countDown();
+            awaitQuietly(release);
+            finished.countDown();
+        });
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        executor.execute(2L, finished::countDown);
+
+        assertEquals(1, executor.getQueueDepth());
+        release.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_ExceptionInTask_ContinueDraining() throws Exception {
+        SerialLanesExecutor executor = new SerialLanesExecutor(1, pool, 1000, UpdatesOverflowPolicy.DROP, metricsService);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        executor.execute(1L, () -> {
+            throw new IllegalStateException("test");
+        });
+        executor.execute(1L, latch::countDown);
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_RejectedByExecutor_ThrowException() {
+        Executor rejecting = mock(Executor.class);
+        doThrow(RejectedExecutionException.class).when(rejecting).execute(any());
+        SerialLanesExecutor executor = new SerialLanesExecutor(1, rejecting, 1000, UpdatesOverflowPolicy.DROP, metricsService);
+        Runnable task = mock(Runnable.class);
+
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(1L, task));
+        assertEquals(0, executor.getQueueDepth());
+
+        // Lane should be scheduled again, the task is never executed on the caller thread
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(1L, task));
+        verify(rejecting, times(2)).execute(any());
+        verifyNoInteractions(task);
+    }
+
+    @Test
+    void execute_LanesAreFull_Reject() throws Exception {
+        SerialLanesExecutor executor = new SerialLanesExecutor(2, pool, 2, UpdatesOverflowPolicy.STOP_CONFIRMING, metricsService);
+        CountDownLatch release = blockLanes(executor, 1L, 2L);
+
+        executor.execute(1L, () -> {
+        });
+        executor.execute(2L, () -> {
+        });
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(1L, () -> {
+        }));
+        assertEquals(2, executor.getQueueDepth());
+        release.countDown();
+    }
+
+    @Test
+    void execute_LanesAreFull_ShedOldest() throws Exception {
+        SerialLanesExecutor executor = new SerialLanesExecutor(2, pool, 2, UpdatesOverflowPolicy.SHED_OLDEST, metricsService);
+        CountDownLatch release = blockLanes(executor, 1L, 2L);
+        Runnable shed = mock(Runnable.class);
+        Runnable oldest = mock(Runnable.class);
+        CountDownLatch finished = new CountDownLatch(2);
+
+        executor.execute(2L, oldest, shed);
+        executor.execute(1L, finished::countDown);
+        executor.execute(1L, finished::countDown);
+
+        verify(shed).run();
+        verify(metricsService).onUpdateShed();
+        assertEquals(2, executor.getQueueDepth());
+        release.countDown();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        verifyNoInteractions(oldest);
+    }
+
+    @Test
+    void execute_LanesAreFull_BlockUntilDrained() throws Exception {
+        SerialLanesExecutor executor = new SerialLanesExecutor(1, pool, 1, UpdatesOverflowPolicy.BLOCK, metricsService);
+        CountDownLatch release = blockLanes(executor, 1L);
+        CountDownLatch finished = new CountDownLatch(2);
+        executor.execute(1L, finished::countDown);
+
+        Future<?> blocked = pool.submit(() -> executor.execute(1L, finished::countDown));
+        assertThrows(TimeoutException.class, () -> blocked.get(100, TimeUnit.MILLISECONDS));
+
+        release.countDown();
+        blocked.get(10, TimeUnit.SECONDS);
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void executeAsync_NotCompleted_NextTaskWaits() throws Exception {
+        SerialLanesExecutor executor = new SerialLanesExecutor(1, pool, 1000, UpdatesOverflowPolicy.DROP, metricsService);
+        AtomicReference<Runnable> completion = new AtomicReference<>();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch finished = new CountDownLatch(1);
+
+        executor.executeAsync(1L, done -> {
+            completion.set(done);
+            started.countDown();
+        }, null);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        executor.execute(1L, finished::countDown);
+
+        assertFalse(finished.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(1, executor.getQueueDepth());
+
+        completion.get().run();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void executeAsync_CompletedAndRejected_DropWaitingTasks() {
+        List<Runnable> drains = new ArrayList<>();
+        AtomicBoolean reject = new AtomicBoolean();
+        Executor executor = task -> {
+            if (reject.get()) {
+                throw new RejectedExecutionException();
+            }
+            drains.add(task);
+        };
+        SerialLanesExecutor lanes = new SerialLanesExecutor(1, executor, 1000, UpdatesOverflowPolicy.DROP, metricsService);
+        AtomicReference<Runnable> completion = new AtomicReference<>();
+        Runnable dropped = mock(Runnable.class);
+        Runnable task = mock(Runnable.class);
+
+        lanes.executeAsync(1L, completion::set, null);
+        drains.remove(0).run();
+        lanes.execute(1L, task, dropped);
+
+        reject.set(true);
+        completion.get().run();
+        verify(dropped).run();
+        verify(metricsService).onUpdatesRejected(1);
+        verifyNoInteractions(task);
+        assertEquals(0, lanes.getQueueDepth());
+
+        // Lane should be scheduled again
+        reject.set(false);
+        lanes.execute(1L, task);
+        assertEquals(1, drains.size());
+    }
+
+    @Test
+    void laneIndex() {
+        SerialLanesExecutor executor = new SerialLanesExecutor(3, pool, 1000, UpdatesOverflowPolicy.DROP, metricsService);
+
+        for (long key : new long[]{0L, 1L, -1L, Long.MIN_VALUE, Long.MAX_VALUE, -1001234567890L}) {
+            int index = executor.laneIndex(key);
+            assertTrue((index >= 0) && (index < 3));
+            assertEquals(index, executor.laneIndex(key));
+        }
+    }
+
+    /**
+     * Occupy the lanes of the given keys with the tasks that wait for the returned latch.
+     */
+    private CountDownLatch blockLanes(SerialLanesExecutor executor, long... keys) throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(keys.length);
+        for (long key : keys) {
+            executor.execute(key, () -> {
+                started.countDown();
+                awaitQuietly(release);
+            });
+        }
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        return release;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.config.TelegramBotProperties;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.request.GetUpdates;
+import org.junit.jupiter.api.Test;
+
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class TelegramPollingServiceTest {
+    private final TelegramBot bot = mock(TelegramBot.class);
+    private final TelegramUpdatesHandler updatesHandler = mock(TelegramUpdatesHandler.class);
+
+    @Test
+    void createGetUpdates_Default_ShortPolling() {
+        TelegramPollingService service = new TelegramPollingService(TelegramBotProperties.builder("token").build(), bot, updatesHandler);
+
+        Map<String, Object> parameters = service.createGetUpdates().getParameters();
+        assertFalse(parameters.containsKey("timeout"));
+        assertFalse(parameters.containsKey("limit"));
+        assertFalse(parameters.containsKey("allowed_updates"));
+    }
+
+    @Test
+    void createGetUpdates_LongPolling() {
+        TelegramBotProperties properties = TelegramBotProperties.builder("token")
+                .pollingTimeout(25)
+                .pollingLimit(50)
+                .build();
+        TelegramPollingService service = new TelegramPollingService(properties, bot, updatesHandler, EnumSet.of(MessageType.CALLBACK_QUERY), null);
+
+        GetUpdates getUpdates = service.createGetUpdates();
+        assertEquals(25, getUpdates.getParameters().get("timeout"));
+        assertEquals(50, getUpdates.getParameters().get("limit"));
+        assertArrayEquals(new String[]{"callback_query"}, (Object[]) getUpdates.getParameters().get("allowed_updates"));
+    }
+
+    @Test
+    void createGetUpdates_ExplicitAllowedUpdates() {
+        TelegramBotProperties properties = TelegramBotProperties.builder("token")
+                .allowedUpdates("message", "poll")
+                .build();
+        TelegramPollingService service = new TelegramPollingService(properties, bot, updatesHandler, EnumSet.of(MessageType.CALLBACK_QUERY), null);
+
+        assertArrayEquals(new String[]{"message", "poll"}, (Object[]) service.createGetUpdates().getParameters().get("allowed_updates"));
+    }
+}
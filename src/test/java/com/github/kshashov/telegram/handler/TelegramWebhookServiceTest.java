@@ -0,0 +1,117 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.config.TelegramBotProperties;
+import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.UpdatesListener;
+import com.pengrad.telegrambot.request.SetWebhook;
+import com.pengrad.telegrambot.response.BaseResponse;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class TelegramWebhookServiceTest {
+
+    @Test
+    void enqueue_AsyncWebhook_ReturnStatus() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        TelegramUpdatesHandler updatesHandler = mock(TelegramUpdatesHandler.class);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(updatesHandler).processUpdates(any(), any(), any());
+        MetricsService metricsService = mock(MetricsService.class);
+        TelegramBot bot = mock(TelegramBot.class);
+        BaseResponse response = mock(BaseResponse.class);
+        when(response.isOk()).thenReturn(true);
+        when(bot.execute(any(SetWebhook.class))).thenReturn(response);
+        TelegramBotProperties properties = TelegramBotProperties.builder("1:token")
+                .useWebhook(new SetWebhook().url("https://example.com/"))
+                .asyncWebhook(1, 10)
+                .build();
+
+        TelegramWebhookService service = new TelegramWebhookService(properties, bot, updatesHandler, new WebhookFrontController(1024, metricsService), metricsService);
+        assertEquals(503, service.enqueue("{}".getBytes(StandardCharsets.UTF_8)));
+
+        service.start();
+        assertEquals(400, service.enqueue("".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(400, service.enqueue("{\"message\":{}}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(200, service.enqueue("{\"update_id\":1}".getBytes(StandardCharsets.UTF_8)));
+        verify(updatesHandler, timeout(1000)).processUpdates(any(), any(), any());
+        assertEquals(200, service.enqueue("{\"update_id\":2}".getBytes(StandardCharsets.UTF_8)));
+        assertEquals(429, service.enqueue("{\"update_id\":3}".getBytes(StandardCharsets.UTF_8)));
+        verify(metricsService).onUpdatesRejected(1);
+
+        service.stop();
+        assertEquals(503, service.enqueue("{\"update_id\":4}".getBytes(StandardCharsets.UTF_8)));
+        release.countDown();
+    }
+
+    @Test
+    void start_RegisterEndpointWithSecretToken() {
+        TelegramUpdatesHandler updatesHandler = mock(TelegramUpdatesHandler.class);
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_ALL);
+        TelegramBot bot = mock(TelegramBot.class);
+        BaseResponse response = mock(BaseResponse.class);
+        when(response.isOk()).thenReturn(true);
+        when(bot.execute(any(SetWebhook.class))).thenReturn(response);
+        SetWebhook setWebhook = new SetWebhook().url("https://example.com/");
+        TelegramBotProperties properties = TelegramBotProperties.builder("1:token")
+                .useWebhook(setWebhook)
+                .build();
+        WebhookFrontController frontController = new WebhookFrontController(1024, null);
+
+        TelegramWebhookService service = new TelegramWebhookService(properties, bot, updatesHandler, frontController, null);
+        service.start();
+
+        String url = (String) setWebhook.getParameters().get("url");
+        String path = url.substring("https://example.com".length());
+        String secretToken = (String) setWebhook.getParameters().get("secret_token");
+        assertNotNull(secretToken);
+        assertTrue(secretToken.matches("[A-Za-z0-9_-]+"));
+
+        assertEquals(403, frontController.checkRequest(path, "wrong", 10));
+        assertEquals(200, frontController.checkRequest(path, secretToken, 10));
+        assertEquals(200, frontController.handleBody(path, "{\"update_id\":1}".getBytes(StandardCharsets.UTF_8)));
+        verify(updatesHandler).processUpdatesAndConfirm(eq("1:token"), eq(bot), argThat(updates -> updates.get(0).updateId() == 1));
+        assertEquals(400, frontController.handleBody(path, "{\"message\":{}}".getBytes(StandardCharsets.UTF_8)));
+
+        service.stop();
+        assertEquals(404, frontController.checkRequest(path, secretToken, 10));
+    }
+
+    @Test
+    void accept_UpdateIsNotAccepted_ReturnTooManyRequests() {
+        TelegramUpdatesHandler updatesHandler = mock(TelegramUpdatesHandler.class);
+        when(updatesHandler.processUpdatesAndConfirm(any(), any(), any())).thenReturn(UpdatesListener.CONFIRMED_UPDATES_NONE);
+        TelegramBotProperties properties = TelegramBotProperties.builder("1:token")
+                .useWebhook(new SetWebhook().url("https://example.com/"))
+                .build();
+
+        TelegramWebhookService service = new TelegramWebhookService(properties, mock(TelegramBot.class), updatesHandler, new WebhookFrontController(1024, null), null);
+
+        assertEquals(429, service.accept("{\"update_id\":1}".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void start_KeepConfiguredSecretToken() {
+        TelegramBot bot = mock(TelegramBot.class);
+        BaseResponse response = mock(BaseResponse.class);
+        when(response.isOk()).thenReturn(true);
+        when(bot.execute(any(SetWebhook.class))).thenReturn(response);
+        SetWebhook setWebhook = new SetWebhook().url("https://example.com/").secretToken("secret");
+        TelegramBotProperties properties = TelegramBotProperties.builder("1:token")
+                .useWebhook(setWebhook)
+                .build();
+
+        TelegramWebhookService service = new TelegramWebhookService(properties, bot, mock(TelegramUpdatesHandler.class), new WebhookFrontController(1024, null), null);
+        service.start();
+
+        assertEquals("secret", setWebhook.getParameters().get("secret_token"));
+    }
+}
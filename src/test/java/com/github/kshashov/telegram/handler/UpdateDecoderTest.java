@@ -0,0 +1,110 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.handler.processor.TelegramEvent;
+import com.pengrad.telegrambot.BotUtils;
+import com.pengrad.telegrambot.TelegramBot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class UpdateDecoderTest {
+    private final TelegramBot bot = mock(TelegramBot.class);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"update_id\":1,\"message\":{\"message_id\":1,\"date\":0,\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"chat\":{\"id\":3,\"type\":\"private\"},\"text\":\"/start\",\"entities\":[{\"type\":\"bot_command\",\"offset\":0,\"length\":6}]}}",
+            "{\"update_id\":2,\"edited_message\":{\"message_id\":1,\"date\":0,\"edit_date\":1,\"chat\":{\"id\":3,\"type\":\"group\",\"title\":\"Group\"},\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"text\":\"edited\"}}",
+            "{\"update_id\":3,\"channel_post\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":-100,\"type\":\"channel\"},\"photo\":[{\"file_id\":\"a\",\"file_unique_id\":\"b\",\"width\":1,\"height\":1}]}}",
+            "{\"update_id\":4,\"message\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":3,\"type\":\"group\"},\"left_chat_member\":{\"id\":5,\"is_bot\":false,\"first_name\":\"Left\"}}}",
+            "{\"update_id\":5,\"callback_query\":{\"id\":\"q\",\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"message\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":3,\"type\":\"private\"},\"text\":\"menu\"},\"chat_instance\":\"c\",\"data\":\"button\"}}",
+            "{\"update_id\":6,\"inline_query\":{\"id\":\"q\",\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"query\":\"cats\",\"offset\":\"\"}}",
+            "{\"update_id\":7,\"chosen_inline_result\":{\"result_id\":\"r\",\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"query\":\"dogs\"}}",
+            "{\"update_id\":8,\"pre_checkout_query\":{\"id\":\"q\",\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"currency\":\"USD\",\"total_amount\":100,\"invoice_payload\":\"payload\"}}",
+            "{\"update_id\":9,\"poll\":{\"id\":\"p\",\"question\":\"Why?\",\"options\":[{\"text\":\"Yes\",\"voter_count\":0}],\"total_voter_count\":0,\"is_closed\":false}}",
+            "{\"update_id\":10,\"poll_answer\":{\"poll_id\":\"p\",\"user\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"option_ids\":[0]}}"
+    })
+    void decode_MatchesFullParsing(String json) throws IOException {
+        TelegramEvent expected = new TelegramEvent("token", BotUtils.parseUpdate(json), bot);
+        DecodedUpdate update = UpdateDecoder.decode(json.getBytes(StandardCharsets.UTF_8));
+        TelegramEvent actual = new TelegramEvent("token", update, bot);
+
+        assertEquals(expected.getUpdate().updateId(), update.updateId());
+        assertEquals(expected.getMessageType(), actual.getMessageType());
+        assertEquals(expected.getUser(), actual.getUser());
+        assertEquals(expected.getChat(), actual.getChat());
+        assertEquals(expected.getText(), actual.getText());
+        assertFalse(update.isDecoded());
+
+        assertEquals(expected.getMessage(), actual.getMessage());
+        assertEquals(expected.getUpdate().message(), update.message());
+        assertEquals(expected.getUpdate().editedMessage(), update.editedMessage());
+        assertEquals(expected.getUpdate().channelPost(), update.channelPost());
+        assertEquals(expected.getUpdate().callbackQuery(), update.callbackQuery());
+        assertEquals(expected.getUpdate().inlineQuery(), update.inlineQuery());
+        assertEquals(expected.getUpdate().chosenInlineResult(), update.chosenInlineResult());
+        assertEquals(expected.getUpdate().preCheckoutQuery(), update.preCheckoutQuery());
+        assertEquals(expected.getUpdate().poll(), update.poll());
+        assertEquals(expected.getUpdate().pollAnswer(), update.pollAnswer());
+    }
+
+    @Test
+    void equalsHashCodeToString_NotDecoded() throws IOException {
+        String json = "{\"update_id\":1,\"message\":{\"message_id\":7,\"date\":0,\"chat\":{\"id\":3,\"type\":\"private\"},\"text\":\"test\"}}";
+        DecodedUpdate update = UpdateDecoder.decode(json.getBytes(StandardCharsets.UTF_8));
+        DecodedUpdate same = UpdateDecoder.decode(json.getBytes(StandardCharsets.UTF_8));
+        DecodedUpdate other = UpdateDecoder.decode(json.replace("test", "other").getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(update, same);
+        assertEquals(update.hashCode(), same.hashCode());
+        assertNotEquals(update, other);
+        assertNotEquals(update, BotUtils.parseUpdate(json));
+        assertEquals("DecodedUpdate{update_id=1, type=MESSAGE, size=" + json.length() + "}", update.toString());
+        assertFalse(update.isDecoded());
+        assertFalse(same.isDecoded());
+        assertFalse(other.isDecoded());
+    }
+
+    @Test
+    void decode_FullUpdateIsDecodedLazily() throws IOException {
+        String json = "{\"update_id\":1,\"message\":{\"message_id\":7,\"date\":0,\"chat\":{\"id\":3,\"type\":\"private\"},\"text\":\"test\"}}";
+        DecodedUpdate update = UpdateDecoder.decodeBuffered(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, update.updateId());
+        assertEquals(MessageType.MESSAGE, update.getMessageType());
+        assertEquals("test", update.getText());
+        assertFalse(update.isDecoded());
+
+        assertEquals(7, update.message().messageId());
+        assertTrue(update.isDecoded());
+    }
+
+    @Test
+    void decode_IgnoresUnknownFields() throws IOException {
+        String json = "{\"unknown\":{\"nested\":[1,2,{\"a\":null}]},\"update_id\":1,\"message\":{\"message_id\":1,\"date\":0,\"chat\":{\"id\":3,\"type\":\"private\"},\"text\":null}}";
+        DecodedUpdate update = UpdateDecoder.decode(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(MessageType.MESSAGE, update.getMessageType());
+        assertEquals(3L, update.getChat().id());
+        assertNull(update.getText());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "",
+            "[]",
+            "{\"message\":{}}",
+            "{\"update_id\":\"abc\"}",
+            "{\"update_id\":1,\"message\":{\"chat\":"
+    })
+    void decode_InvalidBody_Throws(String json) {
+        assertThrows(IOException.class, () -> UpdateDecoder.decode(json.getBytes(StandardCharsets.UTF_8)));
+    }
+}
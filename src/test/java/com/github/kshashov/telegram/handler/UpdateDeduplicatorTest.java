@@ -0,0 +1,58 @@
+package com.github.kshashov.telegram.handler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpdateDeduplicatorTest {
+
+    @Test
+    void markSeen_Duplicate_ReturnFalse() {
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(64);
+
+        assertTrue(deduplicator.markSeen(10));
+        assertTrue(deduplicator.markSeen(12));
+        assertFalse(deduplicator.markSeen(10));
+        assertFalse(deduplicator.markSeen(12));
+        assertTrue(deduplicator.markSeen(11));
+        assertFalse(deduplicator.markSeen(11));
+    }
+
+    @Test
+    void markSeen_OutOfWindow_ReturnFalse() {
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(64);
+
+        assertTrue(deduplicator.markSeen(100));
+        assertTrue(deduplicator.markSeen(163));
+        assertTrue(deduplicator.markSeen(101));
+        assertFalse(deduplicator.markSeen(99));
+    }
+
+    @Test
+    void markSeen_WindowMoved_ForgetOldIds() {
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(64);
+
+        assertTrue(deduplicator.markSeen(1));
+        assertTrue(deduplicator.markSeen(66));
+        // Same bit as 2 which was not seen
+        assertTrue(deduplicator.markSeen(65));
+        assertTrue(deduplicator.markSeen(1000));
+        assertTrue(deduplicator.markSeen(999));
+    }
+
+    @Test
+    void forget_RedeliveredUpdate_NotDuplicate() {
+        UpdateDeduplicator deduplicator = new UpdateDeduplicator(64);
+        deduplicator.markSeen(10);
+        deduplicator.markSeen(11);
+
+        deduplicator.forget(11);
+        assertTrue(deduplicator.markSeen(11));
+        assertFalse(deduplicator.markSeen(10));
+    }
+
+    @Test
+    void init_InvalidWindow_ThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new UpdateDeduplicator(0));
+    }
+}
@@ -0,0 +1,42 @@
+package com.github.kshashov.telegram.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadsTest {
+
+    @Test
+    void isSupported_DependsOnRuntimeVersion() {
+        assertEquals(getFeatureVersion() >= 21, VirtualThreads.isSupported());
+    }
+
+    @Test
+    void newVirtualThreadPerTaskExecutor() throws Exception {
+        if (!VirtualThreads.isSupported()) {
+            assertThrows(IllegalStateException.class, VirtualThreads::newVirtualThreadPerTaskExecutor);
+            return;
+        }
+
+        ExecutorService executor = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        try {
+            ThreadLocal<Long> threadLocal = new ThreadLocal<>();
+            Future<Long> result = executor.submit(() -> {
+                threadLocal.set(1L);
+                return threadLocal.get();
+            });
+            assertEquals(1L, result.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int getFeatureVersion() {
+        String version = System.getProperty("java.specification.version");
+        return Integer.parseInt(version.startsWith("1.") ? version.substring(2) : version);
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WebFluxWebhookEndpointRegistrarTest {
+    private static final String TOKEN = "1:token";
+    private MetricsService metricsService;
+    private ToIntFunction<byte[]> consumer;
+    private WebFluxWebhookEndpointRegistrar registrar;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() {
+        metricsService = mock(MetricsService.class);
+        consumer = mock(ToIntFunction.class);
+        when(consumer.applyAsInt(any())).thenReturn(200);
+        WebhookFrontController frontController = new WebhookFrontController(16, metricsService);
+        frontController.register("/bot", new WebhookFrontController.WebhookEndpoint(TOKEN, "secret", consumer));
+
+        registrar = new WebFluxWebhookEndpointRegistrar();
+        registrar.register(frontController);
+    }
+
+    @Test
+    void route_OnlyRegisteredEndpoints() {
+        assertTrue(registrar.getRouterFunction().route(request("/bot", "secret", "{}")).blockOptional().isPresent());
+        assertFalse(registrar.getRouterFunction().route(request("/other", "secret", "{}")).blockOptional().isPresent());
+        assertFalse(registrar.getRouterFunction().route(MockServerRequest.builder()
+                .method(HttpMethod.GET)
+                .uri(URI.create("/bot"))
+                .build()).blockOptional().isPresent());
+    }
+
+    @Test
+    void handle() {
+        assertEquals(200, status(request("/bot", "secret", "{\"update_id\":1}")));
+        verify(consumer).applyAsInt(any());
+
+        assertEquals(403, status(request("/bot", "wrong", "{\"update_id\":1}")));
+        assertEquals(400, status(request("/bot", "secret", "")));
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    void handle_ChunkedBodyTooLarge() {
+        DefaultDataBufferFactory factory = new DefaultDataBufferFactory();
+        Flux<DataBuffer> body = Flux.just(
+                factory.wrap("{\"update_id\":".getBytes(StandardCharsets.UTF_8)),
+                factory.wrap("1000000}".getBytes(StandardCharsets.UTF_8)));
+        ServerRequest request = MockServerRequest.builder()
+                .method(HttpMethod.POST)
+                .uri(URI.create("/bot"))
+                .header(WebhookFrontController.SECRET_TOKEN_HEADER, "secret")
+                .body(body);
+
+        assertEquals(413, status(request));
+        verify(metricsService).onWebhookOversized(TOKEN);
+        verifyNoInteractions(consumer);
+    }
+
+    @Test
+    void handle_BlockingDispatch_EventLoopNotBlocked() throws Exception {
+        // Dispatching blocks like the BLOCK overflow policy with the full task executor
+        CountDownLatch executorFull = new CountDownLatch(1);
+        AtomicReference<Thread> dispatchThread = new AtomicReference<>();
+        when(consumer.applyAsInt(any())).then(invocation -> {
+            dispatchThread.set(Thread.currentThread());
+            executorFull.await(10, TimeUnit.SECONDS);
+            return 200;
+        });
+        CompletableFuture<ServerResponse> response = new CompletableFuture<>();
+
+        // Subscription returns to the caller (the event loop) while the dispatching is blocked
+        registrar.handle(request("/bot", "secret", "{\"update_id\":1}")).subscribe(response::complete, response::completeExceptionally);
+        assertFalse(response.isDone());
+
+        executorFull.countDown();
+        assertEquals(200, response.get(10, TimeUnit.SECONDS).rawStatusCode());
+        assertNotSame(Thread.currentThread(), dispatchThread.get());
+    }
+
+    private int status(ServerRequest request) {
+        ServerResponse response = registrar.handle(request).block();
+        assertNotNull(response);
+        return response.rawStatusCode();
+    }
+
+    private static ServerRequest request(String path, String secretToken, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        Flux<DataBuffer> buffers = (bytes.length > 0) ? Flux.just(new DefaultDataBufferFactory().wrap(bytes)) : Flux.empty();
+        return MockServerRequest.builder()
+                .method(HttpMethod.POST)
+                .uri(URI.create(path))
+                .header(WebhookFrontController.SECRET_TOKEN_HEADER, secretToken)
+                .header("Content-Length", String.valueOf(bytes.length))
+                .body(buffers);
+    }
+}
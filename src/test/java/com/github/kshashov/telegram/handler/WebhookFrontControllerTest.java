@@ -0,0 +1,92 @@
+package com.github.kshashov.telegram.handler;
+
+import com.github.kshashov.telegram.metrics.MetricsService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.ToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WebhookFrontControllerTest {
+    private static final String TOKEN = "1:token";
+    private MetricsService metricsService;
+    private ToIntFunction<byte[]> consumer;
+    private WebhookFrontController frontController;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void init() {
+        metricsService = mock(MetricsService.class);
+        consumer = mock(ToIntFunction.class);
+        when(consumer.applyAsInt(any())).thenReturn(200);
+        frontController = new WebhookFrontController(16, metricsService);
+        frontController.register("/bot", new WebhookFrontController.WebhookEndpoint(TOKEN, "secret", consumer));
+    }
+
+    @Test
+    void checkRequest() {
+        verify(metricsService).registerWebhook(TOKEN);
+
+        assertEquals(200, frontController.checkRequest("/bot", "secret", 16));
+        assertEquals(200, frontController.checkRequest("/bot", "secret", -1));
+
+        assertEquals(404, frontController.checkRequest("/unknown", "secret", 16));
+        verify(metricsService).onWebhookNotFound();
+
+        assertEquals(403, frontController.checkRequest("/bot", null, 16));
+        assertEquals(403, frontController.checkRequest("/bot", "secreT", 16));
+        assertEquals(403, frontController.checkRequest("/bot", "secret1", 16));
+        verify(metricsService, times(3)).onWebhookUnauthorized(TOKEN);
+
+        assertEquals(413, frontController.checkRequest("/bot", "secret", 17));
+        verify(metricsService).onWebhookOversized(TOKEN);
+        verifyNoInteractions(consumer);
+    }
+
+    @Test
+    void checkRequest_WithoutSecretToken() {
+        frontController.register("/other", new WebhookFrontController.WebhookEndpoint(TOKEN, null, consumer));
+
+        assertEquals(200, frontController.checkRequest("/other", null, 16));
+        assertEquals(200, frontController.checkRequest("/other", "any", 16));
+    }
+
+    @Test
+    void handleBody() {
+        byte[] body = " {\"update_id\":1}".getBytes(StandardCharsets.UTF_8);
+        assertEquals(200, frontController.handleBody("/bot", body));
+        verify(consumer).applyAsInt(body);
+        verify(metricsService).onWebhookAccepted(TOKEN, body.length);
+
+        assertEquals(400, frontController.handleBody("/bot", null));
+        assertEquals(400, frontController.handleBody("/bot", new byte[0]));
+        assertEquals(400, frontController.handleBody("/bot", "[]".getBytes(StandardCharsets.UTF_8)));
+        verify(metricsService, times(3)).onWebhookInvalid(TOKEN);
+
+        assertEquals(413, frontController.handleBody("/bot", "{\"update_id\":100}".getBytes(StandardCharsets.UTF_8)));
+        verify(metricsService).onWebhookOversized(TOKEN);
+
+        frontController.unregister("/bot");
+        assertEquals(404, frontController.handleBody("/bot", body));
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    void onBodyTooLarge() {
+        assertTrue(frontController.hasEndpoint("/bot"));
+        assertFalse(frontController.hasEndpoint("/unknown"));
+
+        assertEquals(413, frontController.onBodyTooLarge("/bot"));
+        verify(metricsService).onWebhookOversized(TOKEN);
+    }
+
+    @Test
+    void register_Duplicate_Throws() {
+        assertThrows(IllegalStateException.class,
+                () -> frontController.register("/bot", new WebhookFrontController.WebhookEndpoint(TOKEN, null, consumer)));
+    }
+}
@@ -0,0 +1,91 @@
+package com.github.kshashov.telegram.handler;
+
+import com.pengrad.telegrambot.TelegramBot;
+import com.pengrad.telegrambot.model.Update;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class WebhookIngestQueueTest {
+    private TelegramBot bot;
+    private TelegramUpdatesHandler updatesHandler;
+    private CountDownLatch release;
+
+    @BeforeEach
+    void init() {
+        bot = mock(TelegramBot.class);
+        updatesHandler = mock(TelegramUpdatesHandler.class);
+        release = new CountDownLatch(1);
+        // Block the consumer on the first batch
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(updatesHandler).processUpdates(any(), any(), any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void offer_NotStarted_Reject() {
+        WebhookIngestQueue queue = new WebhookIngestQueue("token", bot, updatesHandler, 2, 10);
+
+        assertFalse(queue.offer(update(1)));
+    }
+
+    @Test
+    void offer_QueueIsFull_Reject() {
+        WebhookIngestQueue queue = new WebhookIngestQueue("token", bot, updatesHandler, 1, 1);
+        queue.start("test-ingest");
+
+        assertTrue(queue.offer(update(1)));
+        verify(updatesHandler, timeout(1000)).processUpdates(any(), any(), any());
+        assertTrue(queue.offer(update(2)));
+        assertFalse(queue.offer(update(3)));
+        queue.stop();
+    }
+
+    @Test
+    void run_ProcessQueuedUpdatesInBatches() {
+        WebhookIngestQueue queue = new WebhookIngestQueue("token", bot, updatesHandler, 10, 2);
+        queue.start("test-ingest");
+        queue.offer(update(1));
+        verify(updatesHandler, timeout(1000)).processUpdates(any(), any(), any());
+
+        queue.offer(update(2));
+        queue.offer(update(3));
+        queue.offer(update(4));
+        queue.stop();
+        assertFalse(queue.offer(update(5)));
+        release.countDown();
+
+        // Queued updates are processed after stop
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Update>> captor = ArgumentCaptor.forClass(List.class);
+        verify(updatesHandler, timeout(1000).times(3)).processUpdates(eq("token"), eq(bot), captor.capture());
+        assertEquals(2, captor.getAllValues().get(1).size());
+        assertEquals(1, captor.getAllValues().get(2).size());
+        assertEquals(4, captor.getAllValues().get(2).get(0).updateId());
+    }
+
+    @Test
+    void init_InvalidCapacity_ThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new WebhookIngestQueue("token", bot, updatesHandler, 0, 10));
+    }
+
+    private Update update(int id) {
+        Update update = mock(Update.class);
+        when(update.updateId()).thenReturn(id);
+        return update;
+    }
+}
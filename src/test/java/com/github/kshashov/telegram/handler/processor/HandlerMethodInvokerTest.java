@@ -0,0 +1,55 @@
+package com.github.kshashov.telegram.handler.processor;
+
+import com.github.kshashov.telegram.TestUtils;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HandlerMethodInvokerTest {
+    private int invocations = 0;
+
+    @Test
+    void invoke() throws Throwable {
+        HandlerMethodInvoker invoker = HandlerMethodInvoker.of(TestUtils.findMethodByTitle(this, "concat"));
+
+        assertEquals("a1true", invoker.invoke(this, new Object[]{"a", 1, true}));
+    }
+
+    @Test
+    void invoke_VoidMethod_ReturnNull() throws Throwable {
+        HandlerMethodInvoker invoker = HandlerMethodInvoker.of(TestUtils.findMethodByTitle(this, "increment"));
+
+        assertNull(invoker.invoke(this, new Object[0]));
+        assertEquals(1, invocations);
+    }
+
+    @Test
+    void invoke_ExceptionInMethod_ThrowUnwrappedException() {
+        HandlerMethodInvoker invoker = HandlerMethodInvoker.of(TestUtils.findMethodByTitle(this, "fail"));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> invoker.invoke(this, new Object[0]));
+    }
+
+    @Test
+    void invoke_StaticMethod() throws Throwable {
+        HandlerMethodInvoker invoker = HandlerMethodInvoker.of(TestUtils.findMethodByTitle(this, "staticMethod"));
+
+        assertEquals("static test", invoker.invoke(this, new Object[]{"test"}));
+    }
+
+    private String concat(String text, int number, Boolean flag) {
+        return text + number + flag;
+    }
+
+    void increment() {
+        invocations++;
+    }
+
+    String fail() {
+        throw new IndexOutOfBoundsException();
+    }
+
+    static String staticMethod(String text) {
+        return "static " + text;
+    }
+}
@@ -2,21 +2,31 @@ package com.github.kshashov.telegram.handler.processor;
 
 import com.github.kshashov.telegram.TelegramSessionResolver;
 import com.github.kshashov.telegram.TestUtils;
+import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramResponses;
 import com.github.kshashov.telegram.api.TelegramSession;
 import com.github.kshashov.telegram.handler.HandlerMethodContainer;
 import com.github.kshashov.telegram.handler.processor.arguments.BotHandlerMethodArgumentResolver;
 import com.github.kshashov.telegram.handler.processor.arguments.BotRequestMethodArgumentResolver;
 import com.github.kshashov.telegram.handler.processor.response.BotBaseRequestMethodProcessor;
 import com.github.kshashov.telegram.handler.processor.response.BotHandlerMethodReturnValueHandler;
+import com.github.kshashov.telegram.handler.processor.response.BotTelegramResponsesMethodProcessor;
 import com.github.kshashov.telegram.metrics.MetricsService;
+import com.pengrad.telegrambot.Callback;
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.model.Update;
+import com.pengrad.telegrambot.request.AnswerCallbackQuery;
 import com.pengrad.telegrambot.request.BaseRequest;
 import com.pengrad.telegrambot.request.SendMessage;
+import com.pengrad.telegrambot.response.BaseResponse;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -31,6 +41,11 @@ public class RequestDispatcherTest {
     private TelegramSessionResolver.TelegramSessionHolder sessionHolder;
     private SendMessage sendMessage = new SendMessage(12, "text");
     private MetricsService metricsService;
+    private TelegramRequest receivedRequest;
+    private Callback requestCallback = mock(Callback.class);
+    private Callback responseCallback = mock(Callback.class);
+    private AnswerCallbackQuery answer = new AnswerCallbackQuery("id");
+    private CompletableFuture<BaseRequest> asyncResult = new CompletableFuture<>();
 
     @BeforeEach
     void init() {
@@ -109,20 +124,172 @@ public class RequestDispatcherTest {
         verify(sessionHolder).releaseSessionId();
     }
 
+    @Test
+    void execute_TelegramRequest_ReuseInstance() throws Exception {
+        HashMap<String, String> variables = new HashMap<>();
+        HandlerMethodContainer.HandlerLookupResult lookupResult = new HandlerMethodContainer.HandlerLookupResult(
+                new HandlerMethod(this, TestUtils.findMethodByTitle(this, "methodRequest")),
+                "pattern",
+                variables
+        );
+        when(handlerMethodContainer.lookupHandlerMethod(any())).thenReturn(lookupResult);
+        telegramEvent = new TelegramRequest("", mock(Update.class), mock(TelegramBot.class));
+        TelegramCallback result = doExecute();
+
+        assertNotNull(result);
+        assertSame(telegramEvent, receivedRequest);
+        assertEquals("pattern", receivedRequest.getBasePattern());
+        assertSame(variables, receivedRequest.getTemplateVariables());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void execute_MultipleRequests_LinkInOrder() throws Exception {
+        HandlerMethodContainer.HandlerLookupResult lookupResult = new HandlerMethodContainer.HandlerLookupResult(
+                new HandlerMethod(this, TestUtils.findMethodByTitle(this, "methodResponses")),
+                "pattern",
+                new HashMap<>()
+        );
+        when(handlerMethodContainer.lookupHandlerMethod(any())).thenReturn(lookupResult);
+        returnValueHandler = new BotTelegramResponsesMethodProcessor();
+        TelegramCallback result = doExecute();
+
+        assertNotNull(result);
+        assertSame(answer, result.getRequest());
+        assertNotNull(result.getNext());
+        assertSame(sendMessage, result.getNext().getRequest());
+        assertNull(result.getNext().getNext());
+
+        BaseResponse response = mock(BaseResponse.class);
+        result.onResponse(answer, response);
+        result.getNext().onResponse(sendMessage, response);
+        verify(responseCallback).onResponse(sendMessage, response);
+        verify(requestCallback).onResponse(answer, response);
+        verify(requestCallback).onResponse(sendMessage, response);
+        verifyNoMoreInteractions(responseCallback);
+    }
+
+    @Test
+    void executeAsync_SyncHandler_ReturnCompleted() throws Exception {
+        HandlerMethodContainer.HandlerLookupResult lookupResult = new HandlerMethodContainer.HandlerLookupResult(
+                new HandlerMethod(this, TestUtils.findMethodByTitle(this, "method")),
+                "pattern",
+                new HashMap<>()
+        );
+        when(handlerMethodContainer.lookupHandlerMethod(any())).thenReturn(lookupResult);
+        CompletableFuture<TelegramCallback> result = dispatcher().executeAsync(telegramEvent).toCompletableFuture();
+
+        assertTrue(result.isDone());
+        assertEquals(sendMessage, result.get().getRequest());
+        verify(sessionHolder).releaseSessionId();
+        verify(sessionHolder, never()).runInSession(any());
+    }
+
+    @Test
+    void executeAsync_AsyncHandler_CompleteInSession() throws Exception {
+        HandlerMethodContainer.HandlerLookupResult lookupResult = new HandlerMethodContainer.HandlerLookupResult(
+                new HandlerMethod(this, TestUtils.findMethodByTitle(this, "methodAsync")),
+                "pattern",
+                new HashMap<>()
+        );
+        when(handlerMethodContainer.lookupHandlerMethod(any())).thenReturn(lookupResult);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(sessionHolder).runInSession(any());
+        CompletableFuture<TelegramCallback> result = dispatcher().executeAsync(telegramEvent).toCompletableFuture();
+
+        // The worker thread is released before the result is completed
+        assertFalse(result.isDone());
+        verify(sessionHolder).releaseSessionId();
+        verify(metricsService, never()).onUpdateSuccess(any(), any());
+
+        asyncResult.complete(sendMessage);
+        assertTrue(result.isDone());
+        assertEquals(sendMessage, result.get().getRequest());
+        verify(sessionHolder, times(2)).runInSession(any());
+        verify(metricsService).onUpdateSuccess(any(), any());
+    }
+
+    @Test
+    void executeAsync_AsyncHandlerFailed_CompleteExceptionally() {
+        HandlerMethodContainer.HandlerLookupResult lookupResult = new HandlerMethodContainer.HandlerLookupResult(
+                new HandlerMethod(this, TestUtils.findMethodByTitle(this, "methodAsync")),
+                "pattern",
+                new HashMap<>()
+        );
+        when(handlerMethodContainer.lookupHandlerMethod(any())).thenReturn(lookupResult);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(sessionHolder).runInSession(any());
+        CompletableFuture<TelegramCallback> result = dispatcher().executeAsync(telegramEvent).toCompletableFuture();
+
+        asyncResult.completeExceptionally(new IllegalStateException());
+        assertTrue(result.isCompletedExceptionally());
+        verify(metricsService).onUpdateError(lookupResult.getHandlerMethod());
+        verify(metricsService, never()).onUpdateSuccess(any(), any());
+    }
+
+    @Test
+    void executeAsync_AsyncHandlerNeverCompleted_FailByTimeout() throws Exception {
+        HandlerMethodContainer.HandlerLookupResult lookupResult = new HandlerMethodContainer.HandlerLookupResult(
+                new HandlerMethod(this, TestUtils.findMethodByTitle(this, "methodAsync")),
+                "pattern",
+                new HashMap<>()
+        );
+        when(handlerMethodContainer.lookupHandlerMethod(any())).thenReturn(lookupResult);
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(0)).run();
+            return null;
+        }).when(sessionHolder).runInSession(any());
+        RequestDispatcher dispatcher = new RequestDispatcher(handlerMethodContainer, sessionResolver, argumentResolver, returnValueHandler, metricsService, 50);
+        CompletableFuture<TelegramCallback> result = dispatcher.executeAsync(telegramEvent).toCompletableFuture();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof TimeoutException);
+        verify(metricsService).onUpdateError(lookupResult.getHandlerMethod());
+
+        // Late result is ignored
+        asyncResult.complete(sendMessage);
+        verify(metricsService, never()).onUpdateSuccess(any(), any());
+        verify(metricsService, times(1)).onUpdateError(any());
+    }
+
     TelegramCallback doExecute() throws Exception {
-        RequestDispatcher dispatcher = new RequestDispatcher(
+        return dispatcher().execute(telegramEvent);
+    }
+
+    RequestDispatcher dispatcher() {
+        return new RequestDispatcher(
                 handlerMethodContainer,
                 sessionResolver,
                 argumentResolver,
                 returnValueHandler,
                 metricsService);
-        return dispatcher.execute(telegramEvent);
+    }
+
+    CompletableFuture<BaseRequest> methodAsync() {
+        return asyncResult;
     }
 
     BaseRequest method() {
         return sendMessage;
     }
 
+    BaseRequest methodRequest(TelegramRequest request) {
+        receivedRequest = request;
+        return sendMessage;
+    }
+
+    TelegramResponses methodResponses(TelegramRequest request) {
+        request.setCallback(requestCallback);
+        return TelegramResponses.builder()
+                .add(answer)
+                .add(sendMessage, responseCallback)
+                .build();
+    }
+
     BaseRequest methodNull() {
         return null;
     }
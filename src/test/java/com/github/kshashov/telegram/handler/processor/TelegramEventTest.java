@@ -1,15 +1,20 @@
 package com.github.kshashov.telegram.handler.processor;
 
 import com.github.kshashov.telegram.api.MessageType;
+import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.handler.DecodedUpdate;
+import com.github.kshashov.telegram.handler.UpdateDecoder;
 import com.pengrad.telegrambot.TelegramBot;
 import com.pengrad.telegrambot.model.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertNull;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
 
 public class TelegramEventTest {
     private Update update;
@@ -217,4 +222,59 @@ public class TelegramEventTest {
         assertNull(event.getUser());
         assertNull(event.getText());
     }
+
+    @Test
+    void callbackQueryWithoutMessage() {
+        CallbackQuery callbackQuery = mock(CallbackQuery.class);
+        when(callbackQuery.from()).thenReturn(user);
+        when(callbackQuery.data()).thenReturn("test");
+
+        when(update.callbackQuery()).thenReturn(callbackQuery);
+        TelegramEvent event = new TelegramEvent(token, update, bot);
+
+        assertEquals(MessageType.CALLBACK_QUERY, event.getMessageType());
+        assertNull(event.getChat());
+        assertEquals(user, event.getUser());
+        assertEquals("test", event.getText());
+    }
+
+    @Test
+    void decodedUpdate() throws IOException {
+        String json = "{\"update_id\":1,\"message\":{\"message_id\":1,\"date\":0,\"from\":{\"id\":2,\"is_bot\":false,\"first_name\":\"User\"},\"chat\":{\"id\":3,\"type\":\"private\"},\"text\":\"test\"}}";
+        DecodedUpdate decodedUpdate = UpdateDecoder.decode(json.getBytes(StandardCharsets.UTF_8));
+        TelegramEvent event = new TelegramEvent(token, decodedUpdate, bot);
+
+        assertEquals(MessageType.MESSAGE, event.getMessageType());
+        assertEquals(2L, event.getUser().id());
+        assertEquals(3L, event.getChat().id());
+        assertEquals("test", event.getText());
+        assertFalse(decodedUpdate.isDecoded());
+
+        assertEquals(1, event.getMessage().messageId());
+        assertTrue(decodedUpdate.isDecoded());
+    }
+
+    @Test
+    void request() {
+        Message message = mock(Message.class);
+        when(message.chat()).thenReturn(chat);
+        when(message.from()).thenReturn(user);
+        when(message.text()).thenReturn("test");
+
+        when(update.message()).thenReturn(message);
+        TelegramEvent event = new TelegramEvent(token, update, bot);
+        TelegramRequest request = new TelegramRequest(event);
+        request.bindHandlerMapping("pattern", Collections.emptyMap());
+
+        assertEquals(update, request.getUpdate());
+        assertEquals(bot, request.getTelegramBot());
+        assertEquals(MessageType.MESSAGE, request.getMessageType());
+        assertEquals(chat, request.getChat());
+        assertEquals(user, request.getUser());
+        assertEquals(message, request.getMessage());
+        assertEquals("test", request.getText());
+        assertEquals("pattern", request.getBasePattern());
+        assertEquals(Collections.emptyMap(), request.getTemplateVariables());
+        verify(update, times(1)).message();
+    }
 }
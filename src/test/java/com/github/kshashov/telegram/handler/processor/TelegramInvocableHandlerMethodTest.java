@@ -2,29 +2,38 @@ package com.github.kshashov.telegram.handler.processor;
 
 import com.github.kshashov.telegram.TestUtils;
 import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramResponses;
 import com.github.kshashov.telegram.api.TelegramSession;
 import com.github.kshashov.telegram.handler.processor.arguments.BotHandlerMethodArgumentResolver;
 import com.github.kshashov.telegram.handler.processor.arguments.BotHandlerMethodArgumentResolverComposite;
 import com.github.kshashov.telegram.handler.processor.response.BotHandlerMethodReturnValueHandler;
 import com.github.kshashov.telegram.handler.processor.response.BotHandlerMethodReturnValueHandlerComposite;
 import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.SendMessage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
 
 public class TelegramInvocableHandlerMethodTest {
     private TelegramRequest telegramRequest;
     private List<BotHandlerMethodArgumentResolver> argumentResolvers;
     private List<BotHandlerMethodReturnValueHandler> returnValueHandlers;
     private TelegramSession telegramSession;
+    private Object objectResult;
+    private CompletableFuture<String> futureResult = new CompletableFuture<>();
 
     @BeforeEach
     void init() {
@@ -39,7 +48,7 @@ public class TelegramInvocableHandlerMethodTest {
         HandlerMethod handlerMethod = handlerMethod("testExceptionResponseMethod");
 
         TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
-        assertThrows(IllegalStateException.class, () -> invocable.invokeAndHandle(telegramRequest, telegramSession));
+        assertThrows(IllegalStateException.class, () -> invocable.invokeAndHandleAll(telegramRequest, telegramSession));
     }
 
     @Test
@@ -53,7 +62,7 @@ public class TelegramInvocableHandlerMethodTest {
 
         TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
 
-        assertThrows(IllegalArgumentException.class, () -> invocable.invokeAndHandle(telegramRequest, telegramSession));
+        assertThrows(IllegalArgumentException.class, () -> invocable.invokeAndHandleAll(telegramRequest, telegramSession));
     }
 
     @Test
@@ -65,58 +74,109 @@ public class TelegramInvocableHandlerMethodTest {
         when(resolver.resolveArgument(any(), any(), any())).thenReturn("test");
         argumentResolvers.add(resolver);
 
-        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
-
-        assertThrows(NullPointerException.class, () -> invocable.invokeAndHandle(telegramRequest, telegramSession));
+        // Arguments are resolved in advance
+        assertThrows(NullPointerException.class, () -> invocable(handlerMethod, argumentResolvers, returnValueHandlers));
     }
 
     @Test
     void invokeAndHandle_ExceptionInReturnValueHandlerHandleReturnValue_ThrowException() {
         HandlerMethod handlerMethod = handlerMethod("testWithoutArgumentsMethod");
 
-        BotHandlerMethodReturnValueHandler handler = mock(BotHandlerMethodReturnValueHandler.class);
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
         when(handler.supportsReturnType(any())).thenReturn(true);
         when(handler.handleReturnValue(any(), any(), any())).thenThrow(IllegalArgumentException.class);
         returnValueHandlers.add(handler);
 
         TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
 
-        assertThrows(IllegalArgumentException.class, () -> invocable.invokeAndHandle(telegramRequest, telegramSession));
+        assertThrows(IllegalArgumentException.class, () -> invocable.invokeAndHandleAll(telegramRequest, telegramSession));
     }
 
     @Test
-    void invokeAndHandle_ExceptionInReturnValueHandlerSupportsReturnType_ThrowException() {
-        HandlerMethod handlerMethod = handlerMethod("testWithArgumentMethod");
+    void invocable_ExceptionInReturnValueHandlerSupportsReturnType_ThrowException() {
+        HandlerMethod handlerMethod = handlerMethod("testWithoutArgumentsMethod");
 
-        BotHandlerMethodReturnValueHandler handler = mock(BotHandlerMethodReturnValueHandler.class);
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
         when(handler.supportsReturnType(any())).thenThrow(NullPointerException.class);
         when(handler.handleReturnValue(any(), any(), any())).thenReturn(null);
         returnValueHandlers.add(handler);
 
+        assertThrows(NullPointerException.class, () -> invocable(handlerMethod, argumentResolvers, returnValueHandlers));
+    }
+
+    @Test
+    void invokeAndHandle_FinalReturnType_SelectHandlerOnce() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testWithoutArgumentsMethod");
+
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
+        when(handler.supportsReturnType(any())).thenReturn(true);
+        returnValueHandlers.add(handler);
+
         TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+        invocable.invokeAndHandleAll(telegramRequest, telegramSession);
+        invocable.invokeAndHandleAll(telegramRequest, telegramSession);
 
-        assertThrows(NullPointerException.class, () -> invocable.invokeAndHandle(telegramRequest, telegramSession));
+        verify(handler, times(1)).supportsReturnType(any());
+        verify(handler, times(2)).handleReturnValue(eq("test"), argThat(p -> p.getParameterType() == String.class), any());
     }
 
     @Test
-    void invokeAndHandle_UnsupportedParameter_NullParameter() throws Exception {
-        HandlerMethod handlerMethod = handlerMethod("testNullParameterMethod");
+    void invokeAndHandle_ObjectReturnType_SelectHandlerForEachClass() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testObjectMethod");
+
+        BotHandlerMethodReturnValueHandler stringHandler = returnValueHandler();
+        when(stringHandler.supportsReturnType(any())).then((i) -> i.<MethodParameter>getArgument(0).getParameterType() == String.class);
+        BotHandlerMethodReturnValueHandler integerHandler = returnValueHandler();
+        when(integerHandler.supportsReturnType(any())).then((i) -> i.<MethodParameter>getArgument(0).getParameterType() == Integer.class);
+        returnValueHandlers.add(stringHandler);
+        returnValueHandlers.add(integerHandler);
+
         TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+        objectResult = "test";
+        invocable.invokeAndHandleAll(telegramRequest, telegramSession);
+        invocable.invokeAndHandleAll(telegramRequest, telegramSession);
+        objectResult = 1;
+        invocable.invokeAndHandleAll(telegramRequest, telegramSession);
+
+        verify(stringHandler, times(2)).handleReturnValue(eq("test"), any(), any());
+        verify(integerHandler, times(1)).handleReturnValue(eq(1), any(), any());
+        // declared type, String and Integer
+        verify(stringHandler, times(3)).supportsReturnType(any());
+    }
 
-        invocable.invokeAndHandle(telegramRequest, telegramSession);
+    @Test
+    void invocable_UnsupportedParameter_ThrowIllegalStateException() {
+        HandlerMethod handlerMethod = handlerMethod("testNullParameterMethod");
+
+        assertThrows(IllegalStateException.class, () -> invocable(handlerMethod, argumentResolvers, returnValueHandlers));
     }
 
     @Test
     void invokeAndHandle_NullParameter_NullParameter() throws Exception {
         HandlerMethod handlerMethod = handlerMethod("testNullParameterMethod");
-        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
 
         BotHandlerMethodArgumentResolver resolver = mock(BotHandlerMethodArgumentResolver.class);
         when(resolver.supportsParameter(any())).thenReturn(true);
         when(resolver.resolveArgument(any(), any(), any())).thenReturn(null);
         argumentResolvers.add(resolver);
 
-        invocable.invokeAndHandle(telegramRequest, telegramSession);
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+        invocable.invokeAndHandleAll(telegramRequest, telegramSession);
+    }
+
+    @Test
+    void invokeAndHandle_ResolverCreatesExtractor_UseExtractor() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testCorrectMethod");
+
+        BotHandlerMethodArgumentResolver resolver = mock(BotHandlerMethodArgumentResolver.class);
+        when(resolver.supportsParameter(any())).thenReturn(true);
+        when(resolver.createExtractor(any())).thenReturn((request, session) -> "resolved");
+        argumentResolvers.add(resolver);
+
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+        invocable.invokeAndHandleAll(telegramRequest, telegramSession);
+
+        verify(resolver, never()).resolveArgument(any(), any(), any());
     }
 
     @Test
@@ -124,21 +184,21 @@ public class TelegramInvocableHandlerMethodTest {
         HandlerMethod handlerMethod = handlerMethod("testWithoutArgumentsMethod");
         TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
 
-        assertNull(invocable.invokeAndHandle(telegramRequest, telegramSession));
+        assertNull(invocable.invokeAndHandleAll(telegramRequest, telegramSession));
     }
 
     @Test
     void invokeAndHandle_NullReturnValue_ReturnNull() throws Exception {
         HandlerMethod handlerMethod = handlerMethod("testWithoutArgumentsMethod");
 
-        BotHandlerMethodReturnValueHandler handler = mock(BotHandlerMethodReturnValueHandler.class);
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
         when(handler.supportsReturnType(any())).thenReturn(true);
         when(handler.handleReturnValue(any(), any(), any())).thenReturn(null);
         returnValueHandlers.add(handler);
 
         TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
 
-        assertNull(invocable.invokeAndHandle(telegramRequest, telegramSession));
+        assertNull(invocable.invokeAndHandleAll(telegramRequest, telegramSession));
     }
 
     @Test
@@ -151,7 +211,7 @@ public class TelegramInvocableHandlerMethodTest {
         argumentResolvers.add(resolver);
 
         BaseRequest handled = mock(BaseRequest.class);
-        BotHandlerMethodReturnValueHandler handler = mock(BotHandlerMethodReturnValueHandler.class);
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
         when(handler.supportsReturnType(any())).thenReturn(true);
         when(handler.handleReturnValue(any(), any(), any())).then((value) -> {
             // check that argument was passed correctly
@@ -162,7 +222,119 @@ public class TelegramInvocableHandlerMethodTest {
 
         TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
 
-        assertEquals(handled, invocable.invokeAndHandle(telegramRequest, telegramSession));
+        TelegramResponses responses = invocable.invokeAndHandleAll(telegramRequest, telegramSession);
+        assertNotNull(responses);
+        assertEquals(1, responses.getResponses().size());
+        assertEquals(handled, responses.getResponses().get(0).getRequest());
+    }
+
+    @Test
+    void invokeAndHandle_MultipleRequests_ReturnAll() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testWithoutArgumentsMethod");
+
+        TelegramResponses handled = TelegramResponses.of(mock(BaseRequest.class), mock(BaseRequest.class));
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
+        when(handler.supportsReturnType(any())).thenReturn(true);
+        doReturn(handled).when(handler).handleReturnValues(any(), any(), any());
+        returnValueHandlers.add(handler);
+
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+
+        assertSame(handled, invocable.invokeAndHandleAll(telegramRequest, telegramSession));
+        verify(handler, never()).handleReturnValue(any(), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    void invokeAndHandle_MultipleRequests_ReturnFirst() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testWithoutArgumentsMethod");
+
+        BaseRequest first = mock(BaseRequest.class);
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
+        when(handler.supportsReturnType(any())).thenReturn(true);
+        doReturn(TelegramResponses.of(first, mock(BaseRequest.class))).when(handler).handleReturnValues(any(), any(), any());
+        returnValueHandlers.add(handler);
+
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+
+        assertSame(first, invocable.invokeAndHandle(telegramRequest, telegramSession));
+    }
+
+    @Test
+    void invokeAndHandle_AsyncMethod_ThrowException() {
+        HandlerMethod handlerMethod = handlerMethod("testFutureMethod");
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+
+        assertTrue(invocable.isAsync());
+        assertThrows(IllegalStateException.class, () -> invocable.invokeAndHandleAll(telegramRequest, telegramSession));
+    }
+
+    @Test
+    void invokeAndHandleAsync_CompletableFuture_HandleValueByExecutor() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testFutureMethod");
+
+        BaseRequest handled = mock(BaseRequest.class);
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
+        when(handler.supportsReturnType(any())).then((i) -> i.<MethodParameter>getArgument(0).getParameterType() == String.class);
+        when(handler.handleReturnValue(eq("test"), argThat(p -> p.getNestingLevel() == 2), any())).thenReturn(handled);
+        returnValueHandlers.add(handler);
+        List<Runnable> continuations = new ArrayList<>();
+
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+        CompletableFuture<TelegramResponses> result = invocable.invokeAndHandleAsync(telegramRequest, telegramSession, continuations::add).toCompletableFuture();
+
+        assertFalse(result.isDone());
+        futureResult.complete("test");
+        assertFalse(result.isDone());
+        assertEquals(1, continuations.size());
+
+        continuations.get(0).run();
+        assertEquals(handled, result.get().getResponses().get(0).getRequest());
+    }
+
+    @Test
+    void invokeAndHandleAsync_Flux_HandleEachValue() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testFluxMethod");
+
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
+        when(handler.supportsReturnType(any())).thenReturn(true);
+        when(handler.handleReturnValue(any(), any(), any())).then((i) -> new SendMessage(1L, i.getArgument(0)));
+        returnValueHandlers.add(handler);
+
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+        TelegramResponses result = invocable.invokeAndHandleAsync(telegramRequest, telegramSession, Runnable::run).toCompletableFuture().get();
+
+        assertEquals(2, result.getResponses().size());
+        assertEquals("first", result.getResponses().get(0).getRequest().getParameters().get("text"));
+        assertEquals("second", result.getResponses().get(1).getRequest().getParameters().get("text"));
+        // Handler is selected once for the String values
+        verify(handler, times(2)).supportsReturnType(any());
+    }
+
+    @Test
+    void invokeAndHandleAsync_EmptyMono_ReturnNull() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testMonoMethod");
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+
+        assertNull(invocable.invokeAndHandleAsync(telegramRequest, telegramSession, Runnable::run).toCompletableFuture().get());
+    }
+
+    @Test
+    void invokeAndHandleAsync_SyncMethod_ReturnCompleted() throws Exception {
+        HandlerMethod handlerMethod = handlerMethod("testWithoutArgumentsMethod");
+
+        BaseRequest handled = mock(BaseRequest.class);
+        BotHandlerMethodReturnValueHandler handler = returnValueHandler();
+        when(handler.supportsReturnType(any())).thenReturn(true);
+        when(handler.handleReturnValue(any(), any(), any())).thenReturn(handled);
+        returnValueHandlers.add(handler);
+
+        TelegramInvocableHandlerMethod invocable = invocable(handlerMethod, argumentResolvers, returnValueHandlers);
+        CompletableFuture<TelegramResponses> result = invocable.invokeAndHandleAsync(telegramRequest, telegramSession, (r) -> fail()).toCompletableFuture();
+
+        assertFalse(invocable.isAsync());
+        assertTrue(result.isDone());
+        assertEquals(handled, result.get().getResponses().get(0).getRequest());
     }
 
     String testCorrectMethod(String text) {
@@ -183,6 +355,22 @@ public class TelegramInvocableHandlerMethodTest {
         return null;
     }
 
+    Object testObjectMethod() {
+        return objectResult;
+    }
+
+    CompletableFuture<String> testFutureMethod() {
+        return futureResult;
+    }
+
+    Flux<String> testFluxMethod() {
+        return Flux.just("first", "second");
+    }
+
+    Mono<String> testMonoMethod() {
+        return Mono.empty();
+    }
+
     String testExceptionResponseMethod() {
         throw new IllegalArgumentException("test");
     }
@@ -198,4 +386,9 @@ public class TelegramInvocableHandlerMethodTest {
                 new BotHandlerMethodArgumentResolverComposite(argumentResolvers),
                 new BotHandlerMethodReturnValueHandlerComposite(returnValueHandlers));
     }
+
+    BotHandlerMethodReturnValueHandler returnValueHandler() {
+        // Default methods delegate to the mocked ones
+        return mock(BotHandlerMethodReturnValueHandler.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
+    }
 }
@@ -144,6 +144,28 @@ public class BotHandlerMethodArgumentResolverCompositeTest {
                 .forEach(Mockito::verifyNoMoreInteractions);
     }
 
+    @Test
+    void createExtractor_UnsupportedArgument_ThrowIllegalStateException() {
+        BotHandlerMethodArgumentResolverComposite processor =
+                new BotHandlerMethodArgumentResolverComposite(resolvers);
+
+        assertThrows(IllegalStateException.class, () -> processor.createExtractor(values[0]));
+    }
+
+    @Test
+    void createExtractor_ResolverWithoutExtractor_DelegateToResolver() {
+        BotHandlerMethodArgumentResolver handler = mock(BotHandlerMethodArgumentResolver.class);
+        when(handler.supportsParameter(any(MethodParameter.class))).thenReturn(true);
+        when(handler.resolveArgument(any(), any(), any())).thenReturn("text");
+        resolvers.add(4, handler);
+
+        BotHandlerMethodArgumentResolverComposite processor =
+                new BotHandlerMethodArgumentResolverComposite(resolvers);
+
+        BotHandlerMethodArgumentExtractor extractor = processor.createExtractor(values[4]);
+        assertEquals("text", extractor.extract(telegramRequest, telegramSession));
+    }
+
     public void method(String unsupported, int unSupported1Primitive, Integer unSupportedClass, BaseRequest supported, SendMessage supportedInherit) {
     }
 }
@@ -0,0 +1,139 @@
+package com.github.kshashov.telegram.handler.processor.response;
+
+import com.github.kshashov.telegram.TestUtils;
+import com.github.kshashov.telegram.api.TelegramRequest;
+import com.github.kshashov.telegram.api.TelegramResponses;
+import com.pengrad.telegrambot.Callback;
+import com.pengrad.telegrambot.request.AnswerCallbackQuery;
+import com.pengrad.telegrambot.request.BaseRequest;
+import com.pengrad.telegrambot.request.SendMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class BotTelegramResponsesMethodProcessorTest {
+
+    private BotTelegramResponsesMethodProcessor processor;
+    private TelegramRequest telegramRequest;
+    private SendMessage sendMessage = new SendMessage(12L, "text");
+    private AnswerCallbackQuery answer = new AnswerCallbackQuery("id");
+
+    @BeforeEach
+    void prepare() {
+        this.processor = new BotTelegramResponsesMethodProcessor();
+        this.telegramRequest = mock(TelegramRequest.class);
+    }
+
+    @Test
+    void supportsReturnType() {
+        assertTrue(processor.supportsReturnType(returnType("responses")));
+        assertTrue(processor.supportsReturnType(returnType("list")));
+        assertTrue(processor.supportsReturnType(returnType("wildcardList")));
+        assertTrue(processor.supportsReturnType(returnType("set")));
+        assertTrue(processor.supportsReturnType(returnType("array")));
+        assertTrue(processor.supportsReturnType(returnType("sendMessageArray")));
+
+        assertFalse(processor.supportsReturnType(returnType("request")));
+        assertFalse(processor.supportsReturnType(returnType("stringList")));
+        assertFalse(processor.supportsReturnType(returnType("rawList")));
+        assertFalse(processor.supportsReturnType(returnType("stringArray")));
+        assertFalse(processor.supportsReturnType(returnType("string")));
+    }
+
+    @Test
+    void handleReturnValues_List_KeepOrder() {
+        TelegramResponses result = processor.handleReturnValues(Arrays.asList(sendMessage, null, answer), returnType("list"), telegramRequest);
+
+        assertNotNull(result);
+        assertEquals(2, result.getResponses().size());
+        assertSame(sendMessage, result.getResponses().get(0).getRequest());
+        assertSame(answer, result.getResponses().get(1).getRequest());
+        assertNull(result.getResponses().get(0).getCallback());
+    }
+
+    @Test
+    void handleReturnValues_Array_KeepOrder() {
+        TelegramResponses result = processor.handleReturnValues(new BaseRequest[]{answer, sendMessage}, returnType("array"), telegramRequest);
+
+        assertNotNull(result);
+        assertSame(answer, result.getResponses().get(0).getRequest());
+        assertSame(sendMessage, result.getResponses().get(1).getRequest());
+        assertSame(answer, processor.handleReturnValue(new BaseRequest[]{answer, sendMessage}, returnType("array"), telegramRequest));
+    }
+
+    @Test
+    void handleReturnValues_TelegramResponses_ReturnSame() {
+        Callback callback = mock(Callback.class);
+        TelegramResponses responses = TelegramResponses.builder()
+                .add(answer)
+                .add(sendMessage, callback)
+                .build();
+
+        assertSame(responses, processor.handleReturnValues(responses, returnType("responses"), telegramRequest));
+        assertSame(callback, responses.getResponses().get(1).getCallback());
+    }
+
+    @Test
+    void handleReturnValues_IllegalValues_ReturnNull() {
+        assertNull(processor.handleReturnValues(null, returnType("list"), telegramRequest));
+        assertNull(processor.handleReturnValues(Collections.singletonList("text"), returnType("list"), telegramRequest));
+        assertNull(processor.handleReturnValue(Collections.emptyList(), returnType("list"), telegramRequest));
+    }
+
+    private MethodParameter returnType(String method) {
+        return new MethodParameter(TestUtils.findMethodByTitle(this, method), -1);
+    }
+
+    public TelegramResponses responses() {
+        return null;
+    }
+
+    public List<BaseRequest> list() {
+        return null;
+    }
+
+    public List<? extends BaseRequest> wildcardList() {
+        return null;
+    }
+
+    public Set<SendMessage> set() {
+        return null;
+    }
+
+    public BaseRequest[] array() {
+        return null;
+    }
+
+    public SendMessage[] sendMessageArray() {
+        return null;
+    }
+
+    public BaseRequest request() {
+        return null;
+    }
+
+    public List<String> stringList() {
+        return null;
+    }
+
+    @SuppressWarnings("rawtypes")
+    public List rawList() {
+        return null;
+    }
+
+    public String[] stringArray() {
+        return null;
+    }
+
+    public String string() {
+        return null;
+    }
+}